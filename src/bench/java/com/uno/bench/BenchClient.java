@@ -0,0 +1,115 @@
+package com.uno.bench;
+
+import com.uno.utils.Message;
+import com.uno.utils.MessageCodec;
+import com.uno.utils.MessageType;
+import com.uno.utils.PayloadCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Client tối giản dùng trong benchmark: nói trực tiếp giao thức frame của server
+ * (phiên bản chọn bằng -Duno.protocol.version, mặc định mới nhất),
+ * không có GUI và không ghi log. Một thread đọc đưa mọi tin nhắn vào hàng đợi.
+ */
+final class BenchClient implements Closeable {
+    private final Socket socket;
+    private final DataInputStream input;
+    private final DataOutputStream output;
+    private final PayloadCodec codec;
+    private final BlockingQueue<Message> inbox;
+    private final Thread reader;
+    private String playerId;
+
+    BenchClient(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        MessageCodec.writeHandshake(output, Integer.getInteger("uno.protocol.version", PayloadCodec.LATEST_VERSION));
+        this.codec = PayloadCodec.forVersion(MessageCodec.readHandshake(input));
+        this.inbox = new LinkedBlockingQueue<>();
+        this.reader = new Thread(this::readLoop, "bench-client-reader");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * Gửi CONNECT và chờ server cấp ID người chơi
+     *
+     * @param name Tên người chơi
+     * @return ID người chơi
+     */
+    String login(String name) throws IOException, InterruptedException {
+        send(MessageType.CONNECT, name);
+        Message accept = await(MessageType.CONNECT_ACCEPT, 10_000);
+        if (accept == null) {
+            throw new IOException("No CONNECT_ACCEPT for " + name);
+        }
+        playerId = (String) accept.getData();
+        return playerId;
+    }
+
+    void send(MessageType type, Object data) throws IOException {
+        byte[] payload = codec.encode(new Message(type, data, playerId != null ? playerId : ""));
+        synchronized (output) {
+            MessageCodec.writeFrame(output, payload);
+        }
+    }
+
+    Message await(MessageType type, long timeoutMillis) throws InterruptedException {
+        return await(type, message -> true, timeoutMillis);
+    }
+
+    /**
+     * Chờ tin nhắn có kiểu mong muốn và thỏa điều kiện, bỏ qua các tin nhắn khác
+     *
+     * @return Tin nhắn nhận được hoặc null nếu hết thời gian
+     */
+    Message await(MessageType type, Predicate<Message> condition, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            Message message = inbox.poll(remaining, TimeUnit.NANOSECONDS);
+            if (message == null) {
+                return null;
+            }
+            if (message.getType() == type && condition.test(message)) {
+                return message;
+            }
+        }
+    }
+
+
+    String getPlayerId() {
+        return playerId;
+    }
+
+    private void readLoop() {
+        try {
+            while (!socket.isClosed()) {
+                inbox.add(MessageCodec.readFrame(input, codec));
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            // Kết nối đóng
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,203 @@
+package com.uno.bench;
+
+import com.uno.model.Card;
+import com.uno.model.CardColor;
+import com.uno.model.CardType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * So sánh mô hình lá bài cũ (mỗi lá một object, kiểm tra luật bằng chuỗi so sánh enum)
+ * với Card dùng chung theo mã và bảng luật tính sẵn (JMH).
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * mvn -Pbench exec:exec -Dexec.executable=java -Dexec.args="-cp %classpath org.openjdk.jmh.Main CardPlayabilityBenchmark"
+ * </pre>
+ *
+ * Thêm {@code -prof gc} vào danh sách tham số của JMH để xem số byte cấp phát mỗi phép đo.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardPlayabilityBenchmark {
+    private static final int HAND_SIZE = 7;
+    private static final int SAMPLES = 1024;
+    private static final CardColor[] PLAY_COLORS = {
+            CardColor.RED, CardColor.BLUE, CardColor.GREEN, CardColor.YELLOW };
+
+    private Card[][] hands;
+    private Card[] tops;
+    private LegacyCard[][] legacyHands;
+    private LegacyCard[] legacyTops;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        hands = new Card[SAMPLES][HAND_SIZE];
+        tops = new Card[SAMPLES];
+        legacyHands = new LegacyCard[SAMPLES][HAND_SIZE];
+        legacyTops = new LegacyCard[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            for (int j = 0; j < HAND_SIZE; j++) {
+                // Bài trên tay không có lá Wild đã chọn màu
+                Card card = Card.fromCode(random.nextInt(Card.CODE_COUNT)).withoutDeclaredColor();
+                hands[i][j] = card;
+                legacyHands[i][j] = LegacyCard.copyOf(card);
+            }
+            Card top = Card.fromCode(random.nextInt(Card.CODE_COUNT));
+            if (top.getColor() == CardColor.WILD) {
+                top = top.withDeclaredColor(PLAY_COLORS[random.nextInt(PLAY_COLORS.length)]);
+            }
+            tops[i] = top;
+            legacyTops[i] = LegacyCard.copyOf(top);
+        }
+    }
+
+    private int nextSample() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public int legacyCanPlayOn() {
+        int sample = nextSample();
+        LegacyCard top = legacyTops[sample];
+        int playable = 0;
+        for (LegacyCard card : legacyHands[sample]) {
+            if (card.canPlayOn(top)) {
+                playable++;
+            }
+        }
+        return playable;
+    }
+
+    @Benchmark
+    public int tableCanPlayOn() {
+        int sample = nextSample();
+        Card top = tops[sample];
+        int playable = 0;
+        for (Card card : hands[sample]) {
+            if (card.canPlayOn(top)) {
+                playable++;
+            }
+        }
+        return playable;
+    }
+
+    @Benchmark
+    public int tableMask() {
+        int sample = nextSample();
+        long mask = Card.playableMask(tops[sample]);
+        int playable = 0;
+        for (Card card : hands[sample]) {
+            if ((mask & card.bit()) != 0) {
+                playable++;
+            }
+        }
+        return playable;
+    }
+
+    @Benchmark
+    public List<LegacyCard> legacyBuildDeck() {
+        List<LegacyCard> cards = new ArrayList<>(108);
+        for (CardColor color : PLAY_COLORS) {
+            cards.add(new LegacyCard(color, CardType.NUMBER, 0));
+            for (int i = 1; i <= 9; i++) {
+                cards.add(new LegacyCard(color, CardType.NUMBER, i));
+                cards.add(new LegacyCard(color, CardType.NUMBER, i));
+            }
+            for (int i = 0; i < 2; i++) {
+                cards.add(new LegacyCard(color, CardType.SKIP, -1));
+                cards.add(new LegacyCard(color, CardType.REVERSE, -1));
+                cards.add(new LegacyCard(color, CardType.DRAW_TWO, -1));
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            cards.add(new LegacyCard(CardColor.WILD, CardType.WILD, -1));
+            cards.add(new LegacyCard(CardColor.WILD, CardType.WILD_DRAW_FOUR, -1));
+        }
+        return cards;
+    }
+
+    @Benchmark
+    public List<Card> flyweightBuildDeck() {
+        List<Card> cards = new ArrayList<>(108);
+        for (CardColor color : PLAY_COLORS) {
+            cards.add(Card.of(color, CardType.NUMBER, 0));
+            for (int i = 1; i <= 9; i++) {
+                cards.add(Card.of(color, CardType.NUMBER, i));
+                cards.add(Card.of(color, CardType.NUMBER, i));
+            }
+            for (int i = 0; i < 2; i++) {
+                cards.add(Card.of(color, CardType.SKIP, -1));
+                cards.add(Card.of(color, CardType.REVERSE, -1));
+                cards.add(Card.of(color, CardType.DRAW_TWO, -1));
+            }
+        }
+        for (int i = 0; i < 4; i++) {
+            cards.add(Card.of(CardColor.WILD, CardType.WILD, -1));
+            cards.add(Card.of(CardColor.WILD, CardType.WILD_DRAW_FOUR, -1));
+        }
+        return cards;
+    }
+
+    @Benchmark
+    public LegacyCard legacyDeclareWild() {
+        return new LegacyCard(PLAY_COLORS[nextSample() & 3], CardType.WILD, -1);
+    }
+
+    @Benchmark
+    public Card flyweightDeclareWild() {
+        return Card.of(CardColor.WILD, CardType.WILD, -1).withDeclaredColor(PLAY_COLORS[nextSample() & 3]);
+    }
+
+    /**
+     * Lá bài theo cách cũ: object riêng cho mỗi lá, luật chơi kiểm tra trực tiếp trên các enum
+     */
+    public static final class LegacyCard {
+        private final CardColor color;
+        private final CardType type;
+        private final int value;
+
+        LegacyCard(CardColor color, CardType type, int value) {
+            this.color = color;
+            this.type = type;
+            this.value = value;
+        }
+
+        static LegacyCard copyOf(Card card) {
+            return new LegacyCard(card.getColor(), card.getType(), card.getValue());
+        }
+
+        boolean canPlayOn(LegacyCard topCard) {
+            if (this.type == CardType.WILD || this.type == CardType.WILD_DRAW_FOUR) {
+                return true;
+            }
+            if (topCard.type == CardType.WILD || topCard.type == CardType.WILD_DRAW_FOUR) {
+                return this.color == topCard.color;
+            }
+            return this.color == topCard.color ||
+                   (this.type == topCard.type && this.type != CardType.NUMBER) ||
+                   (this.type == CardType.NUMBER && topCard.type == CardType.NUMBER && this.value == topCard.value);
+        }
+    }
+}
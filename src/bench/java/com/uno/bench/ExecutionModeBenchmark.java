@@ -0,0 +1,371 @@
+package com.uno.bench;
+
+import com.uno.protocol.GameDelta;
+import com.uno.protocol.GameState;
+import com.uno.protocol.RoomSnapshot;
+import com.uno.server.ServerConfig;
+import com.uno.server.UnoServer;
+import com.uno.utils.Message;
+import com.uno.utils.MessageCodec;
+import com.uno.utils.MessageType;
+import com.uno.utils.PayloadCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * So sánh các engine của server (platform thread, virtual thread, NIO) về bộ nhớ
+ * cho mỗi kết nối và độ trễ p99 của hành động game khi server giữ nhiều kết nối rảnh.
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * java -Xmx2g -cp target/classes com.uno.bench.ExecutionModeBenchmark thread 1000
+ * java -Xmx2g -cp target/classes com.uno.bench.ExecutionModeBenchmark virtual 10000
+ * </pre>
+ *
+ * Mỗi lần chạy nên dùng một JVM riêng. Với 10k client cần nâng giới hạn file descriptor
+ * (ulimit -n) lên trên 2 x số client vì client giả lập chạy trong cùng tiến trình.
+ * Bộ nhớ được đo bằng RSS của tiến trình (Linux /proc/self/status) nên bao gồm cả stack
+ * của thread, vốn nằm ngoài heap.
+ */
+public final class ExecutionModeBenchmark {
+    private static final int ACTIVE_PAIRS = Integer.getInteger("bench.pairs", 50);
+    private static final int CYCLES_PER_PAIR = Integer.getInteger("bench.cycles", 40);
+    private static final long BYTES_PER_GB = 1L << 30;
+
+    private ExecutionModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String engine = args.length > 0 ? args[0] : "thread";
+        int idleClients = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        int port = freePort();
+        System.setProperty("uno.server.engine", engine);
+        // Client rảnh chỉ đọc bỏ, không trả lời PING: không để server đóng chúng giữa lúc đo.
+        // Client giả lập kết nối và gửi hành động nhanh hết mức nên bỏ giới hạn tốc độ và số kết nối.
+        setDefaultProperty("uno.server.idleTimeoutSec", "3600");
+        setDefaultProperty("uno.server.maxConnections", "0");
+        setDefaultProperty("uno.server.rate.accept", "0");
+        setDefaultProperty("uno.server.rate.messages", "0");
+        setDefaultProperty("uno.server.rate.game", "0");
+        UnoServer server = new UnoServer(port, ServerConfig.fromSystemProperties());
+        Thread serverThread = new Thread(server::start, "bench-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        Thread.sleep(500);
+
+        Snapshot before = Snapshot.take();
+
+        IdleClientPool idle = new IdleClientPool();
+        idle.connect(port, idleClients);
+        waitForClients(server, idleClients);
+        Thread.sleep(2000);
+
+        Snapshot after = Snapshot.take();
+
+        long[] latencies = runActivePairs(port);
+
+        double rssPerConnection = (double) (after.rss - before.rss) / idleClients;
+        double heapPerConnection = (double) (after.heap - before.heap) / idleClients;
+        double connectionsPerGb = rssPerConnection > 0 ? BYTES_PER_GB / rssPerConnection : Double.NaN;
+
+        console.printf("engine=%s idleClients=%d threads=%d rssPerConnKB=%.1f heapPerConnKB=%.1f connectionsPerGB=%.0f " +
+                        "actions=%d p50Ms=%.2f p99Ms=%.2f maxMs=%.2f%n",
+                engine, idleClients, after.threads - before.threads,
+                rssPerConnection / 1024.0, heapPerConnection / 1024.0, connectionsPerGb,
+                latencies.length, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                latencies.length > 0 ? latencies[latencies.length - 1] / 1e6 : Double.NaN);
+
+        idle.close();
+        server.stop();
+        System.exit(0);
+    }
+
+    private static void setDefaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Chạy các cặp người chơi: mỗi cặp tạo phòng, bắt đầu game rồi luân phiên rút bài và
+     * kết thúc lượt. Độ trễ được đo từ lúc gửi hành động đến lúc nhận GAME_DELTA tương ứng.
+     * Phòng được tạo tuần tự, chỉ các hành động trong game chạy song song.
+     */
+    private static long[] runActivePairs(int port) throws Exception {
+        List<Pair> pairs = new ArrayList<>();
+        for (int i = 0; i < ACTIVE_PAIRS; i++) {
+            pairs.add(Pair.open(port, i));
+        }
+
+        ConcurrentLinkedQueue<long[]> results = new ConcurrentLinkedQueue<>();
+        List<Thread> threads = new ArrayList<>();
+        for (Pair pair : pairs) {
+            Thread thread = new Thread(() -> {
+                try {
+                    results.add(pair.play());
+                } catch (Exception e) {
+                    System.err.println("Pair failed: " + e);
+                }
+            }, "bench-pair");
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Pair pair : pairs) {
+            pair.close();
+        }
+
+        int total = 0;
+        for (long[] samples : results) {
+            total += samples.length;
+        }
+        long[] merged = new long[total];
+        int offset = 0;
+        for (long[] samples : results) {
+            System.arraycopy(samples, 0, merged, offset, samples.length);
+            offset += samples.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /**
+     * Hai người chơi trong cùng một phòng đã bắt đầu game
+     */
+    private static final class Pair {
+        private final BenchClient host;
+        private final BenchClient guest;
+        private String current;
+
+        private Pair(BenchClient host, BenchClient guest, GameState initialState) {
+            this.host = host;
+            this.guest = guest;
+            this.current = initialState.getCurrentPlayerId();
+        }
+
+        static Pair open(int port, int index) throws Exception {
+            BenchClient host = new BenchClient("127.0.0.1", port);
+            BenchClient guest = new BenchClient("127.0.0.1", port);
+            host.login("host-" + index);
+            guest.login("guest-" + index);
+
+            host.send(MessageType.CREATE_ROOM, "bench-" + index);
+            Message roomUpdate = host.await(MessageType.ROOM_UPDATE, 10_000);
+            String roomId = ((RoomSnapshot) roomUpdate.getData()).getId();
+            guest.send(MessageType.JOIN_ROOM, roomId);
+            guest.await(MessageType.ROOM_UPDATE, 10_000);
+
+            host.send(MessageType.START_GAME, null);
+            Message start = host.await(MessageType.START_GAME, 10_000);
+            return new Pair(host, guest, (GameState) start.getData());
+        }
+
+        long[] play() throws Exception {
+            long[] samples = new long[CYCLES_PER_PAIR * 2];
+            int count = 0;
+            for (int cycle = 0; cycle < CYCLES_PER_PAIR; cycle++) {
+                BenchClient actor = current.equals(host.getPlayerId()) ? host : guest;
+                String actorId = actor.getPlayerId();
+
+                // Chỉ chấp nhận GAME_DELTA phản ánh đúng hành động vừa gửi
+                long drawStart = System.nanoTime();
+                actor.send(MessageType.DRAW_CARD, null);
+                Message drawn = actor.await(MessageType.GAME_DELTA,
+                        message -> find(message, GameDelta.Kind.CARDS_DRAWN, actorId) != null, 10_000);
+                if (drawn == null) {
+                    break;
+                }
+                samples[count++] = System.nanoTime() - drawStart;
+
+                long endTurnStart = System.nanoTime();
+                actor.send(MessageType.END_TURN, null);
+                Message update = actor.await(MessageType.GAME_DELTA,
+                        message -> find(message, GameDelta.Kind.TURN_CHANGED, null) != null, 10_000);
+                if (update == null) {
+                    break;
+                }
+                samples[count++] = System.nanoTime() - endTurnStart;
+
+                current = find(update, GameDelta.Kind.TURN_CHANGED, null).getPlayerId();
+            }
+            return Arrays.copyOf(samples, count);
+        }
+
+        /**
+         * Tìm thay đổi có loại mong muốn (và của người chơi cụ thể nếu playerId khác null) trong GAME_DELTA
+         */
+        private static GameDelta.Event find(Message message, GameDelta.Kind kind, String playerId) {
+            for (GameDelta.Event event : ((GameDelta) message.getData()).getEvents()) {
+                if (event.getKind() == kind && (playerId == null || playerId.equals(event.getPlayerId()))) {
+                    return event;
+                }
+            }
+            return null;
+        }
+
+        void close() throws IOException {
+            host.close();
+            guest.close();
+        }
+    }
+
+    private static void waitForClients(UnoServer server, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 120_000;
+        while (server.getClientCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Các client rảnh: đã gửi CONNECT rồi chỉ đọc và bỏ qua dữ liệu server gửi
+     * (ví dụ ROOM_LIST) bằng một selector duy nhất, không tốn thread cho mỗi client.
+     */
+    private static final class IdleClientPool implements Runnable {
+        private final Selector selector;
+        private final List<SocketChannel> channels;
+        private final Thread thread;
+        private volatile boolean running;
+
+        IdleClientPool() throws IOException {
+            this.selector = Selector.open();
+            this.channels = new ArrayList<>();
+            this.thread = new Thread(this, "bench-idle-drainer");
+            this.thread.setDaemon(true);
+            this.running = true;
+            this.thread.start();
+        }
+
+        void connect(int port, int count) throws IOException {
+            for (int i = 0; i < count; i++) {
+                SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port));
+                // Handshake và CONNECT gửi liền nhau; câu trả lời handshake bị bỏ qua như mọi dữ liệu khác
+                int version = Integer.getInteger("uno.protocol.version", PayloadCodec.LATEST_VERSION);
+                byte[] payload = PayloadCodec.forVersion(version).encode(new Message(MessageType.CONNECT, "idle-" + i, ""));
+                ByteBuffer frame = ByteBuffer.allocate(MessageCodec.HANDSHAKE_SIZE + MessageCodec.HEADER_SIZE + payload.length);
+                frame.putInt(MessageCodec.HANDSHAKE_MAGIC).put((byte) version);
+                frame.putInt(payload.length).put(payload).flip();
+                while (frame.hasRemaining()) {
+                    channel.write(frame);
+                }
+                channel.configureBlocking(false);
+                synchronized (channels) {
+                    channels.add(channel);
+                }
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer sink = ByteBuffer.allocateDirect(64 * 1024);
+            try {
+                while (running) {
+                    synchronized (channels) {
+                        for (SocketChannel channel : channels) {
+                            if (channel.keyFor(selector) == null) {
+                                channel.register(selector, SelectionKey.OP_READ);
+                            }
+                        }
+                    }
+                    selector.select(100);
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        sink.clear();
+                        if (((SocketChannel) key.channel()).read(sink) < 0) {
+                            key.cancel();
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                if (running) {
+                    System.err.println("Idle drainer failed: " + e);
+                }
+            }
+        }
+
+        void close() throws IOException {
+            running = false;
+            synchronized (channels) {
+                for (SocketChannel channel : channels) {
+                    channel.close();
+                }
+            }
+            selector.close();
+        }
+    }
+
+    /**
+     * Ảnh chụp mức dùng bộ nhớ và số thread của tiến trình
+     */
+    private static final class Snapshot {
+        final long rss;
+        final long heap;
+        final int threads;
+
+        private Snapshot(long rss, long heap, int threads) {
+            this.rss = rss;
+            this.heap = heap;
+            this.threads = threads;
+        }
+
+        static Snapshot take() throws InterruptedException {
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+                Thread.sleep(200);
+            }
+            Runtime runtime = Runtime.getRuntime();
+            long heap = runtime.totalMemory() - runtime.freeMemory();
+            int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+            return new Snapshot(readRss(heap), heap, threads);
+        }
+
+        private static long readRss(long fallback) {
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                // Không phải Linux: dùng heap làm xấp xỉ
+            }
+            return fallback;
+        }
+    }
+}
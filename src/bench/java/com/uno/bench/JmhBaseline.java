@@ -0,0 +1,172 @@
+package com.uno.bench;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chạy các benchmark JMH của mô hình game và giao thức kèm GC profiler, rồi so sánh thời gian
+ * mỗi thao tác và số byte cấp phát mỗi thao tác với kết quả gốc đã lưu.
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * mvn -Pbench exec:exec -Dexec.executable=java -Dexec.args="-cp %classpath com.uno.bench.JmhBaseline"
+ * </pre>
+ *
+ * Tham số: regex chọn benchmark (mặc định ModelBenchmark, ProtocolBenchmark và
+ * CardPlayabilityBenchmark). Kết quả gốc nằm ở -Dbench.baseline (mặc định
+ * src/bench/baseline/jmh.tsv); lần chạy đầu, hoặc khi đặt -Dbench.updateBaseline=true, kết quả
+ * được ghi làm kết quả gốc. Các lần sau in chênh lệch so với kết quả gốc và đánh dấu
+ * REGRESSION khi thời gian hoặc cấp phát tăng quá -Dbench.threshold phần trăm (mặc định 10);
+ * khi có regression tiến trình thoát với mã 1. Kết quả JSON đầy đủ của JMH nằm ở
+ * target/jmh-result.json. Chỉ so sánh các lần chạy trên cùng một máy.
+ */
+public final class JmhBaseline {
+    private static final String DEFAULT_INCLUDE = "com\\.uno\\.bench\\.(ModelBenchmark|ProtocolBenchmark|CardPlayabilityBenchmark)\\.";
+    private static final String[] ALLOCATION_KEYS = {"gc.alloc.rate.norm", "·gc.alloc.rate.norm"};
+
+    private JmhBaseline() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : DEFAULT_INCLUDE;
+        Path baselineFile = Path.of(System.getProperty("bench.baseline", "src/bench/baseline/jmh.tsv"));
+        boolean update = Boolean.getBoolean("bench.updateBaseline");
+        double threshold = Double.parseDouble(System.getProperty("bench.threshold", "10"));
+
+        Files.createDirectories(Path.of("target"));
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build()).run();
+
+        Map<String, Entry> current = new LinkedHashMap<>();
+        for (RunResult result : results) {
+            Entry entry = new Entry(result.getPrimaryResult().getScore(), result.getPrimaryResult().getScoreUnit(),
+                    allocation(result));
+            current.put(key(result.getParams()), entry);
+        }
+
+        if (update || !Files.exists(baselineFile)) {
+            write(baselineFile, current);
+            System.out.printf("Da ghi %d ket qua goc vao %s%n", current.size(), baselineFile);
+            return;
+        }
+
+        Map<String, Entry> baseline = read(baselineFile);
+        int regressions = 0;
+        System.out.printf("%-60s %14s %9s %14s %9s%n", "benchmark", "score", "delta", "B/op", "delta");
+        for (Map.Entry<String, Entry> row : current.entrySet()) {
+            Entry now = row.getValue();
+            Entry before = baseline.get(row.getKey());
+            if (before == null) {
+                System.out.printf("%-60s %14.3f %9s %14.1f %9s  (chua co ket qua goc)%n",
+                        row.getKey(), now.score, "", now.bytesPerOp, "");
+                continue;
+            }
+            double scoreDelta = percent(before.score, now.score);
+            double allocationDelta = percent(before.bytesPerOp, now.bytesPerOp);
+            boolean regression = scoreDelta > threshold || allocationDelta > threshold;
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf("%-60s %14.3f %+8.1f%% %14.1f %+8.1f%%%s%n", row.getKey(), now.score, scoreDelta,
+                    now.bytesPerOp, allocationDelta, regression ? "  REGRESSION" : "");
+        }
+        System.out.printf("%d benchmark, %d regression (nguong %.0f%%, ket qua goc %s)%n",
+                current.size(), regressions, threshold, baselineFile);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Tên ngắn của benchmark kèm tham số, ví dụ ProtocolBenchmark.gameStateForAllViewers:players=4
+     */
+    private static String key(BenchmarkParams params) {
+        String benchmark = params.getBenchmark();
+        int method = benchmark.lastIndexOf('.');
+        StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1));
+        for (String name : params.getParamsKeys()) {
+            key.append(':').append(name).append('=').append(params.getParam(name));
+        }
+        return key.toString();
+    }
+
+    private static double allocation(RunResult result) {
+        Map<String, Result> secondary = result.getSecondaryResults();
+        for (String name : ALLOCATION_KEYS) {
+            Result allocation = secondary.get(name);
+            if (allocation != null) {
+                return allocation.getScore();
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Chênh lệch phần trăm; cấp phát gốc bằng 0 thì bất kỳ cấp phát nào cũng là tăng 100%
+     */
+    private static double percent(double before, double now) {
+        if (Double.isNaN(before) || Double.isNaN(now)) {
+            return 0;
+        }
+        if (before == 0) {
+            return now == 0 ? 0 : 100;
+        }
+        return (now - before) * 100 / before;
+    }
+
+    private static void write(Path file, Map<String, Entry> entries) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("# benchmark\tscore\tunit\tbytesPerOp");
+        for (Map.Entry<String, Entry> row : entries.entrySet()) {
+            Entry entry = row.getValue();
+            lines.add(row.getKey() + '\t' + entry.score + '\t' + entry.unit + '\t' + entry.bytesPerOp);
+        }
+        Files.write(file, lines, StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Entry> read(Path file) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            entries.put(fields[0], new Entry(Double.parseDouble(fields[1]), fields[2], Double.parseDouble(fields[3])));
+        }
+        return entries;
+    }
+
+    private static final class Entry {
+        final double score;
+        final String unit;
+        final double bytesPerOp;
+
+        Entry(double score, String unit, double bytesPerOp) {
+            this.score = score;
+            this.unit = unit;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.uno.bench;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram độ trễ kiểu HDR: giá trị dưới 128ns được đếm chính xác, từ đó trở lên mỗi khoảng
+ * [2^k, 2^(k+1)) được chia thành 64 ô bằng nhau nên sai số tương đối không quá 1/64 (~1.6%)
+ * ở mọi độ lớn, với số ô cố định bất kể số mẫu. Nhiều thread ghi cùng lúc mà không cần khóa.
+ * Giá trị lớn hơn {@link #MAX_VALUE} được ghi vào ô cuối.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 7;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    /** Giá trị lớn nhất phân biệt được: ~18 phút tính bằng nano giây */
+    static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts;
+    private final AtomicLong count;
+    private final AtomicLong sum;
+    private final AtomicLong max;
+
+    LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.count = new AtomicLong();
+        this.sum = new AtomicLong();
+        this.max = new AtomicLong();
+    }
+
+    /**
+     * Ghi một mẫu
+     *
+     * @param value Độ trễ (nano giây), giá trị âm được coi là 0
+     */
+    void record(long value) {
+        long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+        counts.incrementAndGet(indexOf(clamped));
+        count.incrementAndGet();
+        sum.addAndGet(clamped);
+        max.accumulateAndGet(clamped, Math::max);
+    }
+
+    /**
+     * Ô của một giá trị: giá trị nhỏ có ô riêng; giá trị lớn được xác định bởi vị trí bit cao
+     * nhất và 6 bit ngay sau nó
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift);
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + (sub - HALF_COUNT);
+    }
+
+    /**
+     * Giá trị lớn nhất thuộc một ô
+     */
+    private static long highestValueOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_COUNT) / HALF_COUNT + 1;
+        long sub = (index - SUB_COUNT) % HALF_COUNT + HALF_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    long getCount() {
+        return count.get();
+    }
+
+    long getMax() {
+        return max.get();
+    }
+
+    double getMean() {
+        long samples = count.get();
+        return samples == 0 ? Double.NaN : (double) sum.get() / samples;
+    }
+
+    /**
+     * Giá trị tại một phân vị, làm tròn lên cận trên của ô chứa nó (không vượt quá giá trị lớn nhất)
+     *
+     * @param percentile Phân vị từ 0 đến 100, ví dụ 99.9
+     * @return Độ trễ (nano giây), 0 nếu chưa có mẫu
+     */
+    long getValueAtPercentile(double percentile) {
+        long samples = count.get();
+        if (samples == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * samples));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+}
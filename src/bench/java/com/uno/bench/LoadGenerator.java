@@ -0,0 +1,511 @@
+package com.uno.bench;
+
+import com.uno.client.UnoClient;
+import com.uno.model.Card;
+import com.uno.model.CardColor;
+import com.uno.protocol.GameState;
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomSnapshot;
+import com.uno.server.ServerConfig;
+import com.uno.server.ServerMetrics;
+import com.uno.server.UnoServer;
+import com.uno.utils.PayloadCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bầy người chơi giả lập không có giao diện, dùng {@link UnoClient} như client thật: mỗi bàn
+ * gồm một chủ phòng và các khách, chủ phòng tạo phòng, khách vào phòng, chủ phòng bắt đầu game
+ * và mọi người tự đánh lá hợp lệ đầu tiên ({@link Card#canPlayOn}), không có thì rút một lá,
+ * rút rồi vẫn không đánh được thì kết thúc lượt. Hết ván thì cả bàn rời phòng và mở phòng mới.
+ *
+ * Độ trễ được đo từ lúc gửi hành động (đánh, rút, kết thúc lượt) đến khi người gửi nhận được
+ * trạng thái game có phiên bản mới hơn (GAME_DELTA hoặc GAME_UPDATE), ghi vào {@link LatencyHistogram}.
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * java -Xmx2g -cp target/classes com.uno.bench.LoadGenerator 2000
+ * java -cp target/classes com.uno.bench.LoadGenerator 2000 game-server:5000
+ * </pre>
+ *
+ * Tham số: số người chơi (mặc định 1000), địa chỉ server host:port (mặc định chạy server
+ * trong cùng tiến trình với engine -Duno.server.engine và bỏ giới hạn tốc độ). Tùy chọn:
+ * -Dbench.roomSize (mặc định 4), -Dbench.seconds thời gian đo (mặc định 60),
+ * -Dbench.warmupSeconds (mặc định 10), -Dbench.thinkMs thời gian suy nghĩ trước mỗi hành động
+ * (mặc định 0), -Dbench.out file kết quả JSON (mặc định target/load-result.json). Số kết nối
+ * phía server chỉ có khi server chạy cùng tiến trình. Mỗi người chơi giả lập dùng một socket
+ * và một thread đọc nên cần ulimit -n lớn hơn 2 lần số người chơi khi chạy cùng tiến trình.
+ */
+public final class LoadGenerator {
+    private static final int ROOM_SIZE = Integer.getInteger("bench.roomSize", 4);
+    private static final int SECONDS = Integer.getInteger("bench.seconds", 60);
+    private static final int WARMUP_SECONDS = Integer.getInteger("bench.warmupSeconds", 10);
+    private static final int THINK_MS = Integer.getInteger("bench.thinkMs", 0);
+    /** Bàn không có tiến triển lâu hơn chừng này bị coi là kẹt */
+    private static final long STALL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final LatencyHistogram LATENCY = new LatencyHistogram();
+    private static final LongAdder ACTIONS = new LongAdder();
+    private static final LongAdder GAMES = new LongAdder();
+    private static final LongAdder CONNECT_FAILURES = new LongAdder();
+    private static final LongAdder REJECTED = new LongAdder();
+    private static final LongAdder CONNECTION_ERRORS = new LongAdder();
+    private static final LongAdder SERVER_ERRORS = new LongAdder();
+
+    private static volatile boolean measuring;
+    private static volatile boolean running = true;
+    private static ScheduledExecutorService thinker;
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        String target = args.length > 1 ? args[1] : null;
+        // Hàng nghìn client và server cùng ghi log INFO sẽ lấn át phép đo
+        setDefaultProperty("uno.log.level", "WARN");
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        UnoServer server = null;
+        String host;
+        int port;
+        if (target == null) {
+            host = "127.0.0.1";
+            port = freePort();
+            setDefaultProperty("uno.server.maxConnections", "0");
+            setDefaultProperty("uno.server.rate.accept", "0");
+            setDefaultProperty("uno.server.rate.messages", "0");
+            setDefaultProperty("uno.server.rate.room", "0");
+            setDefaultProperty("uno.server.rate.game", "0");
+            server = new UnoServer(port, ServerConfig.fromSystemProperties());
+            Thread serverThread = new Thread(server::start, "bench-server");
+            serverThread.setDaemon(true);
+            serverThread.start();
+            Thread.sleep(500);
+        } else {
+            int colon = target.lastIndexOf(':');
+            host = colon < 0 ? target : target.substring(0, colon);
+            port = colon < 0 ? 5000 : Integer.parseInt(target.substring(colon + 1));
+        }
+        if (THINK_MS > 0) {
+            thinker = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), task -> {
+                Thread thread = new Thread(task, "bench-think");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        // Kết nối tuần tự để không vượt hàng đợi accept của server; bàn bắt đầu chơi ngay khi đủ người
+        List<Table> tables = new ArrayList<>();
+        for (int i = 0; i + ROOM_SIZE <= players; i += ROOM_SIZE) {
+            Table table = new Table(tables.size());
+            tables.add(table);
+            table.connect(host, port);
+        }
+        int connected = tables.size() * ROOM_SIZE - CONNECT_FAILURES.intValue();
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(WARMUP_SECONDS));
+        long actionsBefore = ACTIONS.sum();
+        long gamesBefore = GAMES.sum();
+        measuring = true;
+        long start = System.nanoTime();
+        int peakConnections = 0;
+        for (int second = 0; second < SECONDS; second++) {
+            Thread.sleep(1000);
+            if (server != null) {
+                peakConnections = Math.max(peakConnections, server.getClientCount());
+            }
+        }
+        measuring = false;
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long actions = ACTIONS.sum() - actionsBefore;
+        long games = GAMES.sum() - gamesBefore;
+        int stalled = 0;
+        for (Table table : tables) {
+            if (table.isStalled()) {
+                stalled++;
+            }
+        }
+        Integer serverConnections = server != null ? server.getClientCount() : null;
+
+        String result = json(players, target != null ? target : "in-process", connected, tables.size(), elapsed,
+                actions, games, stalled, serverConnections, peakConnections, server != null ? server.getMetrics() : null);
+        Path out = Path.of(System.getProperty("bench.out", "target/load-result.json"));
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, result, StandardCharsets.UTF_8);
+
+        console.printf(Locale.ROOT, "players=%d tables=%d connected=%d serverConnections=%s actionsPerSec=%.0f " +
+                        "gamesPerSec=%.2f p50Ms=%.2f p99Ms=%.2f p999Ms=%.2f maxMs=%.2f errors=%d stalledTables=%d out=%s%n",
+                players, tables.size(), connected, serverConnections, actions / elapsed, games / elapsed,
+                LATENCY.getValueAtPercentile(50) / 1e6, LATENCY.getValueAtPercentile(99) / 1e6,
+                LATENCY.getValueAtPercentile(99.9) / 1e6, LATENCY.getMax() / 1e6,
+                CONNECT_FAILURES.sum() + REJECTED.sum() + CONNECTION_ERRORS.sum() + SERVER_ERRORS.sum(), stalled, out);
+
+        running = false;
+        for (Table table : tables) {
+            table.disconnect();
+        }
+        if (server != null) {
+            server.stop();
+        }
+        System.exit(0);
+    }
+
+    private static String json(int players, String target, int connected, int tables, double elapsed, long actions,
+                               long games, int stalled, Integer serverConnections, int peakConnections,
+                               ServerMetrics metrics) {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n");
+        json.append("  \"target\": \"").append(target).append("\",\n");
+        json.append("  \"engine\": \"").append(System.getProperty("uno.server.engine", "thread")).append("\",\n");
+        json.append("  \"protocolVersion\": ")
+                .append(Integer.getInteger("uno.protocol.version", PayloadCodec.LATEST_VERSION)).append(",\n");
+        json.append("  \"players\": ").append(players).append(",\n");
+        json.append("  \"roomSize\": ").append(ROOM_SIZE).append(",\n");
+        json.append("  \"tables\": ").append(tables).append(",\n");
+        json.append("  \"connectedPlayers\": ").append(connected).append(",\n");
+        json.append("  \"thinkMs\": ").append(THINK_MS).append(",\n");
+        json.append("  \"durationSec\": ").append(format(elapsed)).append(",\n");
+        json.append("  \"actions\": ").append(actions).append(",\n");
+        json.append("  \"actionsPerSec\": ").append(format(actions / elapsed)).append(",\n");
+        json.append("  \"gamesCompleted\": ").append(games).append(",\n");
+        json.append("  \"gamesPerSec\": ").append(format(games / elapsed)).append(",\n");
+        json.append("  \"latencyMs\": {");
+        json.append("\"count\": ").append(LATENCY.getCount());
+        json.append(", \"mean\": ").append(format(LATENCY.getMean() / 1e6));
+        json.append(", \"p50\": ").append(format(LATENCY.getValueAtPercentile(50) / 1e6));
+        json.append(", \"p90\": ").append(format(LATENCY.getValueAtPercentile(90) / 1e6));
+        json.append(", \"p99\": ").append(format(LATENCY.getValueAtPercentile(99) / 1e6));
+        json.append(", \"p999\": ").append(format(LATENCY.getValueAtPercentile(99.9) / 1e6));
+        json.append(", \"max\": ").append(format(LATENCY.getMax() / 1e6)).append("},\n");
+        json.append("  \"errors\": {");
+        json.append("\"connectFailures\": ").append(CONNECT_FAILURES.sum());
+        json.append(", \"rejected\": ").append(REJECTED.sum());
+        json.append(", \"connectionErrors\": ").append(CONNECTION_ERRORS.sum());
+        json.append(", \"serverErrors\": ").append(SERVER_ERRORS.sum());
+        json.append(", \"stalledTables\": ").append(stalled).append("},\n");
+        json.append("  \"server\": ");
+        if (metrics == null) {
+            json.append("null\n");
+        } else {
+            json.append("{\"connections\": ").append(serverConnections);
+            json.append(", \"peakConnections\": ").append(peakConnections);
+            json.append(", \"rejectedConnections\": ").append(metrics.getRejectedConnections());
+            json.append(", \"rateLimitedMessages\": ").append(metrics.getRateLimitedMessages());
+            json.append(", \"droppedMessages\": ").append(metrics.getDroppedMessages());
+            json.append(", \"slowConsumerDisconnects\": ").append(metrics.getSlowConsumerDisconnects());
+            json.append(", \"maxQueueDepth\": ").append(metrics.getMaxQueueDepth()).append("}\n");
+        }
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static String format(double value) {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "null" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static void setDefaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Một nhóm người chơi luôn ngồi cùng phòng: người đầu tiên là chủ phòng. Sau mỗi ván cả
+     * nhóm rời phòng, đợi đủ người rời rồi chủ phòng mở phòng mới để khách vào
+     */
+    private static final class Table {
+        private final int index;
+        private final List<Bot> bots;
+        private final AtomicInteger inLobby;
+        private volatile long lastProgress;
+        private int round;
+
+        Table(int index) {
+            this.index = index;
+            this.bots = new ArrayList<>();
+            this.inLobby = new AtomicInteger();
+            this.lastProgress = System.nanoTime();
+        }
+
+        void connect(String host, int port) {
+            for (int seat = 0; seat < ROOM_SIZE; seat++) {
+                Bot bot = new Bot(this, seat == 0);
+                bots.add(bot);
+                if (!bot.connect(host, port, "load-" + index + "-" + seat)) {
+                    CONNECT_FAILURES.increment();
+                }
+            }
+        }
+
+        Bot host() {
+            return bots.get(0);
+        }
+
+        /**
+         * Một người chơi đã kết nối xong hoặc đã rời phòng; khi cả bàn ở sảnh thì mở phòng mới
+         */
+        void arrivedInLobby() {
+            if (inLobby.incrementAndGet() == ROOM_SIZE && running) {
+                inLobby.set(0);
+                host().createRoom("load-" + index + "-" + round++);
+            }
+        }
+
+        void roomCreated(String roomId) {
+            for (int seat = 1; seat < bots.size(); seat++) {
+                bots.get(seat).joinRoom(roomId);
+            }
+        }
+
+        void progress() {
+            lastProgress = System.nanoTime();
+        }
+
+        boolean isStalled() {
+            return System.nanoTime() - lastProgress > STALL_NANOS;
+        }
+
+        void disconnect() {
+            for (Bot bot : bots) {
+                bot.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Một người chơi giả lập. Các callback chạy trên thread đọc mạng của {@link UnoClient};
+     * hành động được gửi ngay trên thread đó, hoặc sau thời gian suy nghĩ trên thread của bench
+     */
+    private static final class Bot implements UnoClient.ClientListener {
+        private final Table table;
+        private final boolean host;
+        private UnoClient client;
+        private volatile String playerId;
+        private String roomId;
+        private boolean startSent;
+
+        // Hành động đang chờ trạng thái mới và thông tin lượt hiện tại, khóa bằng chính bot
+        private long sentAt;
+        private int sentVersion = Integer.MAX_VALUE;
+        private boolean drewThisTurn;
+        private GameState lastState;
+        private int retriedVersion = -1;
+
+        Bot(Table table, boolean host) {
+            this.table = table;
+            this.host = host;
+        }
+
+        boolean connect(String host, int port, String name) {
+            client = new UnoClient(host, port, this);
+            return client.connect(name);
+        }
+
+        void createRoom(String name) {
+            client.createRoom(name);
+        }
+
+        void joinRoom(String id) {
+            client.joinRoom(id);
+        }
+
+        void disconnect() {
+            if (client != null) {
+                client.disconnect();
+            }
+        }
+
+        @Override
+        public void onConnected(String clientId) {
+            playerId = clientId;
+            table.arrivedInLobby();
+        }
+
+        @Override
+        public void onRoomUpdated(Object roomData) {
+            if (!host || !(roomData instanceof RoomSnapshot)) {
+                return;
+            }
+            RoomSnapshot room = (RoomSnapshot) roomData;
+            if (room.getStatus() != RoomSnapshot.Status.WAITING || !playerId.equals(room.getHostId())) {
+                return;
+            }
+            if (!room.getId().equals(roomId)) {
+                roomId = room.getId();
+                startSent = false;
+                table.roomCreated(roomId);
+            }
+            if (room.getPlayerCount() == ROOM_SIZE && !startSent) {
+                startSent = true;
+                client.startGame();
+            }
+        }
+
+        @Override
+        public void onGameStarted(Object gameData) {
+            synchronized (this) {
+                sentVersion = Integer.MAX_VALUE;
+                drewThisTurn = false;
+            }
+            onGameUpdated(gameData);
+        }
+
+        @Override
+        public void onGameUpdated(Object gameState) {
+            if (!(gameState instanceof GameState)) {
+                return;
+            }
+            GameState state = (GameState) gameState;
+            table.progress();
+            synchronized (this) {
+                lastState = state;
+                if (state.getVersion() > sentVersion) {
+                    if (measuring) {
+                        LATENCY.record(System.nanoTime() - sentAt);
+                        ACTIONS.increment();
+                    }
+                    sentVersion = Integer.MAX_VALUE;
+                }
+                if (!playerId.equals(state.getCurrentPlayerId())) {
+                    drewThisTurn = false;
+                    return;
+                }
+                if (state.isGameOver() || sentVersion != Integer.MAX_VALUE || !running) {
+                    return;
+                }
+                // Đánh dấu ngay để trạng thái đến trong lúc suy nghĩ không gây hành động thứ hai
+                sentVersion = state.getVersion();
+            }
+            if (thinker != null) {
+                thinker.schedule(() -> act(state), THINK_MS, TimeUnit.MILLISECONDS);
+            } else {
+                act(state);
+            }
+        }
+
+        /**
+         * Đánh lá hợp lệ đầu tiên, không có thì rút một lá, đã rút thì kết thúc lượt
+         */
+        private synchronized void act(GameState state) {
+            List<Card> hand = state.getPlayerInfos().get(playerId).getHand();
+            Card top = state.getTopCard();
+            sentAt = System.nanoTime();
+            for (int i = 0; i < hand.size(); i++) {
+                if (hand.get(i).canPlayOn(top)) {
+                    client.playCard(i, chooseColor(hand));
+                    return;
+                }
+            }
+            if (!drewThisTurn) {
+                drewThisTurn = true;
+                client.drawCard();
+            } else {
+                client.endTurn();
+            }
+        }
+
+        /**
+         * Màu của lá không phải Wild đầu tiên trên tay, dùng khi đánh lá Wild
+         */
+        private static CardColor chooseColor(List<Card> hand) {
+            for (Card card : hand) {
+                if (!card.isWild()) {
+                    return card.getColor();
+                }
+            }
+            return CardColor.RED;
+        }
+
+        @Override
+        public void onGameOver(Object winner) {
+            if (measuring) {
+                GAMES.increment();
+            }
+            if (running) {
+                client.leaveRoom();
+                table.arrivedInLobby();
+            }
+        }
+
+        @Override
+        public void onErrorReceived(String errorMessage) {
+            SERVER_ERRORS.increment();
+            // Hành động bị từ chối không có trạng thái mới: rút bài hoặc kết thúc lượt thay vào đó
+            // (một lần cho mỗi trạng thái) để bàn không kẹt mãi
+            synchronized (this) {
+                GameState state = lastState;
+                if (sentVersion == Integer.MAX_VALUE || state == null || state.getVersion() == retriedVersion
+                        || !playerId.equals(state.getCurrentPlayerId()) || !running) {
+                    sentVersion = Integer.MAX_VALUE;
+                    return;
+                }
+                retriedVersion = state.getVersion();
+                sentAt = System.nanoTime();
+                if (!drewThisTurn) {
+                    drewThisTurn = true;
+                    client.drawCard();
+                } else {
+                    client.endTurn();
+                }
+            }
+        }
+
+        @Override
+        public void onConnectionRejected(String reason) {
+            REJECTED.increment();
+        }
+
+        @Override
+        public void onConnectionError(String message) {
+            if (playerId != null && running) {
+                CONNECTION_ERRORS.increment();
+            }
+        }
+
+        @Override
+        public void onDisconnected() {
+        }
+
+        @Override
+        public void onRoomListReceived(List<Map<String, Object>> roomList) {
+        }
+
+        @Override
+        public void onRoomPageReceived(RoomPage page) {
+        }
+
+        @Override
+        public void onChatMessageReceived(String message, String senderId) {
+        }
+
+        @Override
+        public void onInfoReceived(String infoMessage) {
+        }
+    }
+}
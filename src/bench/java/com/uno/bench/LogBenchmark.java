@@ -0,0 +1,126 @@
+package com.uno.bench;
+
+import com.uno.utils.Log;
+import com.uno.utils.StringUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * So sánh chi phí ghi log trên thread xử lý khi nhiều thread cùng ghi:
+ * <ul>
+ *   <li>println: định dạng trên thread gọi rồi println vào một PrintStream dùng chung (cách cũ)</li>
+ *   <li>async: {@link Log} với ring buffer và thread ghi file nền</li>
+ *   <li>disabled: lời gọi log trace khi nhóm GAME chỉ bật từ INFO</li>
+ * </ul>
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * java -cp target/classes com.uno.bench.LogBenchmark 8 200000
+ * </pre>
+ *
+ * Tham số: số thread ghi log (mặc định 8), số bản ghi mỗi thread (mặc định 200000).
+ * Log được ghi vào file tạm; với chế độ async, số bản ghi bị bỏ vì buffer đầy cũng được in ra.
+ */
+public final class LogBenchmark {
+    private static final int ROUNDS = 3;
+    private static final Pattern DROPPED = Pattern.compile("DROPPED \\| Bo (\\d+) ");
+
+    private LogBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        Path dir = Files.createTempDirectory("uno-log-bench");
+        Path asyncFile = dir.resolve("async.log");
+        // Phải đặt trước khi lớp Log được khởi tạo
+        System.setProperty("uno.log.file", asyncFile.toString());
+        System.setProperty("uno.log.level.game", "INFO");
+        System.setProperty("uno.log.maxFileBytes", String.valueOf(Long.MAX_VALUE));
+
+        Path printlnFile = dir.resolve("println.log");
+        try (PrintStream printStream = new PrintStream(
+                new BufferedOutputStream(new FileOutputStream(printlnFile.toFile())), true, StandardCharsets.UTF_8)) {
+            // Vòng đầu để JIT biên dịch, chỉ in kết quả các vòng sau
+            for (int round = 0; round <= ROUNDS; round++) {
+                for (String mode : new String[] {"println", "async", "disabled"}) {
+                    long nanos = run(mode, threads, perThread, printStream);
+                    if (round > 0) {
+                        System.out.printf("mode=%s threads=%d messages=%d producerNsPerMessage=%.1f%n",
+                                mode, threads, (long) threads * perThread, (double) nanos / ((long) threads * perThread));
+                    }
+                }
+            }
+        }
+
+        // Chờ thread ghi nền xử lý hết rồi đếm số bản ghi bị bỏ
+        Thread.sleep(1000);
+        System.out.printf("asyncLogBytes=%d asyncDropped=%d%n", Files.size(asyncFile), droppedIn(asyncFile));
+    }
+
+    private static long run(String mode, int threads, int perThread, PrintStream printStream) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder producerNanos = new LongAdder();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String component = "CLIENT_" + t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long begin = System.nanoTime();
+                for (int i = 0; i < perThread; i++) {
+                    int sequence = i;
+                    switch (mode) {
+                        case "println":
+                            printStream.println(StringUtils.formatLogMessage("NETWORK",
+                                    component + " | SEND_MESSAGE | Gui GAME_DELTA so " + sequence + " - Message encoding"));
+                            break;
+                        case "async":
+                            Log.NETWORK.info(component, "SEND_MESSAGE",
+                                    "Gui GAME_DELTA so " + sequence + " - Message encoding");
+                            break;
+                        default:
+                            Log.GAME.trace(component, "SEND_MESSAGE", () ->
+                                    "Gui GAME_DELTA so " + sequence + " - Message encoding");
+                            break;
+                    }
+                }
+                producerNanos.add(System.nanoTime() - begin);
+            }, "bench-logger-" + t);
+            workers.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : workers) {
+            thread.join();
+        }
+        return producerNanos.sum();
+    }
+
+    private static long droppedIn(Path file) throws IOException {
+        long dropped = 0;
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            Matcher matcher = DROPPED.matcher(line);
+            if (matcher.find()) {
+                dropped += Long.parseLong(matcher.group(1));
+            }
+        }
+        return dropped;
+    }
+}
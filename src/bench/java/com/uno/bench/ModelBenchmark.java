@@ -0,0 +1,154 @@
+package com.uno.bench;
+
+import com.uno.model.Card;
+import com.uno.model.CardColor;
+import com.uno.model.Deck;
+import com.uno.model.Game;
+import com.uno.model.Player;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Các đường nóng của mô hình game (JMH): tìm lá bài đánh được trên tay, trộn bộ bài, rút và
+ * bỏ bài (kể cả lần trộn lại chồng bài đã đánh khi bộ bài hết) và một lượt chơi đầy đủ qua
+ * {@link Game#playCard} / {@link Game#endTurn} (chuyển lượt bằng nextPlayer bên trong).
+ * Luật đánh bài {@code Card.canPlayOn} được đo trong {@link CardPlayabilityBenchmark}.
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * mvn -Pbench exec:exec -Dexec.executable=java -Dexec.args="-cp %classpath org.openjdk.jmh.Main ModelBenchmark -prof gc"
+ * </pre>
+ *
+ * So sánh với kết quả gốc đã lưu bằng {@link JmhBaseline}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+    private static final int HAND_SIZE = 7;
+    private static final int SAMPLES = 1024;
+    private static final int PLAYERS_PER_GAME = 4;
+    private static final CardColor[] PLAY_COLORS = {
+            CardColor.RED, CardColor.BLUE, CardColor.GREEN, CardColor.YELLOW };
+
+    private Player[] hands;
+    private Card[] tops;
+    private int next;
+
+    private Deck shuffleDeck;
+    private Deck cycleDeck;
+
+    private long nextSeed;
+    private Game game;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        hands = new Player[SAMPLES];
+        tops = new Card[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            Player player = new Player("hand-" + i);
+            for (int j = 0; j < HAND_SIZE; j++) {
+                player.addCard(Card.fromCode(random.nextInt(Card.CODE_COUNT)).withoutDeclaredColor());
+            }
+            hands[i] = player;
+            Card top = Card.fromCode(random.nextInt(Card.CODE_COUNT));
+            if (top.getColor() == CardColor.WILD) {
+                top = top.withDeclaredColor(PLAY_COLORS[random.nextInt(PLAY_COLORS.length)]);
+            }
+            tops[i] = top;
+        }
+
+        shuffleDeck = new Deck(new SplittableRandom(42));
+        cycleDeck = new Deck(new SplittableRandom(42));
+        cycleDeck.initializeDiscardPile();
+
+        nextSeed = 42;
+        game = newGame();
+    }
+
+    private int nextSample() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+
+    private Game newGame() {
+        Game newGame = new Game(nextSeed++);
+        for (int i = 0; i < PLAYERS_PER_GAME; i++) {
+            newGame.addPlayer(new Player("p" + i));
+        }
+        newGame.startGame();
+        return newGame;
+    }
+
+    @Benchmark
+    public List<Integer> playableCardIndices() {
+        int sample = nextSample();
+        return hands[sample].getPlayableCardIndices(tops[sample]);
+    }
+
+    @Benchmark
+    public long playableCodes() {
+        int sample = nextSample();
+        return hands[sample].getPlayableCodes(tops[sample]);
+    }
+
+    @Benchmark
+    public Deck shuffle() {
+        shuffleDeck.shuffle();
+        return shuffleDeck;
+    }
+
+    /**
+     * Rút một lá rồi bỏ lên chồng bài đã đánh: cứ 107 lần thì bộ bài hết và chồng bài được trộn lại
+     */
+    @Benchmark
+    public Card drawAndDiscard() {
+        Card card = cycleDeck.drawCard();
+        cycleDeck.discardCard(card);
+        return card;
+    }
+
+    /**
+     * Người chơi hiện tại đánh lá hợp lệ đầu tiên, nếu không có thì rút một lá và kết thúc lượt;
+     * ván mới được chia khi ván cũ kết thúc
+     */
+    @Benchmark
+    public Player takeTurn() {
+        if (game.isGameOver()) {
+            game = newGame();
+        }
+        Player current = game.getCurrentPlayer();
+        long playable = current.getPlayableCodes(game.getTopCard());
+        if (playable != 0) {
+            List<Card> hand = current.getHand();
+            for (int i = 0; i < hand.size(); i++) {
+                if ((playable & hand.get(i).bit()) != 0) {
+                    game.playCard(current.getId(), i, PLAY_COLORS[i & 3]);
+                    break;
+                }
+            }
+        } else {
+            game.drawCard(current.getId());
+            game.endTurn(current.getId());
+        }
+        return game.getCurrentPlayer();
+    }
+}
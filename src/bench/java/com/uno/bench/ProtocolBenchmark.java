@@ -0,0 +1,125 @@
+package com.uno.bench;
+
+import com.uno.model.Game;
+import com.uno.model.Player;
+import com.uno.protocol.GameDelta;
+import com.uno.protocol.GameState;
+import com.uno.utils.Message;
+import com.uno.utils.MessageType;
+import com.uno.utils.PayloadCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Các đường nóng của giao thức (JMH) theo số người chơi trong phòng: dựng
+ * {@link GameState} cho từng người xem, và một vòng mã hóa/giải mã tin nhắn qua
+ * ObjectOutputStream/ObjectInputStream (giao thức v1), kèm giao thức nhị phân v2 để so sánh.
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * mvn -Pbench exec:exec -Dexec.executable=java -Dexec.args="-cp %classpath org.openjdk.jmh.Main ProtocolBenchmark -prof gc"
+ * </pre>
+ *
+ * So sánh với kết quả gốc đã lưu bằng {@link JmhBaseline}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+    @Param({"2", "3", "4"})
+    public int players;
+
+    private PayloadCodec serialized;
+    private PayloadCodec binary;
+    private Game game;
+    private Message state;
+    private Message delta;
+    private Message chat;
+
+    @Setup
+    public void setup() throws IOException {
+        serialized = PayloadCodec.forVersion(PayloadCodec.VERSION_SERIALIZED);
+        binary = PayloadCodec.forVersion(PayloadCodec.VERSION_BINARY);
+
+        game = new Game(42);
+        List<Player> seats = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            Player player = new Player("player-" + i);
+            seats.add(player);
+            game.addPlayer(player);
+        }
+        game.startGame();
+        Player viewer = seats.get(0);
+        Player next = seats.get(1);
+
+        state = new Message(MessageType.GAME_UPDATE, new GameState(game, viewer.getId(), 1), "server");
+
+        // Delta của một lượt tiêu biểu: đánh một lá, người kế tiếp rút hai lá, lượt chuyển tiếp
+        List<GameDelta.Event> events = new ArrayList<>();
+        events.add(GameDelta.Event.cardPlayed(viewer.getId(), 0, game.getTopCard()));
+        events.add(GameDelta.Event.cardsDrawn(next.getId(), 2, next.getHand().subList(0, 2)));
+        events.add(GameDelta.Event.turnChanged(seats.get(players - 1).getId()));
+        delta = new Message(MessageType.GAME_DELTA, new GameDelta(2, events), "server");
+
+        chat = new Message(MessageType.CHAT_MESSAGE, "player-0: uno sap ve roi!", viewer.getId());
+    }
+
+    /**
+     * Trạng thái đầy đủ cho mọi người trong phòng, mỗi người một bản theo góc nhìn của mình
+     */
+    @Benchmark
+    public void gameStateForAllViewers(Blackhole blackhole) {
+        for (Player player : game.getPlayers()) {
+            blackhole.consume(new GameState(game, player.getId(), 1));
+        }
+    }
+
+    @Benchmark
+    public Message serializedRoundTripState() throws Exception {
+        return roundTrip(serialized, state);
+    }
+
+    @Benchmark
+    public Message serializedRoundTripDelta() throws Exception {
+        return roundTrip(serialized, delta);
+    }
+
+    @Benchmark
+    public Message serializedRoundTripChat() throws Exception {
+        return roundTrip(serialized, chat);
+    }
+
+    @Benchmark
+    public Message binaryRoundTripState() throws Exception {
+        return roundTrip(binary, state);
+    }
+
+    @Benchmark
+    public Message binaryRoundTripDelta() throws Exception {
+        return roundTrip(binary, delta);
+    }
+
+    private static Message roundTrip(PayloadCodec codec, Message message) throws Exception {
+        byte[] payload = codec.encode(message);
+        return codec.decode(payload, 0, payload.length);
+    }
+}
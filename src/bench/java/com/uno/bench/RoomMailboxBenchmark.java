@@ -0,0 +1,190 @@
+package com.uno.bench;
+
+import com.uno.model.CardColor;
+import com.uno.model.Game;
+import com.uno.model.Player;
+import com.uno.utils.SerialExecutor;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * So sánh hai cách thực thi hành động game khi có hàng nghìn phòng cùng hoạt động:
+ * <ul>
+ *   <li>locked: thread xử lý client tự chạy hành động trong khóa của phòng (cách cũ)</li>
+ *   <li>mailbox: thread xử lý client chỉ xếp lệnh vào mailbox của phòng, một pool nhỏ
+ *       dùng chung chạy lần lượt các lệnh của từng phòng (cách server đang dùng)</li>
+ * </ul>
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * java -cp target/classes com.uno.bench.RoomMailboxBenchmark 5000 64
+ * </pre>
+ *
+ * Tham số: số phòng (mặc định 2000), số thread gửi lệnh giả lập thread xử lý client
+ * (mặc định 32). Số thread chạy mailbox đặt bằng -Dbench.workers (mặc định bằng số nhân CPU).
+ * Kết quả gồm số lệnh mỗi giây, thời gian thread gửi lệnh bị giữ cho mỗi lệnh và số lần
+ * hai lệnh của cùng một phòng chạy chồng lên nhau (phải bằng 0 ở cả hai chế độ).
+ */
+public final class RoomMailboxBenchmark {
+    private static final int COMMANDS_PER_ROOM = Integer.getInteger("bench.commands", 200);
+    private static final int WORKERS = Integer.getInteger("bench.workers", Runtime.getRuntime().availableProcessors());
+    private static final int PLAYERS_PER_ROOM = 4;
+    private static final int ROUNDS = 3;
+
+    private RoomMailboxBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int roomCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int producers = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS, task -> {
+            Thread thread = new Thread(task, "bench-room-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Vòng đầu để JIT biên dịch, chỉ in kết quả các vòng sau
+        for (int round = 0; round <= ROUNDS; round++) {
+            for (String mode : new String[] {"locked", "mailbox"}) {
+                Result result = run(mode, roomCount, producers, workers);
+                if (round > 0) {
+                    console.printf("mode=%s rooms=%d producers=%d workers=%d commands=%d commandsPerSec=%.0f " +
+                                    "producerNsPerCommand=%.0f overlaps=%d%n",
+                            mode, roomCount, producers, mode.equals("mailbox") ? WORKERS : 0, result.commands,
+                            result.commands / (result.elapsedNanos / 1e9),
+                            (double) result.producerNanos / result.commands, result.overlaps);
+                }
+            }
+        }
+        workers.shutdownNow();
+    }
+
+    private static Result run(String mode, int roomCount, int producers, ExecutorService workers) throws Exception {
+        boolean mailbox = mode.equals("mailbox");
+        List<Room> rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            rooms.add(new Room(i, mailbox ? new SerialExecutor(workers) : null));
+        }
+
+        long total = (long) roomCount * COMMANDS_PER_ROOM;
+        long perProducer = total / producers;
+        long commands = perProducer * producers;
+        CountDownLatch done = new CountDownLatch((int) commands);
+        LongAdder producerNanos = new LongAdder();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long busy = 0;
+                for (long i = 0; i < perProducer; i++) {
+                    Room room = rooms.get(random.nextInt(roomCount));
+                    long submitStart = System.nanoTime();
+                    if (mailbox) {
+                        room.mailbox.execute(() -> {
+                            room.takeTurn(overlaps);
+                            done.countDown();
+                        });
+                    } else {
+                        synchronized (room) {
+                            room.takeTurn(overlaps);
+                        }
+                        done.countDown();
+                    }
+                    busy += System.nanoTime() - submitStart;
+                }
+                producerNanos.add(busy);
+            }, "bench-producer");
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!done.await(5, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Commands did not complete");
+        }
+        long elapsed = System.nanoTime() - start;
+        return new Result(commands, elapsed, producerNanos.sum(), overlaps.get());
+    }
+
+    /**
+     * Một phòng với một ván game 4 người đang chơi
+     */
+    private static final class Room {
+        private final int index;
+        private final SerialExecutor mailbox;
+        private final AtomicInteger running;
+        private Game game;
+
+        Room(int index, SerialExecutor mailbox) {
+            this.index = index;
+            this.mailbox = mailbox;
+            this.running = new AtomicInteger();
+            this.game = newGame();
+        }
+
+        private Game newGame() {
+            Game newGame = new Game();
+            for (int i = 0; i < PLAYERS_PER_ROOM; i++) {
+                newGame.addPlayer(new Player("room" + index + "-p" + i));
+            }
+            newGame.startGame();
+            return newGame;
+        }
+
+        /**
+         * Người chơi hiện tại đánh lá hợp lệ đầu tiên, nếu không có thì rút một lá và kết thúc lượt
+         */
+        void takeTurn(AtomicInteger overlaps) {
+            if (running.incrementAndGet() != 1) {
+                overlaps.incrementAndGet();
+            }
+            try {
+                if (game.isGameOver()) {
+                    game = newGame();
+                }
+                Player current = game.getCurrentPlayer();
+                List<Integer> playable = current.getPlayableCardIndices(game.getTopCard());
+                if (!playable.isEmpty()) {
+                    game.playCard(current.getId(), playable.get(0), CardColor.RED);
+                } else {
+                    game.drawCard(current.getId());
+                    game.endTurn(current.getId());
+                }
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Result {
+        final long commands;
+        final long elapsedNanos;
+        final long producerNanos;
+        final int overlaps;
+
+        Result(long commands, long elapsedNanos, long producerNanos, int overlaps) {
+            this.commands = commands;
+            this.elapsedNanos = elapsedNanos;
+            this.producerNanos = producerNanos;
+            this.overlaps = overlaps;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.uno.bench;
+
+import com.uno.model.CardColor;
+import com.uno.model.Game;
+import com.uno.model.GameJournal;
+import com.uno.model.Player;
+import com.uno.utils.SerialExecutor;
+import com.uno.utils.WriteAheadLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Đo chi phí ghi nhật ký các phòng vào write-ahead log khi nhiều phòng cùng hoạt động, theo
+ * cách server làm: mỗi lệnh game chạy trong mailbox của phòng, lệnh được ghi vào WAL rồi
+ * mailbox commit trước khi chạy lệnh tiếp theo.
+ * <ul>
+ *   <li>none: không lưu trữ</li>
+ *   <li>wal: ghi vào WAL mmap, không force (chịu được tiến trình chết)</li>
+ *   <li>wal-fsync: ghi và commit theo nhóm (chịu được mất điện)</li>
+ * </ul>
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * java -cp target/classes com.uno.bench.RoomPersistenceBenchmark 500 /tmp/uno-wal
+ * </pre>
+ *
+ * Tham số: số phòng (mặc định 500), thư mục đặt WAL (mặc định thư mục tạm; nên đặt trên đĩa
+ * thật vì tmpfs force không tốn gì). Số thread chạy mailbox đặt bằng -Dbench.workers (mặc định
+ * bằng số nhân CPU). Kết quả gồm số lệnh mỗi giây, số lần force và số lệnh trung bình được
+ * gom vào một lần force.
+ */
+public final class RoomPersistenceBenchmark {
+    private static final int COMMANDS_PER_ROOM = Integer.getInteger("bench.commands", 100);
+    private static final int WORKERS = Integer.getInteger("bench.workers", Runtime.getRuntime().availableProcessors());
+    private static final int PLAYERS_PER_ROOM = 4;
+    private static final int SEGMENT_BYTES = 64 * 1024 * 1024;
+    private static final int ROUNDS = 3;
+
+    private RoomPersistenceBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int roomCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Path baseDirectory = args.length > 1
+                ? Files.createDirectories(Path.of(args[1]))
+                : Files.createTempDirectory("uno-wal-bench");
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ExecutorService workers = Executors.newFixedThreadPool(WORKERS, task -> {
+            Thread thread = new Thread(task, "bench-room-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Vòng đầu để JIT biên dịch, chỉ in kết quả các vòng sau
+        for (int round = 0; round <= ROUNDS; round++) {
+            for (String mode : new String[] {"none", "wal", "wal-fsync"}) {
+                Path directory = baseDirectory.resolve(mode + "-" + round);
+                Result result = run(mode, roomCount, workers, directory);
+                deleteDirectory(directory);
+                if (round > 0) {
+                    console.printf("mode=%s rooms=%d workers=%d commands=%d commandsPerSec=%.0f " +
+                                    "walBytes=%d syncs=%d commandsPerSync=%.1f%n",
+                            mode, roomCount, WORKERS, result.commands, result.commands / (result.elapsedNanos / 1e9),
+                            result.walBytes, result.syncs,
+                            result.syncs == 0 ? 0.0 : (double) result.commands / result.syncs);
+                }
+            }
+        }
+        workers.shutdownNow();
+    }
+
+    private static Result run(String mode, int roomCount, ExecutorService workers, Path directory) throws Exception {
+        WriteAheadLog wal = mode.equals("none") ? null
+                : WriteAheadLog.open(directory, SEGMENT_BYTES, mode.equals("wal-fsync"));
+        List<Room> rooms = new ArrayList<>(roomCount);
+        for (int i = 0; i < roomCount; i++) {
+            rooms.add(new Room(i, new SerialExecutor(workers), wal));
+        }
+
+        long commands = (long) roomCount * COMMANDS_PER_ROOM;
+        CountDownLatch done = new CountDownLatch((int) commands);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        for (long i = 0; i < commands; i++) {
+            Room room = rooms.get(random.nextInt(roomCount));
+            room.mailbox.execute(() -> {
+                room.takeTurn();
+                done.countDown();
+            });
+        }
+        if (!done.await(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Commands did not complete");
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long walBytes = 0;
+        long syncs = 0;
+        if (wal != null) {
+            walBytes = wal.getAppendedBytes();
+            syncs = wal.getSyncCount();
+            wal.close();
+        }
+        return new Result(commands, elapsed, walBytes, syncs);
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Một phòng với một ván game 4 người đang chơi, nhật ký game được ghi vào WAL
+     */
+    private static final class Room {
+        private final int index;
+        private final SerialExecutor mailbox;
+        private final WriteAheadLog wal;
+        private final ByteArrayOutputStream record;
+        private final DataOutputStream recordOut;
+        private long uncommitted;
+        private Game game;
+
+        Room(int index, SerialExecutor mailbox, WriteAheadLog wal) {
+            this.index = index;
+            this.mailbox = mailbox;
+            this.wal = wal;
+            this.record = new ByteArrayOutputStream(64);
+            this.recordOut = new DataOutputStream(record);
+            this.game = newGame();
+        }
+
+        private Game newGame() {
+            Game newGame = new Game();
+            if (wal != null) {
+                newGame.getJournal().setListener(this::append);
+            }
+            for (int i = 0; i < PLAYERS_PER_ROOM; i++) {
+                newGame.addPlayer(new Player("room" + index + "-p" + i));
+            }
+            newGame.startGame();
+            return newGame;
+        }
+
+        /**
+         * Ghi lệnh vừa được nhật ký game ghi nhận, cùng dạng với bản ghi của server
+         */
+        private void append(GameJournal journal, int entry) {
+            try {
+                record.reset();
+                recordOut.writeInt(index);
+                recordOut.writeInt(entry);
+                journal.writeEntry(entry, recordOut);
+                uncommitted = wal.append(record.toByteArray(), 0, record.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Người chơi hiện tại đánh lá hợp lệ đầu tiên, nếu không có thì rút một lá và kết thúc lượt;
+         * sau đó commit các lệnh vừa ghi như mailbox của server
+         */
+        void takeTurn() {
+            if (game.isGameOver()) {
+                game = newGame();
+            }
+            Player current = game.getCurrentPlayer();
+            List<Integer> playable = current.getPlayableCardIndices(game.getTopCard());
+            if (!playable.isEmpty()) {
+                game.playCard(current.getId(), playable.get(0), CardColor.RED);
+            } else {
+                game.drawCard(current.getId());
+                game.endTurn(current.getId());
+            }
+            if (uncommitted > 0) {
+                try {
+                    wal.commit(uncommitted);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                uncommitted = 0;
+            }
+        }
+    }
+
+    private static final class Result {
+        final long commands;
+        final long elapsedNanos;
+        final long walBytes;
+        final long syncs;
+
+        Result(long commands, long elapsedNanos, long walBytes, long syncs) {
+            this.commands = commands;
+            this.elapsedNanos = elapsedNanos;
+            this.walBytes = walBytes;
+            this.syncs = syncs;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.uno.bench;
+
+import com.uno.model.Game;
+import com.uno.model.Player;
+import com.uno.protocol.GameDelta;
+import com.uno.protocol.GameState;
+import com.uno.protocol.RoomDirectoryUpdate;
+import com.uno.utils.Message;
+import com.uno.utils.MessageType;
+import com.uno.utils.PayloadCodec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * So sánh giao thức v1 (Java serialization) và v2 (nhị phân) về kích thước payload
+ * và tốc độ encode/decode trên các tin nhắn tiêu biểu của game.
+ *
+ * <pre>
+ * mvn -Pbench compile
+ * java -cp target/classes com.uno.bench.WireFormatBenchmark
+ * </pre>
+ *
+ * Mỗi phép đo chạy {@code bench.warmupMs} (mặc định 1000ms) để JIT biên dịch xong rồi đo
+ * trong {@code bench.measureMs} (mặc định 2000ms).
+ */
+public final class WireFormatBenchmark {
+    private static final long WARMUP_MS = Long.getLong("bench.warmupMs", 1000);
+    private static final long MEASURE_MS = Long.getLong("bench.measureMs", 2000);
+
+    /** Ngăn JIT loại bỏ kết quả không dùng tới */
+    private static long sink;
+
+    private WireFormatBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PayloadCodec v1 = PayloadCodec.forVersion(PayloadCodec.VERSION_SERIALIZED);
+        PayloadCodec v2 = PayloadCodec.forVersion(PayloadCodec.VERSION_BINARY);
+
+        System.out.printf("%-22s %8s %8s %7s %12s %12s %12s %12s%n",
+                "message", "v1Bytes", "v2Bytes", "ratio", "v1EncNs", "v2EncNs", "v1DecNs", "v2DecNs");
+        for (Map.Entry<String, Message> sample : samples().entrySet()) {
+            Message message = sample.getValue();
+            byte[] v1Payload = v1.encode(message);
+            byte[] v2Payload = v2.encode(message);
+            System.out.printf("%-22s %8d %8d %6.1fx %12.0f %12.0f %12.0f %12.0f%n",
+                    sample.getKey(), v1Payload.length, v2Payload.length,
+                    (double) v1Payload.length / v2Payload.length,
+                    encodeNanos(v1, message), encodeNanos(v2, message),
+                    decodeNanos(v1, v1Payload), decodeNanos(v2, v2Payload));
+        }
+        System.out.println("sink=" + sink);
+    }
+
+    /**
+     * Các tin nhắn tiêu biểu: trạng thái game 4 người, một delta, danh sách 20 phòng và các lệnh nhỏ
+     */
+    private static Map<String, Message> samples() {
+        Game game = new Game();
+        List<Player> players = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Player player = new Player("player-" + i);
+            players.add(player);
+            game.addPlayer(player);
+        }
+        game.startGame();
+        String viewerId = players.get(0).getId();
+
+        List<Map<String, Object>> roomList = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> room = new HashMap<>();
+            room.put("id", String.valueOf(100 + i));
+            room.put("name", "Phong " + i);
+            room.put("hostName", "player-" + i);
+            room.put("playerCount", 1 + i % 4);
+            room.put("gameStarted", i % 3 == 0);
+            roomList.add(room);
+        }
+
+        Map<String, Message> samples = new LinkedHashMap<>();
+        samples.put("GAME_UPDATE(4p)", new Message(MessageType.GAME_UPDATE,
+                new GameState(game, viewerId, 0), "0"));
+        samples.put("GAME_DELTA(play)", new Message(MessageType.GAME_DELTA, new GameDelta(42, List.of(
+                GameDelta.Event.cardPlayed(viewerId, 3, game.getTopCard()),
+                GameDelta.Event.turnChanged(players.get(1).getId()))), "0"));
+        samples.put("ROOM_LIST(20)", new Message(MessageType.ROOM_LIST, roomList, "0"));
+        samples.put("ROOM_DIRECTORY(+1)", new Message(MessageType.ROOM_DIRECTORY,
+                new RoomDirectoryUpdate(17, false, List.of(roomList.get(3)), List.of()), "0"));
+        samples.put("PLAY_CARD", new Message(MessageType.PLAY_CARD, new Object[] {3, "RED"}, viewerId));
+        samples.put("DRAW_CARD", new Message(MessageType.DRAW_CARD, null, viewerId));
+        samples.put("CHAT_MESSAGE", new Message(MessageType.CHAT_MESSAGE, "player-0: xin chao ca nha", viewerId));
+        samples.put("CONNECT_ACCEPT", new Message(MessageType.CONNECT_ACCEPT, viewerId, "0"));
+        return samples;
+    }
+
+    private static double encodeNanos(PayloadCodec codec, Message message) throws IOException {
+        runEncode(codec, message, WARMUP_MS);
+        return runEncode(codec, message, MEASURE_MS);
+    }
+
+    private static double runEncode(PayloadCodec codec, Message message, long durationMs) throws IOException {
+        long operations = 0;
+        long start = System.nanoTime();
+        long deadline = start + durationMs * 1_000_000L;
+        long now;
+        do {
+            for (int i = 0; i < 256; i++) {
+                sink += codec.encode(message).length;
+            }
+            operations += 256;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return (double) (now - start) / operations;
+    }
+
+    private static double decodeNanos(PayloadCodec codec, byte[] payload) throws Exception {
+        runDecode(codec, payload, WARMUP_MS);
+        return runDecode(codec, payload, MEASURE_MS);
+    }
+
+    private static double runDecode(PayloadCodec codec, byte[] payload, long durationMs) throws Exception {
+        long operations = 0;
+        long start = System.nanoTime();
+        long deadline = start + durationMs * 1_000_000L;
+        long now;
+        do {
+            for (int i = 0; i < 256; i++) {
+                sink += codec.decode(payload, 0, payload.length).getType().ordinal();
+            }
+            operations += 256;
+            now = System.nanoTime();
+        } while (now < deadline);
+        return (double) (now - start) / operations;
+    }
+}
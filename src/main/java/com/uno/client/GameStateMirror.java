@@ -0,0 +1,195 @@
+package com.uno.client;
+
+import com.uno.model.Card;
+import com.uno.protocol.GameDelta;
+import com.uno.protocol.GameState;
+import com.uno.protocol.PlayerInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bản sao trạng thái game phía client, được dựng từ một {@link GameState} đầy đủ
+ * rồi cập nhật bằng các {@link GameDelta} theo đúng thứ tự phiên bản.
+ * Chỉ được dùng trên thread đọc mạng của client.
+ */
+class GameStateMirror {
+    private final Map<String, MirrorPlayer> players;
+    private Card topCard;
+    private String currentPlayerId;
+    private boolean clockwise;
+    private boolean gameOver;
+    private String winnerId;
+    private int version;
+    private boolean initialized;
+
+    GameStateMirror() {
+        this.players = new LinkedHashMap<>();
+        this.initialized = false;
+    }
+
+    /**
+     * Thay toàn bộ bản sao bằng trạng thái đầy đủ từ server (START_GAME hoặc trả lời RESYNC_REQUEST)
+     *
+     * @param state Trạng thái đầy đủ
+     */
+    void reset(GameState state) {
+        players.clear();
+        for (PlayerInfo info : state.getPlayerInfos().values()) {
+            MirrorPlayer player = new MirrorPlayer(info.getId(), info.getName());
+            player.handSize = info.getHandSize();
+            player.hand = info.getHand() != null ? new ArrayList<>(info.getHand()) : null;
+            player.calledUno = info.hasCalledUno();
+            players.put(info.getId(), player);
+        }
+        topCard = state.getTopCard();
+        currentPlayerId = state.getCurrentPlayerId();
+        clockwise = state.isClockwise();
+        gameOver = state.isGameOver();
+        winnerId = state.getWinnerId();
+        version = state.getVersion();
+        initialized = true;
+    }
+
+    /**
+     * Áp dụng delta nếu nó nối tiếp đúng phiên bản hiện tại
+     *
+     * @param delta Delta nhận từ server
+     * @return Kết quả áp dụng
+     */
+    ApplyResult apply(GameDelta delta) {
+        if (!initialized) {
+            return ApplyResult.GAP;
+        }
+        if (delta.getVersion() <= version) {
+            // Delta đã nằm trong trạng thái đầy đủ nhận sau khi resync
+            return ApplyResult.STALE;
+        }
+        if (delta.getVersion() != version + 1) {
+            return ApplyResult.GAP;
+        }
+
+        for (GameDelta.Event event : delta.getEvents()) {
+            if (!applyEvent(event)) {
+                initialized = false;
+                return ApplyResult.GAP;
+            }
+        }
+        version = delta.getVersion();
+        return ApplyResult.APPLIED;
+    }
+
+    private boolean applyEvent(GameDelta.Event event) {
+        MirrorPlayer player = event.getPlayerId() != null ? players.get(event.getPlayerId()) : null;
+        switch (event.getKind()) {
+            case CARD_PLAYED:
+                if (player == null) {
+                    return false;
+                }
+                if (player.hand != null) {
+                    int index = event.getIndex();
+                    if (index < 0 || index >= player.hand.size() || !sameCard(player.hand.get(index), event.getCard())) {
+                        return false;
+                    }
+                    player.hand.remove(index);
+                }
+                player.handSize--;
+                topCard = event.getCard();
+                return true;
+            case CARDS_DRAWN:
+                if (player == null) {
+                    return false;
+                }
+                if (player.hand != null) {
+                    if (event.getCards() == null) {
+                        return false;
+                    }
+                    player.hand.addAll(event.getCards());
+                }
+                player.handSize += event.getCount();
+                // Giống Player.addCard: nhận thêm bài thì mất trạng thái đã hô Uno
+                if (player.handSize > 1) {
+                    player.calledUno = false;
+                }
+                return true;
+            case TURN_CHANGED:
+                currentPlayerId = event.getPlayerId();
+                return true;
+            case DIRECTION_CHANGED:
+                clockwise = event.isClockwise();
+                return true;
+            case UNO_CALLED:
+                if (player == null) {
+                    return false;
+                }
+                player.calledUno = true;
+                return true;
+            case GAME_OVER:
+                gameOver = true;
+                winnerId = event.getPlayerId();
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * So sánh lá bài trong tay với lá bài đã đánh; lá Wild đổi màu khi đánh nên so với lá Wild gốc
+     */
+    private static boolean sameCard(Card inHand, Card played) {
+        return inHand == played.withoutDeclaredColor();
+    }
+
+    /**
+     * Tạo ảnh chụp bất biến của bản sao để giao cho giao diện
+     *
+     * @return Trạng thái game hiện tại
+     */
+    GameState snapshot() {
+        HashMap<String, PlayerInfo> playerInfos = new HashMap<>();
+        for (MirrorPlayer player : players.values()) {
+            List<Card> hand = player.hand != null ? new ArrayList<>(player.hand) : null;
+            playerInfos.put(player.id, new PlayerInfo(player.id, player.name, player.handSize, hand, player.calledUno));
+        }
+        return new GameState(playerInfos, topCard, currentPlayerId, clockwise, gameOver, winnerId, version);
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true nếu bản sao đang có trạng thái hợp lệ
+     */
+    boolean hasState() {
+        return initialized;
+    }
+
+    /**
+     * Kết quả áp dụng một delta
+     */
+    enum ApplyResult {
+        /** Đã áp dụng, bản sao ở phiên bản mới */
+        APPLIED,
+        /** Delta cũ hơn bản sao, bỏ qua */
+        STALE,
+        /** Thiếu delta hoặc delta không khớp bản sao, cần resync */
+        GAP
+    }
+
+    private static final class MirrorPlayer {
+        private final String id;
+        private final String name;
+        private int handSize;
+        private List<Card> hand;
+        private boolean calledUno;
+
+        MirrorPlayer(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
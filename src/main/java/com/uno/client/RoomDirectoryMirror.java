@@ -0,0 +1,62 @@
+package com.uno.client;
+
+
+import com.uno.protocol.RoomDirectoryUpdate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bản sao danh sách phòng phía client, dựng từ bản đầy đủ rồi cập nhật bằng các bản
+ * tăng dần theo đúng thứ tự phiên bản. Chỉ được dùng trên thread đọc mạng của client.
+ */
+class RoomDirectoryMirror {
+    private final Map<String, Map<String, Object>> rooms;
+    private int version;
+    private boolean initialized;
+
+    RoomDirectoryMirror() {
+        this.rooms = new LinkedHashMap<>();
+        this.initialized = false;
+    }
+
+    /**
+     * Áp dụng bản cập nhật nếu nó là bản đầy đủ hoặc nối tiếp đúng phiên bản hiện tại
+     *
+     * @param update Bản cập nhật nhận từ server
+     * @return false nếu thiếu phiên bản và cần yêu cầu bản đầy đủ
+     */
+    boolean apply(RoomDirectoryUpdate update) {
+        if (update.isFull()) {
+            rooms.clear();
+        } else if (!initialized || update.getVersion() > version + 1) {
+            return false;
+        } else if (update.getVersion() <= version) {
+            // Đã nằm trong bản đầy đủ nhận sau đó
+            return true;
+        }
+
+        for (String roomId : update.getRemovedRoomIds()) {
+            rooms.remove(roomId);
+        }
+        for (Map<String, Object> room : update.getRooms()) {
+            rooms.put((String) room.get("id"), room);
+        }
+        version = update.getVersion();
+        initialized = true;
+        return true;
+    }
+
+    /**
+     * @return Danh sách phòng hiện tại, cùng dạng với ROOM_LIST
+     */
+    List<Map<String, Object>> snapshot() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    int getVersion() {
+        return version;
+    }
+}
@@ -1,19 +1,28 @@
 package com.uno.client;
 
 import com.uno.model.CardColor;
-import com.uno.server.GameRoom;
+import com.uno.protocol.GameDelta;
+import com.uno.protocol.GameState;
+import com.uno.protocol.RoomDirectoryUpdate;
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomQuery;
+import com.uno.utils.Log;
 import com.uno.utils.Message;
+import com.uno.utils.MessageCodec;
 import com.uno.utils.MessageType;
-import com.uno.utils.StringUtils;
+import com.uno.utils.PayloadCodec;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Client network communication manager class
@@ -21,14 +30,36 @@ import java.util.concurrent.LinkedBlockingQueue;
 public class UnoClient implements Runnable {
     private static final int DEFAULT_PORT = 5000;
     
+    /** Thời gian chờ server trả lời handshake */
+    private static final int HANDSHAKE_TIMEOUT_MS = 10_000;
+    
+    /** Số lần thử kết nối lại bằng token khi mất kết nối, cách nhau 1s, 2s, 4s... */
+    private static final int RESUME_ATTEMPTS = 4;
+    private static final long RESUME_BACKOFF_MS = 1000;
+    /** Thời gian chờ trả lời yêu cầu gửi lại trạng thái; quá hạn thì lần thiếu phiên bản kế tiếp gửi lại yêu cầu */
+    private static final long RESYNC_TIMEOUT_MS = 3000;
+    
     private final String serverAddress;
     private final int serverPort;
-    private Socket socket;
-    private ObjectOutputStream output;
-    private ObjectInputStream input;
+    private volatile Socket socket;
+    private volatile DataOutputStream output;
+    private DataInputStream input;
+    private volatile PayloadCodec codec;
     private String clientId;
+    private volatile String sessionToken;
+    private boolean resuming;
     private final BlockingQueue<Message> messageQueue;
     private final ClientListener clientListener;
+    private final GameStateMirror gameMirror;
+    private boolean resyncPending;
+    // Thời điểm (nanoTime) gửi RESYNC_REQUEST gần nhất
+    private long resyncRequestedAt;
+    private final RoomDirectoryMirror roomDirectory;
+    private boolean roomDirectoryResyncPending;
+    // Thời điểm (nanoTime) gửi ROOM_DIRECTORY_REQUEST gần nhất
+    private long roomDirectoryResyncRequestedAt;
+    // Phiên bản danh sách phòng đã áp dụng, -1 nếu chưa có; đọc từ thread gọi leaveRoom()
+    private volatile int roomDirectoryVersion = -1;
     private volatile boolean running;
     
     public UnoClient(String serverAddress, ClientListener clientListener) {
@@ -40,6 +71,8 @@ public class UnoClient implements Runnable {
         this.serverPort = serverPort;
         this.clientListener = clientListener;
         this.messageQueue = new LinkedBlockingQueue<>();
+        this.gameMirror = new GameStateMirror();
+        this.roomDirectory = new RoomDirectoryMirror();
         this.running = false;
     }
     
@@ -51,58 +84,120 @@ public class UnoClient implements Runnable {
      */
     public boolean connect(String playerName) {
         try {
-            System.out.println("[CLIENT] Initiating connection to " + serverAddress + ":" + serverPort);
-            System.out.println("[TCP] SYN → SYN-ACK → ACK");
-            
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "SOCKET_INIT", 
-                    "Khoi tao ket noi socket TCP den " + serverAddress + ":" + serverPort));
-                    
-            socket = new Socket(serverAddress, serverPort);
-            
-            System.out.println("[CLIENT] Connection established");
-            System.out.println("[SOCKET] Local port: " + socket.getLocalPort());
-            System.out.println("[SOCKET] Socket options: SO_KEEPALIVE=true, TCP_NODELAY=true");
-            
-            // Initialize input/output streams
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "CONNECT", 
-                    "Khoi tao luong I/O - ObjectOutputStream/ObjectInputStream"));
-                    
-            output = new ObjectOutputStream(socket.getOutputStream());
-            output.flush();
-            input = new ObjectInputStream(socket.getInputStream());
+            openConnection();
             
             // Start message handling thread
             running = true;
             new Thread(this).start();
             
-            System.out.println("[NET-THREAD] Network handler thread started");
-            System.out.println("[NET-THREAD] Listening for server messages...");
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "THREAD", 
-                    "Thread doc du lieu song song da khoi dong - Asynchronous network communication"));
+            Log.NETWORK.info("CLIENT", "THREAD", 
+                    "Thread doc du lieu song song da khoi dong - Asynchronous network communication");
             
             // Send connection message to server
             Message connectMessage = new Message(MessageType.CONNECT, playerName, "");
             sendMessage(connectMessage);
             
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "HANDSHAKE", 
-                    "TCP handshake hoan tat, gui goi tin CONNECT dau tien"));
+            Log.NETWORK.info("CLIENT", "HANDSHAKE", 
+                    "TCP handshake hoan tat, gui goi tin CONNECT dau tien");
             
             return true;
         } catch (IOException e) {
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "CONNECTION_ERROR", 
-                    "TCP connection failure: " + e.getMessage()));
+            Log.NETWORK.error("CLIENT", "CONNECTION_ERROR", 
+                    "TCP connection failure: " + e.getMessage());
             clientListener.onConnectionError("Khong the ket noi den server: " + e.getMessage());
             return false;
         }
     }
     
+    /**
+     * Mở socket và thống nhất phiên bản giao thức với server
+     * 
+     * @throws IOException Nếu không kết nối được
+     */
+    private void openConnection() throws IOException {
+        Log.NETWORK.info("CLIENT", "SOCKET_INIT", 
+                "Khoi tao ket noi socket TCP den " + serverAddress + ":" + serverPort);
+                
+        Socket newSocket = new Socket(serverAddress, serverPort);
+        
+        // Initialize input/output streams
+        Log.NETWORK.info("CLIENT", "CONNECT", 
+                "Khoi tao luong I/O tu local port " + newSocket.getLocalPort() + " - Length-prefixed frame stream");
+        
+        newSocket.setTcpNoDelay(true);
+        newSocket.setKeepAlive(true);
+        DataOutputStream newOutput = new DataOutputStream(new BufferedOutputStream(newSocket.getOutputStream()));
+        DataInputStream newInput = new DataInputStream(new BufferedInputStream(newSocket.getInputStream()));
+        
+        // Thống nhất phiên bản giao thức trước khi gửi frame đầu tiên
+        int requestedVersion = Integer.getInteger("uno.protocol.version", PayloadCodec.LATEST_VERSION);
+        try {
+            newSocket.setSoTimeout(HANDSHAKE_TIMEOUT_MS);
+            MessageCodec.writeHandshake(newOutput, requestedVersion);
+            codec = PayloadCodec.forVersion(MessageCodec.readHandshake(newInput));
+            newSocket.setSoTimeout(0);
+        } catch (IOException e) {
+            newSocket.close();
+            throw e;
+        }
+        socket = newSocket;
+        input = newInput;
+        output = newOutput;
+        
+        Log.NETWORK.info("CLIENT", "PROTOCOL", 
+                "Server chon protocol version " + codec.version() + " (de nghi " + requestedVersion + ")");
+    }
+    
+    /**
+     * Kết nối lại bằng token của phiên sau khi mất kết nối, trên thread đọc mạng. Server trả lại
+     * chỗ trong phòng và chỉ gửi phần trạng thái còn thiếu kể từ phiên bản bản sao đang có.
+     * 
+     * @return true nếu đã mở kết nối mới và gửi RESUME
+     */
+    private boolean resume() {
+        if (sessionToken == null) {
+            return false;
+        }
+        for (int attempt = 1; attempt <= RESUME_ATTEMPTS && running; attempt++) {
+            try {
+                Thread.sleep(RESUME_BACKOFF_MS << (attempt - 1));
+                closeSocket();
+                openConnection();
+            } catch (IOException e) {
+                Log.NETWORK.warn("CLIENT", "RESUME", 
+                        "Ket noi lai lan " + attempt + " that bai: " + e.getMessage());
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            resuming = true;
+            int lastVersion = gameMirror.hasState() ? gameMirror.getVersion() : -1;
+            sendMessage(new Message(MessageType.RESUME, new Object[] {sessionToken, lastVersion}, clientId));
+            Log.NETWORK.info("CLIENT", "RESUME", 
+                    "Gui RESUME voi phien ban trang thai " + lastVersion + " - Session resumption");
+            return true;
+        }
+        return false;
+    }
+    
+    private void closeSocket() {
+        try {
+            if (socket != null) {
+                socket.close();
+            }
+        } catch (IOException e) {
+            // Socket cũ đã hỏng
+        }
+    }
+    
     /**
      * Disconnect from the server
      */
     public void disconnect() {
         if (running) {
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "DISCONNECT", 
-                    "Bat dau qua trinh dong ket noi - Connection teardown initiated"));
+            Log.NETWORK.info("CLIENT", "DISCONNECT", 
+                    "Bat dau qua trinh dong ket noi - Connection teardown initiated");
                     
             running = false;
             
@@ -121,17 +216,17 @@ public class UnoClient implements Runnable {
                 
                 if (socket != null) {
                     socket.close();
-                    System.out.println(StringUtils.formatNetworkLog("CLIENT", "SOCKET_CLOSE", 
-                            "Socket da dong hoan tat - TCP connection terminated"));
+                    Log.NETWORK.info("CLIENT", "SOCKET_CLOSE", 
+                            "Socket da dong hoan tat - TCP connection terminated");
                 }
             } catch (IOException e) {
-                System.out.println(StringUtils.formatNetworkLog("CLIENT", "CLEANUP_ERROR", 
-                        "Loi khi dong resources: " + e.getMessage()));
+                Log.NETWORK.error("CLIENT", "CLEANUP_ERROR", 
+                        "Loi khi dong resources: " + e.getMessage());
             }
             
             clientListener.onDisconnected();
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "DISCONNECT_COMPLETE", 
-                    "Qua trinh dong ket noi da hoan tat - Network resources released"));
+            Log.NETWORK.info("CLIENT", "DISCONNECT_COMPLETE", 
+                    "Qua trinh dong ket noi da hoan tat - Network resources released");
         }
     }
     
@@ -141,26 +236,22 @@ public class UnoClient implements Runnable {
      * @param message Message to send
      */
     public void sendMessage(Message message) {
-        if (output != null) {
+        if (output != null && codec != null) {
             try {
-                long sendTime = System.currentTimeMillis();
-                System.out.println("[SEND] Serializing to Object: " + message.toString().length() + " bytes");
-                System.out.println("[SEND] Message Type: " + message.getType() + " | From: " + clientId);
-                System.out.println("[TCP] Packet sent via TCP stream");
-                System.out.println("[PERF] Message sent at: " + sendTime);
-                
-                System.out.println(StringUtils.formatNetworkLog("CLIENT", "SEND_MESSAGE", 
-                        "Gui du lieu qua TCP stream: " + message.getType() + " - Data serialization"));
-                
-                output.writeObject(message);
-                output.flush();
+                byte[] payload = codec.encode(message);
+                Log.NETWORK.trace("CLIENT", "SEND_MESSAGE", () ->
+                        "Gui du lieu qua TCP stream: " + message.getType() + ", " + payload.length +
+                        " bytes (protocol v" + codec.version() + ") - Message encoding");
+                synchronized (output) {
+                    MessageCodec.writeFrame(output, payload);
+                }
             } catch (IOException e) {
-                System.out.println("[ERROR] IOException: " + e.getMessage());
-                System.out.println("[ERROR] Attempting reconnection...");
-                
-                System.out.println(StringUtils.formatNetworkLog("CLIENT", "SEND_ERROR", 
-                        "Loi khi truyen du lieu qua network: " + e.getMessage() + " - TCP transmission failure"));
-                if (running) {
+                Log.NETWORK.error("CLIENT", "SEND_ERROR", 
+                        "Loi khi truyen du lieu qua network: " + e.getMessage() + " - TCP transmission failure");
+                if (sessionToken != null) {
+                    // Đóng socket để thread đọc mạng phát hiện và kết nối lại vào phiên
+                    closeSocket();
+                } else if (running) {
                     running = false;
                     clientListener.onConnectionError("Mat ket noi den server: " + e.getMessage());
                 }
@@ -173,25 +264,24 @@ public class UnoClient implements Runnable {
      */
     @Override
     public void run() {
-        try {
-            System.out.println("[NET-THREAD] Listening for server messages...");
-            while (running) {
-                Message message = (Message) input.readObject();
+        while (running) {
+            try {
+                Message message = MessageCodec.readFrame(input, codec);
                 messageQueue.offer(message);
-                
-                System.out.println("[NETWORK] Message received (" + message.toString().length() + " bytes)");
-                System.out.println("[PROTOCOL] Parsed: " + message.getType());
-                System.out.println("[EDT] Scheduling GUI update on EDT");
-                        
+                Log.NETWORK.trace("CLIENT", "MESSAGE_RECEIVED", () ->
+                        "Nhan tin nhan tu server: " + message.getType() + " - Message decoding");
                 handleMessage(message);
-                System.out.println("[EDT] GUI updated");
-            }
-        } catch (IOException | ClassNotFoundException e) {
-            if (running) {
-                running = false;
-                System.out.println(StringUtils.formatNetworkLog("CLIENT", "CONNECTION_LOST", 
-                        "Socket read error: " + e.getMessage() + " - Connection failure detection"));
-                clientListener.onConnectionError("Mat ket noi voi server: " + e.getMessage());
+            } catch (IOException | ClassNotFoundException e) {
+                if (!running) {
+                    break;
+                }
+                Log.NETWORK.warn("CLIENT", "CONNECTION_LOST", 
+                        "Socket read error: " + e.getMessage() + " - Connection failure detection");
+                // Thử kết nối lại vào phiên cũ trước khi báo mất kết nối
+                if (!resume() && running) {
+                    running = false;
+                    clientListener.onConnectionError("Mat ket noi voi server: " + e.getMessage());
+                }
             }
         }
     }
@@ -205,10 +295,34 @@ public class UnoClient implements Runnable {
         switch (message.getType()) {
             case CONNECT_ACCEPT:
                 this.clientId = (String) message.getData();
-                clientListener.onConnected(clientId);
+                if (resuming) {
+                    // Kết nối lại trong suốt với giao diện: vẫn là người chơi cũ
+                    resuming = false;
+                    Log.NETWORK.info("CLIENT", "RESUME", "Da ket noi lai voi ID '" + clientId + "'");
+                } else {
+                    clientListener.onConnected(clientId);
+                }
+                break;
+                
+            case SESSION_TOKEN:
+                this.sessionToken = (String) message.getData();
+                break;
+                
+            case PING:
+                // Server kiểm tra kết nối còn sống và đo RTT
+                sendMessage(new Message(MessageType.PONG, message.getData(), clientId));
                 break;
                 
             case CONNECT_REJECT:
+                if (resuming) {
+                    // Phiên đã hết hạn: không thể quay lại phòng
+                    resuming = false;
+                    sessionToken = null;
+                    running = false;
+                    closeSocket();
+                    clientListener.onConnectionError("Khong the ket noi lai: " + message.getData());
+                    break;
+                }
                 clientListener.onConnectionRejected((String) message.getData());
                 disconnect();
                 break;
@@ -219,32 +333,50 @@ public class UnoClient implements Runnable {
                 clientListener.onRoomListReceived(roomList);
                 break;
                 
+            case ROOM_DIRECTORY:
+                handleRoomDirectory((RoomDirectoryUpdate) message.getData());
+                break;
+                
+            case ROOM_PAGE:
+                clientListener.onRoomPageReceived((RoomPage) message.getData());
+                break;
+                
             case ROOM_UPDATE:
                 clientListener.onRoomUpdated(message.getData());
                 break;
                 
             case START_GAME:
+                if (message.getData() instanceof GameState) {
+                    gameMirror.reset((GameState) message.getData());
+                    resyncPending = false;
+                }
                 clientListener.onGameStarted(message.getData());
                 break;
                 
             case GAME_UPDATE:
-                System.out.println(StringUtils.formatNetworkLog("CLIENT", "GAME_DATA", 
-                        "Nhan object class: " + (message.getData() != null ? message.getData().getClass().getName() : "null") + " - Object type detection"));
+                Log.NETWORK.trace("CLIENT", "GAME_DATA", () ->
+                        "Nhan object class: " + (message.getData() != null ? message.getData().getClass().getName() : "null") + " - Object type detection");
                 
-                if (message.getData() instanceof GameRoom.GameState) {
-                    GameRoom.GameState state = (GameRoom.GameState) message.getData();
-                    System.out.println(StringUtils.formatNetworkLog("CLIENT", "STATE_VALIDATION", 
-                        "GameState currentPlayerId = " + state.getCurrentPlayerId() + ", local clientId = " + clientId));
-                    System.out.println(StringUtils.formatNetworkLog("CLIENT", "STATE_COMPARISON", 
+                if (message.getData() instanceof GameState) {
+                    GameState state = (GameState) message.getData();
+                    gameMirror.reset(state);
+                    resyncPending = false;
+                    Log.NETWORK.trace("CLIENT", "STATE_VALIDATION", () ->
+                        "GameState currentPlayerId = " + state.getCurrentPlayerId() + ", local clientId = " + clientId);
+                    Log.NETWORK.trace("CLIENT", "STATE_COMPARISON", () ->
                         "ID comparison result: " + (state.getCurrentPlayerId() != null && 
                                                   clientId != null && 
                                                   state.getCurrentPlayerId().equals(clientId)) + 
-                        " - State synchronization verification"));
+                        " - State synchronization verification");
                 }
                 
                 clientListener.onGameUpdated(message.getData());
                 break;
                 
+            case GAME_DELTA:
+                handleGameDelta((GameDelta) message.getData());
+                break;
+                
             case GAME_OVER:
                 clientListener.onGameOver(message.getData());
                 break;
@@ -262,12 +394,82 @@ public class UnoClient implements Runnable {
                 break;
                 
             default:
-                System.out.println(StringUtils.formatNetworkLog("CLIENT", "UNSUPPORTED_MESSAGE", 
-                        "Loai tin nhan khong duoc ho tro: " + message.getType() + " - Protocol violation"));
+                Log.NETWORK.warn("CLIENT", "UNSUPPORTED_MESSAGE", 
+                        "Loai tin nhan khong duoc ho tro: " + message.getType() + " - Protocol violation");
                 break;
         }
     }
     
+    /**
+     * Áp dụng GAME_DELTA lên bản sao trạng thái; nếu phát hiện thiếu phiên bản thì
+     * yêu cầu server gửi lại toàn bộ trạng thái. Chỉ một yêu cầu được chờ tại một thời điểm;
+     * nếu sau {@link #RESYNC_TIMEOUT_MS} vẫn chưa nhận được thì lần thiếu phiên bản kế tiếp gửi lại
+     * 
+     * @param delta Delta nhận từ server
+     */
+    private void handleGameDelta(GameDelta delta) {
+        switch (gameMirror.apply(delta)) {
+            case APPLIED:
+                clientListener.onGameUpdated(gameMirror.snapshot());
+                break;
+            case GAP:
+                if (!resyncPending || resyncExpired(resyncRequestedAt)) {
+                    resyncPending = true;
+                    resyncRequestedAt = System.nanoTime();
+                    Log.NETWORK.info("CLIENT", "RESYNC", 
+                            "Thieu phien ban trang thai (co " + gameMirror.getVersion() + ", nhan " + 
+                            delta.getVersion() + ") - Requesting full state");
+                    sendMessage(new Message(MessageType.RESYNC_REQUEST, gameMirror.getVersion(), clientId));
+                }
+                break;
+            default:
+                // Delta cũ đã có trong trạng thái đầy đủ
+                break;
+        }
+    }
+    
+    /**
+     * Áp dụng cập nhật danh sách phòng; nếu thiếu phiên bản thì yêu cầu server gửi lại
+     * bản đầy đủ (một yêu cầu tại một thời điểm, gửi lại khi quá hạn như {@link #handleGameDelta})
+     * 
+     * @param update Cập nhật danh sách phòng
+     */
+    private void handleRoomDirectory(RoomDirectoryUpdate update) {
+        if (update.isFull()) {
+            roomDirectoryResyncPending = false;
+        }
+        if (roomDirectory.apply(update)) {
+            roomDirectoryVersion = roomDirectory.getVersion();
+            clientListener.onRoomListReceived(roomDirectory.snapshot());
+        } else if (!roomDirectoryResyncPending || resyncExpired(roomDirectoryResyncRequestedAt)) {
+            roomDirectoryResyncPending = true;
+            roomDirectoryResyncRequestedAt = System.nanoTime();
+            Log.NETWORK.info("CLIENT", "RESYNC", 
+                    "Thieu phien ban danh sach phong (co " + roomDirectory.getVersion() + ", nhan " + 
+                    update.getVersion() + ") - Requesting full room directory");
+            sendMessage(new Message(MessageType.ROOM_DIRECTORY_REQUEST, null, clientId));
+        }
+    }
+    
+    /**
+     * Yêu cầu gửi lại gần nhất đã quá hạn chờ (trả lời bị mất hoặc bị bỏ trên đường đi)
+     * 
+     * @param requestedAt Thời điểm (nanoTime) gửi yêu cầu
+     * @return true nếu được gửi lại yêu cầu
+     */
+    private static boolean resyncExpired(long requestedAt) {
+        return System.nanoTime() - requestedAt >= TimeUnit.MILLISECONDS.toNanos(RESYNC_TIMEOUT_MS);
+    }
+    
+    /**
+     * Yêu cầu một trang danh sách phòng; server trả lời bằng ROOM_PAGE
+     * 
+     * @param query Truy vấn danh sách phòng
+     */
+    public void queryRooms(RoomQuery query) {
+        sendMessage(new Message(MessageType.ROOM_QUERY, query, clientId));
+    }
+    
     /**
      * Tạo phòng mới
      * 
@@ -290,7 +492,10 @@ public class UnoClient implements Runnable {
      * Rời khỏi phòng
      */
     public void leaveRoom() {
-        sendMessage(new Message(MessageType.LEAVE_ROOM, null, clientId));
+        // Gửi kèm phiên bản danh sách phòng đang có: nếu sảnh không đổi trong lúc ở trong phòng,
+        // server chỉ xác nhận thay vì gửi lại toàn bộ danh sách
+        int knownVersion = roomDirectoryVersion;
+        sendMessage(new Message(MessageType.LEAVE_ROOM, knownVersion >= 0 ? knownVersion : null, clientId));
     }
     
     /**
@@ -359,6 +564,7 @@ public class UnoClient implements Runnable {
         void onConnectionRejected(String reason);
         void onConnectionError(String message);
         void onRoomListReceived(List<Map<String, Object>> roomList);
+        void onRoomPageReceived(RoomPage page);
         void onRoomUpdated(Object roomData);
         void onGameStarted(Object gameData);
         void onGameUpdated(Object gameState);
@@ -4,8 +4,11 @@ import com.uno.gui.GameGUI;
 import com.uno.gui.LobbyGUI;
 import com.uno.gui.LoginGUI;
 import com.uno.model.CardColor;
-import com.uno.server.GameRoom;
-import com.uno.server.GameRoom.GameState;
+import com.uno.protocol.GameState;
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomQuery;
+import com.uno.protocol.RoomSnapshot;
+import com.uno.utils.Log;
 
 import javax.swing.*;
 import java.util.List;
@@ -60,6 +63,17 @@ public class UnoClientMain implements UnoClient.ClientListener {
         }
     }
     
+    /**
+     * Yêu cầu một trang danh sách phòng
+     * 
+     * @param query Truy vấn danh sách phòng
+     */
+    public void queryRooms(RoomQuery query) {
+        if (client != null) {
+            client.queryRooms(query);
+        }
+    }
+    
     /**
      * Tạo phòng mới
      * 
@@ -175,8 +189,8 @@ public class UnoClientMain implements UnoClient.ClientListener {
             this.playerId = "";
         }
         
-        // In thông tin về ID nhận được
-        System.out.println("UnoClientMain: Nhan ID tu server: '" + clientId + "', sau khi trim: '" + this.playerId + "'");
+        Log.NETWORK.debug("CLIENT", "CONNECT_ACCEPT",
+                "Nhan ID tu server: '" + clientId + "', sau khi trim: '" + this.playerId + "'");
         
         SwingUtilities.invokeLater(() -> {
             // Đóng màn hình đăng nhập và mở màn hình sảnh
@@ -253,6 +267,20 @@ public class UnoClientMain implements UnoClient.ClientListener {
         });
     }
     
+    /**
+     * Xử lý sự kiện nhận một trang danh sách phòng
+     * 
+     * @param page Trang danh sách phòng
+     */
+    @Override
+    public void onRoomPageReceived(RoomPage page) {
+        SwingUtilities.invokeLater(() -> {
+            if (lobbyGUI != null) {
+                lobbyGUI.addRoomPage(page);
+            }
+        });
+    }
+    
     /**
      * Xử lý sự kiện cập nhật phòng
      * 
@@ -261,9 +289,11 @@ public class UnoClientMain implements UnoClient.ClientListener {
     @Override
     public void onRoomUpdated(Object roomData) {
         SwingUtilities.invokeLater(() -> {
-            // Cập nhật thông tin phòng hiện tại
-            // Đây là đối tượng GameRoom được gửi từ server
-            GameRoom room = (GameRoom) roomData;
+            // Cập nhật thông tin phòng hiện tại từ ảnh chụp phòng server gửi
+            if (!(roomData instanceof RoomSnapshot)) {
+                return;
+            }
+            RoomSnapshot room = (RoomSnapshot) roomData;
             // currentRoomId = room.getId(); // Removed as it's not used
             
             if (gameGUI == null) {
@@ -288,8 +318,7 @@ public class UnoClientMain implements UnoClient.ClientListener {
                 lobbyGUI.setVisible(false);
             }
             
-            // In ra ID người chơi trước khi khởi tạo GameGUI
-            System.out.println("UnoClientMain.onGameStarted: Khởi tạo GameGUI với playerId = '" + playerId + "'");
+            Log.RENDER.debug("CLIENT", "GAME_START", "Khoi tao GameGUI voi playerId = '" + playerId + "'");
             
             gameGUI = new GameGUI(this, playerId);
             gameGUI.setVisible(true);
@@ -306,13 +335,10 @@ public class UnoClientMain implements UnoClient.ClientListener {
      */
     @Override
     public void onGameUpdated(Object gameState) {
-        System.out.println("UnoClientMain.onGameUpdated: gameState class = " + 
-                          (gameState != null ? gameState.getClass().getName() : "null"));
-        
-        if (gameState instanceof GameState) {
-            GameState state = (GameState) gameState;
-            System.out.println("UnoClientMain: currentPlayerId = " + state.getCurrentPlayerId());
-        }
+        Log.NETWORK.trace("CLIENT", "GAME_UPDATE", () -> "gameState class = " +
+                (gameState != null ? gameState.getClass().getName() : "null") +
+                (gameState instanceof GameState
+                        ? ", currentPlayerId = " + ((GameState) gameState).getCurrentPlayerId() : ""));
         
         SwingUtilities.invokeLater(() -> {
             if (gameGUI != null) {
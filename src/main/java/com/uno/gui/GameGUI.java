@@ -4,8 +4,9 @@ import com.uno.client.UnoClientMain;
 import com.uno.model.Card;
 import com.uno.model.CardColor;
 import com.uno.model.CardType;
-import com.uno.server.GameRoom.GameState;
-import com.uno.server.GameRoom.PlayerInfo;
+import com.uno.protocol.GameState;
+import com.uno.protocol.PlayerInfo;
+import com.uno.utils.Log;
 import com.uno.utils.StringUtils;
 
 import javax.swing.*;
@@ -47,8 +48,7 @@ public class GameGUI extends JFrame {
         // Đảm bảo playerId không null và được trim
         this.playerId = (playerId != null) ? playerId.trim() : "";
         
-        // Debug ID của người chơi
-        System.out.println("GameGUI constructor: Nhan playerId = '" + playerId + "', sau khi trim: '" + this.playerId + "'");
+        Log.RENDER.debug("GAME_GUI", "INIT", "Nhan playerId = '" + playerId + "', sau khi trim: '" + this.playerId + "'");
         
         this.canPlay = false;
         this.playerHand = new ArrayList<>();
@@ -88,11 +88,7 @@ public class GameGUI extends JFrame {
      * Khởi tạo các thành phần UI
      */
     private void initComponents() {
-        System.out.println("[GUI] Initializing JFrame: 1200x800");
-        System.out.println("[GUI] Setting Look and Feel: Nimbus");
-        System.out.println("[GUI] Main window created");
-        System.out.println("[GUI] Creating panel hierarchy");
-        System.out.println("[LAYOUT] Using BorderLayout for main frame");
+        Log.RENDER.debug("GAME_GUI", "INIT", "Khoi tao JFrame 1200x800 - BorderLayout");
         
         setLayout(new BorderLayout());
         
@@ -560,8 +556,6 @@ public class GameGUI extends JFrame {
      * @param gameState Trạng thái game
      */
     public void updateGameState(GameState gameState) {
-        System.out.println("GameGUI.updateGameState duoc goi voi gameState: " + gameState);
-        
         // Cập nhật lá bài trên cùng
         topCard = gameState.getTopCard();
         updateTopCard();
@@ -572,18 +566,10 @@ public class GameGUI extends JFrame {
         // FIX: Xác định isMyTurn ngay từ đầu và log rõ ràng
         boolean isMyTurn = StringUtils.safeEquals(currentPlayerId, this.playerId);
         
-        // Network-GUI Integration logging
-        System.out.println("[UI-UPDATE] Received game state update");
-        System.out.println("[UI-UPDATE] Current player: " + currentPlayerId);
-        System.out.println("[UI-UPDATE] Top card changed: " + (topCard != null ? topCard.toString() : "null"));
-        
-        // Debug chi tiết
-        System.out.println("DEBUG GameGUI: currentPlayerId='" + currentPlayerId + "', this.playerId='" + 
-                          this.playerId + "', isMyTurn=" + isMyTurn);
-
         Map<String, PlayerInfo> playerInfos = gameState.getPlayerInfos();
-        System.out.println("[UI-UPDATE] Refreshing player list (" + playerInfos.size() + " players)");
-        System.out.println("GameGUI: Thông tin người chơi trong game: " + playerInfos.keySet());
+        Log.RENDER.trace("GAME_GUI", "UI_UPDATE", () -> "Cap nhat trang thai game: currentPlayerId = '" +
+                currentPlayerId + "', playerId = '" + this.playerId + "', isMyTurn = " + isMyTurn +
+                ", top card = " + topCard + ", nguoi choi = " + playerInfos.keySet());
         
         PlayerInfo currentPlayerInfo = playerInfos.get(currentPlayerId);
         
@@ -592,9 +578,6 @@ public class GameGUI extends JFrame {
             
                 // Turn indicator với glow effect theo thiết kế
             if (isMyTurn) {
-                System.out.println("[GUI] Your turn! Enabling card buttons");
-                System.out.println("[GUI] Highlighting active player");
-                
                 // Tạo glow effect với border màu sáng
                 currentPlayerLabel.setText("→ LƯỢT CỦA BẠN (" + currentPlayerName + ") ←");
                 currentPlayerLabel.setForeground(new Color(231, 76, 60)); // UNO Red
@@ -613,8 +596,6 @@ public class GameGUI extends JFrame {
                 currentPlayerLabel.setOpaque(true);
                 currentPlayerLabel.setBackground(new Color(231, 76, 60, 30));
             } else {
-                System.out.println("[GUI] Waiting for other player");
-                
                 currentPlayerLabel.setText("LƯỢT CỦA: " + currentPlayerName);
                 currentPlayerLabel.setForeground(new Color(44, 62, 80)); // Wild/Black
                 currentPlayerLabel.setFont(currentPlayerLabel.getFont().deriveFont(Font.PLAIN, 16));
@@ -623,12 +604,12 @@ public class GameGUI extends JFrame {
                 currentPlayerLabel.setBackground(null);
             }
             
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "TURN_DISPLAY", 
+            Log.RENDER.trace("CLIENT", "TURN_DISPLAY", () ->
                               "Nguoi choi hien tai: " + currentPlayerName + 
-                              " (ID: " + currentPlayerId + "), la luot cua toi: " + isMyTurn));
+                              " (ID: " + currentPlayerId + "), la luot cua toi: " + isMyTurn);
         } else {
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "ERROR", 
-                              "Khong tim thay thong tin cua currentPlayerId = " + currentPlayerId));
+            Log.RENDER.error("CLIENT", "ERROR", 
+                              "Khong tim thay thong tin cua currentPlayerId = " + currentPlayerId);
         }
         
         // FIX: Cập nhật chiều chơi có dấu tiếng Việt
@@ -646,8 +627,8 @@ public class GameGUI extends JFrame {
         // FIX: Đặt canPlay và các nút dựa trên isMyTurn
         // Lưu ý: Biến này cũng đã được đặt trong updatePlayerHand để đảm bảo nhất quán
         this.canPlay = isMyTurn; 
-        System.out.println(StringUtils.formatNetworkLog("CLIENT", "TURN_CONTROL", 
-                "Cap nhat trang thai choi: canPlay = " + this.canPlay + " cho nguoi choi " + this.playerId));
+        Log.RENDER.trace("CLIENT", "TURN_CONTROL", () ->
+                "Cap nhat trang thai choi: canPlay = " + this.canPlay + " cho nguoi choi " + this.playerId);
         
         drawCardButton.setEnabled(isMyTurn);
         endTurnButton.setEnabled(false); // Chỉ bật sau khi rút bài
@@ -659,12 +640,10 @@ public class GameGUI extends JFrame {
             // FIX: So sánh với this.playerId để loại bỏ chính người chơi này
             if (!StringUtils.safeEquals(pid, this.playerId)) {
                 otherPlayers.add(playerInfos.get(pid));
-                System.out.println("[GUI] Player: " + playerInfos.get(pid).getName() + " | Cards: " + playerInfos.get(pid).getHand().size());
             }
         }
         
         // Cập nhật giao diện người chơi khác
-        System.out.println("[GUI] Updating other players panel");
         for (int i = 0; i < otherPlayerPanels.size(); i++) {
             JPanel panel = otherPlayerPanels.get(i);
             if (i < otherPlayers.size()) {
@@ -741,8 +720,8 @@ public class GameGUI extends JFrame {
                     // Cập nhật thông tin văn bản
                     if (cardCountLabel != null) {
                         cardCountLabel.setText("Số bài: " + otherPlayer.getHandSize());
-                        System.out.println(StringUtils.formatNetworkLog("CLIENT", "PLAYER_INFO", 
-                                    "Cap nhat so bai cho " + otherPlayer.getName() + ": " + otherPlayer.getHandSize()));
+                        Log.RENDER.trace("CLIENT", "PLAYER_INFO", () ->
+                                    "Cap nhat so bai cho " + otherPlayer.getName() + ": " + otherPlayer.getHandSize());
                     }
                     
                     if (unoLabel != null) {
@@ -761,9 +740,9 @@ public class GameGUI extends JFrame {
                 }
                 
                 panel.setVisible(true);
-                System.out.println(StringUtils.formatNetworkLog("CLIENT", "UI_UPDATE", 
+                Log.RENDER.trace("CLIENT", "UI_UPDATE", () ->
                                   "Da cap nhat thong tin cho doi thu " + otherPlayer.getName() + 
-                                  ", so la bai: " + otherPlayer.getHandSize()));
+                                  ", so la bai: " + otherPlayer.getHandSize());
             } else {
                 panel.setVisible(false);
             }
@@ -792,9 +771,6 @@ public class GameGUI extends JFrame {
                 null  // không dùng icon mặc định
             );
         }
-        
-        // Performance logging
-        System.out.println("[UI-UPDATE] UI update completed");
     }
     
     /**
@@ -803,36 +779,37 @@ public class GameGUI extends JFrame {
      * @param isCurrentPlayer Có phải lượt của người chơi hiện tại không
      */
     private void updatePlayerHand(boolean isCurrentPlayer) {
-        System.out.println("[RENDER] Rendering " + playerHand.size() + " cards in hand");
-        
         playerHandPanel.removeAll();
         
         // FIX: Đảm bảo canPlay phản ánh chính xác lúc nào người chơi có thể đánh bài
         this.canPlay = isCurrentPlayer;
-        System.out.println(StringUtils.formatNetworkLog("CLIENT", "GAME_STATE", 
-                "Hien thi thi luot cua nguoi choi: P" + playerId + " (ID: " + playerId + "), isCurrentPlayer = " + isCurrentPlayer));
+        Log.RENDER.trace("CLIENT", "GAME_STATE", () ->
+                "Hien thi thi luot cua nguoi choi: P" + playerId + " (ID: " + playerId + "), isCurrentPlayer = " + isCurrentPlayer);
 
-        for (Card card : playerHand) {
+        // Các lá bài đánh được lên lá bài trên cùng, tra một lần cho cả bài trên tay
+        long playable = topCard != null ? Card.playableMask(topCard) : 0L;
+        for (int i = 0; i < playerHand.size(); i++) {
+            Card card = playerHand.get(i);
             JButton cardButton = createCardButton(card);
-            final int cardIndex = playerHand.indexOf(card);
+            final int cardIndex = i;
             
             // FIX: Chỉ bật lá bài có thể chơi được khi là lượt của người chơi này
-            boolean canPlayThisCard = isCurrentPlayer && card.canPlayOn(topCard);
+            boolean canPlayThisCard = isCurrentPlayer && (playable & card.bit()) != 0;
             cardButton.setEnabled(canPlayThisCard);
             
-            System.out.println(StringUtils.formatNetworkLog("CLIENT", "CARD_ANALYSIS", 
-                    "La bai: " + card + ", co the danh: " + canPlayThisCard));
+            Log.RENDER.trace("CLIENT", "CARD_ANALYSIS", () ->
+                    "La bai: " + card + ", co the danh: " + canPlayThisCard);
             
             cardButton.addActionListener(e -> {
-                System.out.println(StringUtils.formatNetworkLog("CLIENT", "CARD_ACTION", 
-                    "Nguoi choi chon la bai, trang thai canPlay = " + canPlay + ", la bai = " + card));
+                Log.RENDER.trace("CLIENT", "CARD_ACTION", () ->
+                    "Nguoi choi chon la bai, trang thai canPlay = " + canPlay + ", la bai = " + card);
                 
                 // Kiểm tra lại xem có thật sự là lượt của người chơi này không
                 if (canPlay) {
                     // Kiểm tra xem lá bài có thể đánh được không
-                    if (card.canPlayOn(topCard)) {
+                    if (canPlayThisCard) {
                         // Nếu là lá wild, hiển thị dialog chọn màu
-                        if (card.getType() == CardType.WILD || card.getType() == CardType.WILD_DRAW_FOUR) {
+                        if (card.isWild()) {
                             CardColor selectedColor = showColorSelectionDialog();
                             if (selectedColor != null) {
                                 clientMain.playCard(cardIndex, selectedColor);
@@ -852,8 +829,8 @@ public class GameGUI extends JFrame {
                         JOptionPane.showMessageDialog(this, "Bạn không thể đánh lá bài này!", "Lỗi", JOptionPane.ERROR_MESSAGE);
                     }
                 } else {
-                    System.out.println(StringUtils.formatNetworkLog("CLIENT", "INVALID_ACTION", 
-                        "Khong the danh bai vi khong phai luot cua nguoi choi! canPlay = " + canPlay));
+                    Log.RENDER.warn("CLIENT", "INVALID_ACTION", 
+                        "Khong the danh bai vi khong phai luot cua nguoi choi! canPlay = " + canPlay);
                 }
             });
             
@@ -874,11 +851,9 @@ public class GameGUI extends JFrame {
         JButton cardButton = new JButton() {
             @Override
             protected void paintComponent(Graphics g) {
-                long renderStart = System.currentTimeMillis();
-                System.out.println("[RENDER] paintComponent() called");
+                long renderStart = System.nanoTime();
                 
                 Graphics2D g2 = (Graphics2D) g.create();
-                System.out.println("[RENDER] Enabling anti-aliasing");
                 g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
                 
                 // Clean, minimalist card design
@@ -1007,9 +982,10 @@ public class GameGUI extends JFrame {
                 
                 g2.dispose();
                 
-                // Rendering performance log
-                long renderTime = System.currentTimeMillis() - renderStart;
-                System.out.println("[RENDER] Rendering completed in " + renderTime + "ms (60 FPS)");
+                if (Log.RENDER.isTraceEnabled()) {
+                    long renderMicros = (System.nanoTime() - renderStart) / 1000;
+                    Log.RENDER.trace("GAME_GUI", "PAINT_CARD", "Ve la bai " + card + " trong " + renderMicros + "us");
+                }
             }
         };
         
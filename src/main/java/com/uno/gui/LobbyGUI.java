@@ -1,6 +1,9 @@
 package com.uno.gui;
 
 import com.uno.client.UnoClientMain;
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomQuery;
+import com.uno.protocol.RoomSnapshot;
 import com.uno.server.GameRoom;
 
 import javax.swing.*;
@@ -8,6 +11,7 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,10 +21,22 @@ import java.util.Map;
 public class LobbyGUI extends JFrame {
     private static final long serialVersionUID = 1L;
     
+    /** Số phòng xin mỗi trang */
+    private static final int PAGE_SIZE = 50;
+    
+    /** Tải trang tiếp theo khi còn cách cuối bảng ít hơn số hàng này */
+    private static final int PREFETCH_ROWS = 10;
+    
+    private static final String[] STATUS_FILTERS = {"Tất cả", "Đang chờ", "Đang chơi"};
+    
     private final UnoClientMain clientMain;
     
     private JTable roomTable;
     private DefaultTableModel roomTableModel;
+    private JScrollPane roomScrollPane;
+    private JTextField roomFilterField;
+    private JComboBox<String> statusFilterBox;
+    private JCheckBox freeSeatFilterBox;
     private JButton createRoomButton;
     private JButton joinRoomButton;
     private JButton refreshButton;
@@ -34,6 +50,12 @@ public class LobbyGUI extends JFrame {
     private JTextField chatField;
     private JButton sendButton;
     
+    // Truy vấn đang hiển thị và con trỏ của trang tiếp theo (null nếu đã tải hết)
+    private int nextQueryId;
+    private RoomQuery currentQuery;
+    private String nextCursor;
+    private boolean pageLoading;
+    
     public LobbyGUI(UnoClientMain clientMain) {
         this.clientMain = clientMain;
         
@@ -86,9 +108,22 @@ public class LobbyGUI extends JFrame {
         roomTable.getColumnModel().getColumn(3).setPreferredWidth(100);
         roomTable.getColumnModel().getColumn(4).setPreferredWidth(100);
         
-        JScrollPane roomScrollPane = new JScrollPane(roomTable);
+        roomScrollPane = new JScrollPane(roomTable);
         roomListPanel.add(roomScrollPane, BorderLayout.CENTER);
         
+        // Panel lọc danh sách phòng
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        roomFilterField = new JTextField(12);
+        statusFilterBox = new JComboBox<>(STATUS_FILTERS);
+        freeSeatFilterBox = new JCheckBox("Còn chỗ");
+        
+        filterPanel.add(new JLabel("Tên phòng:"));
+        filterPanel.add(roomFilterField);
+        filterPanel.add(statusFilterBox);
+        filterPanel.add(freeSeatFilterBox);
+        
+        roomListPanel.add(filterPanel, BorderLayout.NORTH);
+        
         // Panel button cho sảnh
         JPanel lobbyButtonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 5));
         createRoomButton = new JButton("Tạo phòng");
@@ -192,11 +227,14 @@ public class LobbyGUI extends JFrame {
             }
         });
         
-        // Listener cho button làm mới
-        refreshButton.addActionListener(e -> {
-            // Gửi yêu cầu danh sách phòng mới
-            // Thông thường server sẽ tự cập nhật
-        });
+        // Listener cho button làm mới và các bộ lọc: truy vấn lại từ trang đầu
+        refreshButton.addActionListener(e -> reloadRooms());
+        roomFilterField.addActionListener(e -> reloadRooms());
+        statusFilterBox.addActionListener(e -> reloadRooms());
+        freeSeatFilterBox.addActionListener(e -> reloadRooms());
+        
+        // Tải trang tiếp theo khi cuộn gần cuối bảng
+        roomScrollPane.getVerticalScrollBar().addAdjustmentListener(e -> loadNextPageIfNeeded());
         
         // Listener cho button bắt đầu game
         startGameButton.addActionListener(e -> {
@@ -245,40 +283,121 @@ public class LobbyGUI extends JFrame {
     }
     
     /**
-     * Cập nhật danh sách phòng
+     * Truy vấn lại danh sách phòng từ trang đầu theo bộ lọc hiện tại
+     */
+    public void reloadRooms() {
+        String namePrefix = roomFilterField.getText().trim();
+        RoomQuery.Status status;
+        switch (statusFilterBox.getSelectedIndex()) {
+            case 1:
+                status = RoomQuery.Status.WAITING;
+                break;
+            case 2:
+                status = RoomQuery.Status.IN_GAME;
+                break;
+            default:
+                status = RoomQuery.Status.ANY;
+                break;
+        }
+        int minFreeSeats = freeSeatFilterBox.isSelected() ? 1 : 0;
+        
+        currentQuery = new RoomQuery(++nextQueryId, namePrefix, status, minFreeSeats, null, PAGE_SIZE);
+        roomTableModel.setRowCount(0);
+        nextCursor = null;
+        pageLoading = true;
+        clientMain.queryRooms(currentQuery);
+    }
+    
+    /**
+     * Thêm một trang kết quả vào cuối bảng phòng
+     * 
+     * @param page Trang danh sách phòng
+     */
+    public void addRoomPage(RoomPage page) {
+        // Bỏ qua trang của truy vấn đã được thay bằng bộ lọc mới
+        if (currentQuery == null || page.getQueryId() != currentQuery.getQueryId()) {
+            return;
+        }
+        
+        for (Map<String, Object> room : page.getRooms()) {
+            roomTableModel.addRow(toRow(room));
+        }
+        nextCursor = page.getNextCursor();
+        pageLoading = false;
+        
+        // Trang có thể chưa lấp đầy bảng: kiểm tra lại sau khi bảng đã cập nhật kích thước
+        SwingUtilities.invokeLater(this::loadNextPageIfNeeded);
+    }
+    
+    /**
+     * Xin trang tiếp theo nếu bảng đang hiển thị gần tới hàng cuối
+     */
+    private void loadNextPageIfNeeded() {
+        if (pageLoading || nextCursor == null) {
+            return;
+        }
+        JScrollBar scrollBar = roomScrollPane.getVerticalScrollBar();
+        int remaining = scrollBar.getMaximum() - scrollBar.getValue() - scrollBar.getVisibleAmount();
+        if (remaining <= roomTable.getRowHeight() * PREFETCH_ROWS) {
+            pageLoading = true;
+            clientMain.queryRooms(currentQuery.nextPage(nextCursor));
+        }
+    }
+    
+    /**
+     * Cập nhật các phòng đang hiển thị theo danh sách phòng mới nhất: sửa số người chơi,
+     * trạng thái và bỏ các phòng đã bị xóa. Phòng mới chỉ xuất hiện khi truy vấn lại.
      * 
      * @param roomList Danh sách phòng
      */
     public void updateRoomList(List<Map<String, Object>> roomList) {
-        // Xóa tất cả các hàng
-        roomTableModel.setRowCount(0);
-        
-        // Thêm các phòng mới
+        Map<String, Map<String, Object>> roomsById = new HashMap<>();
         for (Map<String, Object> room : roomList) {
-            String id = (String) room.get("id");
-            String name = (String) room.get("name");
-            String hostName = (String) room.get("hostName");
-            int playerCount = (int) room.get("playerCount");
-            boolean gameStarted = (boolean) room.get("gameStarted");
-            
-            String status = gameStarted ? "Đang chơi" : "Đang chờ";
-            
-            roomTableModel.addRow(new Object[] {id, name, hostName, playerCount + "/4", status});
+            roomsById.put((String) room.get("id"), room);
+        }
+        
+        for (int row = roomTableModel.getRowCount() - 1; row >= 0; row--) {
+            Map<String, Object> room = roomsById.get((String) roomTableModel.getValueAt(row, 0));
+            if (room == null) {
+                roomTableModel.removeRow(row);
+                continue;
+            }
+            Object[] values = toRow(room);
+            for (int column = 3; column < values.length; column++) {
+                if (!values[column].equals(roomTableModel.getValueAt(row, column))) {
+                    roomTableModel.setValueAt(values[column], row, column);
+                }
+            }
         }
     }
     
+    /**
+     * Chuyển thông tin phòng thành một hàng của bảng phòng
+     */
+    private static Object[] toRow(Map<String, Object> room) {
+        String id = (String) room.get("id");
+        String name = (String) room.get("name");
+        String hostName = (String) room.get("hostName");
+        int playerCount = (int) room.get("playerCount");
+        boolean gameStarted = (boolean) room.get("gameStarted");
+        
+        String status = gameStarted ? "Đang chơi" : "Đang chờ";
+        
+        return new Object[] {id, name, hostName, playerCount + "/" + GameRoom.MAX_PLAYERS, status};
+    }
+    
     /**
      * Cập nhật thông tin phòng
      * 
-     * @param room Thông tin phòng
+     * @param room Ảnh chụp phòng
      */
-    public void updateRoomInfo(GameRoom room) {
+    public void updateRoomInfo(RoomSnapshot room) {
         roomNameLabel.setText("Tên phòng: " + room.getName());
-        hostNameLabel.setText("Chủ phòng: " + room.getHost().getName());
-        playerCountLabel.setText("Số người chơi: " + room.getPlayerCount() + "/4");
+        hostNameLabel.setText("Chủ phòng: " + room.getHostName());
+        playerCountLabel.setText("Số người chơi: " + room.getPlayerCount() + "/" + GameRoom.MAX_PLAYERS);
         
         // Kiểm tra xem người chơi hiện tại có phải là chủ phòng không
-        boolean isHost = room.getHost().getId().equals(clientMain.getPlayerId());
+        boolean isHost = room.getHostId().equals(clientMain.getPlayerId());
         startGameButton.setEnabled(isHost);
         
         // Chuyển sang giao diện phòng chờ
@@ -301,6 +420,9 @@ public class LobbyGUI extends JFrame {
         
         // Xóa nội dung chat
         chatArea.setText("");
+        
+        // Tải lại danh sách phòng vì các phòng có thể đã thay đổi khi ở trong phòng chờ
+        reloadRooms();
     }
     
     /**
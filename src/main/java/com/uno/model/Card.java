@@ -3,55 +3,264 @@ package com.uno.model;
 import java.io.Serializable;
 
 /**
- * Represents a Uno card with color, type and value
+ * Represents a Uno card with color, type and value.
+ *
+ * Cards are immutable flyweights: every distinct card (including a wild card
+ * with a declared color) has exactly one instance, identified by a small integer
+ * code in [0, {@link #CODE_COUNT}). Playability between two cards is looked up
+ * in a table precomputed from the rules, one 64-bit mask per top card.
  */
 public class Card implements Serializable {
     private static final long serialVersionUID = 1L;
-    
+
+    /** Number of distinct cards: 52 colored, 2 wild, 8 wild with a declared color */
+    public static final int CODE_COUNT = 62;
+
+    private static final CardColor[] PLAY_COLORS = {
+            CardColor.RED, CardColor.BLUE, CardColor.GREEN, CardColor.YELLOW };
+    private static final int CARDS_PER_COLOR = 13;
+    private static final int WILD_CODE = 52;
+    private static final int WILD_DRAW_FOUR_CODE = 53;
+    private static final int DECLARED_WILD_BASE = 54;
+
+    private static final Card[] BY_CODE = new Card[CODE_COUNT];
+    /** PLAYABLE_ON[top] has bit c set when the card with code c can be played on top */
+    private static final long[] PLAYABLE_ON = new long[CODE_COUNT];
+    /** Codes of the cards of each color, indexed by CardColor ordinal */
+    private static final long[] COLOR_MASKS = new long[CardColor.values().length];
+    /** Codes of the cards of each type, indexed by CardType ordinal */
+    private static final long[] TYPE_MASKS = new long[CardType.values().length];
+
+    static {
+        for (int code = 0; code < CODE_COUNT; code++) {
+            BY_CODE[code] = decode(code);
+        }
+        for (Card top : BY_CODE) {
+            long mask = 0;
+            for (Card card : BY_CODE) {
+                if (rulesAllow(card, top)) {
+                    mask |= 1L << card.code;
+                }
+            }
+            PLAYABLE_ON[top.code] = mask;
+            COLOR_MASKS[top.color.ordinal()] |= 1L << top.code;
+            TYPE_MASKS[top.type.ordinal()] |= 1L << top.code;
+        }
+    }
+
     private final CardColor color;
     private final CardType type;
     private final int value;
-    
-    /**
-     * Creates a new Card with the specified color, type and value
-     * 
-     * @param color Color of the card
-     * @param type Type of the card
-     * @param value Value of the card (for number cards)
-     */
-    public Card(CardColor color, CardType type, int value) {
+    private final transient int code;
+
+    private Card(CardColor color, CardType type, int value, int code) {
         this.color = color;
         this.type = type;
         this.value = value;
+        this.code = code;
+    }
+
+    /**
+     * Gets the canonical card with the specified color, type and value
+     *
+     * @param color Color of the card (the declared color for a played wild card)
+     * @param type Type of the card
+     * @param value Value of the card (0-9 for number cards, ignored otherwise)
+     * @return The shared instance for that card
+     * @throws IllegalArgumentException If no such Uno card exists
+     */
+    public static Card of(CardColor color, CardType type, int value) {
+        return BY_CODE[codeOf(color, type, value)];
+    }
+
+    /**
+     * Gets the canonical card for a code
+     *
+     * @param code Card code in [0, {@link #CODE_COUNT})
+     * @return The shared instance for that code
+     * @throws IllegalArgumentException If the code is out of range
+     */
+    public static Card fromCode(int code) {
+        if (code < 0 || code >= CODE_COUNT) {
+            throw new IllegalArgumentException("Invalid card code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    /**
+     * Gets the set of cards that can be played on top of a card, as a bitmask over card
+     * codes. Test a card with {@code (mask & card.bit()) != 0}; computing the mask once
+     * per top card avoids repeated lookups when scanning a whole hand.
+     *
+     * @param topCard The card currently on top of the play pile
+     * @return Bitmask of playable card codes
+     */
+    public static long playableMask(Card topCard) {
+        return PLAYABLE_ON[topCard.code];
+    }
+
+    /**
+     * Gets the codes of all cards of a color, as a bitmask. Wild cards with a declared
+     * color belong to that color.
+     *
+     * @param color The color
+     * @return Bitmask of card codes
+     */
+    public static long colorMask(CardColor color) {
+        return COLOR_MASKS[color.ordinal()];
+    }
+
+    /**
+     * Gets the codes of all cards of a type, as a bitmask
+     *
+     * @param type The type
+     * @return Bitmask of card codes
+     */
+    public static long typeMask(CardType type) {
+        return TYPE_MASKS[type.ordinal()];
+    }
+
+    private static int codeOf(CardColor color, CardType type, int value) {
+        if (color == null || type == null) {
+            throw new IllegalArgumentException("Card color and type are required");
+        }
+        boolean wildType = type == CardType.WILD || type == CardType.WILD_DRAW_FOUR;
+        if (color == CardColor.WILD) {
+            if (!wildType) {
+                throw new IllegalArgumentException("Only wild cards have no color: " + type);
+            }
+            return type == CardType.WILD ? WILD_CODE : WILD_DRAW_FOUR_CODE;
+        }
+        if (wildType) {
+            return DECLARED_WILD_BASE + color.ordinal() * 2 + (type == CardType.WILD ? 0 : 1);
+        }
+        int index;
+        switch (type) {
+            case NUMBER:
+                if (value < 0 || value > 9) {
+                    throw new IllegalArgumentException("Invalid number card value: " + value);
+                }
+                index = value;
+                break;
+            case SKIP:
+                index = 10;
+                break;
+            case REVERSE:
+                index = 11;
+                break;
+            default:
+                index = 12;
+                break;
+        }
+        return color.ordinal() * CARDS_PER_COLOR + index;
+    }
+
+    private static Card decode(int code) {
+        if (code < WILD_CODE) {
+            CardColor color = PLAY_COLORS[code / CARDS_PER_COLOR];
+            int index = code % CARDS_PER_COLOR;
+            switch (index) {
+                case 10:
+                    return new Card(color, CardType.SKIP, -1, code);
+                case 11:
+                    return new Card(color, CardType.REVERSE, -1, code);
+                case 12:
+                    return new Card(color, CardType.DRAW_TWO, -1, code);
+                default:
+                    return new Card(color, CardType.NUMBER, index, code);
+            }
+        }
+        if (code == WILD_CODE) {
+            return new Card(CardColor.WILD, CardType.WILD, -1, code);
+        }
+        if (code == WILD_DRAW_FOUR_CODE) {
+            return new Card(CardColor.WILD, CardType.WILD_DRAW_FOUR, -1, code);
+        }
+        int declared = code - DECLARED_WILD_BASE;
+        return new Card(PLAY_COLORS[declared / 2], declared % 2 == 0 ? CardType.WILD : CardType.WILD_DRAW_FOUR,
+                -1, code);
+    }
+
+    /**
+     * Keeps cards canonical when they are read back through Java serialization
+     */
+    private Object readResolve() {
+        return of(color, type, value);
     }
-    
+
     /**
      * Gets the color of this card
-     * 
+     *
      * @return The card's color
      */
     public CardColor getColor() {
         return color;
     }
-    
+
     /**
      * Gets the type of this card
-     * 
+     *
      * @return The card's type
      */
     public CardType getType() {
         return type;
     }
-    
+
     /**
      * Gets the value of this card
-     * 
+     *
      * @return The card's value (for number cards)
      */
     public int getValue() {
         return value;
     }
-    
+
+    /**
+     * Gets the code of this card
+     *
+     * @return Code in [0, {@link #CODE_COUNT})
+     */
+    public int code() {
+        return code;
+    }
+
+    /**
+     * Gets the bit of this card in a {@link #playableMask(Card)}
+     *
+     * @return {@code 1L << code()}
+     */
+    public long bit() {
+        return 1L << code;
+    }
+
+    /**
+     * Checks whether this is a wild card, with or without a declared color
+     *
+     * @return true for WILD and WILD_DRAW_FOUR cards
+     */
+    public boolean isWild() {
+        return type == CardType.WILD || type == CardType.WILD_DRAW_FOUR;
+    }
+
+    /**
+     * Gets the card placed on the play pile when this card is played with a declared color
+     *
+     * @param declaredColor Color chosen by the player; ignored for non-wild cards
+     * @return The wild card with that declared color, or this card if it is not wild
+     */
+    public Card withDeclaredColor(CardColor declaredColor) {
+        return isWild() ? of(declaredColor, type, value) : this;
+    }
+
+    /**
+     * Gets the card as it is in a hand or in the draw pile, i.e. without a declared color
+     *
+     * @return The plain wild card for a wild card, or this card otherwise
+     */
+    public Card withoutDeclaredColor() {
+        return isWild() ? of(CardColor.WILD, type, value) : this;
+    }
+
     @Override
     public String toString() {
         if (type == CardType.NUMBER) {
@@ -60,36 +269,43 @@ public class Card implements Serializable {
             return color.getDisplayName() + " " + type.getDisplayName();
         }
     }
-    
+
     /**
      * Determines if this card can be played on top of another card
      * according to Uno rules.
-     * 
+     *
      * @param topCard The card currently on top of the play pile
      * @return true if this card can be played, false otherwise
      */
     public boolean canPlayOn(Card topCard) {
+        return (PLAYABLE_ON[topCard.code] & (1L << code)) != 0;
+    }
+
+    /**
+     * The Uno rules the playability table is built from
+     */
+    private static boolean rulesAllow(Card card, Card topCard) {
         // Wild cards can be played anytime
-        if (this.type == CardType.WILD || this.type == CardType.WILD_DRAW_FOUR) {
+        if (card.isWild()) {
             return true;
         }
         // If top card is wild, must match the selected color
-        if (topCard.getType() == CardType.WILD || topCard.getType() == CardType.WILD_DRAW_FOUR) {
-            return this.color == topCard.getColor();
+        if (topCard.isWild()) {
+            return card.color == topCard.color;
         }
         // Otherwise, must match color or match type (or both)
-        return this.color == topCard.getColor() || 
-               (this.type == topCard.getType() && this.type != CardType.NUMBER) ||
-               (this.type == CardType.NUMBER && topCard.getType() == CardType.NUMBER && this.value == topCard.getValue());
+        return card.color == topCard.color ||
+               (card.type == topCard.type && card.type != CardType.NUMBER) ||
+               (card.type == CardType.NUMBER && topCard.type == CardType.NUMBER && card.value == topCard.value);
     }
-    
+
     /**
      * Gets a string description of card attributes for debugging
-     * 
+     *
      * @return Detailed string with all card properties
      */
     public String getDebugDetails() {
-        return String.format("Card{color=%s, type=%s, value=%d}", 
+        return String.format("Card{color=%s, type=%s, value=%d}",
                 color.name(), type.name(), value);
     }
-}
\ No newline at end of file
+}
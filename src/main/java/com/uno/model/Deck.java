@@ -1,90 +1,162 @@
 package com.uno.model;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Stack;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Class đại diện cho bộ bài Uno
+ *
+ * Bộ bài và chồng bài đã đánh được lưu dưới dạng mảng mã lá bài ({@link Card#code()}) có kích
+ * thước cố định bằng cả bộ bài; lá trên cùng nằm ở cuối mảng. Rút bài, đánh bài, trộn lại
+ * chồng bài đã đánh khi hết bài đều thao tác trực tiếp trên hai mảng này, không cấp phát thêm.
  */
 public class Deck implements Serializable {
-    private static final long serialVersionUID = 1L;
-    private final Stack<Card> cards;
-    private final Stack<Card> discardPile;
-    
-    public Deck() {
-        cards = new Stack<>();
-        discardPile = new Stack<>();
-        initializeDeck();
-    }
-    
-    /**
-     * Khởi tạo bộ bài Uno chuẩn
-     */
-    private void initializeDeck() {
-        // Thêm các lá bài có số (0-9, mỗi màu)
-        for (CardColor color : new CardColor[] { CardColor.RED, CardColor.BLUE, CardColor.GREEN, CardColor.YELLOW }) {
+    private static final long serialVersionUID = 2L;
+
+    /** Số lá của một bộ bài Uno chuẩn */
+    public static final int DECK_SIZE = 108;
+
+    private static final CardColor[] PLAY_COLORS = {
+            CardColor.RED, CardColor.BLUE, CardColor.GREEN, CardColor.YELLOW };
+    /** Mã lá bài của bộ bài mới, theo thứ tự trước khi trộn */
+    private static final byte[] FULL_DECK = new byte[DECK_SIZE];
+    /** Mã lá bài khi trả về bộ bài: lá Wild đã chọn màu trở lại thành lá Wild gốc */
+    private static final byte[] PLAIN_CODE = new byte[Card.CODE_COUNT];
+
+    static {
+        int size = 0;
+        for (CardColor color : PLAY_COLORS) {
             // Mỗi màu có một lá số 0
-            cards.add(new Card(color, CardType.NUMBER, 0));
-            
+            FULL_DECK[size++] = code(color, CardType.NUMBER, 0);
+
             // Mỗi màu có hai lá từ số 1 đến 9
             for (int i = 1; i <= 9; i++) {
-                cards.add(new Card(color, CardType.NUMBER, i));
-                cards.add(new Card(color, CardType.NUMBER, i));
+                FULL_DECK[size++] = code(color, CardType.NUMBER, i);
+                FULL_DECK[size++] = code(color, CardType.NUMBER, i);
             }
-            
+
             // Mỗi màu có hai lá Skip, Reverse, Draw Two
             for (int i = 0; i < 2; i++) {
-                cards.add(new Card(color, CardType.SKIP, -1));
-                cards.add(new Card(color, CardType.REVERSE, -1));
-                cards.add(new Card(color, CardType.DRAW_TWO, -1));
+                FULL_DECK[size++] = code(color, CardType.SKIP, -1);
+                FULL_DECK[size++] = code(color, CardType.REVERSE, -1);
+                FULL_DECK[size++] = code(color, CardType.DRAW_TWO, -1);
             }
         }
-        
+
         // Thêm lá Wild và Wild Draw Four
         for (int i = 0; i < 4; i++) {
-            cards.add(new Card(CardColor.WILD, CardType.WILD, -1));
-            cards.add(new Card(CardColor.WILD, CardType.WILD_DRAW_FOUR, -1));
+            FULL_DECK[size++] = code(CardColor.WILD, CardType.WILD, -1);
+            FULL_DECK[size++] = code(CardColor.WILD, CardType.WILD_DRAW_FOUR, -1);
+        }
+
+        for (int code = 0; code < Card.CODE_COUNT; code++) {
+            PLAIN_CODE[code] = (byte) Card.fromCode(code).withoutDeclaredColor().code();
         }
-        
+    }
+
+    private final byte[] cards;
+    private final byte[] discardPile;
+    private int cardCount;
+    private int discardCount;
+    private transient RandomGenerator random;
+
+    /**
+     * Tạo bộ bài đã trộn với nguồn ngẫu nhiên mặc định ({@link SplittableRandom})
+     */
+    public Deck() {
+        this(new SplittableRandom());
+    }
+
+    /**
+     * Tạo bộ bài đã trộn
+     *
+     * @param random Nguồn ngẫu nhiên dùng để trộn bài và chọn màu cho lá Wild đầu tiên
+     */
+    public Deck(RandomGenerator random) {
+        this.cards = new byte[DECK_SIZE];
+        this.discardPile = new byte[DECK_SIZE];
+        this.random = random;
+        reset();
+    }
+
+    private static byte code(CardColor color, CardType type, int value) {
+        return (byte) Card.of(color, type, value).code();
+    }
+
+    /**
+     * Đưa toàn bộ 108 lá về bộ bài, xóa chồng bài đã đánh và trộn lại
+     */
+    public void reset() {
+        System.arraycopy(FULL_DECK, 0, cards, 0, DECK_SIZE);
+        cardCount = DECK_SIZE;
+        discardCount = 0;
         shuffle();
     }
-    
+
     /**
-     * Trộn bộ bài
+     * Trộn bộ bài (Fisher–Yates)
      */
     public void shuffle() {
-        Collections.shuffle(cards);
+        for (int i = cardCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            byte swap = cards[i];
+            cards[i] = cards[j];
+            cards[j] = swap;
+        }
     }
-    
+
     /**
      * Rút một lá bài từ bộ bài
-     * 
-     * @return Lá bài được rút
+     *
+     * @return Lá bài được rút, hoặc null nếu không còn bài
      */
     public Card drawCard() {
         // Nếu hết bài, lấy từ chồng bài đã đánh và trộn lại
-        if (cards.isEmpty() && !discardPile.isEmpty()) {
-            Card topCard = discardPile.pop();
-            cards.addAll(discardPile);
-            discardPile.clear();
-            discardPile.push(topCard);
-            shuffle();
+        if (cardCount == 0) {
+            recycleDiscardPile();
         }
-        
-        return cards.isEmpty() ? null : cards.pop();
+
+        return cardCount == 0 ? null : Card.fromCode(cards[--cardCount]);
     }
-    
+
+    /**
+     * Rút nhiều lá bài vào mảng do người gọi cung cấp
+     *
+     * @param buffer Mảng nhận các lá bài
+     * @param offset Vị trí bắt đầu ghi trong mảng
+     * @param numCards Số lượng lá bài cần rút
+     * @return Số lá bài đã rút; nhỏ hơn numCards nếu hết bài
+     */
+    public int drawCards(Card[] buffer, int offset, int numCards) {
+        int drawn = 0;
+        while (drawn < numCards) {
+            if (cardCount == 0) {
+                recycleDiscardPile();
+                if (cardCount == 0) {
+                    break;
+                }
+            }
+            int batch = Math.min(numCards - drawn, cardCount);
+            for (int i = 0; i < batch; i++) {
+                buffer[offset + drawn++] = Card.fromCode(cards[--cardCount]);
+            }
+        }
+        return drawn;
+    }
+
     /**
      * Rút nhiều lá bài
-     * 
+     *
      * @param numCards Số lượng lá bài cần rút
      * @return Danh sách các lá bài được rút
      */
     public List<Card> drawCards(int numCards) {
-        List<Card> drawnCards = new ArrayList<>();
+        List<Card> drawnCards = new ArrayList<>(numCards);
         for (int i = 0; i < numCards; i++) {
             Card card = drawCard();
             if (card != null) {
@@ -95,58 +167,82 @@ public class Deck implements Serializable {
         }
         return drawnCards;
     }
-    
+
+    /**
+     * Chuyển chồng bài đã đánh (trừ lá trên cùng) vào bộ bài và trộn lại
+     */
+    private void recycleDiscardPile() {
+        if (discardCount <= 1) {
+            return;
+        }
+        int recycled = discardCount - 1;
+        // Lá Wild trên chồng bài mang màu đã chọn; trả về bộ bài như lá Wild gốc
+        for (int i = 0; i < recycled; i++) {
+            cards[cardCount++] = PLAIN_CODE[discardPile[i]];
+        }
+        discardPile[0] = discardPile[recycled];
+        discardCount = 1;
+        shuffle();
+    }
+
     /**
      * Đặt lá bài vào chồng bài đã đánh
-     * 
+     *
      * @param card Lá bài cần đặt
+     * @throws IllegalStateException Nếu số lá vượt quá một bộ bài
      */
     public void discardCard(Card card) {
-        discardPile.push(card);
+        if (discardCount == DECK_SIZE) {
+            throw new IllegalStateException("Chong bai da danh vuot qua " + DECK_SIZE + " la");
+        }
+        discardPile[discardCount++] = (byte) card.code();
     }
-    
+
     /**
      * Lấy lá bài trên cùng của chồng bài đã đánh
-     * 
+     *
      * @return Lá bài trên cùng
      */
     public Card getTopCard() {
-        return discardPile.isEmpty() ? null : discardPile.peek();
+        return discardCount == 0 ? null : Card.fromCode(discardPile[discardCount - 1]);
     }
-    
+
     /**
-     * Khởi tạo chồng bài đã đánh với một lá bài
-     * 
-     * @param card Lá bài đầu tiên
+     * Khởi tạo chồng bài đã đánh với lá bài đầu tiên của bộ bài
      */
     public void initializeDiscardPile() {
         // Đặt lá bài đầu tiên lên chồng đã đánh
         Card firstCard = drawCard();
-        
-        // Đảm bảo lá bài đầu tiên không phải Wild Draw Four
-        while (firstCard != null && firstCard.getType() == CardType.WILD_DRAW_FOUR) {
-            cards.add(0, firstCard);
+
+        // Đảm bảo lá bài đầu tiên không phải Wild Draw Four: trả lá đó vào một vị trí ngẫu nhiên rồi rút lại
+        while (firstCard != null && firstCard.getType() == CardType.WILD_DRAW_FOUR && cardCount > 0) {
+            int j = random.nextInt(cardCount + 1);
+            cards[cardCount++] = cards[j];
+            cards[j] = (byte) firstCard.code();
             firstCard = drawCard();
         }
-        
+
         // Nếu là Wild, đặt màu ngẫu nhiên
         if (firstCard != null && firstCard.getType() == CardType.WILD) {
-            CardColor[] colors = { CardColor.RED, CardColor.BLUE, CardColor.GREEN, CardColor.YELLOW };
-            CardColor randomColor = colors[(int) (Math.random() * colors.length)];
-            firstCard = new Card(randomColor, CardType.WILD, -1);
+            firstCard = firstCard.withDeclaredColor(PLAY_COLORS[random.nextInt(PLAY_COLORS.length)]);
         }
-        
+
         if (firstCard != null) {
-            discardPile.push(firstCard);
+            discardCard(firstCard);
         }
     }
-    
+
     /**
      * Lấy số lượng lá bài còn lại trong bộ bài
-     * 
+     *
      * @return Số lượng lá bài còn lại
      */
     public int getRemainingCards() {
-        return cards.size();
+        return cardCount;
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        random = new SplittableRandom();
     }
-}
\ No newline at end of file
+}
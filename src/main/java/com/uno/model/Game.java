@@ -1,20 +1,37 @@
 package com.uno.model;
 
+import com.uno.utils.Log;
+import com.uno.utils.StringUtils;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * Class đại diện cho một ván game Uno
+ *
+ * Mọi yếu tố ngẫu nhiên của game (trộn bài, màu của lá Wild đầu tiên) đều lấy từ seed truyền
+ * vào, và mọi lệnh được chấp nhận đều được ghi vào {@link GameJournal}. Vì vậy cùng seed và
+ * nhật ký, {@link #replay(long, GameJournal)} dựng lại đúng ván game đó.
  */
 public class Game implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
     
     // Constants
     private static final int INITIAL_CARDS = 7;
     private static final int MAX_PLAYERS = 4;
     
+    /**
+     * Kết quả thách thức lá Wild Draw Four
+     */
+    public enum ChallengeResult {
+        REJECTED,   // Không thể thách thức lúc này
+        SUCCEEDED,  // Lá Wild Draw Four đánh sai luật: người bị thách thức rút 4 lá
+        FAILED      // Lá Wild Draw Four hợp lệ: người thách thức rút 6 lá
+    }
+    
     // Game state
     private final Deck deck;
     private final List<Player> players;
@@ -22,9 +39,29 @@ public class Game implements Serializable {
     private boolean clockwise;
     private boolean gameStarted;
     private boolean gameOver;
+    private final long seed;
+    private final GameJournal journal;
+    // Người vừa đánh Wild Draw Four và lá đó có bị đánh sai luật không (chờ thách thức)
+    private String wildDrawFourPlayerId;
+    private boolean wildDrawFourIllegal;
+    private transient GameEventListener eventListener;
     
+    /**
+     * Tạo game với seed ngẫu nhiên
+     */
     public Game() {
-        this.deck = new Deck();
+        this(new SplittableRandom().nextLong());
+    }
+    
+    /**
+     * Tạo game với seed cho trước
+     * 
+     * @param seed Seed của mọi yếu tố ngẫu nhiên trong game
+     */
+    public Game(long seed) {
+        this.seed = seed;
+        this.journal = new GameJournal();
+        this.deck = new Deck(new SplittableRandom(seed));
         this.players = new ArrayList<>();
         this.currentPlayerIndex = 0;
         this.clockwise = true;
@@ -32,6 +69,77 @@ public class Game implements Serializable {
         this.gameOver = false;
     }
     
+    /**
+     * Đăng ký listener nhận các thay đổi trạng thái của game
+     * 
+     * @param eventListener Listener, hoặc null để hủy đăng ký
+     */
+    public void setEventListener(GameEventListener eventListener) {
+        this.eventListener = eventListener;
+    }
+    
+    /**
+     * Dựng lại một ván game từ seed và nhật ký của nó
+     * 
+     * @param seed Seed của ván game gốc
+     * @param journal Nhật ký của ván game gốc
+     * @return Game mới có cùng trạng thái và cùng nhật ký với ván game gốc
+     * @throws IllegalStateException Nếu một lệnh trong nhật ký không được chấp nhận khi chạy lại
+     */
+    public static Game replay(long seed, GameJournal journal) {
+        Game game = new Game(seed);
+        for (int entry = 0; entry < journal.size(); entry++) {
+            if (!game.apply(journal, entry)) {
+                throw new IllegalStateException("Lenh " + journal.action(entry) + " o ban ghi " + entry
+                        + " khong khop voi game khi chay lai");
+            }
+        }
+        return game;
+    }
+    
+    private boolean apply(GameJournal journal, int entry) {
+        switch (journal.action(entry)) {
+            case ADD_PLAYER:
+                return addPlayer(new Player(journal.playerId(entry), journal.playerName(entry)));
+            case REMOVE_PLAYER:
+                return removePlayer(journal.playerId(entry));
+            case START_GAME:
+                return startGame();
+            case PLAY_CARD:
+                return playCard(journal.playerId(entry), journal.cardIndex(entry), journal.declaredColor(entry));
+            case DRAW_CARD:
+                return drawCard(journal.playerId(entry)) != null;
+            case END_TURN:
+                return endTurn(journal.playerId(entry));
+            case CALL_UNO:
+                return callUno(journal.playerId(entry));
+            case PENALIZE_UNO:
+                return penalizeForNotCallingUno(journal.playerId(entry));
+            case CHALLENGE:
+                return challengeWildDrawFour(journal.playerId(entry), journal.challengedId(entry))
+                        != ChallengeResult.REJECTED;
+            case RESET_GAME:
+                resetGame();
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * @return Seed của game
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
+    /**
+     * @return Nhật ký các lệnh đã được chấp nhận (chỉ đọc từ bên ngoài package)
+     */
+    public GameJournal getJournal() {
+        return journal;
+    }
+    
     /**
      * Thêm người chơi vào game
      * 
@@ -41,6 +149,7 @@ public class Game implements Serializable {
     public boolean addPlayer(Player player) {
         if (players.size() < MAX_PLAYERS && !gameStarted) {
             players.add(player);
+            journal.recordAddPlayer(player);
             return true;
         }
         return false;
@@ -53,8 +162,9 @@ public class Game implements Serializable {
      * @return true nếu xóa thành công, ngược lại false
      */
     public boolean removePlayer(String playerId) {
-        if (!gameStarted) {
-            return players.removeIf(p -> p.getId().equals(playerId));
+        if (!gameStarted && players.removeIf(p -> p.getId().equals(playerId))) {
+            journal.record(GameJournal.Action.REMOVE_PLAYER, playerId, 0);
+            return true;
         }
         return false;
     }
@@ -68,13 +178,14 @@ public class Game implements Serializable {
         if (players.size() >= 2 && !gameStarted) {
             gameStarted = true;
             gameOver = false;
+            journal.record(GameJournal.Action.START_GAME);
             
             // Trộn bài
             deck.shuffle();
             
             // Phát bài cho người chơi
             for (Player player : players) {
-                player.addCards(deck.drawCards(INITIAL_CARDS));
+                giveCards(player, deck.drawCards(INITIAL_CARDS));
             }
             
             // Đặt lá bài đầu tiên
@@ -87,9 +198,12 @@ public class Game implements Serializable {
                     nextPlayer(); // Người chơi đầu tiên bị bỏ qua
                 } else if (topCard.getType() == CardType.REVERSE) {
                     clockwise = false; // Đảo chiều
+                    if (eventListener != null) {
+                        eventListener.onDirectionChanged(clockwise);
+                    }
                 } else if (topCard.getType() == CardType.DRAW_TWO) {
                     Player currentPlayer = getCurrentPlayer();
-                    currentPlayer.addCards(deck.drawCards(2));
+                    giveCards(currentPlayer, deck.drawCards(2));
                     nextPlayer(); // Người chơi đầu tiên bị bỏ qua sau khi rút 2 lá
                 }
             }
@@ -113,18 +227,17 @@ public class Game implements Serializable {
         }
         
         Player currentPlayer = getCurrentPlayer();
-        System.out.println("Lượt của: " + currentPlayer.getId() + ", người đang đánh: " + playerId);
         
         // Sử dụng StringUtils để so sánh an toàn
-        if (!com.uno.utils.StringUtils.safeEquals(currentPlayer.getId(), playerId)) {
-            System.out.println("Từ chối: Không phải lượt của " + playerId);
+        if (!StringUtils.safeEquals(currentPlayer.getId(), playerId)) {
+            Log.GAME.trace("GAME", "VALIDATE_TURN", () ->
+                    "Tu choi: khong phai luot cua " + playerId + ", luot hien tai: " + currentPlayer.getId());
             return false;
         }
         
         // Kiểm tra xem lá bài có thể đánh được không
         Card topCard = deck.getTopCard();
-        List<Integer> playableCardIndices = currentPlayer.getPlayableCardIndices(topCard);
-        if (!playableCardIndices.contains(cardIndex)) {
+        if (!currentPlayer.canPlayCard(cardIndex, topCard)) {
             return false;
         }
         
@@ -135,16 +248,31 @@ public class Game implements Serializable {
         }
         
         // Nếu là lá Wild, cập nhật màu đã chọn
-        if (playedCard.getType() == CardType.WILD || playedCard.getType() == CardType.WILD_DRAW_FOUR) {
-            playedCard = new Card(declaredColor, playedCard.getType(), playedCard.getValue());
+        if (playedCard.isWild()) {
+            playedCard = playedCard.withDeclaredColor(declaredColor);
+        }
+        
+        // Wild Draw Four chỉ hợp lệ khi người chơi không còn lá cùng màu với lá trên cùng
+        if (playedCard.getType() == CardType.WILD_DRAW_FOUR) {
+            wildDrawFourPlayerId = playerId;
+            wildDrawFourIllegal = currentPlayer.hasColor(topCard.getColor());
+        } else {
+            wildDrawFourPlayerId = null;
         }
         
         // Đặt lá bài lên chồng bài đã đánh
         deck.discardCard(playedCard);
+        journal.recordPlayCard(playerId, cardIndex, declaredColor);
+        if (eventListener != null) {
+            eventListener.onCardPlayed(currentPlayer, cardIndex, playedCard);
+        }
         
         // Kiểm tra nếu người chơi đã thắng
         if (currentPlayer.getHandSize() == 0) {
             gameOver = true;
+            if (eventListener != null) {
+                eventListener.onGameOver(currentPlayer);
+            }
             return true;
         }
         
@@ -166,6 +294,9 @@ public class Game implements Serializable {
                 break;
             case REVERSE:
                 clockwise = !clockwise; // Đảo chiều
+                if (eventListener != null) {
+                    eventListener.onDirectionChanged(clockwise);
+                }
                 // Nếu chỉ có 2 người chơi, Reverse hoạt động giống Skip
                 if (players.size() == 2) {
                     nextPlayer();
@@ -175,7 +306,7 @@ public class Game implements Serializable {
                 nextPlayer(); // Chuyển đến người chơi kế tiếp
                 Player nextPlayer = getCurrentPlayer();
                 // Người chơi kế tiếp rút 2 lá (không thể chồng lá +2 trong luật cơ bản)
-                nextPlayer.addCards(deck.drawCards(2)); 
+                giveCards(nextPlayer, deck.drawCards(2));
                 nextPlayer(); // Người chơi kế tiếp bị bỏ qua lượt
                 break;
             case WILD_DRAW_FOUR:
@@ -215,7 +346,12 @@ public class Game implements Serializable {
         
         Card drawnCard = deck.drawCard();
         if (drawnCard != null) {
+            journal.record(GameJournal.Action.DRAW_CARD, playerId, 0);
+            wildDrawFourPlayerId = null;
             currentPlayer.addCard(drawnCard);
+            if (eventListener != null) {
+                eventListener.onCardsDrawn(currentPlayer, Collections.singletonList(drawnCard));
+            }
         }
         return drawnCard;
     }
@@ -236,6 +372,8 @@ public class Game implements Serializable {
             return false;
         }
         
+        journal.record(GameJournal.Action.END_TURN, playerId, 0);
+        wildDrawFourPlayerId = null;
         nextPlayer();
         return true;
     }
@@ -245,7 +383,6 @@ public class Game implements Serializable {
      */
     private void nextPlayer() {
         int oldIndex = currentPlayerIndex;
-        String oldPlayerId = players.get(currentPlayerIndex).getId();
         
         if (clockwise) {
             currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
@@ -253,8 +390,24 @@ public class Game implements Serializable {
             currentPlayerIndex = (currentPlayerIndex - 1 + players.size()) % players.size();
         }
         
-        System.out.println("Chuyển lượt từ " + oldPlayerId + " (index " + oldIndex + ") sang " + 
-                          players.get(currentPlayerIndex).getId() + " (index " + currentPlayerIndex + ")");
+        Log.GAME.trace("GAME", "NEXT_TURN", () -> "Chuyen luot tu index " + oldIndex + " sang " +
+                players.get(currentPlayerIndex).getId() + " (index " + currentPlayerIndex + ")");
+        if (eventListener != null) {
+            eventListener.onTurnChanged(players.get(currentPlayerIndex));
+        }
+    }
+    
+    /**
+     * Thêm bài vào tay người chơi và thông báo cho listener
+     * 
+     * @param player Người chơi nhận bài
+     * @param cards Các lá bài được thêm
+     */
+    private void giveCards(Player player, List<Card> cards) {
+        player.addCards(cards);
+        if (eventListener != null && !cards.isEmpty()) {
+            eventListener.onCardsDrawn(player, cards);
+        }
     }
     
     /**
@@ -264,30 +417,17 @@ public class Game implements Serializable {
      */
     public Player getCurrentPlayer() {
         if (players.isEmpty()) {
-            System.out.println("Game.getCurrentPlayer: CẢNH BÁO - Danh sách người chơi rỗng");
             return null;
         }
         
-        System.out.println("Game.getCurrentPlayer: players.size=" + players.size() + ", currentPlayerIndex=" + currentPlayerIndex);
         if (currentPlayerIndex < 0 || currentPlayerIndex >= players.size()) {
-            System.out.println("Game.getCurrentPlayer: CẢNH BÁO - currentPlayerIndex nằm ngoài phạm vi hợp lệ");
+            Log.GAME.warn("GAME", "CURRENT_PLAYER", "currentPlayerIndex " + currentPlayerIndex + " nam ngoai pham vi hop le");
             // Đặt về index hợp lệ
             currentPlayerIndex = currentPlayerIndex % players.size();
             if (currentPlayerIndex < 0) currentPlayerIndex += players.size();
         }
         
-        Player current = players.get(currentPlayerIndex);
-        System.out.println("Game.getCurrentPlayer: index=" + currentPlayerIndex + ", player=" + 
-                          (current != null ? current.getName() + "(" + current.getId() + ")" : "null"));
-        
-        // In ra danh sách tất cả người chơi để debug
-        System.out.println("Danh sách tất cả người chơi:");
-        for (int i = 0; i < players.size(); i++) {
-            Player p = players.get(i);
-            System.out.println("- Player[" + i + "]: " + p.getName() + "(" + p.getId() + ")");
-        }
-        
-        return current;
+        return players.get(currentPlayerIndex);
     }
     
     /**
@@ -299,7 +439,11 @@ public class Game implements Serializable {
     public boolean callUno(String playerId) {
         for (Player player : players) {
             if (player.getId().equals(playerId) && player.getHandSize() == 1) {
+                journal.record(GameJournal.Action.CALL_UNO, playerId, 0);
                 player.callUno();
+                if (eventListener != null) {
+                    eventListener.onUnoCalled(player);
+                }
                 return true;
             }
         }
@@ -315,13 +459,53 @@ public class Game implements Serializable {
     public boolean penalizeForNotCallingUno(String playerId) {
         for (Player player : players) {
             if (player.getId().equals(playerId) && player.getHandSize() == 1 && !player.hasCalledUno()) {
-                player.addCards(deck.drawCards(2));
+                journal.record(GameJournal.Action.PENALIZE_UNO, playerId, 0);
+                giveCards(player, deck.drawCards(2));
                 return true;
             }
         }
         return false;
     }
     
+    /**
+     * Thách thức lá Wild Draw Four vừa được đánh. Người thách thức phải là người chơi hiện tại,
+     * người bị thách thức phải là người vừa đánh lá đó và chưa có ai rút bài hay kết thúc lượt.
+     * 
+     * @param challengerId ID của người chơi thách thức
+     * @param challengedId ID của người chơi bị thách thức
+     * @return Kết quả thách thức
+     */
+    public ChallengeResult challengeWildDrawFour(String challengerId, String challengedId) {
+        if (!gameStarted || gameOver || wildDrawFourPlayerId == null || !wildDrawFourPlayerId.equals(challengedId)) {
+            return ChallengeResult.REJECTED;
+        }
+        
+        Player challenger = getCurrentPlayer();
+        if (challenger == null || !challenger.getId().equals(challengerId)) {
+            return ChallengeResult.REJECTED;
+        }
+        
+        Player challenged = null;
+        for (Player player : players) {
+            if (player.getId().equals(challengedId)) {
+                challenged = player;
+                break;
+            }
+        }
+        if (challenged == null) {
+            return ChallengeResult.REJECTED;
+        }
+        
+        journal.recordChallenge(challengerId, challengedId);
+        wildDrawFourPlayerId = null;
+        if (wildDrawFourIllegal) {
+            giveCards(challenged, deck.drawCards(4));
+            return ChallengeResult.SUCCEEDED;
+        }
+        giveCards(challenger, deck.drawCards(6));
+        return ChallengeResult.FAILED;
+    }
+    
     /**
      * Lấy danh sách người chơi
      * 
@@ -331,6 +515,15 @@ public class Game implements Serializable {
         return Collections.unmodifiableList(players);
     }
     
+    /**
+     * Lấy số lá bài còn lại trong bộ bài để rút
+     * 
+     * @return Số lá bài còn lại
+     */
+    public int getRemainingCards() {
+        return deck.getRemainingCards();
+    }
+    
     /**
      * Lấy lá bài trên cùng của chồng bài đã đánh
      * 
@@ -387,14 +580,15 @@ public class Game implements Serializable {
      * Reset game để chơi ván mới
      */
     public void resetGame() {
-        // Reset deck
-        this.deck.shuffle();
+        journal.record(GameJournal.Action.RESET_GAME);
+        wildDrawFourPlayerId = null;
+        
+        // Thu lại toàn bộ 108 lá (kể cả bài trên tay và chồng bài đã đánh) rồi trộn
+        this.deck.reset();
         
         // Reset players
         for (Player player : players) {
-            while (player.getHandSize() > 0) {
-                player.playCard(0);
-            }
+            player.clearHand();
         }
         
         // Reset game state
@@ -0,0 +1,56 @@
+package com.uno.model;
+
+import java.util.List;
+
+/**
+ * Nhận các thay đổi trạng thái của {@link Game} ngay khi chúng xảy ra, để server
+ * chỉ gửi phần thay đổi (delta) thay vì toàn bộ trạng thái sau mỗi hành động.
+ * Các phương thức được gọi trên thread đang thay đổi game.
+ */
+public interface GameEventListener {
+
+    /**
+     * Người chơi đánh một lá bài
+     *
+     * @param player Người chơi đánh bài
+     * @param handIndex Vị trí lá bài trong tay trước khi đánh
+     * @param card Lá bài đặt lên chồng bài đã đánh (lá Wild mang màu đã chọn)
+     */
+    void onCardPlayed(Player player, int handIndex, Card card);
+
+    /**
+     * Người chơi nhận thêm bài (rút bài, bị phạt, chia bài đầu game)
+     *
+     * @param player Người chơi nhận bài
+     * @param cards Các lá bài được thêm vào cuối tay theo thứ tự
+     */
+    void onCardsDrawn(Player player, List<Card> cards);
+
+    /**
+     * Lượt chơi chuyển sang người chơi khác
+     *
+     * @param currentPlayer Người chơi có lượt hiện tại
+     */
+    void onTurnChanged(Player currentPlayer);
+
+    /**
+     * Chiều chơi bị đảo
+     *
+     * @param clockwise Chiều chơi mới
+     */
+    void onDirectionChanged(boolean clockwise);
+
+    /**
+     * Người chơi hô Uno
+     *
+     * @param player Người chơi hô Uno
+     */
+    void onUnoCalled(Player player);
+
+    /**
+     * Game kết thúc
+     *
+     * @param winner Người chơi thắng cuộc
+     */
+    void onGameOver(Player winner);
+}
@@ -0,0 +1,258 @@
+package com.uno.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Nhật ký các lệnh đã được {@link Game} chấp nhận, theo đúng thứ tự
+ *
+ * Mỗi lệnh được nén vào một số int: 4 bit loại lệnh, 8 bit người chơi (vị trí trong bảng người
+ * chơi của nhật ký), 20 bit tham số. Cùng với seed của game, nhật ký đủ để dựng lại y hệt ván
+ * game bằng {@link Game#replay(long, GameJournal)}; nhật ký chỉ được ghi thêm, không sửa.
+ *
+ * Từng lệnh có thể được ghi ra ngoài dạng nhị phân ({@link #writeEntry(int, DataOutput)}) ngay
+ * khi được ghi nhận, qua {@link Listener}, và đọc lại vào một nhật ký mới bằng
+ * {@link #readEntry(DataInput)} để khôi phục game sau khi server khởi động lại.
+ */
+public class GameJournal implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Loại lệnh; ordinal được ghi vào nhật ký nên chỉ thêm giá trị mới vào cuối
+     */
+    public enum Action {
+        ADD_PLAYER,     // Tham số: không dùng (tên người chơi nằm trong bảng người chơi)
+        REMOVE_PLAYER,
+        START_GAME,
+        PLAY_CARD,      // Tham số: vị trí lá bài | (ordinal màu được chọn + 1) << 12
+        DRAW_CARD,
+        END_TURN,
+        CALL_UNO,
+        PENALIZE_UNO,
+        CHALLENGE,      // Tham số: người chơi bị thách thức
+        RESET_GAME
+    }
+
+    /**
+     * Nhận thông báo mỗi khi một lệnh được ghi vào nhật ký, trên thread thực hiện lệnh
+     */
+    public interface Listener {
+        void entryRecorded(GameJournal journal, int entry);
+    }
+
+    private static final Action[] ACTIONS = Action.values();
+    private static final int PLAYER_SHIFT = 4;
+    private static final int ARG_SHIFT = 12;
+    private static final int MAX_PLAYERS = 1 << (ARG_SHIFT - PLAYER_SHIFT);
+    private static final int MAX_ARG = (1 << (Integer.SIZE - ARG_SHIFT)) - 1;
+    private static final int CARD_INDEX_BITS = 12;
+    private static final int CARD_INDEX_MASK = (1 << CARD_INDEX_BITS) - 1;
+    private static final CardColor[] COLORS = CardColor.values();
+
+    // Kiểu cụ thể (ArrayList, HashMap) để nhật ký serialize được cùng Game
+    private final ArrayList<String> playerIds;
+    private final ArrayList<String> playerNames;
+    private final HashMap<String, Integer> playerIndex;
+    private int[] entries;
+    private int size;
+    private transient Listener listener;
+
+    public GameJournal() {
+        this.playerIds = new ArrayList<>();
+        this.playerNames = new ArrayList<>();
+        this.playerIndex = new HashMap<>();
+        this.entries = new int[64];
+    }
+
+    /**
+     * Đăng ký listener nhận các lệnh được ghi sau đó
+     *
+     * @param listener Listener, hoặc null để hủy đăng ký
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Ghi lệnh thêm người chơi; người chơi được thêm vào bảng người chơi của nhật ký
+     */
+    void recordAddPlayer(Player player) {
+        append(Action.ADD_PLAYER, addToPlayerTable(player.getId(), player.getName()), 0);
+    }
+
+    private int addToPlayerTable(String playerId, String playerName) {
+        if (playerIds.size() == MAX_PLAYERS) {
+            throw new IllegalStateException("Nhat ky vuot qua " + MAX_PLAYERS + " nguoi choi");
+        }
+        int index = playerIds.size();
+        playerIds.add(playerId);
+        playerNames.add(playerName);
+        playerIndex.put(playerId, index);
+        return index;
+    }
+
+    /**
+     * Ghi lệnh của một người chơi đã có trong bảng người chơi
+     */
+    void record(Action action, String playerId, int arg) {
+        append(action, indexOf(playerId), arg);
+    }
+
+    /**
+     * Ghi lệnh không gắn với người chơi nào
+     */
+    void record(Action action) {
+        append(action, 0, 0);
+    }
+
+    void recordPlayCard(String playerId, int cardIndex, CardColor declaredColor) {
+        record(Action.PLAY_CARD, playerId,
+                cardIndex | (declaredColor == null ? 0 : declaredColor.ordinal() + 1) << CARD_INDEX_BITS);
+    }
+
+    void recordChallenge(String challengerId, String challengedId) {
+        record(Action.CHALLENGE, challengerId, indexOf(challengedId));
+    }
+
+    private int indexOf(String playerId) {
+        Integer index = playerIndex.get(playerId);
+        if (index == null) {
+            throw new IllegalArgumentException("Nguoi choi " + playerId + " khong co trong nhat ky");
+        }
+        return index;
+    }
+
+    private void append(Action action, int player, int arg) {
+        if (arg < 0 || arg > MAX_ARG) {
+            throw new IllegalArgumentException("Tham so " + arg + " ngoai pham vi cua nhat ky");
+        }
+        appendRaw(action.ordinal() | player << PLAYER_SHIFT | arg << ARG_SHIFT);
+    }
+
+    private void appendRaw(int raw) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        entries[size++] = raw;
+        if (listener != null) {
+            listener.entryRecorded(this, size - 1);
+        }
+    }
+
+    /**
+     * Ghi một lệnh dưới dạng nhị phân: số int của lệnh, kèm ID và tên người chơi với lệnh ADD_PLAYER
+     *
+     * @param entry Vị trí lệnh
+     * @param out Nơi ghi
+     * @throws IOException Nếu ghi thất bại
+     */
+    public void writeEntry(int entry, DataOutput out) throws IOException {
+        out.writeInt(entries[checkEntry(entry)]);
+        if (action(entry) == Action.ADD_PLAYER) {
+            out.writeUTF(playerId(entry));
+            out.writeUTF(playerName(entry));
+        }
+    }
+
+    /**
+     * Đọc một lệnh đã ghi bằng {@link #writeEntry(int, DataOutput)} và thêm vào cuối nhật ký
+     *
+     * @param in Nguồn đọc
+     * @throws IOException Nếu đọc thất bại hoặc lệnh không khớp với nhật ký
+     */
+    public void readEntry(DataInput in) throws IOException {
+        int raw = in.readInt();
+        int action = raw & ((1 << PLAYER_SHIFT) - 1);
+        int player = (raw >>> PLAYER_SHIFT) & (MAX_PLAYERS - 1);
+        if (action >= ACTIONS.length) {
+            throw new IOException("Loai lenh khong hop le: " + action);
+        }
+        if (ACTIONS[action] == Action.ADD_PLAYER) {
+            String playerId = in.readUTF();
+            String playerName = in.readUTF();
+            if (player != playerIds.size()) {
+                throw new IOException("Bang nguoi choi khong khop: " + player + " != " + playerIds.size());
+            }
+            addToPlayerTable(playerId, playerName);
+        } else if (player >= playerIds.size()) {
+            throw new IOException("Nguoi choi " + player + " chua co trong nhat ky");
+        }
+        appendRaw(raw);
+    }
+
+    /**
+     * @return ID của mọi người chơi từng vào game, theo thứ tự vào
+     */
+    public List<String> getPlayerIds() {
+        return Collections.unmodifiableList(playerIds);
+    }
+
+    /**
+     * @return Số lệnh đã ghi
+     */
+    public int size() {
+        return size;
+    }
+
+    public Action action(int entry) {
+        return ACTIONS[entries[checkEntry(entry)] & ((1 << PLAYER_SHIFT) - 1)];
+    }
+
+    /**
+     * @return ID người chơi thực hiện lệnh
+     */
+    public String playerId(int entry) {
+        return playerIds.get(playerOf(entry));
+    }
+
+    /**
+     * @return Tên người chơi thực hiện lệnh (tên lúc vào game)
+     */
+    public String playerName(int entry) {
+        return playerNames.get(playerOf(entry));
+    }
+
+    /**
+     * @return Vị trí lá bài của lệnh PLAY_CARD
+     */
+    public int cardIndex(int entry) {
+        return argOf(entry) & CARD_INDEX_MASK;
+    }
+
+    /**
+     * @return Màu được chọn của lệnh PLAY_CARD, hoặc null
+     */
+    public CardColor declaredColor(int entry) {
+        int color = argOf(entry) >>> CARD_INDEX_BITS;
+        return color == 0 ? null : COLORS[color - 1];
+    }
+
+    /**
+     * @return ID người chơi bị thách thức của lệnh CHALLENGE
+     */
+    public String challengedId(int entry) {
+        return playerIds.get(argOf(entry));
+    }
+
+    private int playerOf(int entry) {
+        return (entries[checkEntry(entry)] >>> PLAYER_SHIFT) & (MAX_PLAYERS - 1);
+    }
+
+    private int argOf(int entry) {
+        return entries[checkEntry(entry)] >>> ARG_SHIFT;
+    }
+
+    private int checkEntry(int entry) {
+        if (entry < 0 || entry >= size) {
+            throw new IndexOutOfBoundsException("Ban ghi " + entry + " ngoai pham vi, nhat ky co " + size);
+        }
+        return entry;
+    }
+}
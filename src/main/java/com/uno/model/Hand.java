@@ -0,0 +1,191 @@
+package com.uno.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bài trên tay của một người chơi
+ *
+ * Ngoài thứ tự các lá (dùng cho giao diện và cho việc đánh bài theo vị trí), bài trên tay
+ * được lưu dưới dạng số lượng của từng mã lá bài ({@link Card#code()}) cùng một bitmask các mã
+ * đang có. Nhờ vậy các câu hỏi "có đánh được lá nào lên lá X không", "những mã nào đánh được",
+ * "còn lá màu Y không" chỉ cần vài phép AND, không phụ thuộc số lá trên tay.
+ */
+public class Hand implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int[] counts;
+    private byte[] order;
+    private int size;
+    private long present;
+
+    public Hand() {
+        this.counts = new int[Card.CODE_COUNT];
+        this.order = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Thêm lá bài vào cuối bài trên tay
+     *
+     * @param card Lá bài cần thêm
+     */
+    public void add(Card card) {
+        if (size == order.length) {
+            order = Arrays.copyOf(order, size * 2);
+        }
+        int code = card.code();
+        order[size++] = (byte) code;
+        counts[code]++;
+        present |= 1L << code;
+    }
+
+    /**
+     * Thêm nhiều lá bài vào cuối bài trên tay
+     *
+     * @param cards Các lá bài cần thêm
+     */
+    public void addAll(List<Card> cards) {
+        for (Card card : cards) {
+            add(card);
+        }
+    }
+
+    /**
+     * Lấy lá bài ở một vị trí
+     *
+     * @param index Vị trí lá bài
+     * @return Lá bài
+     * @throws IndexOutOfBoundsException Nếu vị trí không hợp lệ
+     */
+    public Card get(int index) {
+        return Card.fromCode(order[checkIndex(index)]);
+    }
+
+    /**
+     * Lấy lá bài ở một vị trí ra khỏi tay; các lá phía sau giữ nguyên thứ tự
+     *
+     * @param index Vị trí lá bài
+     * @return Lá bài đã lấy ra
+     * @throws IndexOutOfBoundsException Nếu vị trí không hợp lệ
+     */
+    public Card removeAt(int index) {
+        int code = order[checkIndex(index)];
+        System.arraycopy(order, index + 1, order, index, size - index - 1);
+        size--;
+        if (--counts[code] == 0) {
+            present &= ~(1L << code);
+        }
+        return Card.fromCode(code);
+    }
+
+    /**
+     * Bỏ hết bài trên tay
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            counts[order[i]] = 0;
+        }
+        size = 0;
+        present = 0;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Vi tri " + index + " ngoai pham vi, so la tren tay " + size);
+        }
+        return index;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Đếm số lá của một loại lá bài
+     *
+     * @param card Lá bài
+     * @return Số lá giống lá bài này trên tay
+     */
+    public int count(Card card) {
+        return counts[card.code()];
+    }
+
+    /**
+     * @return Bitmask các mã lá bài đang có trên tay
+     */
+    public long presentCodes() {
+        return present;
+    }
+
+    /**
+     * Lấy các mã lá bài trên tay có thể đánh lên một lá bài
+     *
+     * @param topCard Lá bài trên cùng của chồng bài đã đánh
+     * @return Bitmask các mã lá bài đánh được; 0 nếu không có lá nào
+     */
+    public long playableCodes(Card topCard) {
+        return present & Card.playableMask(topCard);
+    }
+
+    /**
+     * @param topCard Lá bài trên cùng của chồng bài đã đánh
+     * @return true nếu có ít nhất một lá đánh được
+     */
+    public boolean canPlayOn(Card topCard) {
+        return (present & Card.playableMask(topCard)) != 0;
+    }
+
+    /**
+     * @return true nếu trên tay còn lá thuộc màu này
+     */
+    public boolean hasColor(CardColor color) {
+        return (present & Card.colorMask(color)) != 0;
+    }
+
+    /**
+     * @return true nếu trên tay còn lá thuộc loại này
+     */
+    public boolean hasType(CardType type) {
+        return (present & Card.typeMask(type)) != 0;
+    }
+
+    /**
+     * Lấy các vị trí lá bài có thể đánh lên một lá bài, theo thứ tự trên tay
+     *
+     * @param topCard Lá bài trên cùng của chồng bài đã đánh
+     * @return Danh sách vị trí; rỗng ngay nếu không có mã nào đánh được
+     */
+    public List<Integer> playableIndices(Card topCard) {
+        long playable = playableCodes(topCard);
+        if (playable == 0) {
+            return new ArrayList<>(0);
+        }
+        List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if ((playable & (1L << order[i])) != 0) {
+                indices.add(i);
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Tạo bản sao các lá bài theo thứ tự trên tay
+     *
+     * @return Danh sách mới, người gọi có thể sửa tùy ý
+     */
+    public List<Card> toList() {
+        List<Card> cards = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            cards.add(Card.fromCode(order[i]));
+        }
+        return cards;
+    }
+}
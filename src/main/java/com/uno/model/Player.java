@@ -1,28 +1,55 @@
 package com.uno.model;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class đại diện cho một người chơi Uno
  */
 public class Player implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
+    
+    /** Bộ đếm cấp ID người chơi, bắt đầu từ 1 (ID 0 dành cho server) */
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
     
     private final String id;
     private String name;
-    private final List<Card> hand;
+    private final Hand hand;
     private boolean calledUno;
     
     public Player(String name) {
-        this.id = UUID.randomUUID().toString();
+        this.id = String.valueOf(NEXT_ID.incrementAndGet());
+        this.name = name;
+        this.hand = new Hand();
+        this.calledUno = false;
+    }
+    
+    /**
+     * Tạo lại người chơi với ID đã có (khi chạy lại nhật ký game)
+     */
+    Player(String id, String name) {
+        this.id = id;
         this.name = name;
-        this.hand = new ArrayList<>();
+        this.hand = new Hand();
         this.calledUno = false;
     }
     
+    /**
+     * Đảm bảo các ID cấp sau này lớn hơn một ID đã dùng (khi khôi phục game sau khi server
+     * khởi động lại)
+     * 
+     * @param id ID đã dùng
+     */
+    public static void reserveId(String id) {
+        try {
+            int value = Integer.parseInt(id);
+            NEXT_ID.accumulateAndGet(value, Math::max);
+        } catch (NumberFormatException e) {
+            // ID không phải do server cấp thì không thể trùng
+        }
+    }
+    
     public String getId() {
         return id;
     }
@@ -35,8 +62,13 @@ public class Player implements Serializable {
         this.name = name;
     }
     
+    /**
+     * Lấy bản sao bài trên tay theo thứ tự
+     * 
+     * @return Danh sách lá bài
+     */
     public List<Card> getHand() {
-        return new ArrayList<>(hand);
+        return hand.toList();
     }
     
     /**
@@ -73,7 +105,15 @@ public class Player implements Serializable {
         if (index < 0 || index >= hand.size()) {
             return null;
         }
-        return hand.remove(index);
+        return hand.removeAt(index);
+    }
+    
+    /**
+     * Bỏ hết bài trên tay (khi reset game)
+     */
+    public void clearHand() {
+        hand.clear();
+        calledUno = false;
     }
     
     /**
@@ -83,12 +123,18 @@ public class Player implements Serializable {
      * @return true nếu có thể đánh ít nhất một lá bài, ngược lại false
      */
     public boolean canPlay(Card topCard) {
-        for (Card card : hand) {
-            if (card.canPlayOn(topCard)) {
-                return true;
-            }
-        }
-        return false;
+        return hand.canPlayOn(topCard);
+    }
+    
+    /**
+     * Kiểm tra xem lá bài ở một vị trí trong tay có thể đánh được không
+     * 
+     * @param index Vị trí lá bài trong tay
+     * @param topCard Lá bài trên cùng của chồng bài đã đánh
+     * @return true nếu vị trí hợp lệ và lá bài đánh được
+     */
+    public boolean canPlayCard(int index, Card topCard) {
+        return index >= 0 && index < hand.size() && hand.get(index).canPlayOn(topCard);
     }
     
     /**
@@ -98,13 +144,27 @@ public class Player implements Serializable {
      * @return Danh sách các vị trí lá bài có thể đánh
      */
     public List<Integer> getPlayableCardIndices(Card topCard) {
-        List<Integer> playableIndices = new ArrayList<>();
-        for (int i = 0; i < hand.size(); i++) {
-            if (hand.get(i).canPlayOn(topCard)) {
-                playableIndices.add(i);
-            }
-        }
-        return playableIndices;
+        return hand.playableIndices(topCard);
+    }
+    
+    /**
+     * Lấy các mã lá bài có thể đánh, không phụ thuộc số lá trên tay
+     * 
+     * @param topCard Lá bài trên cùng của chồng bài đã đánh
+     * @return Bitmask các mã lá bài ({@link Card#code()}) đánh được
+     */
+    public long getPlayableCodes(Card topCard) {
+        return hand.playableCodes(topCard);
+    }
+    
+    /**
+     * Kiểm tra xem trên tay còn lá thuộc một màu không
+     * 
+     * @param color Màu cần kiểm tra
+     * @return true nếu còn ít nhất một lá màu đó
+     */
+    public boolean hasColor(CardColor color) {
+        return hand.hasColor(color);
     }
     
     /**
@@ -0,0 +1,165 @@
+package com.uno.protocol;
+
+import com.uno.model.Card;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Các thay đổi trạng thái game kể từ phiên bản trước, gửi đến một người chơi cụ thể.
+ *
+ * Mỗi lần phòng công bố thay đổi, phiên bản trạng thái tăng đúng 1. Client áp dụng delta
+ * lên bản sao cục bộ nếu {@link #getVersion()} bằng phiên bản hiện có + 1; nếu thấy
+ * khoảng trống, client gửi RESYNC_REQUEST để nhận lại toàn bộ {@link GameState}.
+ */
+public class GameDelta implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int version;
+    // ArrayList thay vì List để trường serialize được
+    private final ArrayList<Event> events;
+
+    public GameDelta(int version, List<Event> events) {
+        this.version = version;
+        this.events = new ArrayList<>(events);
+    }
+
+    /**
+     * Tạo delta theo góc nhìn của một người chơi từ delta đầy đủ: lá bài người khác rút được ẩn,
+     * chỉ giữ số lượng
+     *
+     * @param viewerId ID của người nhận
+     * @return Delta dành cho người nhận
+     */
+    public GameDelta forViewer(String viewerId) {
+        List<Event> visible = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (event.getKind() == Kind.CARDS_DRAWN && event.getCards() != null
+                    && !event.getPlayerId().equals(viewerId)) {
+                visible.add(Event.cardsDrawn(event.getPlayerId(), event.getCount(), null));
+            } else {
+                visible.add(event);
+            }
+        }
+        return new GameDelta(version, visible);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    /**
+     * Loại thay đổi
+     */
+    public enum Kind {
+        /** Người chơi đánh lá bài ở vị trí index, lá bài trở thành lá trên cùng */
+        CARD_PLAYED,
+        /** Người chơi nhận count lá bài (chỉ người nhận thấy nội dung) */
+        CARDS_DRAWN,
+        /** Lượt chơi chuyển sang người chơi */
+        TURN_CHANGED,
+        /** Chiều chơi đổi */
+        DIRECTION_CHANGED,
+        /** Người chơi hô Uno */
+        UNO_CALLED,
+        /** Game kết thúc, người chơi là người thắng */
+        GAME_OVER
+    }
+
+    /**
+     * Một thay đổi đơn lẻ
+     */
+    public static class Event implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Kind kind;
+        private final String playerId;
+        private final int index;
+        private final int count;
+        private final Card card;
+        private final ArrayList<Card> cards;
+        private final boolean clockwise;
+
+        public Event(Kind kind, String playerId, int index, int count, Card card, List<Card> cards, boolean clockwise) {
+            this.kind = kind;
+            this.playerId = playerId;
+            this.index = index;
+            this.count = count;
+            this.card = card;
+            this.cards = cards != null ? new ArrayList<>(cards) : null;
+            this.clockwise = clockwise;
+        }
+
+        public static Event cardPlayed(String playerId, int handIndex, Card card) {
+            return new Event(Kind.CARD_PLAYED, playerId, handIndex, 0, card, null, false);
+        }
+
+        public static Event cardsDrawn(String playerId, int count, List<Card> cards) {
+            return new Event(Kind.CARDS_DRAWN, playerId, 0, count, null, cards, false);
+        }
+
+        public static Event turnChanged(String playerId) {
+            return new Event(Kind.TURN_CHANGED, playerId, 0, 0, null, null, false);
+        }
+
+        public static Event directionChanged(boolean clockwise) {
+            return new Event(Kind.DIRECTION_CHANGED, null, 0, 0, null, null, clockwise);
+        }
+
+        public static Event unoCalled(String playerId) {
+            return new Event(Kind.UNO_CALLED, playerId, 0, 0, null, null, false);
+        }
+
+        public static Event gameOver(String winnerId) {
+            return new Event(Kind.GAME_OVER, winnerId, 0, 0, null, null, false);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getPlayerId() {
+            return playerId;
+        }
+
+        /**
+         * @return Vị trí lá bài trong tay (CARD_PLAYED)
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * @return Số lá bài được rút (CARDS_DRAWN)
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return Lá bài được đánh (CARD_PLAYED)
+         */
+        public Card getCard() {
+            return card;
+        }
+
+        /**
+         * @return Các lá bài được rút, null nếu người nhận không được xem (CARDS_DRAWN)
+         */
+        public List<Card> getCards() {
+            return cards;
+        }
+
+        /**
+         * @return Chiều chơi mới (DIRECTION_CHANGED)
+         */
+        public boolean isClockwise() {
+            return clockwise;
+        }
+    }
+}
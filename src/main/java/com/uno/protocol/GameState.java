@@ -0,0 +1,135 @@
+package com.uno.protocol;
+
+import com.uno.model.Card;
+import com.uno.model.Game;
+import com.uno.model.Player;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * Class đại diện cho trạng thái game được gửi đến client
+ */
+public class GameState implements Serializable {
+    // Tăng serialVersionUID để đảm bảo không có vấn đề serialization/deserialization
+    private static final long serialVersionUID = 3L;
+    
+    // Sử dụng HashMap thay vì Map để đảm bảo serialization nhất quán
+    private final HashMap<String, PlayerInfo> playerInfos;
+    private final Card topCard;
+    // Sửa thành một trường có thể đọc/ghi để tránh các vấn đề với deserialization
+    private String currentPlayerId;
+    private final boolean clockwise;
+    private final boolean gameOver;
+    private final String winnerId;
+    private final int version;
+    
+    /**
+     * Tạo trạng thái từ các thành phần đã giải mã (dùng bởi codec nhị phân và bản sao trạng thái của client)
+     */
+    public GameState(HashMap<String, PlayerInfo> playerInfos, Card topCard, String currentPlayerId,
+                     boolean clockwise, boolean gameOver, String winnerId, int version) {
+        this.version = version;
+        this.playerInfos = playerInfos;
+        this.topCard = topCard;
+        this.currentPlayerId = currentPlayerId != null ? currentPlayerId : "";
+        this.clockwise = clockwise;
+        this.gameOver = gameOver;
+        this.winnerId = winnerId;
+    }
+    
+    public GameState(Game game, String viewerId, int version) {
+        this(game, viewerId, false, version);
+    }
+    
+    private GameState(Game game, String viewerId, boolean allHands, int version) {
+        this.version = version;
+        this.playerInfos = new HashMap<>();
+        
+        // Lấy thông tin người chơi
+        for (Player player : game.getPlayers()) {
+            if (allHands || player.getId().equals(viewerId)) {
+                // Người chơi hiện tại thấy tất cả lá bài của mình
+                playerInfos.put(player.getId(), new PlayerInfo(player, true));
+            } else {
+                // Người chơi khác chỉ thấy số lượng lá bài
+                playerInfos.put(player.getId(), new PlayerInfo(player, false));
+            }
+        }
+        
+        this.topCard = game.getTopCard();
+        Player currentPlayer = game.getCurrentPlayer();
+        
+        // Đảm bảo ID luôn được trim và không null
+        if (currentPlayer != null && currentPlayer.getId() != null) {
+            this.currentPlayerId = currentPlayer.getId().trim();
+        } else {
+            this.currentPlayerId = "";
+        }
+        
+        this.clockwise = game.isClockwise();
+        this.gameOver = game.isGameOver();
+        
+        Player winner = game.getWinner();
+        this.winnerId = winner != null ? winner.getId() : null;
+    }
+    
+    /**
+     * Tạo trạng thái đầy đủ chứa bài của mọi người chơi, chỉ dùng để gửi qua
+     * {@link com.uno.utils.ViewerMessage}
+     */
+    public static GameState withAllHands(Game game, int version) {
+        return new GameState(game, null, true, version);
+    }
+    
+    /**
+     * Lọc trạng thái theo góc nhìn của một người chơi: bài của người khác được ẩn, chỉ giữ số lượng
+     * 
+     * @param viewerId ID của người nhận
+     * @return Trạng thái dành cho người nhận
+     */
+    public GameState forViewer(String viewerId) {
+        HashMap<String, PlayerInfo> visible = new HashMap<>();
+        for (PlayerInfo info : playerInfos.values()) {
+            if (info.getHand() != null && !info.getId().equals(viewerId)) {
+                info = new PlayerInfo(info.getId(), info.getName(), info.getHandSize(), null, info.hasCalledUno());
+            }
+            visible.put(info.getId(), info);
+        }
+        return new GameState(visible, topCard, currentPlayerId, clockwise, gameOver, winnerId, version);
+    }
+    
+    // Getters
+    public HashMap<String, PlayerInfo> getPlayerInfos() {
+        return playerInfos;
+    }
+    
+    public Card getTopCard() {
+        return topCard;
+    }
+    
+    public String getCurrentPlayerId() {
+        return currentPlayerId;
+    }
+    
+    public boolean isClockwise() {
+        return clockwise;
+    }
+    
+    public boolean isGameOver() {
+        return gameOver;
+    }
+    
+    public String getWinnerId() {
+        return winnerId;
+    }
+    
+    /**
+     * Lấy phiên bản trạng thái: các GAME_DELTA tiếp theo bắt đầu từ phiên bản này + 1
+     * 
+     * @return Phiên bản trạng thái
+     */
+    public int getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,57 @@
+package com.uno.protocol;
+
+import com.uno.model.Card;
+import com.uno.model.Player;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Class đại diện cho thông tin người chơi được gửi đến client
+ */
+public class PlayerInfo implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private final String id;
+    private final String name;
+    private final int handSize;
+    private final List<Card> hand;
+    private final boolean calledUno;
+    
+    public PlayerInfo(Player player, boolean includeHand) {
+        this(player.getId(), player.getName(), player.getHandSize(),
+                includeHand ? player.getHand() : null, player.hasCalledUno());
+    }
+    
+    /**
+     * Tạo thông tin người chơi từ các thành phần đã giải mã (dùng bởi codec nhị phân)
+     */
+    public PlayerInfo(String id, String name, int handSize, List<Card> hand, boolean calledUno) {
+        this.id = id;
+        this.name = name;
+        this.handSize = handSize;
+        this.hand = hand;
+        this.calledUno = calledUno;
+    }
+    
+    // Getters
+    public String getId() {
+        return id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getHandSize() {
+        return handSize;
+    }
+    
+    public List<Card> getHand() {
+        return hand;
+    }
+    
+    public boolean hasCalledUno() {
+        return calledUno;
+    }
+}
@@ -0,0 +1,56 @@
+package com.uno.protocol;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cập nhật danh sách phòng gửi cho các client đang ở sảnh.
+ *
+ * Mỗi lần server công bố thay đổi, phiên bản danh sách tăng đúng 1. Bản đầy đủ
+ * ({@link #isFull()}) thay thế toàn bộ danh sách của client; bản tăng dần chỉ chứa các
+ * phòng mới hoặc thay đổi và ID các phòng đã bị xóa, và chỉ áp dụng được lên phiên bản
+ * liền trước. Nếu thấy khoảng trống, client gửi ROOM_DIRECTORY_REQUEST để nhận bản đầy đủ.
+ */
+public class RoomDirectoryUpdate implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int version;
+    private final boolean full;
+    // ArrayList thay vì List để trường serialize được
+    private final ArrayList<Map<String, Object>> rooms;
+    private final ArrayList<String> removedRoomIds;
+
+    public RoomDirectoryUpdate(int version, boolean full, List<Map<String, Object>> rooms, List<String> removedRoomIds) {
+        this.version = version;
+        this.full = full;
+        this.rooms = new ArrayList<>(rooms);
+        this.removedRoomIds = new ArrayList<>(removedRoomIds);
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true nếu đây là toàn bộ danh sách phòng
+     */
+    public boolean isFull() {
+        return full;
+    }
+
+    /**
+     * @return Các phòng mới hoặc thay đổi (toàn bộ phòng nếu là bản đầy đủ), cùng dạng với ROOM_LIST
+     */
+    public List<Map<String, Object>> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * @return ID các phòng đã bị xóa (rỗng nếu là bản đầy đủ)
+     */
+    public List<String> getRemovedRoomIds() {
+        return removedRoomIds;
+    }
+}
@@ -0,0 +1,52 @@
+package com.uno.protocol;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Một trang kết quả của {@link RoomQuery}.
+ *
+ * Trang có thể ít phòng hơn giới hạn yêu cầu mà vẫn còn trang sau: server chỉ duyệt một
+ * số phòng có giới hạn cho mỗi truy vấn, nên client tiếp tục khi {@link #hasMore()} còn đúng.
+ */
+public class RoomPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int queryId;
+    // ArrayList thay vì List để trường serialize được
+    private final ArrayList<Map<String, Object>> rooms;
+    private final String nextCursor;
+
+    public RoomPage(int queryId, List<Map<String, Object>> rooms, String nextCursor) {
+        this.queryId = queryId;
+        this.rooms = new ArrayList<>(rooms);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return ID của truy vấn tạo ra trang này
+     */
+    public int getQueryId() {
+        return queryId;
+    }
+
+    /**
+     * @return Các phòng trong trang, cùng dạng với ROOM_LIST
+     */
+    public List<Map<String, Object>> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * @return Con trỏ để lấy trang tiếp theo, null nếu đã hết
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,82 @@
+package com.uno.protocol;
+
+import java.io.Serializable;
+
+/**
+ * Yêu cầu một trang danh sách phòng, lọc theo tiền tố tên, trạng thái và số chỗ trống.
+ *
+ * Các phòng được sắp theo tên (không phân biệt hoa thường). Trang đầu tiên gửi con trỏ
+ * null; trang tiếp theo gửi lại con trỏ nhận được trong {@link RoomPage#getNextCursor()}
+ * cùng với bộ lọc cũ. Server trả lời bằng ROOM_PAGE mang cùng {@link #getQueryId()} để
+ * client bỏ qua trang của các truy vấn đã cũ.
+ */
+public class RoomQuery implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Lọc theo trạng thái phòng
+     */
+    public enum Status {
+        ANY,        // Mọi phòng
+        WAITING,    // Phòng chưa bắt đầu game
+        IN_GAME     // Phòng đang chơi
+    }
+
+    private final int queryId;
+    private final String namePrefix;
+    private final Status status;
+    private final int minFreeSeats;
+    private final String cursor;
+    private final int limit;
+
+    /**
+     * @param queryId ID do client chọn, được trả lại trong trang kết quả
+     * @param namePrefix Tiền tố tên phòng, null hoặc rỗng nếu không lọc theo tên
+     * @param status Trạng thái phòng cần lấy
+     * @param minFreeSeats Số chỗ trống tối thiểu, 0 nếu không lọc
+     * @param cursor Con trỏ của trang trước, null để lấy trang đầu tiên
+     * @param limit Số phòng tối đa trong trang
+     */
+    public RoomQuery(int queryId, String namePrefix, Status status, int minFreeSeats, String cursor, int limit) {
+        this.queryId = queryId;
+        this.namePrefix = namePrefix;
+        this.status = status;
+        this.minFreeSeats = minFreeSeats;
+        this.cursor = cursor;
+        this.limit = limit;
+    }
+
+    /**
+     * Tạo truy vấn lấy trang tiếp theo với cùng bộ lọc
+     *
+     * @param nextCursor Con trỏ nhận được trong trang trước
+     * @return Truy vấn mới
+     */
+    public RoomQuery nextPage(String nextCursor) {
+        return new RoomQuery(queryId, namePrefix, status, minFreeSeats, nextCursor, limit);
+    }
+
+    public int getQueryId() {
+        return queryId;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getMinFreeSeats() {
+        return minFreeSeats;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
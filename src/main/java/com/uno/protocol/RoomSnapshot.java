@@ -0,0 +1,101 @@
+package com.uno.protocol;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ảnh chụp bất biến của một phòng, gửi cho các thành viên qua ROOM_UPDATE: chỉ những gì phòng
+ * chờ cần hiển thị, không có game, bộ bài hay bài trên tay của ai.
+ *
+ * Phòng dựng ảnh chụp một lần sau mỗi thay đổi và dùng lại cho mọi lần gửi đến thay đổi tiếp
+ * theo (xem {@code GameRoom.getSnapshot()} phía server). Phiên bản tăng mỗi lần phòng thay đổi.
+ */
+public final class RoomSnapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Trạng thái của phòng
+     */
+    public enum Status {
+        WAITING,    // Đang chờ người chơi
+        IN_GAME,    // Đang chơi
+        FINISHED    // Game đã kết thúc
+    }
+
+    /**
+     * Một chỗ ngồi trong phòng, theo thứ tự vào phòng
+     */
+    public static final class Seat implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String playerId;
+        private final String playerName;
+
+        public Seat(String playerId, String playerName) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+        }
+
+        public String getPlayerId() {
+            return playerId;
+        }
+
+        public String getPlayerName() {
+            return playerName;
+        }
+    }
+
+    private final String id;
+    private final String name;
+    private final String hostId;
+    private final String hostName;
+    // ArrayList thay vì List để trường serialize được; bên ngoài chỉ nhận bản không sửa được
+    private final ArrayList<Seat> seats;
+    private final Status status;
+    private final int version;
+
+    public RoomSnapshot(String id, String name, String hostId, String hostName, List<Seat> seats,
+                        Status status, int version) {
+        this.id = id;
+        this.name = name;
+        this.hostId = hostId;
+        this.hostName = hostName;
+        this.seats = new ArrayList<>(seats);
+        this.status = status;
+        this.version = version;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHostId() {
+        return hostId;
+    }
+
+    public String getHostName() {
+        return hostName;
+    }
+
+    public List<Seat> getSeats() {
+        return Collections.unmodifiableList(seats);
+    }
+
+    public int getPlayerCount() {
+        return seats.size();
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+}
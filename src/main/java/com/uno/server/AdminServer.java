@@ -0,0 +1,493 @@
+package com.uno.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.uno.model.Player;
+import com.uno.utils.Log;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trang quản trị HTTP (com.sun.net.httpserver) trả về JSON để theo dõi server đang chạy:
+ * <ul>
+ *   <li>/admin: tóm tắt server</li>
+ *   <li>/admin/rooms: tóm tắt mọi phòng; /admin/rooms/{id}: chi tiết một phòng</li>
+ *   <li>/admin/connections: bảng kết nối (địa chỉ, RTT, độ sâu hàng đợi gửi, số byte)</li>
+ *   <li>/admin/threads: thread của JVM và các pool của server</li>
+ *   <li>/admin/metrics: mọi chỉ số của {@link ServerMetrics}</li>
+ * </ul>
+ *
+ * Mọi câu trả lời được dựng từ dữ liệu đã công bố sẵn: ảnh chụp {@link RoomStats} của từng phòng,
+ * các biến volatile của kết nối, bộ đếm LongAdder của chỉ số. Trang quản trị không lấy khóa phòng
+ * và không xếp gì vào mailbox của phòng. Các yêu cầu chạy lần lượt trên một thread riêng và mỗi
+ * câu trả lời được giữ lại {@link #CACHE_MILLIS}ms, nên dù nhiều dashboard cùng hỏi liên tục
+ * thì chi phí cũng chỉ là một lần dựng mỗi khoảng đó.
+ */
+class AdminServer {
+    /** Thời gian giữ lại một câu trả lời đã dựng (ms) */
+    static final long CACHE_MILLIS = 1000;
+
+    private final UnoServer server;
+    private final SessionRegistry registry;
+    private final ExecutorService roomExecutor;
+    private final HttpServer http;
+    private final ExecutorService executor;
+    // Câu trả lời đã dựng theo đường dẫn; chỉ truy cập trên thread của trang quản trị
+    private final Map<String, CachedResponse> cache;
+    private final long startedMillis;
+
+    /**
+     * Mở port của trang quản trị; các yêu cầu chỉ được xử lý sau {@link #start()}
+     *
+     * @param server Server cần theo dõi
+     * @param registry Danh sách client và phòng của server
+     * @param roomExecutor Pool chạy mailbox của các phòng
+     * @throws IOException Nếu không mở được port
+     */
+    AdminServer(UnoServer server, SessionRegistry registry, ExecutorService roomExecutor) throws IOException {
+        ServerConfig config = server.getConfig();
+        this.server = server;
+        this.registry = registry;
+        this.roomExecutor = roomExecutor;
+        this.http = HttpServer.create(new InetSocketAddress(config.getAdminAddress(), config.getAdminPort()), 0);
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "admin-http");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cache = new HashMap<>();
+        this.startedMillis = System.currentTimeMillis();
+        http.setExecutor(executor);
+        http.createContext("/admin", this::handle);
+    }
+
+    void start() {
+        http.start();
+        Log.NETWORK.info("ADMIN", "STARTUP", "Trang quan tri HTTP tai http://" + http.getAddress().getHostString()
+                + ":" + http.getAddress().getPort() + "/admin - JSON stats endpoint");
+    }
+
+    void stop() {
+        http.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return Port đang lắng nghe (khác port cấu hình khi cấu hình để hệ điều hành chọn)
+     */
+    int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET");
+                send(exchange, 405, error("Chi ho tro GET"));
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            if (path.length() > 1 && path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            long now = System.currentTimeMillis();
+            CachedResponse cached = cache.get(path);
+            if (cached == null || now - cached.builtMillis >= CACHE_MILLIS) {
+                cached = build(path, now);
+                if (cached.status == 200) {
+                    cache.put(path, cached);
+                }
+                // Đường dẫn phòng đã bị xóa không được giữ lại mãi
+                cache.values().removeIf(response -> now - response.builtMillis >= CACHE_MILLIS);
+            }
+            send(exchange, cached.status, cached.body);
+        } catch (RuntimeException e) {
+            Log.NETWORK.error("ADMIN", "REQUEST_ERROR", "Loi xu ly " + exchange.getRequestURI() + ": " + e);
+            send(exchange, 500, error("Loi noi bo: " + e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private CachedResponse build(String path, long now) {
+        Json json = new Json();
+        if (path.equals("/admin")) {
+            writeServer(json, now);
+        } else if (path.equals("/admin/rooms")) {
+            writeRooms(json, now);
+        } else if (path.startsWith("/admin/rooms/")) {
+            GameRoom room = registry.getRoom(path.substring("/admin/rooms/".length()));
+            RoomStats stats = room != null ? room.getStats() : null;
+            if (stats == null) {
+                return new CachedResponse(404, error("Khong co phong " + path.substring("/admin/rooms/".length())), now);
+            }
+            writeRoom(json, stats, now, true);
+        } else if (path.equals("/admin/connections")) {
+            writeConnections(json);
+        } else if (path.equals("/admin/threads")) {
+            writeThreads(json);
+        } else if (path.equals("/admin/metrics")) {
+            writeMetrics(json);
+        } else {
+            return new CachedResponse(404, error("Khong co trang " + path), now);
+        }
+        return new CachedResponse(200, json.toBytes(), now);
+    }
+
+    private void writeServer(Json json, long now) {
+        json.beginObject();
+        json.name("engine").value(server.getEngine());
+        json.name("port").value(server.getPort());
+        json.name("uptimeSec").value((now - startedMillis) / 1000);
+        json.name("clients").value(server.getClientCount());
+        json.name("rooms").value(server.getRoomCount());
+        json.name("gamesInProgress").value(server.getGamesInProgress());
+        json.name("handlerThreads").value(server.getHandlerThreads());
+        json.name("roomWorkerThreads").value(server.getRoomWorkerThreads());
+        json.name("cacheMillis").value(CACHE_MILLIS);
+        json.name("endpoints").beginArray();
+        for (String endpoint : new String[] {"/admin/rooms", "/admin/rooms/{id}", "/admin/connections",
+                "/admin/threads", "/admin/metrics"}) {
+            json.value(endpoint);
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private void writeRooms(Json json, long now) {
+        List<RoomStats> rooms = new ArrayList<>();
+        for (GameRoom room : registry.getRooms()) {
+            RoomStats stats = room.getStats();
+            if (stats != null) {
+                rooms.add(stats);
+            }
+        }
+        rooms.sort(Comparator.comparing(stats -> stats.name));
+        json.beginObject();
+        json.name("count").value(rooms.size());
+        json.name("directoryRooms").value(server.getRoomList().size());
+        json.name("rooms").beginArray();
+        for (RoomStats stats : rooms) {
+            writeRoom(json, stats, now, false);
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static void writeRoom(Json json, RoomStats stats, long now, boolean detail) {
+        json.beginObject();
+        json.name("id").value(stats.id);
+        json.name("name").value(stats.name);
+        json.name("host").value(stats.hostName);
+        json.name("status").value(stats.status.name());
+        json.name("players").value(stats.players.size());
+        json.name("currentPlayer").value(stats.currentPlayerName);
+        json.name("deckRemaining").value(stats.deckRemaining);
+        json.name("stateVersion").value(stats.stateVersion);
+        json.name("actions").value(stats.actions);
+        json.name("actionsPerMinute").value(stats.actionsPerMinute(now));
+        if (detail) {
+            json.name("topCard").value(stats.topCard);
+            json.name("clockwise").value(stats.clockwise);
+            json.name("gameStartedMillis").value(stats.gameStartedMillis);
+            json.name("lastActionMillis").value(stats.lastActionMillis);
+            json.name("seats").beginArray();
+            for (RoomStats.PlayerStats player : stats.players) {
+                json.beginObject();
+                json.name("id").value(player.id);
+                json.name("name").value(player.name);
+                json.name("handSize").value(player.handSize);
+                json.name("calledUno").value(player.calledUno);
+                json.name("connected").value(player.connected);
+                json.endObject();
+            }
+            json.endArray();
+        }
+        json.endObject();
+    }
+
+    private void writeConnections(Json json) {
+        json.beginObject();
+        json.name("count").value(registry.getClientCount());
+        json.name("connections").beginArray();
+        for (ClientHandler client : registry.getClients()) {
+            Player player = client.getPlayer();
+            GameRoom room = player != null ? registry.getRoomByPlayer(player.getId()) : null;
+            json.beginObject();
+            json.name("address").value(client.getRemoteAddress());
+            json.name("playerId").value(player != null ? player.getId() : null);
+            json.name("playerName").value(player != null ? player.getName() : null);
+            json.name("roomId").value(room != null ? room.getId() : null);
+            json.name("protocolVersion").value(client.getProtocolVersion());
+            json.name("rttMs").value(client.getRoundTripMillis());
+            json.name("idleMs").value(client.getIdleMillis());
+            json.name("queueDepth").value(client.getOutboundQueueDepth());
+            json.name("bytesReceived").value(client.getBytesReceived());
+            json.name("bytesSent").value(client.getBytesSent());
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    /**
+     * Thread của JVM và các pool của server. Pool của client chỉ được đếm qua chỉ số của server:
+     * hỏi trạng thái của ThreadPoolExecutor phải lấy khóa nội bộ của nó, khóa mà pool cũng lấy
+     * khi thêm thread cho client mới hoặc cho writer. Pool mailbox có số thread cố định nên khóa
+     * đó không nằm trên đường xử lý lệnh của phòng.
+     */
+    private void writeThreads(Json json) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        ServerConfig config = server.getConfig();
+        json.beginObject();
+        json.name("jvm").beginObject();
+        json.name("live").value(threads.getThreadCount());
+        json.name("daemon").value(threads.getDaemonThreadCount());
+        json.name("peak").value(threads.getPeakThreadCount());
+        json.name("started").value(threads.getTotalStartedThreadCount());
+        json.endObject();
+        json.name("engine").value(config.getEngine().name());
+        json.name("handlerThreads").value(server.getHandlerThreads());
+        if (config.getEngine() == ServerConfig.Engine.NIO) {
+            json.name("eventLoops").value(config.getEventLoopThreads());
+        }
+        json.name("roomWorkers").beginObject();
+        json.name("threads").value(config.getRoomWorkerThreads());
+        if (roomExecutor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) roomExecutor;
+            json.name("active").value(pool.getActiveCount());
+            json.name("queued").value(pool.getQueue().size());
+            json.name("completedTasks").value(pool.getCompletedTaskCount());
+        }
+        json.endObject();
+        json.endObject();
+    }
+
+    /**
+     * Mọi thuộc tính của {@link ServerMetricsMXBean}, đọc bằng các getter của interface để trang
+     * quản trị luôn khớp với những gì JMX công bố
+     */
+    private void writeMetrics(Json json) {
+        ServerMetrics metrics = server.getMetrics();
+        List<Method> getters = new ArrayList<>();
+        for (Method method : ServerMetricsMXBean.class.getMethods()) {
+            if (method.getParameterCount() == 0 && method.getName().startsWith("get")) {
+                getters.add(method);
+            }
+        }
+        getters.sort(Comparator.comparing(Method::getName));
+        json.beginObject();
+        for (Method getter : getters) {
+            String name = getter.getName().substring(3);
+            json.name(Character.toLowerCase(name.charAt(0)) + name.substring(1));
+            try {
+                json.value(getter.invoke(metrics));
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                json.value((Object) null);
+            }
+        }
+        json.endObject();
+    }
+
+    private static byte[] error(String message) {
+        Json json = new Json();
+        json.beginObject();
+        json.name("error").value(message);
+        json.endObject();
+        return json.toBytes();
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "max-age=" + TimeUnit.MILLISECONDS.toSeconds(CACHE_MILLIS));
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static final class CachedResponse {
+        final int status;
+        final byte[] body;
+        final long builtMillis;
+
+        CachedResponse(int status, byte[] body, long builtMillis) {
+            this.status = status;
+            this.body = body;
+            this.builtMillis = builtMillis;
+        }
+    }
+
+    /**
+     * Ghi JSON tuần tự vào một StringBuilder, tự chèn dấu phẩy giữa các phần tử
+     */
+    private static final class Json {
+        private final StringBuilder out = new StringBuilder(1024);
+        // Mỗi mức lồng nhau: đã có phần tử nào chưa (để chèn dấu phẩy)
+        private final ArrayList<Boolean> hasElements = new ArrayList<>();
+        private boolean afterName;
+
+        Json beginObject() {
+            separate();
+            out.append('{');
+            hasElements.add(false);
+            return this;
+        }
+
+        Json endObject() {
+            hasElements.remove(hasElements.size() - 1);
+            out.append('}');
+            return this;
+        }
+
+        Json beginArray() {
+            separate();
+            out.append('[');
+            hasElements.add(false);
+            return this;
+        }
+
+        Json endArray() {
+            hasElements.remove(hasElements.size() - 1);
+            out.append(']');
+            return this;
+        }
+
+        Json name(String name) {
+            separate();
+            string(name);
+            out.append(':');
+            afterName = true;
+            return this;
+        }
+
+        Json value(String value) {
+            separate();
+            if (value == null) {
+                out.append("null");
+            } else {
+                string(value);
+            }
+            return this;
+        }
+
+        Json value(long value) {
+            separate();
+            out.append(value);
+            return this;
+        }
+
+        Json value(double value) {
+            separate();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                out.append("null");
+            } else {
+                out.append(Math.round(value * 1000) / 1000.0);
+            }
+            return this;
+        }
+
+        Json value(boolean value) {
+            separate();
+            out.append(value);
+            return this;
+        }
+
+        /**
+         * Ghi giá trị trả về của getter chỉ số: số, chuỗi, Map theo loại tin nhắn hoặc histogram
+         */
+        Json value(Object value) {
+            if (value instanceof Double || value instanceof Float) {
+                return value(((Number) value).doubleValue());
+            } else if (value instanceof Number) {
+                return value(((Number) value).longValue());
+            } else if (value instanceof Boolean) {
+                return value(((Boolean) value).booleanValue());
+            } else if (value instanceof HistogramSnapshot) {
+                HistogramSnapshot histogram = (HistogramSnapshot) value;
+                beginObject();
+                name("count").value(histogram.getCount());
+                name("mean").value(histogram.getMean());
+                name("p50").value(histogram.getP50());
+                name("p90").value(histogram.getP90());
+                name("p99").value(histogram.getP99());
+                name("p999").value(histogram.getP999());
+                name("max").value(histogram.getMax());
+                return endObject();
+            } else if (value instanceof Map) {
+                beginObject();
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                    name(String.valueOf(entry.getKey())).value(entry.getValue());
+                }
+                return endObject();
+            }
+            return value(value != null ? value.toString() : null);
+        }
+
+        private void separate() {
+            if (afterName) {
+                afterName = false;
+                return;
+            }
+            int depth = hasElements.size();
+            if (depth > 0) {
+                if (hasElements.get(depth - 1)) {
+                    out.append(',');
+                }
+                hasElements.set(depth - 1, true);
+            }
+        }
+
+        private void string(String value) {
+            out.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.append("\\\"");
+                        break;
+                    case '\\':
+                        out.append("\\\\");
+                        break;
+                    case '\n':
+                        out.append("\\n");
+                        break;
+                    case '\r':
+                        out.append("\\r");
+                        break;
+                    case '\t':
+                        out.append("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            out.append(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.append(c);
+                        }
+                        break;
+                }
+            }
+            out.append('"');
+        }
+
+        byte[] toBytes() {
+            return out.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
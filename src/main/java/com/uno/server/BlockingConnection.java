@@ -0,0 +1,23 @@
+package com.uno.server;
+
+import com.uno.utils.Message;
+
+import java.io.IOException;
+
+/**
+ * Kết nối đọc theo kiểu kéo: thread của client tự gọi {@link #receive()} trong vòng lặp đọc
+ * ({@link ClientHandler#readLoop(BlockingConnection)}). Kết nối non-blocking không cài đặt
+ * interface này vì event loop giao tin nhắn cho handler khi dữ liệu đến.
+ */
+interface BlockingConnection extends Connection {
+
+    /**
+     * Đọc tin nhắn tiếp theo từ client (blocking). Lần gọi đầu tiên thực hiện handshake
+     * để chọn phiên bản giao thức trước khi đọc frame.
+     *
+     * @return Tin nhắn nhận được
+     * @throws IOException Nếu kết nối bị lỗi hoặc đã đóng
+     * @throws ClassNotFoundException Nếu không deserialize được tin nhắn
+     */
+    Message receive() throws IOException, ClassNotFoundException;
+}
@@ -1,99 +1,161 @@
 package com.uno.server;
 
+import com.uno.model.CardColor;
 import com.uno.model.Game;
 import com.uno.model.Player;
+import com.uno.protocol.GameState;
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomQuery;
+import com.uno.utils.EncodedMessage;
+import com.uno.utils.Log;
 import com.uno.utils.Message;
 import com.uno.utils.MessageType;
-import com.uno.utils.StringUtils;
+import com.uno.utils.PayloadCodec;
+import com.uno.utils.ViewerMessage;
 
-import java.io.*;
-import java.net.Socket;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Handles a client connection with the server, processing messages and managing game state
  */
-public class ClientHandler implements Runnable {
-    private final Socket clientSocket;
+public class ClientHandler {
+    /** Thời gian chờ CONNECT_REJECT được gửi đi trước khi đóng kết nối bị từ chối */
+    private static final long REJECT_LINGER_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
+    private final Connection connection;
     private final UnoServer server;
-    private ObjectInputStream input;
-    private ObjectOutputStream output;
+    private final OutboundQueue outbound;
+    private final AtomicBoolean closed;
+    private final Object lobbyLock;
     private Player player;
-    private boolean running;
+    private Session session;
+    private volatile boolean leaving;
+    private volatile boolean running;
+    
+    // Heartbeat: thời điểm nhận tin nhắn gần nhất (System.nanoTime()), PING gần nhất và RTT đo được
+    private final long pingIntervalNanos;
+    private final long idleTimeoutNanos;
+    private volatile long lastReceivedNanos;
+    private volatile long pingSentNanos;
+    private volatile int pingSequence;
+    private volatile long roundTripNanos;
+    private volatile TimingWheel.Timeout idleCheck;
+    
+    // Giới hạn tốc độ, chỉ dùng trên thread đọc của kết nối; bucket của từng nhóm tạo khi cần
+    private final RateLimits rateLimits;
+    private final TokenBucket messageBucket;
+    private final TokenBucket[] categoryBuckets;
+    private boolean throttled;
+    private volatile String admissionRejection;
+    private boolean rejectionSent;
     
     /**
-     * Creates a new client handler for the specified socket
+     * Creates a new client handler for the specified connection
      * 
-     * @param socket The client socket connection
+     * @param connection The client connection (blocking socket or NIO channel)
      * @param server The Uno server instance
      */
-    public ClientHandler(Socket socket, UnoServer server) {
-        this.clientSocket = socket;
+    ClientHandler(Connection connection, UnoServer server) {
+        this.connection = connection;
         this.server = server;
+        this.outbound = new OutboundQueue(server.getConfig().getOutboundQueueCapacity(),
+                server.getConfig().getOverflowPolicy(), server.getMetrics());
+        this.connection.bindOutbound(outbound);
+        this.closed = new AtomicBoolean(false);
+        this.lobbyLock = new Object();
         this.running = true;
+        this.pingIntervalNanos = TimeUnit.SECONDS.toNanos(server.getConfig().getPingIntervalSeconds());
+        this.idleTimeoutNanos = TimeUnit.SECONDS.toNanos(server.getConfig().getIdleTimeoutSeconds());
+        this.lastReceivedNanos = System.nanoTime();
+        this.roundTripNanos = -1;
+        this.rateLimits = server.getConfig().getRateLimits();
+        this.messageBucket = rateLimits.getMessages() != null
+                ? new TokenBucket(rateLimits.getMessages(), lastReceivedNanos) : null;
+        this.categoryBuckets = new TokenBucket[RateLimits.Category.values().length];
+        this.idleCheck = server.scheduleTimeout(this::checkIdle, pingIntervalNanos);
         
-        String clientId = "client_" + String.format("%03d", System.currentTimeMillis() % 1000);
-        System.out.println("[THREAD-" + clientId + "] Thread started");
-        System.out.println("[SOCKET] Socket options: SO_KEEPALIVE=true, TCP_NODELAY=true");
-        
-        System.out.println(StringUtils.formatNetworkLog("SERVER", "NEW_CONNECTION", 
-                "Tao handler xu ly client " + socket.getInetAddress().getHostAddress() + ":" + socket.getPort() + 
-                " - Connection established"));
+        Log.NETWORK.debug("SERVER", "NEW_CONNECTION", 
+                "Tao handler xu ly client " + connection.getRemoteAddress() + 
+                " - Connection established");
     }
     
-    @Override
-    public void run() {
+    /**
+     * Vòng lặp đọc blocking, dùng cho mô hình một thread cho mỗi client.
+     * Với engine NIO, tin nhắn được event loop giao qua {@link #onMessageReceived(Message)}.
+     * 
+     * @param connection Kết nối của handler này, đọc bằng thread gọi
+     */
+    void readLoop(BlockingConnection connection) {
+        ServerMetrics metrics = server.getMetrics();
+        metrics.handlerThreadChanged(1);
         try {
-            String clientId = "client_" + String.format("%03d", System.currentTimeMillis() % 1000);
-            System.out.println("[THREAD-" + clientId + "] Entering message processing loop");
-            
-            // Initialize input/output streams
-            System.out.println("[PROTOCOL] Setting up ObjectInputStream/ObjectOutputStream");
-            System.out.println(StringUtils.formatNetworkLog("SERVER", "STREAM_SETUP", 
-                    "Thiet lap stream I/O cho client " + clientSocket.getInetAddress().getHostAddress() + 
-                    " - Initializing ObjectInputStream/ObjectOutputStream"));
-            
-            output = new ObjectOutputStream(clientSocket.getOutputStream());
-            output.flush();
-            input = new ObjectInputStream(clientSocket.getInputStream());
-            
-            System.out.println("[PROTOCOL] Communication channel established");
-            System.out.println(StringUtils.formatNetworkLog("SERVER", "READY", 
-                    "Kenh truyen du lieu da san sang - Communication channel established"));
+            Log.NETWORK.debug("SERVER", "READY", 
+                    "Kenh truyen du lieu da san sang - Handshake + length-prefixed frame stream");
             
             // Process messages from client
             while (running) {
-                Message message = (Message) input.readObject();
-                
-                System.out.println("[THREAD-client_001] Message received");
-                System.out.println("[PROTOCOL] Parsing JSON...");
-                System.out.println("[PROTOCOL] Parsed: " + message.getType() + " | Card: " + 
-                    (message.getData() != null && message.getData().toString().contains("Card") ? 
-                     message.getData().toString() : "N/A"));
-                
-                System.out.println(StringUtils.formatNetworkLog("SERVER", "MESSAGE_RECEIVED", 
-                        "Nhan tin nhan tu client: " + message.getType() + " - Object deserialization"));
-                handleMessage(message);
+                Message message = connection.receive();
+                onMessageReceived(message);
             }
         } catch (IOException | ClassNotFoundException e) {
-            System.out.println(StringUtils.formatNetworkLog("SERVER", "CONNECTION_ERROR", 
-                    "Loi ket noi voi client: " + e.getMessage() + " - Socket communication failure"));
+            if (running) {
+                Log.NETWORK.error("SERVER", "CONNECTION_ERROR", 
+                        "Loi ket noi voi client: " + e.getMessage() + " - Socket communication failure");
+            }
         } finally {
             close();
+            metrics.handlerThreadChanged(-1);
         }
     }
     
+    /**
+     * Xử lý một tin nhắn đã được đọc trọn vẹn từ kết nối
+     * 
+     * @param message Tin nhắn nhận được
+     */
+    void onMessageReceived(Message message) {
+        lastReceivedNanos = System.nanoTime();
+        Log.NETWORK.trace("SERVER", "MESSAGE_RECEIVED", () ->
+                "Nhan tin nhan tu client: " + message.getType() + " - Message decoding");
+        ServerMetrics metrics = server.getMetrics();
+        metrics.messageReceived(message.getType());
+        handleMessage(message);
+        metrics.messageDispatched(System.nanoTime() - lastReceivedNanos);
+    }
+    
     /**
      * Processes messages from the client and routes to appropriate handlers
      * 
      * @param message The message to process
      */
     private void handleMessage(Message message) {
-
-                
+        if (admissionRejection != null) {
+            if (message.getType() == MessageType.DISCONNECT) {
+                handleDisconnect();
+            } else {
+                rejectConnection();
+            }
+            return;
+        }
+        if (!withinRateLimit(message.getType(), lastReceivedNanos)) {
+            onRateLimited(message.getType());
+            return;
+        }
+        throttled = false;
+        if (player == null && !allowedBeforeConnect(message.getType())) {
+            sendMessage(new Message(MessageType.ERROR, "Chua ket noi, hay gui CONNECT truoc", server.getServerId()));
+            return;
+        }
+        
         switch (message.getType()) {
             case CONNECT:
                 handleConnect(message);
                 break;
+            case RESUME:
+                handleResume(message);
+                break;
             case DISCONNECT:
                 handleDisconnect();
                 break;
@@ -104,7 +166,7 @@ public class ClientHandler implements Runnable {
                 handleJoinRoom(message);
                 break;
             case LEAVE_ROOM:
-                handleLeaveRoom();
+                handleLeaveRoom(knownDirectoryVersion(message));
                 break;
             case START_GAME:
                 handleStartGame();
@@ -127,34 +189,203 @@ public class ClientHandler implements Runnable {
             case CHAT_MESSAGE:
                 handleChatMessage(message);
                 break;
+            case RESYNC_REQUEST:
+                handleResyncRequest();
+                break;
+            case ROOM_DIRECTORY_REQUEST:
+                server.resendRoomDirectory(this, knownDirectoryVersion(message));
+                break;
+            case ROOM_QUERY:
+                handleRoomQuery(message);
+                break;
+            case PING:
+                sendMessage(new Message(MessageType.PONG, message.getData(), server.getServerId()));
+                break;
+            case PONG:
+                handlePong(message);
+                break;
             default:
                 sendMessage(new Message(MessageType.ERROR, "Unsupported message type", server.getServerId()));
                 break;
         }
     }
     
+    /**
+     * Tin nhắn được xử lý trước khi kết nối có người chơi (trước CONNECT hoặc RESUME thành công);
+     * mọi tin nhắn khác cần người chơi nên bị từ chối
+     */
+    private static boolean allowedBeforeConnect(MessageType type) {
+        switch (type) {
+            case CONNECT:
+            case RESUME:
+            case DISCONNECT:
+            case PING:
+            case PONG:
+                return true;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Trả lời tin nhắn có dữ liệu sai kiểu (client lỗi hoặc cố ý gửi sai). Tin nhắn bị bỏ qua,
+     * kết nối vẫn được giữ.
+     */
+    private void rejectInvalid(MessageType type) {
+        Log.NETWORK.debug("SERVER", "INVALID_MESSAGE", "Du lieu " + type + " khong hop le tu "
+                + (player != null ? player.getName() : connection.getRemoteAddress()) + " - Malformed payload");
+        sendMessage(new Message(MessageType.ERROR, "Invalid " + type + " request", server.getServerId()));
+    }
+    
+    /**
+     * Đánh dấu kết nối bị từ chối bởi kiểm soát số kết nối; gọi trước khi kết nối bắt đầu đọc
+     * 
+     * @param reason Lý do gửi cho client trong CONNECT_REJECT
+     */
+    void rejectAdmission(String reason) {
+        this.admissionRejection = reason;
+    }
+    
+    /**
+     * @return true nếu kết nối được nhận (giữ một chỗ trong số kết nối tối đa)
+     */
+    boolean isAdmitted() {
+        return admissionRejection == null;
+    }
+    
+    /**
+     * Trả lời tin nhắn đầu tiên của kết nối bị từ chối bằng CONNECT_REJECT rồi đóng kết nối
+     * sau một khoảng ngắn để tin nhắn kịp được gửi; các tin nhắn sau đó bị bỏ qua trừ DISCONNECT
+     */
+    private void rejectConnection() {
+        if (rejectionSent) {
+            return;
+        }
+        rejectionSent = true;
+        sendMessage(new Message(MessageType.CONNECT_REJECT, admissionRejection, server.getServerId()));
+        server.scheduleTimeout(this::close, REJECT_LINGER_NANOS);
+    }
+    
+    /**
+     * Kiểm tra tin nhắn có nằm trong giới hạn tốc độ chung và giới hạn của nhóm không.
+     * DISCONNECT luôn được phép để client nào cũng rời đi được.
+     * 
+     * @param type Loại tin nhắn
+     * @param now Thời điểm nhận tin nhắn
+     * @return true nếu được xử lý
+     */
+    private boolean withinRateLimit(MessageType type, long now) {
+        if (type == MessageType.DISCONNECT) {
+            return true;
+        }
+        if (messageBucket != null && !messageBucket.tryAcquire(now)) {
+            return false;
+        }
+        RateLimits.Category category = RateLimits.categoryOf(type);
+        if (category == null) {
+            return true;
+        }
+        TokenBucket bucket = categoryBuckets[category.ordinal()];
+        if (bucket == null) {
+            RateLimits.Limit limit = rateLimits.getLimit(category);
+            if (limit == null) {
+                return true;
+            }
+            bucket = new TokenBucket(limit, now);
+            categoryBuckets[category.ordinal()] = bucket;
+        }
+        return bucket.tryAcquire(now);
+    }
+    
+    /**
+     * Bỏ tin nhắn vượt giới hạn; client chỉ được báo lỗi một lần cho mỗi đợt gửi quá nhanh
+     * để lời báo lỗi không trở thành một cách khuếch đại lưu lượng
+     */
+    private void onRateLimited(MessageType type) {
+        server.getMetrics().messageRateLimited();
+        if (throttled) {
+            return;
+        }
+        throttled = true;
+        Log.NETWORK.warn("SERVER", "RATE_LIMITED",
+                (player != null ? player.getName() : connection.getRemoteAddress()) + " gui " + type
+                        + " qua nhanh, bo qua tin nhan - Token bucket exhausted");
+        sendMessage(new Message(MessageType.ERROR, "Gui qua nhanh, tin nhan bi bo qua", server.getServerId()));
+    }
+    
     /**
      * Xử lý tin nhắn kết nối từ client
      * 
      * @param message Tin nhắn kết nối
      */
     private void handleConnect(Message message) {
+        if (player != null) {
+            sendMessage(new Message(MessageType.ERROR, "Da ket noi", server.getServerId()));
+            return;
+        }
+        if (!(message.getData() instanceof String)) {
+            rejectInvalid(message.getType());
+            return;
+        }
         String playerName = (String) message.getData();
-        player = new Player(playerName);
+        // Chỗ của phòng khôi phục sau khi server khởi động lại chỉ nhận lại được bằng RESUME với
+        // token đã lưu, không bao giờ theo tên
+        session = server.openSession(new Player(playerName), this);
+        player = session.getPlayer();
+        server.bindPlayer(player, this);
         
         // In thông tin về ID của player
-        System.out.println("ClientHandler: Player moi ket noi - " + playerName + " với ID: '" + player.getId() + "'");
+        Log.NETWORK.info("SERVER", "PLAYER_CONNECT",
+                "Player moi ket noi: " + playerName + " voi ID '" + player.getId() + "'");
+        
+        // Thông báo cho client về kết nối thành công, kèm token để kết nối lại nếu rớt mạng
+        sendMessage(new Message(MessageType.CONNECT_ACCEPT, player.getId(), server.getServerId()));
+        sendMessage(new Message(MessageType.SESSION_TOKEN, session.getToken(), server.getServerId()));
+        
+        // Vào sảnh: nhận danh sách phòng đầy đủ, sau đó chỉ nhận các thay đổi
+        updateLobbySubscription();
+    }
+    
+    /**
+     * Xử lý tin nhắn kết nối lại bằng token của phiên cũ. Người chơi nhận lại ID và chỗ trong
+     * phòng; client chỉ nhận phần trạng thái còn thiếu, không có gì được công bố cho sảnh.
+     * 
+     * @param message Tin nhắn chứa {token, phiên bản trạng thái game client đang có}
+     */
+    private void handleResume(Message message) {
+        Object[] data = message.getData() instanceof Object[] ? (Object[]) message.getData() : null;
+        if (player != null || data == null || data.length != 2 || !(data[0] instanceof String)
+                || !(data[1] instanceof Integer)) {
+            sendMessage(new Message(MessageType.ERROR, "Invalid resume request", server.getServerId()));
+            return;
+        }
+        int lastVersion = (Integer) data[1];
+        Session resumed = server.resumeSession((String) data[0], this);
+        if (resumed == null) {
+            sendMessage(new Message(MessageType.CONNECT_REJECT, "Phien da het han", server.getServerId()));
+            return;
+        }
+        session = resumed;
+        player = resumed.getPlayer();
+        server.bindPlayer(player, this);
+        
+        Log.NETWORK.info("SERVER", "PLAYER_RESUME",
+                "Player ket noi lai: " + player.getName() + " voi ID '" + player.getId() + "'");
         
-        // Thông báo cho client về kết nối thành công
         sendMessage(new Message(MessageType.CONNECT_ACCEPT, player.getId(), server.getServerId()));
+        sendMessage(new Message(MessageType.SESSION_TOKEN, session.getToken(), server.getServerId()));
         
-        // Gửi danh sách phòng hiện có
-        sendMessage(new Message(MessageType.ROOM_LIST, server.getRoomList(), server.getServerId()));
+        GameRoom room = server.getRoomByPlayer(player.getId());
+        if (room != null) {
+            room.execute(() -> room.resumePlayer(player, this, lastVersion));
+        }
+        updateLobbySubscription();
     }
 
-    // Xử lý tin nhắn ngắt kết nối từ client
+    // Xử lý tin nhắn ngắt kết nối từ client: người chơi chủ động rời đi nên không giữ chỗ
     private void handleDisconnect() {
-        running = false;
+        leaving = true;
+        close();
     }
 
     /* Xử lý tin nhắn tạo phòng từ client
@@ -162,15 +393,20 @@ public class ClientHandler implements Runnable {
      * @param message Tin nhắn tạo phòng
      */
     private void handleCreateRoom(Message message) {
+        if (!(message.getData() instanceof String)) {
+            rejectInvalid(message.getType());
+            return;
+        }
         String roomName = (String) message.getData();
         GameRoom room = server.createRoom(roomName, player);
         
         if (room != null) {
-            // Thông báo cho client về tạo phòng thành công
-            sendMessage(new Message(MessageType.ROOM_UPDATE, room, server.getServerId()));
+            // Người chơi trong phòng không cần danh sách phòng; server tự công bố phòng mới cho sảnh
+            updateLobbySubscription();
             
-            // Thông báo cho tất cả client về danh sách phòng mới
-            server.broadcastRoomList();
+            // Thông báo cho client về tạo phòng thành công; phòng được mã hóa trong mailbox
+            // vì người khác có thể đã bắt đầu vào phòng
+            room.execute(() -> sendMessage(new Message(MessageType.ROOM_UPDATE, room.getSnapshot(), server.getServerId())));
         } else {
             sendMessage(new Message(MessageType.ERROR, "Khong the tao phong", server.getServerId()));
         }
@@ -181,45 +417,76 @@ public class ClientHandler implements Runnable {
      * @param message Tin nhắn tham gia phòng
      */
     private void handleJoinRoom(Message message) {
+        if (!(message.getData() instanceof String)) {
+            rejectInvalid(message.getType());
+            return;
+        }
         String roomId = (String) message.getData();
-        GameRoom room = server.getRoom(roomId);
+        // Giữ chỗ ngay để các yêu cầu tiếp theo của người chơi (rời phòng, hành động game)
+        // được xếp vào cùng mailbox, sau lệnh vào phòng
+        GameRoom room = server.reserveSeat(roomId, player.getId());
         
-        if (room != null && room.addPlayer(player, this)) {
-            // Thông báo cho client về tham gia phòng thành công
-            sendMessage(new Message(MessageType.ROOM_UPDATE, room, server.getServerId()));
-            
-            // Thông báo cho tất cả người chơi trong phòng về người chơi mới
-            room.broadcast(new Message(MessageType.ROOM_UPDATE, room, server.getServerId()));
-            
-            // Cập nhật danh sách phòng cho tất cả người chơi
-            server.broadcastRoomList();
-        } else {
+        if (room == null) {
             sendMessage(new Message(MessageType.ERROR, "Khong the tham gia phong", server.getServerId()));
+            return;
         }
+        updateLobbySubscription();
+        
+        room.execute(() -> {
+            if (server.joinRoom(room, player, this)) {
+                // Thông báo cho client về tham gia phòng thành công
+                sendMessage(new Message(MessageType.ROOM_UPDATE, room.getSnapshot(), server.getServerId()));
+                
+                // Thông báo cho tất cả người chơi trong phòng về người chơi mới
+                room.broadcast(new Message(MessageType.ROOM_UPDATE, room.getSnapshot(), server.getServerId()));
+            } else {
+                // Chỗ đã được trả: quay lại sảnh
+                updateLobbySubscription();
+                sendMessage(new Message(MessageType.ERROR, "Khong the tham gia phong", server.getServerId()));
+            }
+        });
     }
     
     /**
      * Xử lý tin nhắn rời phòng từ client
+     * 
+     * @param knownVersion Phiên bản danh sách phòng client gửi kèm, -1 nếu không có
      */
-    private void handleLeaveRoom() {
-        GameRoom room = server.getRoomByPlayer(player.getId());
-        
-        if (room != null) {
-            room.removePlayer(player.getId());
-            
-            // Thông báo cho client về rời phòng thành công
-            sendMessage(new Message(MessageType.ROOM_LIST, server.getRoomList(), server.getServerId()));
-            
-            // Thông báo cho tất cả người chơi trong phòng về người chơi rời đi
-            room.broadcast(new Message(MessageType.ROOM_UPDATE, room, server.getServerId()));
-            
-            // Cập nhật danh sách phòng cho tất cả người chơi
-            server.broadcastRoomList();
-            
-            // Xóa phòng nếu không còn người chơi
-            if (room.getPlayerCount() == 0) {
-                server.removeRoom(room.getId());
-                server.broadcastRoomList();
+    private void handleLeaveRoom(int knownVersion) {
+        // Trả chỗ ngay để người chơi có thể tạo hoặc vào phòng khác; phòng xóa người chơi trong mailbox
+        // và thông báo cho những người còn lại
+        if (server.vacateSeat(player.getId())) {
+            // Quay lại sảnh: danh sách phòng (hoặc xác nhận không đổi) cũng là xác nhận rời phòng thành công
+            updateLobbySubscription(knownVersion);
+        }
+    }
+    
+    /**
+     * Phiên bản danh sách phòng client gửi kèm, -1 nếu client không gửi (client cũ)
+     */
+    private static int knownDirectoryVersion(Message message) {
+        return message.getData() instanceof Integer ? (Integer) message.getData() : -1;
+    }
+    
+    /**
+     * Đăng ký hoặc hủy đăng ký nhận danh sách phòng theo chỉ mục người chơi → phòng:
+     * client ở sảnh khi và chỉ khi người chơi không giữ chỗ ở phòng nào. Được gọi sau mỗi lần
+     * chỉ mục của người chơi thay đổi, từ thread xử lý client hoặc từ mailbox của phòng;
+     * khóa riêng của handler đảm bảo lần gọi sau cùng quyết định kết quả.
+     */
+    private void updateLobbySubscription() {
+        updateLobbySubscription(-1);
+    }
+    
+    /**
+     * @param knownVersion Phiên bản danh sách phòng client đang có, -1 nếu không có
+     */
+    private void updateLobbySubscription(int knownVersion) {
+        synchronized (lobbyLock) {
+            if (!closed.get() && server.getRoomByPlayer(player.getId()) == null) {
+                server.subscribeLobby(this, knownVersion);
+            } else {
+                server.unsubscribeLobby(this);
             }
         }
     }
@@ -230,25 +497,22 @@ public class ClientHandler implements Runnable {
     private void handleStartGame() {
         GameRoom room = server.getRoomByPlayer(player.getId());
         
-        if (room != null && room.getHost().getId().equals(player.getId())) {
+        if (room == null || !room.getHost().getId().equals(player.getId())) {
+            sendMessage(new Message(MessageType.ERROR, "Ban khong phai la chu phong", server.getServerId()));
+            return;
+        }
+        
+        room.execute(() -> {
             if (room.startGame()) {
-                // Thông báo cho tất cả người chơi trong phòng về bắt đầu game
-                // Gửi GameState thay vì Game để đảm bảo tính nhất quán
-                for (String playerId : room.getPlayerIds()) {
-                    ClientHandler handler = room.getClientHandler(playerId);
-                    if (handler != null) {
-                        handler.sendMessage(new Message(MessageType.START_GAME, room.getPlayerGameState(playerId), server.getServerId()));
-                    }
-                }
+                server.roomChanged(room);
                 
-                // Cập nhật trạng thái game cho mỗi người chơi
-                room.updateGameState();
+                // Thông báo cho tất cả người chơi trong phòng về bắt đầu game
+                // Gửi GameState đầy đủ làm mốc; các thay đổi sau đó được gửi bằng GAME_DELTA
+                room.broadcastGameState(MessageType.START_GAME, server.getServerId());
             } else {
                 sendMessage(new Message(MessageType.ERROR, "Khong the bat dau game", server.getServerId()));
             }
-        } else {
-            sendMessage(new Message(MessageType.ERROR, "Ban khong phai la chu phong", server.getServerId()));
-        }
+        });
     }
     
     /**
@@ -257,27 +521,45 @@ public class ClientHandler implements Runnable {
      * @param message The play card message containing card index and color
      */
     private void handlePlayCard(Message message) {
+        // Extract data from message (cardIndex and selected color)
+        Object[] data = message.getData() instanceof Object[] ? (Object[]) message.getData() : null;
+        if (data == null || data.length != 2 || !(data[0] instanceof Integer) || !isColorName(data[1])) {
+            rejectInvalid(message.getType());
+            return;
+        }
         GameRoom room = server.getRoomByPlayer(player.getId());
         
         if (room != null) {
-            // Extract data from message (cardIndex and selected color)
-            Object[] data = (Object[]) message.getData();
             int cardIndex = (Integer) data[0];
             String colorName = (String) data[1];
             
-            Game game = room.getGame();
-            
-            if (room.playCard(player.getId(), cardIndex, colorName)) {
-                // Update game state for all players
-                room.updateGameState();
+            room.execute(() -> {
+                Game game = room.getGame();
                 
-                // Check if game is over
-                if (game.isGameOver()) {
-                    room.broadcast(new Message(MessageType.GAME_OVER, game.getWinner(), server.getServerId()));
+                if (room.playCard(player.getId(), cardIndex, colorName)) {
+                    // Update game state for all players
+                    room.updateGameState();
+                    
+                    // Check if game is over
+                    if (game.isGameOver()) {
+                        room.broadcast(new Message(MessageType.GAME_OVER, game.getWinner().getName(), server.getServerId()));
+                    }
+                } else {
+                    sendMessage(new Message(MessageType.ERROR, "Khong the danh bai", server.getServerId()));
                 }
-            } else {
-                sendMessage(new Message(MessageType.ERROR, "Khong the danh bai", server.getServerId()));
-            }
+            });
+        }
+    }
+    
+    private static boolean isColorName(Object value) {
+        if (!(value instanceof String)) {
+            return false;
+        }
+        try {
+            CardColor.valueOf((String) value);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
     
@@ -288,12 +570,14 @@ public class ClientHandler implements Runnable {
         GameRoom room = server.getRoomByPlayer(player.getId());
         
         if (room != null) {
-            if (room.drawCard(player.getId())) {
-                // Cập nhật trạng thái game cho người chơi đã rút bài
-                sendMessage(new Message(MessageType.GAME_UPDATE, room.getPlayerGameState(player.getId()), server.getServerId()));
-            } else {
-                sendMessage(new Message(MessageType.ERROR, "Khong the rut bai", server.getServerId()));
-            }
+            room.execute(() -> {
+                if (room.drawCard(player.getId())) {
+                    // Người rút thấy lá bài mới, những người khác thấy số bài trên tay tăng
+                    room.updateGameState();
+                } else {
+                    sendMessage(new Message(MessageType.ERROR, "Khong the rut bai", server.getServerId()));
+                }
+            });
         }
     }
     
@@ -304,12 +588,14 @@ public class ClientHandler implements Runnable {
         GameRoom room = server.getRoomByPlayer(player.getId());
         
         if (room != null) {
-            if (room.endTurn(player.getId())) {
-                // Cập nhật trạng thái game cho tất cả người chơi
-                room.updateGameState();
-            } else {
-                sendMessage(new Message(MessageType.ERROR, "Khong the ket thuc luot", server.getServerId()));
-            }
+            room.execute(() -> {
+                if (room.endTurn(player.getId())) {
+                    // Cập nhật trạng thái game cho tất cả người chơi
+                    room.updateGameState();
+                } else {
+                    sendMessage(new Message(MessageType.ERROR, "Khong the ket thuc luot", server.getServerId()));
+                }
+            });
         }
     }
     
@@ -320,10 +606,13 @@ public class ClientHandler implements Runnable {
         GameRoom room = server.getRoomByPlayer(player.getId());
         
         if (room != null) {
-            if (room.callUno(player.getId())) {
-                // Thông báo cho tất cả người chơi về hô Uno
-                room.broadcast(new Message(MessageType.CALL_UNO, player.getName(), server.getServerId()));
-            }
+            room.execute(() -> {
+                if (room.callUno(player.getId())) {
+                    // Thông báo cho tất cả người chơi về hô Uno
+                    room.broadcast(new Message(MessageType.CALL_UNO, player.getName(), server.getServerId()));
+                    room.updateGameState();
+                }
+            });
         }
     }
     
@@ -333,16 +622,23 @@ public class ClientHandler implements Runnable {
      * @param message Tin nhắn thách thức
      */
     private void handleChallenge(Message message) {
+        if (!(message.getData() instanceof String)) {
+            rejectInvalid(message.getType());
+            return;
+        }
         GameRoom room = server.getRoomByPlayer(player.getId());
         
         if (room != null) {
             String challengedPlayerId = (String) message.getData();
-            if (room.challenge(player.getId(), challengedPlayerId)) {
-                // Cập nhật trạng thái game cho tất cả người chơi
+            room.execute(() -> {
+                boolean successful = room.challenge(player.getId(), challengedPlayerId);
+                
+                // Thách thức thất bại vẫn làm người thách thức phải rút bài nên luôn cập nhật trạng thái
                 room.updateGameState();
-            } else {
-                sendMessage(new Message(MessageType.ERROR, "Khong the thach thuc", server.getServerId()));
-            }
+                if (!successful) {
+                    sendMessage(new Message(MessageType.ERROR, "Khong the thach thuc", server.getServerId()));
+                }
+            });
         }
     }
     
@@ -361,74 +657,297 @@ public class ClientHandler implements Runnable {
     }
     
     /**
-     * Gửi tin nhắn đến client
+     * Gửi lại toàn bộ trạng thái game khi client phát hiện thiếu GAME_DELTA
+     */
+    private void handleResyncRequest() {
+        sendFullGameState();
+    }
+    
+    /**
+     * Xếp trạng thái game đầy đủ của người chơi vào mailbox của phòng; GAME_UPDATE được dựng khi
+     * lệnh chạy nên bao gồm mọi thay đổi đến lúc đó
+     */
+    private void sendFullGameState() {
+        GameRoom room = server.getRoomByPlayer(player.getId());
+        
+        if (room != null) {
+            room.execute(() -> {
+                if (room.getGame().isGameStarted()) {
+                    sendMessage(new Message(MessageType.GAME_UPDATE, room.getPlayerGameState(player.getId()), server.getServerId()));
+                }
+            });
+        }
+    }
+    
+    /**
+     * Trả lời truy vấn danh sách phòng bằng một trang ROOM_PAGE
+     * 
+     * @param message Tin nhắn chứa truy vấn
+     */
+    private void handleRoomQuery(Message message) {
+        if (!(message.getData() instanceof RoomQuery)) {
+            sendMessage(new Message(MessageType.ERROR, "Invalid room query", server.getServerId()));
+            return;
+        }
+        RoomPage page = server.queryRooms((RoomQuery) message.getData());
+        sendMessage(new Message(MessageType.ROOM_PAGE, page, server.getServerId()));
+    }
+    
+    /**
+     * Kiểm tra kết nối còn sống, chạy trên thread hẹn giờ của server. Mọi tin nhắn nhận được đều
+     * tính là còn sống nên client đang hoạt động không tốn thêm gì; kết nối im lặng quá khoảng
+     * PING được gửi PING, im lặng quá thời hạn thì bị đóng như khi rớt mạng (người chơi trong
+     * phòng được giữ chỗ chờ kết nối lại). Mỗi kết nối chỉ có một hẹn giờ, đặt lại sau mỗi lần kiểm tra.
+     */
+    private void checkIdle() {
+        if (closed.get()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long idle = now - lastReceivedNanos;
+        if (idle >= idleTimeoutNanos) {
+            server.getMetrics().idleDisconnected();
+            Log.NETWORK.warn("SERVER", "IDLE_TIMEOUT",
+                    "Khong nhan duoc du lieu tu " + (player != null ? player.getName() : connection.getRemoteAddress())
+                            + " trong " + TimeUnit.NANOSECONDS.toSeconds(idle) + "s - Idle connection reaped");
+            close();
+            return;
+        }
+        long nextCheck;
+        if (idle >= pingIntervalNanos) {
+            // Chưa handshake thì chưa gửi được gì, chỉ chờ hết thời hạn
+            if (connection.getCodec() != null) {
+                int sequence = (pingSequence + 1) & Integer.MAX_VALUE;
+                pingSequence = sequence;
+                pingSentNanos = now;
+                sendMessage(new Message(MessageType.PING, sequence, server.getServerId()));
+            }
+            nextCheck = idleTimeoutNanos - idle;
+        } else {
+            nextCheck = pingIntervalNanos - idle;
+        }
+        idleCheck = server.scheduleTimeout(this::checkIdle, nextCheck);
+        if (closed.get()) {
+            // close() chạy trong lúc đặt hẹn giờ mới có thể chưa thấy hẹn giờ này
+            idleCheck.cancel();
+        }
+    }
+    
+    /**
+     * Đo RTT khi client trả lời PING gần nhất
+     * 
+     * @param message Tin nhắn PONG chứa số thứ tự của PING
+     */
+    private void handlePong(Message message) {
+        if (!(message.getData() instanceof Integer) || (Integer) message.getData() != pingSequence) {
+            // PONG của một PING cũ hơn
+            return;
+        }
+        long rtt = System.nanoTime() - pingSentNanos;
+        roundTripNanos = rtt;
+        server.getMetrics().roundTripMeasured(rtt);
+        Log.NETWORK.trace("SERVER", "HEARTBEAT", () ->
+                "RTT cua " + (player != null ? player.getName() : "client") + ": "
+                        + TimeUnit.NANOSECONDS.toMicros(rtt) + "us - Round trip measured");
+    }
+    
+    /**
+     * @return RTT đo bằng PING/PONG gần nhất (ms), -1 nếu chưa đo
+     */
+    public double getRoundTripMillis() {
+        long rtt = roundTripNanos;
+        return rtt < 0 ? -1 : rtt / 1e6;
+    }
+    
+    /**
+     * Mã hóa tin nhắn và xếp vào hàng đợi gửi của client. Không chặn thread gọi nên có thể dùng
+     * khi đang giữ khóa phòng; writer của kết nối ghi tin nhắn ra socket sau đó.
+     * Client không đọc kịp sẽ bị bỏ bớt cập nhật cũ hoặc bị ngắt tùy {@link ServerConfig.OverflowPolicy}.
      * 
      * @param message Tin nhắn cần gửi
      */
     public void sendMessage(Message message) {
+        if (closed.get()) {
+            return;
+        }
+        
         try {
-            // Server sending message - simplified logging
-            System.out.println("[PROTOCOL] Serializing to JSON: " + message.toString().length() + " bytes");
-            
-            // Log network message transmission
-            System.out.println(StringUtils.formatNetworkLog("SERVER", "SEND_MESSAGE", 
-                    "Gui " + message.getType() + " den " + 
-                    (player != null ? player.getName() : "client") + " - Object serialization"));
-            
-            // Send message
-            output.writeObject(message);
-            
-            // Reset ObjectOutputStream to avoid object caching
-            // This ensures the latest state of GameState is always sent
-            output.reset(); 
-            output.flush();
+            PayloadCodec codec = handshakeCodec();
+            enqueue(message.getType(), codec.encode(message));
         } catch (IOException e) {
-            System.out.println(StringUtils.formatNetworkLog("SERVER", "SEND_ERROR", 
-                    "Loi gui du lieu qua network: " + e.getMessage() + " - TCP transmission failure"));
+            onEncodeError(message.getType(), e);
+        }
+    }
+    
+    /**
+     * Gửi tin nhắn dùng chung cho nhiều client; payload được mã hóa một lần cho mỗi phiên bản giao thức
+     * 
+     * @param message Tin nhắn đã đóng gói để mã hóa một lần
+     */
+    public void sendMessage(EncodedMessage message) {
+        if (closed.get()) {
+            return;
+        }
+        
+        try {
+            enqueue(message.getType(), message.payload(handshakeCodec()));
+        } catch (IOException e) {
+            onEncodeError(message.getType(), e);
+        }
+    }
+    
+    /**
+     * Gửi tin nhắn có phần riêng theo người nhận; người nhận là người chơi của kết nối này
+     * 
+     * @param message Tin nhắn với dữ liệu đầy đủ
+     */
+    public void sendMessage(ViewerMessage message) {
+        if (closed.get() || player == null) {
+            return;
+        }
+        
+        try {
+            enqueue(message.getType(), message.payload(handshakeCodec(), player.getId()));
+        } catch (IOException e) {
+            onEncodeError(message.getType(), e);
+        }
+    }
+    
+    private PayloadCodec handshakeCodec() throws IOException {
+        PayloadCodec codec = connection.getCodec();
+        if (codec == null) {
+            throw new IOException("Handshake not completed");
+        }
+        return codec;
+    }
+    
+    private void enqueue(MessageType type, byte[] payload) {
+        if (!GameRoom.holdUntilCommitted(this, type, payload)) {
+            deliver(type, payload);
+        }
+    }
+    
+    /**
+     * Đưa payload vào hàng đợi gửi ngay, không chờ commit nhật ký của phòng
+     * 
+     * @param type Loại tin nhắn
+     * @param payload Payload đã mã hóa cho kết nối này
+     */
+    void deliver(MessageType type, byte[] payload) {
+        if (closed.get()) {
+            return;
+        }
+        
+        // Log network message transmission
+        Log.NETWORK.trace("SERVER", "SEND_MESSAGE", () ->
+                "Gui " + type + " den " + 
+                (player != null ? player.getName() : "client") + " - Message encoding");
+        
+        if (outbound.offer(type, payload)) {
+            connection.requestFlush();
+            if (outbound.takeFullStateRequest()) {
+                // Hàng đợi đã bỏ GAME_DELTA: gửi trạng thái đầy đủ thay vì chờ client phát hiện thiếu
+                sendFullGameState();
+            }
+        } else {
+            server.getMetrics().slowConsumerDisconnected();
+            Log.NETWORK.warn("SERVER", "SLOW_CONSUMER", 
+                    "Hang doi gui cua " + (player != null ? player.getName() : "client") + " da day (" + 
+                    outbound.size() + " tin nhan) - Slow consumer disconnected");
             close();
         }
     }
     
+    private void onEncodeError(MessageType type, IOException e) {
+        Log.NETWORK.error("SERVER", "SEND_ERROR", 
+                "Loi ma hoa tin nhan " + type + ": " + e.getMessage() + " - Message encoding failure");
+        close();
+    }
+    
+    /**
+     * @return Số tin nhắn đang chờ gửi đến client
+     */
+    public int getOutboundQueueDepth() {
+        return outbound.depth();
+    }
+    
+    /**
+     * @return Địa chỉ của client dạng host:port
+     */
+    String getRemoteAddress() {
+        return connection.getRemoteAddress();
+    }
+    
+    /**
+     * @return Số byte đã nhận từ client
+     */
+    long getBytesReceived() {
+        return connection.getBytesReceived();
+    }
+    
+    /**
+     * @return Số byte đã gửi đến client
+     */
+    long getBytesSent() {
+        return outbound.bytesSent();
+    }
+    
+    /**
+     * @return Phiên bản giao thức đã thống nhất, 0 nếu chưa handshake
+     */
+    int getProtocolVersion() {
+        PayloadCodec codec = connection.getCodec();
+        return codec != null ? codec.version() : 0;
+    }
+    
+    /**
+     * @return Thời gian từ lần nhận tin nhắn gần nhất (ms)
+     */
+    long getIdleMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReceivedNanos);
+    }
+    
     /**
      * Closes the connection with the client
      */
     public void close() {
-        if (!running) {
+        if (!closed.compareAndSet(false, true)) {
             // Already closed
             return;
         }
         
-        System.out.println(StringUtils.formatNetworkLog("SERVER", "DISCONNECT", 
+        Log.NETWORK.info("SERVER", "DISCONNECT", 
                 "Bat dau qua trinh dong ket noi voi client " + 
-                (player != null ? player.getName() : "anonymous") + " - Connection teardown initiated"));
+                (player != null ? player.getName() : "anonymous") + " - Connection teardown initiated");
                 
         try {
             running = false;
+            idleCheck.cancel();
             
-            // Leave room if currently in one
-            handleLeaveRoom();
-            
-            // Close all streams and socket
-            if (input != null) {
-                input.close();
-            }
-            
-            if (output != null) {
-                output.close();
-            }
-            
-            if (clientSocket != null) {
-                clientSocket.close();
-                System.out.println(StringUtils.formatNetworkLog("SERVER", "SOCKET_CLOSE", 
-                        "Socket da dong hoan tat: " + clientSocket.getInetAddress().getHostAddress() + 
-                        " - TCP connection terminated"));
+            if (player != null) {
+                GameRoom room = server.getRoomByPlayer(player.getId());
+                if (!leaving && room != null) {
+                    // Rớt mạng khi đang ở trong phòng: giữ chỗ chờ client kết nối lại bằng token
+                    if (server.holdSeat(session, this)) {
+                        room.execute(() -> room.detachPlayer(player.getId(), this));
+                    }
+                } else if (server.endSession(session, this)) {
+                    // Phiên đã được kết nối khác nhận lại thì không rời phòng
+                    handleLeaveRoom(-1);
+                }
             }
             
+            // Close connection
+            connection.close();
+            Log.NETWORK.debug("SERVER", "SOCKET_CLOSE", 
+                    "Socket da dong hoan tat: " + connection.getRemoteAddress() + 
+                    " - TCP connection terminated");
+        } catch (IOException e) {
+            Log.NETWORK.error("SERVER", "CLEANUP_ERROR", 
+                    "Loi khi dong resources: " + e.getMessage() + " - Resource cleanup failure");
+        } finally {
             // Notify server about disconnection
             server.removeClient(this);
-        } catch (IOException e) {
-            System.out.println(StringUtils.formatNetworkLog("SERVER", "CLEANUP_ERROR", 
-                    "Loi khi dong resources: " + e.getMessage() + " - Resource cleanup failure"));
         }
     }
     
@@ -440,4 +959,14 @@ public class ClientHandler implements Runnable {
     public Player getPlayer() {
         return player;
     }
+    
+    /**
+     * Token của phiên đang gắn với kết nối; phòng lưu token cùng chỗ ngồi để người chơi kết nối
+     * lại bằng RESUME sau khi server khởi động lại
+     * 
+     * @return Token của phiên, null nếu chưa CONNECT
+     */
+    String getSessionToken() {
+        return session != null ? session.getToken() : null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.uno.server;
+
+import com.uno.utils.PayloadCodec;
+
+import java.io.IOException;
+
+/**
+ * Kênh truyền tải giữa server và một client, tách phần I/O khỏi logic xử lý tin nhắn của {@link ClientHandler}.
+ * Cách tin nhắn đến handler tùy loại kết nối: kết nối blocking được đọc bởi thread của client
+ * ({@link BlockingConnection}), kết nối NIO được event loop giao qua
+ * {@link ClientHandler#onMessageReceived(com.uno.utils.Message)}.
+ */
+interface Connection {
+
+    /**
+     * Lấy codec đã thống nhất trong handshake
+     *
+     * @return Codec của kết nối, null nếu chưa hoàn tất handshake
+     */
+    PayloadCodec getCodec();
+
+    /**
+     * Gắn hàng đợi gửi mà writer của kết nối sẽ lấy tin nhắn ra để ghi xuống socket
+     *
+     * @param outbound Hàng đợi gửi của client
+     */
+    void bindOutbound(OutboundQueue outbound);
+
+    /**
+     * Báo cho writer rằng hàng đợi gửi có tin nhắn mới. Không chặn thread gọi:
+     * frame được ghi ra socket trên writer của kết nối (task writer hoặc event loop).
+     */
+    void requestFlush();
+
+    /**
+     * Đóng kết nối. Gọi nhiều lần không gây lỗi.
+     *
+     * @throws IOException Nếu đóng thất bại
+     */
+    void close() throws IOException;
+
+    /**
+     * Lấy địa chỉ của client dưới dạng host:port
+     *
+     * @return Địa chỉ client
+     */
+    String getRemoteAddress();
+
+    /**
+     * Lấy số byte đã nhận từ client (header và payload của các frame). Chỉ thread đọc của kết
+     * nối ghi giá trị này nên đọc từ thread khác không cần khóa.
+     *
+     * @return Số byte đã nhận
+     */
+    long getBytesReceived();
+}
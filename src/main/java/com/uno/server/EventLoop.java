@@ -0,0 +1,168 @@
+package com.uno.server;
+
+import com.uno.utils.Log;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Một event loop của server NIO: một thread duy nhất chạy {@link Selector}
+ * và phục vụ đọc/ghi non-blocking cho nhiều kết nối
+ */
+class EventLoop implements Runnable {
+    private final Selector selector;
+    private final Queue<Runnable> tasks;
+    private final Thread thread;
+    private volatile boolean running;
+
+    EventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.thread = new Thread(this, name);
+        this.running = false;
+    }
+
+    /**
+     * Khởi động thread của event loop
+     */
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Yêu cầu event loop dừng lại và đóng tất cả kết nối nó đang phục vụ
+     */
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Kiểm tra thread hiện tại có phải là thread của event loop không
+     *
+     * @return true nếu đang chạy trên event loop
+     */
+    boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * Đưa một tác vụ vào hàng đợi để chạy trên thread của event loop
+     *
+     * @param task Tác vụ cần chạy
+     */
+    void execute(Runnable task) {
+        tasks.add(task);
+        if (!inEventLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Đăng ký channel với selector. Chỉ được gọi trên thread của event loop.
+     *
+     * @param channel Channel cần đăng ký
+     * @param connection Kết nối gắn với channel
+     * @return SelectionKey của channel
+     * @throws IOException Nếu đăng ký thất bại
+     */
+    SelectionKey register(SocketChannel channel, NioConnection connection) throws IOException {
+        return channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                runTasks();
+                selector.select();
+                processSelectedKeys();
+            }
+        } catch (IOException e) {
+            Log.NETWORK.error("EVENT_LOOP", "SELECT_ERROR",
+                    "Loi selector: " + e.getMessage() + " - Event loop failure");
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                Log.NETWORK.error("EVENT_LOOP", "TASK_ERROR",
+                        "Loi khi chay tac vu: " + e + " - Event loop task failure");
+            }
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+
+            NioConnection connection = (NioConnection) key.attachment();
+            try {
+                if (key.isValid() && key.isReadable()) {
+                    connection.onReadable();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    connection.flush();
+                }
+            } catch (CancelledKeyException e) {
+                // Kết nối đã bị đóng trong lúc xử lý
+            } catch (RuntimeException e) {
+                // Lỗi khi xử lý tin nhắn của một kết nối chỉ đóng kết nối đó; event loop tiếp tục
+                // phục vụ các kết nối còn lại
+                Log.NETWORK.error("EVENT_LOOP", "CONNECTION_ERROR",
+                        "Loi xu ly ket noi " + connection.getRemoteAddress() + ": " + e
+                                + " - Connection closed, event loop continues");
+                closeAfterFailure(key, connection);
+            }
+        }
+    }
+
+    /**
+     * Đóng kết nối vừa gây lỗi; nếu việc dọn dẹp của handler cũng lỗi thì đóng thẳng channel
+     */
+    private void closeAfterFailure(SelectionKey key, NioConnection connection) {
+        try {
+            connection.onChannelClosed();
+        } catch (RuntimeException e) {
+            Log.NETWORK.error("EVENT_LOOP", "CLEANUP_ERROR",
+                    "Loi khi dong ket noi " + connection.getRemoteAddress() + ": " + e);
+            key.cancel();
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+                // Channel đã hỏng, không còn gì để dọn
+            }
+        }
+    }
+
+    private void closeAll() {
+        runTasks();
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof NioConnection) {
+                ((NioConnection) attachment).onChannelClosed();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            Log.NETWORK.error("EVENT_LOOP", "CLOSE_ERROR",
+                    "Loi dong selector: " + e.getMessage());
+        }
+    }
+}
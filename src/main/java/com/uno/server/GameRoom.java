@@ -2,44 +2,296 @@ package com.uno.server;
 
 import com.uno.model.Card;
 import com.uno.model.CardColor;
-import com.uno.model.CardType;
 import com.uno.model.Game;
+import com.uno.model.GameEventListener;
 import com.uno.model.Player;
+import com.uno.protocol.GameDelta;
+import com.uno.protocol.GameState;
+import com.uno.protocol.RoomSnapshot;
+import com.uno.utils.EncodedMessage;
+import com.uno.utils.Log;
 import com.uno.utils.Message;
+import com.uno.utils.SerialExecutor;
+import com.uno.utils.ViewerMessage;
 
-import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class đại diện cho một phòng chơi game Uno
+ *
+ * Mọi thay đổi của phòng (vào, rời, các hành động game và việc công bố trạng thái) được
+ * xếp vào mailbox của phòng bằng {@link #execute(Runnable)} và chạy lần lượt trên thread
+ * dùng chung của server, nên {@link Game} không bao giờ bị hai thread sửa cùng lúc.
+ * Thread xử lý client chỉ xếp lệnh rồi quay lại đọc kết nối. Lệnh chạy trong khóa của phòng
+ * để các thread chỉ đọc (danh sách phòng) thấy phòng ở trạng thái nhất quán; khóa này
+ * không bị tranh chấp giữa các người chơi.
+ *
+ * Phòng không được gửi qua mạng: thành viên nhận {@link RoomSnapshot} qua ROOM_UPDATE.
  */
-public class GameRoom implements Serializable {
-    private static final long serialVersionUID = 1L;
+public class GameRoom {
+    /** Số người chơi tối đa của một phòng */
+    public static final int MAX_PLAYERS = 4;
+    
+    /** Bộ đếm cấp ID phòng: số nhỏ để giao thức nhị phân ghi được thành varint */
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+    
     private final String id;
-    private String name;
+    // Tên cố định: là một phần khóa của phòng trong RoomNameIndex và chỉ được ghi vào WAL khi tạo phòng
+    private final String name;
     private final Player host;
     private final Map<String, Player> players;
-    private final transient Map<String, ClientHandler> clientHandlers;
+    private final Map<String, ClientHandler> clientHandlers;
+    private final SerialExecutor mailbox;
     private final Game game;
+    private final ServerMetrics metrics;
     
-    public GameRoom(String name, Player host, ClientHandler hostHandler) {
-        this.id = UUID.randomUUID().toString();
-        this.name = name;
-        this.host = host;
-        this.players = new HashMap<>();
-        this.clientHandlers = new HashMap<>();
-        this.game = new Game();
+    // Các thay đổi của game chưa được gửi đi và phiên bản trạng thái đã công bố gần nhất
+    private final List<GameDelta.Event> pendingEvents;
+    private int stateVersion;
+    
+    /** Số delta tối đa giữ cho một người chơi đang mất kết nối; nhiều hơn thì gửi trạng thái đầy đủ */
+    private static final int MAX_MISSED_DELTAS = 64;
+    
+    // Các delta người chơi đang mất kết nối đã bỏ lỡ, theo thứ tự phiên bản. Không có mục nghĩa là
+    // người chơi cần trạng thái đầy đủ khi kết nối lại.
+    private final Map<String, List<GameDelta>> missedDeltas;
+    
+    // Phòng đang chạy lệnh trên thread hiện tại: tin nhắn gửi từ thread này được giữ lại trong
+    // heldOutbound của phòng cho đến khi nhật ký của lệnh được commit
+    private static final ThreadLocal<GameRoom> RUNNING_COMMAND = new ThreadLocal<>();
+    
+    // Nơi lưu nhật ký của phòng (null nếu server không bật lưu trữ) và vị trí WAL chưa commit
+    private RoomStore store;
+    private long uncommittedPosition;
+    // Tin nhắn lệnh đang chạy đã gửi, chờ commit rồi mới vào hàng đợi gửi. Chỉ dùng trong mailbox.
+    private final List<HeldMessage> heldOutbound;
+    // Việc chỉ được chạy sau khi lệnh đang chạy đã công bố ảnh chụp mới. Chỉ dùng trong mailbox.
+    private final List<Runnable> afterCommand;
+    // Token phiên của từng chỗ ngồi (ID người chơi -> token), lưu cùng phòng để người chơi nhận
+    // lại chỗ bằng RESUME sau khi server khởi động lại. Chỉ sửa trong mailbox.
+    private final Map<String, String> seatTokens;
+    
+    // Ảnh chụp gửi qua ROOM_UPDATE và mục của phòng trong danh sách phòng: dựng lại trong mailbox
+    // sau mỗi thay đổi của phòng và công bố qua biến volatile như stats, nên thread khác đọc mà
+    // không lấy khóa phòng. Phiên bản và cờ cần dựng lại chỉ được sửa trong mailbox.
+    private volatile RoomSnapshot snapshot;
+    private volatile Map<String, Object> directoryEntry;
+    private int snapshotVersion;
+    private boolean snapshotStale;
+    
+    // Tình trạng của phòng cho trang quản trị: dựng lại trong mailbox khi phòng thay đổi và công bố
+    // qua biến volatile. Số hành động và các mốc thời gian chỉ được sửa trong mailbox.
+    private volatile RoomStats stats;
+    private boolean statsChanged;
+    private long actions;
+    private long gameStartedMillis;
+    private long lastActionMillis;
+    
+    public GameRoom(String name, Player host, ClientHandler hostHandler, Executor roomExecutor, ServerMetrics metrics) {
+        this(String.valueOf(NEXT_ID.incrementAndGet()), name, host, new Game(), roomExecutor, metrics);
         
-        // Room creation logging
-        System.out.println("[ROOM-" + id.substring(0, 3) + "] Room created | Max players: 4");
+        Log.GAME.info("ROOM-" + id, "CREATE_ROOM", "Tao phong \"" + name + "\" - Max players: " + MAX_PLAYERS);
         
         // Thêm host vào phòng
         this.players.put(host.getId(), host);
         this.clientHandlers.put(host.getId(), hostHandler);
         this.game.addPlayer(host);
+        recordSeatToken(host.getId(), hostHandler);
+        publishSnapshot();
+        publishStats();
+    }
+    
+    private GameRoom(String id, String name, Player host, Game game, Executor roomExecutor, ServerMetrics metrics) {
+        this.id = id;
+        this.name = name;
+        this.host = host;
+        // Map đồng thời để broadcast() duyệt được trong khi người chơi vào/rời phòng
+        this.players = new ConcurrentHashMap<>();
+        this.clientHandlers = new ConcurrentHashMap<>();
+        this.mailbox = new SerialExecutor(roomExecutor);
+        this.game = game;
+        this.metrics = metrics;
+        this.pendingEvents = new ArrayList<>();
+        this.stateVersion = 0;
+        this.missedDeltas = new HashMap<>();
+        this.seatTokens = new HashMap<>();
+        this.heldOutbound = new ArrayList<>();
+        this.afterCommand = new ArrayList<>();
+        this.game.setEventListener(new DeltaRecorder());
+    }
+    
+    /**
+     * Dựng lại phòng từ game đã khôi phục sau khi server khởi động lại. Mọi người chơi của game
+     * giữ chỗ trong phòng nhưng chưa có kết nối cho đến khi kết nối lại.
+     * 
+     * @param id ID cũ của phòng
+     * @param name Tên phòng
+     * @param hostId ID của chủ phòng
+     * @param game Game đã chạy lại từ nhật ký
+     * @param seatTokens Token phiên đã lưu của các chỗ ngồi (ID người chơi -> token)
+     * @param roomExecutor Executor dùng chung chạy mailbox của các phòng
+     * @param metrics Chỉ số của server
+     * @return Phòng đã khôi phục, null nếu game không còn người chơi nào
+     */
+    static GameRoom restore(String id, String name, String hostId, Game game, Map<String, String> seatTokens,
+                            Executor roomExecutor, ServerMetrics metrics) {
+        List<Player> gamePlayers = game.getPlayers();
+        if (gamePlayers.isEmpty()) {
+            return null;
+        }
+        Player host = gamePlayers.get(0);
+        for (Player player : gamePlayers) {
+            if (player.getId().equals(hostId)) {
+                host = player;
+            }
+        }
+        reserveId(id);
+        GameRoom room = new GameRoom(id, name, host, game, roomExecutor, metrics);
+        for (Player player : gamePlayers) {
+            room.players.put(player.getId(), player);
+            String token = seatTokens.get(player.getId());
+            if (token != null) {
+                room.seatTokens.put(player.getId(), token);
+            }
+        }
+        room.publishSnapshot();
+        room.publishStats();
+        Log.GAME.info("ROOM-" + id, "RESTORE_ROOM", "Khoi phuc phong \"" + name + "\" voi " + gamePlayers.size()
+                + " nguoi choi, " + game.getJournal().size() + " lenh - Crash recovery");
+        return room;
+    }
+    
+    /**
+     * Đảm bảo các ID phòng cấp sau này lớn hơn một ID đã dùng
+     * 
+     * @param id ID phòng đã dùng
+     */
+    static void reserveId(String id) {
+        try {
+            NEXT_ID.accumulateAndGet(Integer.parseInt(id), Math::max);
+        } catch (NumberFormatException e) {
+            // ID không phải do server cấp thì không thể trùng
+        }
+    }
+    
+    /**
+     * Bắt đầu ghi nhật ký của phòng vào WAL. Chỉ gọi trong mailbox của phòng.
+     * 
+     * @param store Nơi lưu
+     * @param logCreation true với phòng mới tạo: ghi toàn bộ phòng hiện tại trước
+     */
+    void attachStore(RoomStore store, boolean logCreation) {
+        this.store = store;
+        if (logCreation) {
+            uncommittedPosition = store.roomCreated(this);
+            for (Map.Entry<String, String> seat : seatTokens.entrySet()) {
+                uncommittedPosition = store.seatTokenRecorded(id, seat.getKey(), seat.getValue());
+            }
+        }
+        game.getJournal().setListener((journal, entry) -> uncommittedPosition = store.actionRecorded(id, journal, entry));
+    }
+    
+    /**
+     * Tách kết nối vừa rớt khỏi chỗ của người chơi; người chơi vẫn ở trong phòng và các delta
+     * được giữ lại cho lần kết nối lại. Chỉ gọi trong mailbox của phòng.
+     * 
+     * @param playerId ID của người chơi
+     * @param handler Kết nối vừa rớt
+     */
+    void detachPlayer(String playerId, ClientHandler handler) {
+        // Kết nối mới có thể đã gắn vào trước khi lệnh này chạy
+        if (clientHandlers.remove(playerId, handler)) {
+            missedDeltas.put(playerId, new ArrayList<>());
+            statsChanged = true;
+        }
+    }
+    
+    /**
+     * Gắn kết nối mới cho người chơi đã có chỗ trong phòng và gửi cho kết nối đó phần trạng thái
+     * còn thiếu: các delta đã bỏ lỡ nếu còn giữ đủ kể từ phiên bản client đang có, ngược lại là
+     * trạng thái đầy đủ. Chỉ gọi trong mailbox của phòng.
+     * 
+     * @param player Người chơi của phòng
+     * @param handler Handler của kết nối mới
+     * @param lastVersion Phiên bản trạng thái game client đang có, -1 nếu client chưa có trạng thái
+     * @return true nếu người chơi vẫn còn chỗ trong phòng
+     */
+    boolean resumePlayer(Player player, ClientHandler handler, int lastVersion) {
+        String playerId = player.getId();
+        if (players.get(playerId) != player) {
+            return false;
+        }
+        List<GameDelta> missed = missedDeltas.remove(playerId);
+        statsChanged = true;
+        if (!game.isGameStarted()) {
+            clientHandlers.put(playerId, handler);
+            handler.sendMessage(new Message(com.uno.utils.MessageType.ROOM_UPDATE, getSnapshot(), "server"));
+            return true;
+        }
+        
+        // Các delta bỏ lỡ nối tiếp được phiên bản của client nếu delta đầu tiên không vượt quá
+        // phiên bản kế tiếp; nếu không bỏ lỡ delta nào thì client phải đang ở đúng phiên bản hiện tại
+        boolean replayable = missed != null && lastVersion >= 0 && lastVersion <= stateVersion
+                && (missed.isEmpty() ? lastVersion == stateVersion : missed.get(0).getVersion() <= lastVersion + 1);
+        if (replayable) {
+            clientHandlers.put(playerId, handler);
+            for (GameDelta delta : missed) {
+                if (delta.getVersion() > lastVersion) {
+                    handler.sendMessage(new Message(com.uno.utils.MessageType.GAME_DELTA, delta, "server"));
+                }
+            }
+            // Thay đổi chưa công bố đi tiếp như với mọi người chơi khác
+            updateGameState();
+        } else {
+            // Trạng thái đầy đủ lấy trước khi gắn kết nối để delta đang chờ không bị gửi trùng
+            GameState state = getPlayerGameState(playerId);
+            clientHandlers.put(playerId, handler);
+            handler.sendMessage(new Message(lastVersion < 0
+                    ? com.uno.utils.MessageType.START_GAME : com.uno.utils.MessageType.GAME_UPDATE, state, "server"));
+        }
+        Log.GAME.debug("ROOM-" + id, "RESUME", "Nguoi choi " + player.getName() + " ket noi lai tu phien ban "
+                + lastVersion + (replayable ? ", gui " + missed.size() + " delta bi lo" : ", gui trang thai day du"));
+        return true;
+    }
+    
+    /**
+     * Lưu token phiên của người chơi vừa vào chỗ, ghi vào WAL nếu phòng đã gắn nơi lưu
+     */
+    private void recordSeatToken(String playerId, ClientHandler handler) {
+        String token = handler.getSessionToken();
+        if (token == null) {
+            return;
+        }
+        seatTokens.put(playerId, token);
+        if (store != null) {
+            uncommittedPosition = store.seatTokenRecorded(id, playerId, token);
+        }
+    }
+    
+    /**
+     * Token phiên đã lưu của người chơi. Chỉ gọi trong mailbox của phòng hoặc trước khi phòng
+     * được công bố.
+     * 
+     * @param playerId ID của người chơi
+     * @return Token, null nếu chỗ không có token (bản ghi token chưa kịp ghi khi server dừng đột ngột)
+     */
+    String getSeatToken(String playerId) {
+        return seatTokens.get(playerId);
+    }
+    
+    /**
+     * Token phiên của mọi chỗ ngồi, cho snapshot. Chỉ gọi trong mailbox của phòng.
+     */
+    Map<String, String> getSeatTokens() {
+        return seatTokens;
     }
     
     public String getId() {
@@ -50,14 +302,103 @@ public class GameRoom implements Serializable {
         return name;
     }
     
-    public void setName(String name) {
-        this.name = name;
-    }
-    
     public Player getHost() {
         return host;
     }
     
+    /**
+     * Xếp lệnh vào mailbox của phòng. Lệnh chạy sau mọi lệnh đã xếp trước đó, không song song
+     * với lệnh nào khác của phòng; các phương thức thay đổi phòng chỉ được gọi bên trong lệnh.
+     * 
+     * Mọi tin nhắn lệnh gửi cho client (GAME_UPDATE, GAME_DELTA, ...) được giữ lại đến khi lệnh
+     * xong và, nếu server bật lưu trữ, nhật ký của lệnh đã được commit, nên client không bao giờ
+     * thấy một hành động mà server có thể mất khi khởi động lại. Thread của nhóm room worker chờ
+     * lần commit đó (force dùng chung với các phòng khác), nên lệnh tiếp theo của phòng cũng chờ theo.
+     * 
+     * @param command Lệnh cần chạy
+     */
+    public void execute(Runnable command) {
+        mailbox.execute(() -> {
+            RUNNING_COMMAND.set(this);
+            try {
+                synchronized (this) {
+                    command.run();
+                    if (snapshotStale) {
+                        publishSnapshot();
+                    }
+                    if (statsChanged) {
+                        publishStats();
+                    }
+                }
+            } finally {
+                RUNNING_COMMAND.remove();
+                commitJournal();
+                releaseHeldOutbound();
+                runAfterCommand();
+            }
+        });
+    }
+    
+    /**
+     * Hoãn việc đến sau khi lệnh phòng đang chạy trên thread hiện tại xong, tức là sau khi phòng
+     * đã công bố ảnh chụp và mục danh sách phòng mới
+     * 
+     * @param task Việc cần chạy
+     * @return true nếu việc đã được hoãn, false nếu thread hiện tại không chạy lệnh phòng nào
+     */
+    static boolean deferUntilCommandEnds(Runnable task) {
+        GameRoom room = RUNNING_COMMAND.get();
+        if (room == null) {
+            return false;
+        }
+        room.afterCommand.add(task);
+        return true;
+    }
+    
+    private void runAfterCommand() {
+        for (Runnable task : afterCommand) {
+            task.run();
+        }
+        afterCommand.clear();
+    }
+    
+    /**
+     * Giữ lại tin nhắn nếu thread hiện tại đang chạy lệnh của một phòng; tin nhắn được đưa vào
+     * hàng đợi gửi của handler sau khi nhật ký của lệnh đã được commit
+     * 
+     * @param handler Người nhận
+     * @param type Loại tin nhắn
+     * @param payload Payload đã mã hóa cho người nhận
+     * @return true nếu tin nhắn đã được giữ lại, false nếu người gọi cần gửi ngay
+     */
+    static boolean holdUntilCommitted(ClientHandler handler, com.uno.utils.MessageType type, byte[] payload) {
+        GameRoom room = RUNNING_COMMAND.get();
+        if (room == null) {
+            return false;
+        }
+        room.heldOutbound.add(new HeldMessage(handler, type, payload));
+        return true;
+    }
+    
+    private void releaseHeldOutbound() {
+        for (HeldMessage message : heldOutbound) {
+            message.handler.deliver(message.type, message.payload);
+        }
+        heldOutbound.clear();
+    }
+    
+    /**
+     * Chờ các lệnh game vừa chạy đã ghi vào WAL được commit, ngoài khóa phòng; lần force được
+     * dùng chung với các phòng khác đang commit cùng lúc
+     */
+    private void commitJournal() {
+        long position = uncommittedPosition;
+        if (position > 0) {
+            uncommittedPosition = 0;
+            store.commit(position);
+        }
+    }
+    
     /**
      * Thêm người chơi vào phòng
      * 
@@ -66,14 +407,15 @@ public class GameRoom implements Serializable {
      * @return true nếu thêm thành công, ngược lại false
      */
     public boolean addPlayer(Player player, ClientHandler handler) {
-        if (players.size() < 4 && !game.isGameStarted()) {
+        if (players.size() < MAX_PLAYERS && !game.isGameStarted()) {
             players.put(player.getId(), player);
             clientHandlers.put(player.getId(), handler);
             game.addPlayer(player);
+            recordSeatToken(player.getId(), handler);
+            roomChanged();
             
-            // Player joined logging
-            System.out.println("[ROOM-" + id.substring(0, 3) + "] Player joined: " + player.getName() + 
-                             " (" + players.size() + "/4 players)");
+            Log.GAME.info("ROOM-" + id, "JOIN_ROOM",
+                    "Nguoi choi vao phong: " + player.getName() + " (" + players.size() + "/" + MAX_PLAYERS + " players)");
             return true;
         }
         return false;
@@ -102,7 +444,10 @@ public class GameRoom implements Serializable {
             
             players.remove(playerId);
             clientHandlers.remove(playerId);
+            missedDeltas.remove(playerId);
+            seatTokens.remove(playerId);
             game.removePlayer(playerId);
+            roomChanged();
             return true;
         }
         return false;
@@ -115,7 +460,16 @@ public class GameRoom implements Serializable {
      */
     public boolean startGame() {
         if (players.size() >= 2 && game.startGame()) {
-            System.out.println("[ROOM-" + id.substring(0, 3) + "] Game started with " + players.size() + " players");
+            // Trạng thái ban đầu được gửi đầy đủ qua START_GAME nên không cần delta của việc chia bài
+            pendingEvents.clear();
+            // Người chơi đang mất kết nối sẽ nhận trạng thái đầy đủ khi kết nối lại
+            missedDeltas.clear();
+            roomChanged();
+            actions = 0;
+            gameStartedMillis = System.currentTimeMillis();
+            lastActionMillis = 0;
+            metrics.gameStarted();
+            Log.GAME.info("ROOM-" + id, "START_GAME", "Bat dau game voi " + players.size() + " nguoi choi, seed = " + game.getSeed());
             return true;
         }
         return false;
@@ -130,11 +484,10 @@ public class GameRoom implements Serializable {
      * @return true nếu đánh thành công, ngược lại false
      */
     public boolean playCard(String playerId, int cardIndex, String colorName) {
-        System.out.println("GameRoom.playCard: playerId=" + playerId + ", game.getCurrentPlayer().getId()=" + 
-                          (game.getCurrentPlayer() != null ? game.getCurrentPlayer().getId() : "null"));
         CardColor declaredColor = CardColor.valueOf(colorName);
         boolean result = game.playCard(playerId, cardIndex, declaredColor);
-        System.out.println("GameRoom.playCard result: " + result);
+        actionPerformed(result);
+        Log.GAME.trace("ROOM-" + id, "PLAY_CARD", () -> "Nguoi choi " + playerId + " danh bai, result = " + result);
         return result;
     }
     
@@ -145,7 +498,7 @@ public class GameRoom implements Serializable {
      * @return true nếu rút thành công, ngược lại false
      */
     public boolean drawCard(String playerId) {
-        return game.drawCard(playerId) != null;
+        return actionPerformed(game.drawCard(playerId) != null);
     }
     
     /**
@@ -155,7 +508,7 @@ public class GameRoom implements Serializable {
      * @return true nếu kết thúc thành công, ngược lại false
      */
     public boolean endTurn(String playerId) {
-        return game.endTurn(playerId);
+        return actionPerformed(game.endTurn(playerId));
     }
     
     /**
@@ -165,7 +518,7 @@ public class GameRoom implements Serializable {
      * @return true nếu hô thành công, ngược lại false
      */
     public boolean callUno(String playerId) {
-        return game.callUno(playerId);
+        return actionPerformed(game.callUno(playerId));
     }
     
     /**
@@ -176,72 +529,58 @@ public class GameRoom implements Serializable {
      * @return true nếu thách thức thành công, ngược lại false
      */
     public boolean challenge(String challengerId, String challengedId) {
-        // Kiểm tra trạng thái game
-        if (!game.isGameStarted() || game.isGameOver()) {
-            return false;
-        }
-        
-        // Kiểm tra xem có phải lượt của người thách thức không
-        Player currentPlayer = game.getCurrentPlayer();
-        if (currentPlayer == null || !currentPlayer.getId().equals(challengerId)) {
-            return false;
-        }
-        
-        // Kiểm tra xem lá trên cùng có phải là Wild Draw Four không
-        Card topCard = game.getTopCard();
-        if (topCard == null || topCard.getType() != CardType.WILD_DRAW_FOUR) {
-            return false;
-        }
-        
-        // Lấy người chơi bị thách thức
-        Player challengedPlayer = null;
-        for (Player player : game.getPlayers()) {
-            if (player.getId().equals(challengedId)) {
-                challengedPlayer = player;
-                break;
-            }
-        }
-        
-        if (challengedPlayer == null) {
-            return false;
-        }
-        
         // Theo luật Uno chính thức, nếu người chơi đã đánh Wild Draw Four khi có lá bài cùng màu với lá trước đó,
         // thì việc chơi là không hợp lệ và người đó phải rút 4 lá bài.
         // Nếu người chơi đánh Wild Draw Four hợp lệ (không có lá cùng màu với lá trước đó),
         // thì người thách thức phải rút 6 lá bài.
+        Game.ChallengeResult result = game.challengeWildDrawFour(challengerId, challengedId);
+        actionPerformed(result != Game.ChallengeResult.REJECTED);
+        Log.GAME.trace("ROOM-" + id, "CHALLENGE", () -> "Nguoi choi " + challengerId + " thach thuc "
+                + challengedId + ", result = " + result);
         
-        // Do giới hạn của cách thiết kế hiện tại, chúng ta không lưu trữ lá bài trước khi Wild Draw Four được đánh
-        // Vì vậy, sử dụng xác suất để quyết định kết quả thách thức
-        boolean challengeSuccessful = Math.random() < 0.5; // 50% cơ hội thành công
-        
-        if (challengeSuccessful) {
-            // Thách thức thành công: người bị thách thức phải rút 4 lá bài
-            for (int i = 0; i < 4; i++) {
-                Card drawnCard = game.drawCard(challengedId);
-                if (drawnCard == null) break;
-            }
-            
-            // Thông báo cho mọi người biết
-            broadcast(new Message(com.uno.utils.MessageType.CHAT_MESSAGE, 
-                    "SERVER: Thach thuc thanh cong! " + challengedPlayer.getName() + " da dung Wild Draw Four khong hop le va phai rut 4 la bai.", "server"));
-            
-            // Người thách thức không phải rút bài và tiếp tục lượt chơi
-            return true;
-        } else {
-            // Thách thức thất bại: người thách thức phải rút 6 lá bài
-            for (int i = 0; i < 6; i++) {
-                Card drawnCard = game.drawCard(challengerId);
-                if (drawnCard == null) break;
+        switch (result) {
+            case SUCCEEDED:
+                // Thông báo cho mọi người biết
+                broadcast(new Message(com.uno.utils.MessageType.CHAT_MESSAGE, 
+                        "SERVER: Thach thuc thanh cong! " + nameOf(challengedId) + " da dung Wild Draw Four khong hop le va phai rut 4 la bai.", "server"));
+                
+                // Người thách thức không phải rút bài và tiếp tục lượt chơi
+                return true;
+            case FAILED:
+                // Thông báo cho mọi người biết
+                broadcast(new Message(com.uno.utils.MessageType.CHAT_MESSAGE, 
+                        "SERVER: Thach thuc that bai! " + nameOf(challengerId) + " phai rut 6 la bai.", "server"));
+                
+                // Người bị thách thức không phải rút thêm bài
+                return false;
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Đếm một hành động game hợp lệ cho tốc độ hành động của phòng
+     * 
+     * @param accepted Hành động có được game chấp nhận không
+     * @return accepted
+     */
+    private boolean actionPerformed(boolean accepted) {
+        if (accepted) {
+            actions++;
+            lastActionMillis = System.currentTimeMillis();
+            statsChanged = true;
+        }
+        return accepted;
+    }
+    
+    private String nameOf(String playerId) {
+        // Người chơi có thể đã rời phòng nhưng vẫn còn trong game đang chơi
+        for (Player player : game.getPlayers()) {
+            if (player.getId().equals(playerId)) {
+                return player.getName();
             }
-            
-            // Thông báo cho mọi người biết
-            broadcast(new Message(com.uno.utils.MessageType.CHAT_MESSAGE, 
-                    "SERVER: Thach thuc that bai! " + currentPlayer.getName() + " phai rut 6 la bai.", "server"));
-            
-            // Người bị thách thức không phải rút thêm bài
-            return false;
         }
+        return playerId;
     }
     
     /**
@@ -251,49 +590,193 @@ public class GameRoom implements Serializable {
      */
     public void broadcast(Message message) {
         long broadcastStart = System.currentTimeMillis();
-        System.out.println("[BROADCAST] Broadcasting " + message.getType() + " to " + clientHandlers.size() + " clients");
         
+        // Mã hóa một lần cho mỗi phiên bản giao thức, mọi người nhận dùng chung payload
+        EncodedMessage encoded = new EncodedMessage(message);
+        int recipients = 0;
         for (ClientHandler handler : clientHandlers.values()) {
-            handler.sendMessage(message);
+            handler.sendMessage(encoded);
+            recipients++;
         }
+        metrics.broadcastSent(recipients);
         
-        long broadcastTime = System.currentTimeMillis() - broadcastStart;
-        System.out.println("[BROADCAST] Broadcast completed in " + broadcastTime + "ms");
+        if (Log.NETWORK.isTraceEnabled()) {
+            long broadcastTime = System.currentTimeMillis() - broadcastStart;
+            Log.NETWORK.trace("ROOM-" + id, "BROADCAST", "Gui " + message.getType() + " den " +
+                    clientHandlers.size() + " client trong " + broadcastTime + "ms");
+        }
     }
     
     /**
-     * Cập nhật trạng thái game cho tất cả người chơi
+     * Gửi các thay đổi của game kể từ lần công bố trước đến tất cả người chơi dưới dạng GAME_DELTA.
+     * Không gửi gì nếu game không thay đổi. Tin nhắn chỉ được xếp vào hàng đợi gửi của từng
+     * client nên mailbox của phòng không bị một client chậm làm chặn.
      */
     public void updateGameState() {
-        Player currentPlayer = game.getCurrentPlayer();
-        String currentPlayerId = currentPlayer != null ? currentPlayer.getId() : "null";
-        System.out.println("updateGameState: NGƯỜI CHƠI HIỆN TẠI = " + (currentPlayer != null ? currentPlayer.getName() + "(" + currentPlayerId + ")" : "null"));
+        if (pendingEvents.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        stateVersion++;
+        statsChanged = true;
         
+        // Phần công khai của delta được mã hóa một lần, mỗi người chơi chỉ nhận thêm lá bài mình rút
+        GameDelta delta = new GameDelta(stateVersion, pendingEvents);
+        ViewerMessage message = new ViewerMessage(new Message(com.uno.utils.MessageType.GAME_DELTA, delta, "server"));
+        int recipients = 0;
         for (String playerId : players.keySet()) {
-            Player player = players.get(playerId);
             ClientHandler handler = clientHandlers.get(playerId);
             if (handler != null) {
-                GameState state = getPlayerGameState(playerId);
-                System.out.println("Gửi GameState tới " + player.getName() + "(" + playerId + "), currentPlayerId = " + state.getCurrentPlayerId());
-                handler.sendMessage(new Message(com.uno.utils.MessageType.GAME_UPDATE, state, "server"));
+                handler.sendMessage(message);
+                recipients++;
+            } else {
+                keepMissedDelta(playerId, delta);
             }
         }
+        pendingEvents.clear();
+        metrics.broadcastSent(recipients);
+        metrics.gameStateUpdated(System.nanoTime() - start);
+    }
+    
+    /**
+     * Giữ delta vừa công bố cho người chơi đang mất kết nối; bỏ cả danh sách khi quá dài
+     */
+    private void keepMissedDelta(String playerId, GameDelta delta) {
+        List<GameDelta> missed = missedDeltas.get(playerId);
+        if (missed == null) {
+            return;
+        }
+        if (missed.size() == MAX_MISSED_DELTAS) {
+            missedDeltas.remove(playerId);
+        } else {
+            missed.add(delta.forViewer(playerId));
+        }
     }
     
     /**
-     * Lấy trạng thái game cho người chơi cụ thể
+     * Lấy toàn bộ trạng thái game cho người chơi cụ thể. Các thay đổi chưa công bố được gửi
+     * trước để trạng thái trả về khớp đúng với phiên bản của nó.
      * 
      * @param playerId ID của người chơi
      * @return Trạng thái game cho người chơi
      */
     public GameState getPlayerGameState(String playerId) {
-        GameState state = new GameState(game, playerId);
-        Player currentPlayer = game.getCurrentPlayer();
-        String currentPlayerId = currentPlayer != null ? currentPlayer.getId() : "null";
-        System.out.println("GameState cho " + playerId + ", currentPlayerId từ Game: " + currentPlayerId + ", từ GameState: " + state.getCurrentPlayerId());
+        updateGameState();
+        GameState state = new GameState(game, playerId, stateVersion);
+        Log.GAME.trace("ROOM-" + id, "GAME_STATE", () ->
+                "GameState cho " + playerId + ", currentPlayerId = " + state.getCurrentPlayerId());
         return state;
     }
     
+    /**
+     * Gửi toàn bộ trạng thái game cho mọi người chơi đang kết nối. Phần công khai được mã hóa
+     * một lần cho cả phòng, mỗi người chơi chỉ nhận thêm bài trên tay của mình.
+     * 
+     * @param type START_GAME hoặc GAME_UPDATE
+     * @param senderId ID người gửi
+     */
+    public void broadcastGameState(com.uno.utils.MessageType type, String senderId) {
+        updateGameState();
+        ViewerMessage message = new ViewerMessage(new Message(type, GameState.withAllHands(game, stateVersion), senderId));
+        int recipients = 0;
+        for (ClientHandler handler : clientHandlers.values()) {
+            handler.sendMessage(message);
+            recipients++;
+        }
+        metrics.broadcastSent(recipients);
+    }
+    
+    /**
+     * Lấy ảnh chụp của phòng để gửi qua ROOM_UPDATE. Không lấy khóa phòng: thread khác nhận ảnh
+     * chụp đã công bố ở cuối lệnh gần nhất; lệnh đang chạy trong mailbox nhận ảnh chụp có cả
+     * thay đổi của chính nó. Mọi lần gửi giữa hai thay đổi dùng chung một đối tượng.
+     * 
+     * @return Ảnh chụp của phòng
+     */
+    public RoomSnapshot getSnapshot() {
+        if (RUNNING_COMMAND.get() == this && snapshotStale) {
+            publishSnapshot();
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Lấy mục của phòng trong danh sách phòng, cùng quy tắc công bố với {@link #getSnapshot()}.
+     * Danh sách phòng, truy vấn phòng và so sánh với bản đã công bố đều dùng chung một Map không
+     * sửa được.
+     * 
+     * @return Map {id, name, hostName, playerCount, gameStarted}
+     */
+    public Map<String, Object> getDirectoryEntry() {
+        if (RUNNING_COMMAND.get() == this && snapshotStale) {
+            publishSnapshot();
+        }
+        return directoryEntry;
+    }
+    
+    /**
+     * Đánh dấu ảnh chụp và mục danh sách phòng cần dựng lại sau khi phòng thay đổi
+     */
+    private void roomChanged() {
+        snapshotVersion++;
+        snapshotStale = true;
+        statsChanged = true;
+    }
+    
+    /**
+     * Dựng và công bố ảnh chụp cùng mục danh sách phòng hiện tại. Chỉ gọi trong mailbox của phòng
+     * (hoặc trước khi phòng được công bố cho các thread khác).
+     */
+    private void publishSnapshot() {
+        snapshotStale = false;
+        List<RoomSnapshot.Seat> seats = new ArrayList<>(players.size());
+        for (Player player : game.getPlayers()) {
+            seats.add(new RoomSnapshot.Seat(player.getId(), player.getName()));
+        }
+        RoomSnapshot.Status status = game.isGameOver() ? RoomSnapshot.Status.FINISHED
+                : game.isGameStarted() ? RoomSnapshot.Status.IN_GAME : RoomSnapshot.Status.WAITING;
+        snapshot = new RoomSnapshot(id, name, host.getId(), host.getName(), seats, status, snapshotVersion);
+        
+        Map<String, Object> roomInfo = new HashMap<>();
+        roomInfo.put("id", id);
+        roomInfo.put("name", name);
+        roomInfo.put("hostName", host.getName());
+        roomInfo.put("playerCount", players.size());
+        roomInfo.put("gameStarted", game.isGameStarted());
+        directoryEntry = Collections.unmodifiableMap(roomInfo);
+    }
+    
+    /**
+     * Dựng và công bố tình trạng hiện tại của phòng. Chỉ gọi trong mailbox của phòng (hoặc trước
+     * khi phòng được công bố cho các thread khác).
+     */
+    private void publishStats() {
+        statsChanged = false;
+        List<RoomStats.PlayerStats> seats = new ArrayList<>(players.size());
+        for (Player player : game.getPlayers()) {
+            seats.add(new RoomStats.PlayerStats(player.getId(), player.getName(), player.getHandSize(),
+                    player.hasCalledUno(), clientHandlers.containsKey(player.getId())));
+        }
+        boolean started = game.isGameStarted();
+        RoomSnapshot.Status status = game.isGameOver() ? RoomSnapshot.Status.FINISHED
+                : started ? RoomSnapshot.Status.IN_GAME : RoomSnapshot.Status.WAITING;
+        Player current = started && !game.isGameOver() ? game.getCurrentPlayer() : null;
+        Card topCard = started ? game.getTopCard() : null;
+        stats = new RoomStats(id, name, host.getName(), status, seats, current != null ? current.getName() : null,
+                game.getRemainingCards(), topCard != null ? topCard.toString() : null, game.isClockwise(),
+                stateVersion, actions, gameStartedMillis, lastActionMillis);
+    }
+    
+    /**
+     * Lấy tình trạng đã công bố gần nhất của phòng. Không lấy khóa phòng: dùng cho trang quản trị
+     * và các công cụ theo dõi, có thể trễ hơn phòng một lệnh đang chạy.
+     * 
+     * @return Tình trạng của phòng
+     */
+    RoomStats getStats() {
+        return stats;
+    }
+    
     /**
      * Lấy game
      * 
@@ -332,121 +815,56 @@ public class GameRoom implements Serializable {
     }
     
     /**
-     * Class đại diện cho trạng thái game được gửi đến client
+     * Tin nhắn đã mã hóa đang chờ nhật ký của lệnh được commit
      */
-    public static class GameState implements java.io.Serializable {
-        // Tăng serialVersionUID để đảm bảo không có vấn đề serialization/deserialization
-        private static final long serialVersionUID = 3L;
-        
-        // Sử dụng HashMap thay vì Map để đảm bảo serialization nhất quán
-        private final HashMap<String, PlayerInfo> playerInfos;
-        private final Card topCard;
-        // Sửa thành một trường có thể đọc/ghi để tránh các vấn đề với deserialization
-        private String currentPlayerId;
-        private final boolean clockwise;
-        private final boolean gameOver;
-        private final String winnerId;
-        
-        public GameState(Game game, String viewerId) {
-            this.playerInfos = new HashMap<>();
-            
-            // Lấy thông tin người chơi
-            for (Player player : game.getPlayers()) {
-                if (player.getId().equals(viewerId)) {
-                    // Người chơi hiện tại thấy tất cả lá bài của mình
-                    playerInfos.put(player.getId(), new PlayerInfo(player, true));
-                } else {
-                    // Người chơi khác chỉ thấy số lượng lá bài
-                    playerInfos.put(player.getId(), new PlayerInfo(player, false));
-                }
-            }
-            
-            this.topCard = game.getTopCard();
-            Player currentPlayer = game.getCurrentPlayer();
-            
-            // Đảm bảo ID luôn được trim và không null
-            if (currentPlayer != null && currentPlayer.getId() != null) {
-                this.currentPlayerId = currentPlayer.getId().trim();
-                System.out.println("Constructor GameState - Current Player: " + currentPlayer.getName() + 
-                                  " (ID: '" + this.currentPlayerId + "')");
-            } else {
-                this.currentPlayerId = "";
-                System.out.println("Constructor GameState - Current Player: null");
-            }
-            
-            this.clockwise = game.isClockwise();
-            this.gameOver = game.isGameOver();
-            
-            Player winner = game.getWinner();
-            this.winnerId = winner != null ? winner.getId() : null;
-        }
-        
-        // Getters
-        public HashMap<String, PlayerInfo> getPlayerInfos() {
-            return playerInfos;
-        }
-        
-        public Card getTopCard() {
-            return topCard;
-        }
-        
-        public String getCurrentPlayerId() {
-            System.out.println("GameState.getCurrentPlayerId được gọi, trả về: " + currentPlayerId);
-            return currentPlayerId;
-        }
-        
-        public boolean isClockwise() {
-            return clockwise;
-        }
+    private static final class HeldMessage {
+        final ClientHandler handler;
+        final com.uno.utils.MessageType type;
+        final byte[] payload;
         
-        public boolean isGameOver() {
-            return gameOver;
-        }
-        
-        public String getWinnerId() {
-            return winnerId;
+        HeldMessage(ClientHandler handler, com.uno.utils.MessageType type, byte[] payload) {
+            this.handler = handler;
+            this.type = type;
+            this.payload = payload;
         }
     }
     
     /**
-     * Class đại diện cho thông tin người chơi được gửi đến client
+     * Ghi lại thay đổi của game vào danh sách chờ công bố.
+     * Chỉ được gọi từ các lệnh trong mailbox của phòng nên không cần khóa riêng.
      */
-    public static class PlayerInfo implements java.io.Serializable {
-        private static final long serialVersionUID = 1L;
-        
-        private final String id;
-        private final String name;
-        private final int handSize;
-        private final java.util.List<Card> hand;
-        private final boolean calledUno;
-        
-        public PlayerInfo(Player player, boolean includeHand) {
-            this.id = player.getId();
-            this.name = player.getName();
-            this.handSize = player.getHandSize();
-            this.hand = includeHand ? player.getHand() : null;
-            this.calledUno = player.hasCalledUno();
+    private class DeltaRecorder implements GameEventListener {
+        @Override
+        public void onCardPlayed(Player player, int handIndex, Card card) {
+            pendingEvents.add(GameDelta.Event.cardPlayed(player.getId(), handIndex, card));
         }
         
-        // Getters
-        public String getId() {
-            return id;
+        @Override
+        public void onCardsDrawn(Player player, List<Card> cards) {
+            pendingEvents.add(GameDelta.Event.cardsDrawn(player.getId(), cards.size(), cards));
         }
         
-        public String getName() {
-            return name;
+        @Override
+        public void onTurnChanged(Player currentPlayer) {
+            // Chỉ lượt cuối cùng có ý nghĩa với client (Skip, Draw Two chuyển lượt hai lần)
+            pendingEvents.removeIf(event -> event.getKind() == GameDelta.Kind.TURN_CHANGED);
+            pendingEvents.add(GameDelta.Event.turnChanged(currentPlayer.getId()));
         }
         
-        public int getHandSize() {
-            return handSize;
+        @Override
+        public void onDirectionChanged(boolean clockwise) {
+            pendingEvents.add(GameDelta.Event.directionChanged(clockwise));
         }
         
-        public java.util.List<Card> getHand() {
-            return hand;
+        @Override
+        public void onUnoCalled(Player player) {
+            pendingEvents.add(GameDelta.Event.unoCalled(player.getId()));
         }
         
-        public boolean hasCalledUno() {
-            return calledUno;
+        @Override
+        public void onGameOver(Player winner) {
+            pendingEvents.add(GameDelta.Event.gameOver(winner.getId()));
+            roomChanged();
         }
     }
-}
\ No newline at end of file
+}
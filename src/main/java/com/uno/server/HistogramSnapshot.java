@@ -0,0 +1,62 @@
+package com.uno.server;
+
+import javax.management.ConstructorParameters;
+
+/**
+ * Ảnh chụp một histogram của server: số mẫu, trung bình, các phân vị và giá trị lớn nhất.
+ * JMX hiển thị nó dưới dạng CompositeData với mỗi getter là một trường.
+ */
+public final class HistogramSnapshot {
+    private final long count;
+    private final double mean;
+    private final double p50;
+    private final double p90;
+    private final double p99;
+    private final double p999;
+    private final double max;
+
+    @ConstructorParameters({"count", "mean", "p50", "p90", "p99", "p999", "max"})
+    public HistogramSnapshot(long count, double mean, double p50, double p90, double p99, double p999, double max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getP50() {
+        return p50;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+
+    public double getP99() {
+        return p99;
+    }
+
+    public double getP999() {
+        return p999;
+    }
+
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.2f, p50=%.2f, p99=%.2f, p999=%.2f, max=%.2f",
+                count, mean, p50, p99, p999, max);
+    }
+}
@@ -0,0 +1,276 @@
+package com.uno.server;
+
+import com.uno.utils.Log;
+import com.uno.utils.Message;
+import com.uno.utils.MessageCodec;
+import com.uno.utils.PayloadCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Kết nối non-blocking dựa trên {@link SocketChannel}, được phục vụ bởi một {@link EventLoop}.
+ *
+ * Dữ liệu đọc được tích lũy trong buffer cho đến khi đủ handshake hoặc một frame.
+ * Event loop là writer của kết nối: nó lấy frame từ hàng đợi gửi và ghi cho đến khi
+ * socket đầy, rồi chờ OP_WRITE để tiếp tục.
+ */
+class NioConnection implements Connection {
+    private static final int INITIAL_READ_BUFFER = 8 * 1024;
+
+    private final EventLoop eventLoop;
+    private final SocketChannel channel;
+    private final String remoteAddress;
+    private final AtomicBoolean flushScheduled;
+    private final ServerMetrics metrics;
+    private SelectionKey key;
+    private ClientHandler handler;
+    private OutboundQueue outbound;
+    private ByteBuffer readBuffer;
+    /**
+     * Frame đang ghi dở: header và payload bọc trực tiếp mảng trong hàng đợi gửi (payload của
+     * tin nhắn phát cho cả phòng được dùng chung, không sao chép). Chỉ truy cập trên thread của event loop.
+     */
+    private ByteBuffer[] pendingFrame;
+    private volatile PayloadCodec codec;
+    private volatile boolean closed;
+    private volatile long bytesReceived;
+
+    NioConnection(EventLoop eventLoop, SocketChannel channel, ServerMetrics metrics) throws IOException {
+        this.eventLoop = eventLoop;
+        this.channel = channel;
+        this.remoteAddress = String.valueOf(channel.getRemoteAddress()).replaceFirst("^/", "");
+        this.flushScheduled = new AtomicBoolean(false);
+        this.metrics = metrics;
+        this.readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER);
+        this.closed = false;
+    }
+
+    /**
+     * Gắn SelectionKey và handler sau khi channel đã được đăng ký với event loop
+     *
+     * @param key SelectionKey của channel
+     * @param handler Handler xử lý tin nhắn của kết nối
+     */
+    void attach(SelectionKey key, ClientHandler handler) {
+        this.key = key;
+        this.handler = handler;
+    }
+
+    @Override
+    public PayloadCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public void bindOutbound(OutboundQueue outbound) {
+        this.outbound = outbound;
+    }
+
+    @Override
+    public void requestFlush() {
+        if (eventLoop.inEventLoop()) {
+            flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            // Gộp nhiều lần gửi từ thread khác thành một task trên event loop
+            eventLoop.execute(() -> {
+                flushScheduled.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Đọc dữ liệu có sẵn từ channel và giao các frame hoàn chỉnh cho handler.
+     * Chỉ được gọi trên thread của event loop.
+     */
+    void onReadable() {
+        try {
+            int read = channel.read(readBuffer);
+            if (read < 0) {
+                onChannelClosed();
+                return;
+            }
+
+            readBuffer.flip();
+            if (codec == null && !readHandshake()) {
+                readBuffer.compact();
+                return;
+            }
+            if (closed) {
+                return;
+            }
+
+            int required = 0;
+            while (readBuffer.remaining() >= MessageCodec.HEADER_SIZE) {
+                int length = readBuffer.getInt(readBuffer.position());
+                MessageCodec.checkFrameLength(length);
+
+                if (readBuffer.remaining() < MessageCodec.HEADER_SIZE + length) {
+                    required = MessageCodec.HEADER_SIZE + length;
+                    break;
+                }
+
+                int payloadStart = readBuffer.position() + MessageCodec.HEADER_SIZE;
+                Message message = codec.decode(readBuffer.array(), readBuffer.arrayOffset() + payloadStart, length);
+                readBuffer.position(payloadStart + length);
+                metrics.frameReceived(MessageCodec.HEADER_SIZE + length);
+                bytesReceived += MessageCodec.HEADER_SIZE + length;
+
+                handler.onMessageReceived(message);
+                if (closed) {
+                    return;
+                }
+            }
+            readBuffer.compact();
+
+            // Mở rộng buffer nếu frame đang chờ lớn hơn dung lượng hiện tại
+            if (required > readBuffer.capacity()) {
+                ByteBuffer larger = ByteBuffer.allocate(required);
+                readBuffer.flip();
+                larger.put(readBuffer);
+                readBuffer = larger;
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            Log.NETWORK.error("SERVER", "CONNECTION_ERROR",
+                    "Loi doc du lieu tu " + remoteAddress + ": " + e.getMessage() + " - Non-blocking read failure");
+            onChannelClosed();
+        }
+    }
+
+    /**
+     * Đọc handshake từ buffer (đã flip) nếu đã nhận đủ, chọn phiên bản giao thức và trả lời client
+     *
+     * @return true nếu handshake đã hoàn tất
+     * @throws IOException Nếu handshake không hợp lệ
+     */
+    private boolean readHandshake() throws IOException {
+        if (readBuffer.remaining() < MessageCodec.HANDSHAKE_SIZE) {
+            return false;
+        }
+        MessageCodec.checkHandshakeMagic(readBuffer.getInt());
+        PayloadCodec negotiated = MessageCodec.negotiate(readBuffer.get() & 0xFF);
+
+        // Trả lời handshake trước mọi tin nhắn trong hàng đợi gửi
+        ByteBuffer reply = ByteBuffer.allocate(MessageCodec.HANDSHAKE_SIZE);
+        reply.putInt(MessageCodec.HANDSHAKE_MAGIC).put((byte) negotiated.version()).flip();
+        pendingFrame = new ByteBuffer[] {reply};
+        codec = negotiated;
+        flush();
+
+        Log.NETWORK.info("SERVER", "HANDSHAKE",
+                "Thong nhat protocol version " + negotiated.version() + " voi " + remoteAddress);
+        return true;
+    }
+
+    /**
+     * Ghi frame đang dở rồi lần lượt ghi các frame trong hàng đợi gửi.
+     * Nếu socket chưa nhận hết, đăng ký OP_WRITE để tiếp tục khi socket sẵn sàng.
+     * Chỉ được gọi trên thread của event loop.
+     */
+    void flush() {
+        if (closed || !key.isValid()) {
+            return;
+        }
+
+        try {
+            if (!writeAvailable()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            Log.NETWORK.error("SERVER", "SEND_ERROR",
+                    "Loi ghi du lieu den " + remoteAddress + ": " + e.getMessage() + " - Non-blocking write failure");
+            onChannelClosed();
+        }
+    }
+
+    /**
+     * Ghi đến khi hết dữ liệu hoặc socket không nhận thêm
+     *
+     * @return true nếu đã ghi hết, false nếu socket đầy
+     * @throws IOException Nếu ghi thất bại
+     */
+    private boolean writeAvailable() throws IOException {
+        while (true) {
+            if (pendingFrame == null) {
+                byte[] payload = outbound != null ? outbound.poll() : null;
+                if (payload == null) {
+                    return true;
+                }
+                ByteBuffer header = ByteBuffer.allocate(MessageCodec.HEADER_SIZE).putInt(payload.length).flip();
+                pendingFrame = new ByteBuffer[] {header, ByteBuffer.wrap(payload)};
+            }
+            channel.write(pendingFrame);
+            if (pendingFrame[pendingFrame.length - 1].hasRemaining()) {
+                return false;
+            }
+            pendingFrame = null;
+        }
+    }
+
+    /**
+     * Xử lý khi client đóng kết nối hoặc kết nối bị lỗi: chuyển cho handler dọn dẹp
+     */
+    void onChannelClosed() {
+        if (handler != null) {
+            handler.close();
+        } else {
+            closeChannel();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (eventLoop.inEventLoop()) {
+            closeChannel();
+        } else {
+            eventLoop.execute(this::closeChannel);
+        }
+    }
+
+    private void closeChannel() {
+        closed = true;
+        try {
+            // Cố gắng gửi nốt những gì socket còn nhận được trước khi đóng
+            if (channel.isOpen()) {
+                writeAvailable();
+            }
+        } catch (IOException e) {
+            // Bỏ qua, kết nối sắp đóng
+        }
+
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            Log.NETWORK.error("SERVER", "CLEANUP_ERROR",
+                    "Loi dong channel " + remoteAddress + ": " + e.getMessage());
+        }
+        pendingFrame = null;
+        if (outbound != null) {
+            outbound.clear();
+        }
+    }
+
+    @Override
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+}
@@ -0,0 +1,125 @@
+package com.uno.server;
+
+import com.uno.utils.Log;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Engine server dựa trên NIO: một thread nhận kết nối và một số cố định event loop
+ * (mặc định bằng số nhân CPU) phục vụ đọc/ghi non-blocking cho tất cả client
+ */
+class NioServer {
+    private final UnoServer server;
+    private final int port;
+    private final EventLoop[] eventLoops;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+    private int nextLoop;
+
+    NioServer(UnoServer server, int port, int eventLoopCount) throws IOException {
+        this.server = server;
+        this.port = port;
+        this.eventLoops = new EventLoop[eventLoopCount];
+        for (int i = 0; i < eventLoopCount; i++) {
+            eventLoops[i] = new EventLoop("uno-event-loop-" + i);
+        }
+        this.running = false;
+    }
+
+    /**
+     * Mở server socket, khởi động các event loop và nhận kết nối cho đến khi server dừng.
+     * Phương thức này chạy trên thread gọi nó.
+     *
+     * @throws IOException Nếu không mở được server socket
+     */
+    void start() throws IOException {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        running = true;
+
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.start();
+        }
+
+        Log.NETWORK.info("SERVER_MAIN", "THREADING",
+                "ServerSocketChannel bound on port " + port + ", " + eventLoops.length +
+                " event loop - Thread model: Selector Event Loop");
+
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                EventLoop eventLoop = eventLoops[nextLoop];
+                nextLoop = (nextLoop + 1) % eventLoops.length;
+
+                Log.NETWORK.info("SERVER_MAIN", "ACCEPT_CONNECTION",
+                        "Ket noi TCP moi tu client: " + channel.getRemoteAddress() +
+                        " - Connection accept event (NIO)");
+
+                // Quyết định nhận hay từ chối ngay trên thread accept, theo đúng thứ tự kết nối đến
+                String rejection = server.admitConnection();
+                eventLoop.execute(() -> registerChannel(eventLoop, channel, rejection));
+            } catch (IOException e) {
+                if (running) {
+                    Log.NETWORK.error("SERVER_MAIN", "ACCEPT_ERROR",
+                            "Loi khi xu ly accept() operation: " + e.getMessage() + " - Socket accept failure");
+                }
+            }
+        }
+    }
+
+    /**
+     * Đăng ký kết nối mới với event loop và tạo handler cho nó.
+     * Chạy trên thread của event loop.
+     *
+     * @param rejection Lý do từ chối kết nối, null nếu kết nối được nhận
+     */
+    private void registerChannel(EventLoop eventLoop, SocketChannel channel, String rejection) {
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().setKeepAlive(true);
+
+            NioConnection connection = new NioConnection(eventLoop, channel, server.getMetrics());
+            ClientHandler handler = new ClientHandler(connection, server);
+            if (rejection != null) {
+                handler.rejectAdmission(rejection);
+            }
+            SelectionKey key = eventLoop.register(channel, connection);
+            connection.attach(key, handler);
+            server.addClient(handler);
+        } catch (IOException e) {
+            Log.NETWORK.error("SERVER_MAIN", "REGISTER_ERROR",
+                    "Khong the dang ky channel voi selector: " + e.getMessage());
+            if (rejection == null) {
+                server.releaseConnection();
+            }
+            try {
+                channel.close();
+            } catch (IOException closeError) {
+                // Bỏ qua
+            }
+        }
+    }
+
+    /**
+     * Dừng nhận kết nối và đóng các event loop
+     */
+    void stop() {
+        running = false;
+        try {
+            if (serverChannel != null && serverChannel.isOpen()) {
+                serverChannel.close();
+            }
+        } catch (IOException e) {
+            Log.NETWORK.error("SERVER_MAIN", "SOCKET_CLOSE_ERROR",
+                    "Loi dong server channel: " + e.getMessage());
+        }
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.shutdown();
+        }
+    }
+}
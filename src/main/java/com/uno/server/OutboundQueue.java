@@ -0,0 +1,199 @@
+package com.uno.server;
+
+import com.uno.utils.MessageCodec;
+import com.uno.utils.MessageType;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Hàng đợi gửi có giới hạn của một client. Thread xử lý game mã hóa tin nhắn, xếp vào đây
+ * rồi tiếp tục; writer của {@link Connection} lấy frame ra và ghi xuống socket,
+ * nên một client mạng chậm không làm chậm những người chơi khác trong phòng.
+ * Tin nhắn được mã hóa ngay khi xếp hàng vì dữ liệu của nó (ví dụ GameRoom) có thể
+ * thay đổi trước khi writer kịp ghi.
+ *
+ * Khi hàng đợi đầy, {@link ServerConfig.OverflowPolicy} quyết định xử lý:
+ * <ul>
+ *   <li>DROP_SUPERSEDED: bỏ các tin nhắn trạng thái đã lỗi thời (ROOM_LIST/ROOM_DIRECTORY cũ).
+ *       GAME_UPDATE (trạng thái đầy đủ) chỉ bị thay bởi một GAME_UPDATE mới hơn, cùng với mọi
+ *       GAME_DELTA đang chờ. Một GAME_DELTA chỉ được bỏ các delta đang chờ khi chính hàng đợi
+ *       bảo đảm client nhận trạng thái đầy đủ: delta mới cũng bị bỏ, các delta đến sau bị bỏ cho
+ *       đến khi có GAME_UPDATE, và handler được báo để yêu cầu phòng gửi trạng thái đầy đủ
+ *       ({@link #takeFullStateRequest()}). Client vì thế không bao giờ nhận delta thiếu trạng thái gốc.</li>
+ *   <li>DISCONNECT: ngắt client ngay.</li>
+ * </ul>
+ *
+ * Độ sâu và số byte đã gửi được ghi thêm vào biến volatile để trang quản trị đọc mà không
+ * tranh khóa của hàng đợi với writer.
+ */
+class OutboundQueue {
+    private final ArrayDeque<Frame> messages;
+    private final int capacity;
+    private final ServerConfig.OverflowPolicy policy;
+    private final ServerMetrics metrics;
+    private volatile int depth;
+    private volatile long bytesSent;
+    // Đã bỏ delta của client: bỏ các delta tiếp theo cho đến khi trạng thái đầy đủ được xếp hàng
+    private boolean awaitingFullState;
+    // Handler chưa yêu cầu phòng gửi trạng thái đầy đủ thay cho các delta đã bỏ
+    private boolean fullStateRequested;
+
+    OutboundQueue(int capacity, ServerConfig.OverflowPolicy policy, ServerMetrics metrics) {
+        this.messages = new ArrayDeque<>();
+        this.capacity = capacity;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Thêm tin nhắn đã mã hóa vào cuối hàng đợi, áp dụng chính sách tràn nếu hàng đợi đầy
+     *
+     * @param type Loại tin nhắn
+     * @param payload Payload đã mã hóa bằng codec của kết nối
+     * @return false nếu không còn chỗ: client đọc quá chậm và nên bị ngắt kết nối
+     */
+    synchronized boolean offer(MessageType type, byte[] payload) {
+        if (awaitingFullState) {
+            if (type == MessageType.GAME_DELTA) {
+                // Trạng thái đầy đủ sắp gửi đã bao gồm delta này
+                metrics.messagesDropped(1);
+                return true;
+            }
+            if (type == MessageType.GAME_UPDATE || type == MessageType.START_GAME) {
+                awaitingFullState = false;
+            }
+        }
+        if (messages.size() >= capacity) {
+            if (policy == ServerConfig.OverflowPolicy.DISCONNECT || !dropSuperseded(type)) {
+                return false;
+            }
+            if (awaitingFullState) {
+                // Các delta trước đã bị bỏ nên delta mới cũng vô ích cho đến trạng thái đầy đủ
+                metrics.messagesDropped(1);
+                return true;
+            }
+        }
+        messages.addLast(new Frame(type, payload));
+        depth = messages.size();
+        metrics.messageQueued(depth);
+        return true;
+    }
+
+    /**
+     * Lấy payload của tin nhắn tiếp theo cần gửi
+     *
+     * @return Payload hoặc null nếu hàng đợi rỗng
+     */
+    synchronized byte[] poll() {
+        Frame frame = messages.pollFirst();
+        if (frame == null) {
+            return null;
+        }
+        depth = messages.size();
+        bytesSent += MessageCodec.HEADER_SIZE + frame.payload.length;
+        metrics.messageDequeued(frame.type, frame.payload.length);
+        return frame.payload;
+    }
+
+    synchronized boolean isEmpty() {
+        return messages.isEmpty();
+    }
+
+    synchronized int size() {
+        return messages.size();
+    }
+
+    /**
+     * Bỏ mọi tin nhắn còn lại khi kết nối đóng
+     */
+    synchronized void clear() {
+        metrics.messagesDropped(messages.size());
+        messages.clear();
+        depth = 0;
+        awaitingFullState = false;
+        fullStateRequested = false;
+    }
+
+    /**
+     * Lấy và xóa yêu cầu gửi trạng thái đầy đủ: true nghĩa là hàng đợi đã bỏ GAME_DELTA của client
+     * và người gọi phải xếp một GAME_UPDATE; các delta đến trước đó đều bị bỏ.
+     *
+     * @return true nếu cần gửi trạng thái đầy đủ
+     */
+    synchronized boolean takeFullStateRequest() {
+        boolean requested = fullStateRequested;
+        fullStateRequested = false;
+        return requested;
+    }
+
+    /**
+     * Độ sâu đã ghi nhận gần nhất, không lấy khóa của hàng đợi
+     *
+     * @return Số tin nhắn đang chờ gửi
+     */
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * @return Số byte đã lấy ra để ghi xuống socket (header và payload)
+     */
+    long bytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Giải phóng chỗ bằng cách bỏ các tin nhắn đã bị tin nhắn mới thay thế
+     *
+     * @param incoming Loại tin nhắn sắp được thêm
+     * @return true nếu hàng đợi còn chỗ sau khi bỏ
+     */
+    private boolean dropSuperseded(MessageType incoming) {
+        int dropped = 0;
+        Iterator<Frame> iterator = messages.iterator();
+        while (iterator.hasNext()) {
+            if (isSupersededBy(iterator.next().type, incoming)) {
+                iterator.remove();
+                dropped++;
+            }
+        }
+        depth = messages.size();
+        metrics.messagesDropped(dropped);
+        if (incoming == MessageType.GAME_DELTA && dropped > 0) {
+            awaitingFullState = true;
+            fullStateRequested = true;
+        }
+        return messages.size() < capacity;
+    }
+
+    private static boolean isSupersededBy(MessageType queued, MessageType incoming) {
+        switch (incoming) {
+            case ROOM_LIST:
+                // Danh sách phòng mới chứa toàn bộ thông tin của danh sách cũ
+                return queued == MessageType.ROOM_LIST;
+            case ROOM_DIRECTORY:
+                // Bỏ bản cập nhật danh sách phòng khiến client yêu cầu bản đầy đủ
+                return queued == MessageType.ROOM_DIRECTORY;
+            case GAME_UPDATE:
+                // Trạng thái đầy đủ mới thay thế trạng thái đầy đủ cũ và mọi delta trước nó
+                return queued == MessageType.GAME_UPDATE || queued == MessageType.GAME_DELTA;
+            case GAME_DELTA:
+                // Delta không bao giờ thay GAME_UPDATE (có thể là trả lời RESYNC_REQUEST); bỏ delta
+                // khiến hàng đợi chờ trạng thái đầy đủ
+                return queued == MessageType.GAME_DELTA;
+            default:
+                return false;
+        }
+    }
+
+    private static final class Frame {
+        private final MessageType type;
+        private final byte[] payload;
+
+        Frame(MessageType type, byte[] payload) {
+            this.type = type;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.uno.server;
+
+import com.uno.utils.MessageType;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Giới hạn tốc độ gửi tin nhắn của mỗi kết nối: một giới hạn chung cho mọi tin nhắn và một
+ * giới hạn riêng cho từng nhóm tin nhắn tốn kém (tin nhắn được phát cho cả phòng hoặc làm
+ * danh sách phòng thay đổi). Tin nhắn vượt giới hạn bị bỏ trước khi server làm bất cứ việc gì.
+ */
+public final class RateLimits {
+
+    /**
+     * Nhóm tin nhắn có giới hạn riêng
+     */
+    public enum Category {
+        /** CHAT_MESSAGE: phát cho cả phòng */
+        CHAT,
+        /** CREATE_ROOM, JOIN_ROOM, LEAVE_ROOM: thay đổi danh sách phòng của mọi client ở sảnh */
+        ROOM,
+        /** Hành động trong game: mỗi hành động hợp lệ cập nhật trạng thái cho cả phòng */
+        GAME,
+        /** ROOM_QUERY, ROOM_DIRECTORY_REQUEST, RESYNC_REQUEST: server phải dựng và mã hóa dữ liệu lớn */
+        QUERY
+    }
+
+    /**
+     * Tốc độ trung bình và sức chứa của một token bucket
+     */
+    public static final class Limit {
+        private final double perSecond;
+        private final int burst;
+
+        /**
+         * @param perSecond Số tin nhắn mỗi giây được nạp lại
+         * @param burst Số tin nhắn tối đa được gửi liền một lúc
+         */
+        public Limit(double perSecond, int burst) {
+            this.perSecond = perSecond;
+            this.burst = Math.max(1, burst);
+        }
+
+        /**
+         * Đọc giới hạn dạng "tốc độ/sức chứa" (ví dụ "2/5"), hoặc chỉ "tốc độ" (sức chứa bằng tốc độ)
+         *
+         * @param value Chuỗi cần đọc, null hoặc rỗng để dùng giá trị mặc định
+         * @param defaultLimit Giới hạn mặc định
+         * @return Giới hạn đọc được (giá trị mặc định nếu chuỗi sai dạng), null nếu tốc độ &lt;= 0 (không giới hạn)
+         */
+        static Limit parse(String value, Limit defaultLimit) {
+            if (value == null || value.trim().isEmpty()) {
+                return defaultLimit;
+            }
+            String[] parts = value.trim().split("/");
+            try {
+                double perSecond = Double.parseDouble(parts[0].trim());
+                if (perSecond <= 0) {
+                    return null;
+                }
+                int burst = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : (int) Math.ceil(perSecond);
+                return new Limit(perSecond, burst);
+            } catch (NumberFormatException e) {
+                return defaultLimit;
+            }
+        }
+
+        public double getPerSecond() {
+            return perSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        @Override
+        public String toString() {
+            return perSecond + "/" + burst;
+        }
+    }
+
+    private static final Category[] CATEGORIES_BY_TYPE = new Category[MessageType.values().length];
+
+    static {
+        CATEGORIES_BY_TYPE[MessageType.CHAT_MESSAGE.ordinal()] = Category.CHAT;
+        CATEGORIES_BY_TYPE[MessageType.CREATE_ROOM.ordinal()] = Category.ROOM;
+        CATEGORIES_BY_TYPE[MessageType.JOIN_ROOM.ordinal()] = Category.ROOM;
+        CATEGORIES_BY_TYPE[MessageType.LEAVE_ROOM.ordinal()] = Category.ROOM;
+        CATEGORIES_BY_TYPE[MessageType.START_GAME.ordinal()] = Category.GAME;
+        CATEGORIES_BY_TYPE[MessageType.PLAY_CARD.ordinal()] = Category.GAME;
+        CATEGORIES_BY_TYPE[MessageType.DRAW_CARD.ordinal()] = Category.GAME;
+        CATEGORIES_BY_TYPE[MessageType.END_TURN.ordinal()] = Category.GAME;
+        CATEGORIES_BY_TYPE[MessageType.CALL_UNO.ordinal()] = Category.GAME;
+        CATEGORIES_BY_TYPE[MessageType.CHALLENGE.ordinal()] = Category.GAME;
+        CATEGORIES_BY_TYPE[MessageType.ROOM_QUERY.ordinal()] = Category.QUERY;
+        CATEGORIES_BY_TYPE[MessageType.ROOM_DIRECTORY_REQUEST.ordinal()] = Category.QUERY;
+        CATEGORIES_BY_TYPE[MessageType.RESYNC_REQUEST.ordinal()] = Category.QUERY;
+    }
+
+    /** Mặc định cho mọi tin nhắn của một kết nối */
+    public static final Limit DEFAULT_MESSAGES = new Limit(50, 100);
+
+    private final Limit messages;
+    private final Map<Category, Limit> categories;
+
+    /**
+     * @param messages Giới hạn chung cho mọi tin nhắn, null để không giới hạn
+     * @param categories Giới hạn của từng nhóm; nhóm không có trong map không bị giới hạn riêng
+     */
+    public RateLimits(Limit messages, Map<Category, Limit> categories) {
+        this.messages = messages;
+        this.categories = new EnumMap<>(Category.class);
+        this.categories.putAll(categories);
+    }
+
+    /**
+     * Giới hạn mặc định: 50 tin nhắn/giây (tối đa 100 liền), chat 2/giây (5), tạo/vào/rời phòng
+     * 2/giây (5), hành động game 20/giây (40), truy vấn danh sách phòng và resync 5/giây (10)
+     *
+     * @return Giới hạn mặc định
+     */
+    public static RateLimits defaults() {
+        return new RateLimits(DEFAULT_MESSAGES, defaultCategories());
+    }
+
+    /**
+     * @return Không giới hạn gì
+     */
+    public static RateLimits unlimited() {
+        return new RateLimits(null, new EnumMap<>(Category.class));
+    }
+
+    private static Map<Category, Limit> defaultCategories() {
+        Map<Category, Limit> limits = new EnumMap<>(Category.class);
+        limits.put(Category.CHAT, new Limit(2, 5));
+        limits.put(Category.ROOM, new Limit(2, 5));
+        limits.put(Category.GAME, new Limit(20, 40));
+        limits.put(Category.QUERY, new Limit(5, 10));
+        return limits;
+    }
+
+    /**
+     * Đọc giới hạn từ system properties dạng "tốc độ/sức chứa", 0 để không giới hạn:
+     * uno.server.rate.messages, uno.server.rate.chat, uno.server.rate.room, uno.server.rate.game,
+     * uno.server.rate.query
+     *
+     * @return Giới hạn đọc được
+     */
+    public static RateLimits fromSystemProperties() {
+        Limit messages = Limit.parse(System.getProperty("uno.server.rate.messages"), DEFAULT_MESSAGES);
+        Map<Category, Limit> defaults = defaultCategories();
+        Map<Category, Limit> limits = new EnumMap<>(Category.class);
+        for (Category category : Category.values()) {
+            Limit limit = Limit.parse(System.getProperty("uno.server.rate." + category.name().toLowerCase()),
+                    defaults.get(category));
+            if (limit != null) {
+                limits.put(category, limit);
+            }
+        }
+        return new RateLimits(messages, limits);
+    }
+
+    /**
+     * Nhóm giới hạn riêng của một loại tin nhắn
+     *
+     * @param type Loại tin nhắn
+     * @return Nhóm, null nếu loại tin nhắn chỉ chịu giới hạn chung
+     */
+    static Category categoryOf(MessageType type) {
+        return CATEGORIES_BY_TYPE[type.ordinal()];
+    }
+
+    /**
+     * @return Giới hạn chung cho mọi tin nhắn, null nếu không giới hạn
+     */
+    public Limit getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return Giới hạn của nhóm, null nếu nhóm không bị giới hạn riêng
+     */
+    public Limit getLimit(Category category) {
+        return categories.get(category);
+    }
+
+    @Override
+    public String toString() {
+        return "messages=" + messages + ", " + categories;
+    }
+}
@@ -0,0 +1,234 @@
+package com.uno.server;
+
+import com.uno.protocol.RoomDirectoryUpdate;
+import com.uno.utils.EncodedMessage;
+import com.uno.utils.Log;
+import com.uno.utils.Message;
+import com.uno.utils.MessageType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Công bố danh sách phòng cho các client đang ở sảnh.
+ *
+ * Thay đổi phòng (tạo, vào, rời, bắt đầu game, xóa) chỉ đánh dấu ID phòng; sau một
+ * khoảng gom ngắn, thread công bố so sánh các phòng đã đánh dấu với danh sách đã công bố,
+ * tăng phiên bản và gửi một {@link RoomDirectoryUpdate} chỉ chứa phần thay đổi. Bản cập nhật
+ * được mã hóa một lần cho mọi người nhận. Client mới vào sảnh nhận bản đầy đủ trước,
+ * sau đó là các bản tăng dần tiếp theo; client báo phiên bản nó đang có trùng với phiên bản
+ * hiện tại chỉ nhận một bản rỗng xác nhận danh sách không đổi.
+ *
+ * Danh sách đã công bố được giữ thêm dưới dạng một List không sửa được, thay bằng bản sao mới
+ * ở mỗi lần công bố (copy-on-write), nên đọc danh sách phòng không tốn cấp phát và không khóa.
+ */
+class RoomDirectoryPublisher {
+    private final SessionRegistry registry;
+    private final String serverId;
+    private final long batchWindowMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> dirtyRoomIds;
+    private final AtomicBoolean flushScheduled;
+    private final Set<ClientHandler> subscribers;
+    private final ServerMetrics metrics;
+
+    // Danh sách đã công bố ở phiên bản version, chỉ truy cập khi giữ khóa của publisher
+    private final Map<String, Map<String, Object>> published;
+    private int version;
+    private EncodedMessage fullSnapshot;
+    private EncodedMessage unchanged;
+
+    // Bản sao của published, thay mới sau mỗi lần công bố
+    private volatile List<Map<String, Object>> rooms;
+
+    RoomDirectoryPublisher(SessionRegistry registry, String serverId, long batchWindowMillis, ServerMetrics metrics) {
+        this.registry = registry;
+        this.metrics = metrics;
+        this.serverId = serverId;
+        this.batchWindowMillis = batchWindowMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "room-directory");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dirtyRoomIds = ConcurrentHashMap.newKeySet();
+        this.flushScheduled = new AtomicBoolean(false);
+        // Tập đồng thời: client bị ngắt trong lúc gửi sẽ tự hủy đăng ký khi đang duyệt
+        this.subscribers = ConcurrentHashMap.newKeySet();
+        this.published = new LinkedHashMap<>();
+        this.version = 0;
+        this.rooms = Collections.emptyList();
+    }
+
+    /**
+     * @return Danh sách phòng đã công bố (không sửa được), cùng dạng với ROOM_LIST
+     */
+    List<Map<String, Object>> getRooms() {
+        return rooms;
+    }
+
+    /**
+     * Đánh dấu phòng đã thay đổi; thay đổi được gửi ở lần công bố tiếp theo. Không chặn thread gọi.
+     *
+     * Gọi từ một lệnh trong mailbox của phòng thì việc đánh dấu đợi đến cuối lệnh, khi phòng đã
+     * công bố mục mới, để thread công bố không đọc phải mục cũ rồi bỏ qua thay đổi.
+     *
+     * @param roomId ID của phòng
+     */
+    void roomChanged(String roomId) {
+        if (!GameRoom.deferUntilCommandEnds(() -> markDirty(roomId))) {
+            markDirty(roomId);
+        }
+    }
+
+    private void markDirty(String roomId) {
+        dirtyRoomIds.add(roomId);
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::flush, batchWindowMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Server đang dừng
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Đăng ký client vào sảnh và gửi danh sách phòng làm mốc. Không làm gì nếu client đã ở sảnh.
+     *
+     * @param client Client vừa vào sảnh
+     * @param knownVersion Phiên bản danh sách client đang có, -1 nếu client chưa có danh sách
+     */
+    synchronized void subscribe(ClientHandler client, int knownVersion) {
+        if (subscribers.add(client)) {
+            client.sendMessage(snapshotFor(knownVersion));
+        }
+    }
+
+    /**
+     * Hủy đăng ký client khi client vào phòng hoặc ngắt kết nối
+     *
+     * @param client Client rời sảnh
+     */
+    void unsubscribe(ClientHandler client) {
+        subscribers.remove(client);
+    }
+
+    /**
+     * Gửi lại danh sách phòng khi client yêu cầu
+     *
+     * @param client Client yêu cầu
+     * @param knownVersion Phiên bản danh sách client đang có, -1 nếu không có
+     */
+    synchronized void resend(ClientHandler client, int knownVersion) {
+        if (subscribers.contains(client)) {
+            client.sendMessage(snapshotFor(knownVersion));
+        }
+    }
+
+    /**
+     * Công bố các phòng đã đánh dấu. Chạy trên thread công bố.
+     */
+    private void flush() {
+        flushScheduled.set(false);
+        try {
+            publishChanges();
+        } catch (RuntimeException e) {
+            Log.NETWORK.error("SERVER", "ROOM_DIRECTORY_ERROR",
+                    "Loi cong bo danh sach phong: " + e + " - Directory publication failure");
+        }
+    }
+
+    private void publishChanges() {
+        // Chỉ đọc mục đã công bố của phòng (biến volatile), không lấy khóa phòng nên không phải chờ
+        // lệnh game đang chạy. Đọc trước khi giữ khóa của publisher để khóa chỉ bao phần so sánh.
+        Map<String, Map<String, Object>> current = new LinkedHashMap<>();
+        Iterator<String> iterator = dirtyRoomIds.iterator();
+        while (iterator.hasNext()) {
+            String roomId = iterator.next();
+            iterator.remove();
+
+            GameRoom room = registry.getRoom(roomId);
+            current.put(roomId, room != null ? room.getDirectoryEntry() : null);
+        }
+        publish(current);
+    }
+
+    /**
+     * @param current Thông tin mới của các phòng đã đánh dấu, null nếu phòng đã bị xóa
+     */
+    private synchronized void publish(Map<String, Map<String, Object>> current) {
+        List<Map<String, Object>> changed = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+
+        for (Map.Entry<String, Map<String, Object>> dirty : current.entrySet()) {
+            String roomId = dirty.getKey();
+            Map<String, Object> entry = dirty.getValue();
+            if (entry == null) {
+                if (published.remove(roomId) != null) {
+                    removed.add(roomId);
+                }
+            } else if (!entry.equals(published.get(roomId))) {
+                published.put(roomId, entry);
+                changed.add(entry);
+            }
+        }
+
+        if (changed.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        version++;
+        fullSnapshot = null;
+        unchanged = null;
+        rooms = Collections.unmodifiableList(new ArrayList<>(published.values()));
+
+        EncodedMessage update = new EncodedMessage(new Message(MessageType.ROOM_DIRECTORY,
+                new RoomDirectoryUpdate(version, false, changed, removed), serverId));
+        int recipients = 0;
+        for (ClientHandler subscriber : subscribers) {
+            subscriber.sendMessage(update);
+            recipients++;
+        }
+        metrics.broadcastSent(recipients);
+
+        Log.NETWORK.trace("SERVER", "ROOM_DIRECTORY", () ->
+                "Cong bo phien ban " + version + ": " + changed.size() + " phong thay doi, " +
+                removed.size() + " phong bi xoa, " + subscribers.size() + " client o sanh");
+    }
+
+    /**
+     * Bản cần gửi cho client đang có phiên bản cho trước: bản rỗng của phiên bản hiện tại nếu client
+     * đã có đúng phiên bản này, ngược lại là bản đầy đủ. Cả hai được dùng chung cho mọi client
+     * cho đến lần công bố sau.
+     */
+    private EncodedMessage snapshotFor(int knownVersion) {
+        if (knownVersion == version) {
+            if (unchanged == null) {
+                RoomDirectoryUpdate update = new RoomDirectoryUpdate(version, false,
+                        Collections.emptyList(), Collections.emptyList());
+                unchanged = new EncodedMessage(new Message(MessageType.ROOM_DIRECTORY, update, serverId));
+            }
+            return unchanged;
+        }
+        if (fullSnapshot == null) {
+            RoomDirectoryUpdate snapshot = new RoomDirectoryUpdate(version, true, rooms, Collections.emptyList());
+            fullSnapshot = new EncodedMessage(new Message(MessageType.ROOM_DIRECTORY, snapshot, serverId));
+        }
+        return fullSnapshot;
+    }
+
+    void stop() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,126 @@
+package com.uno.server;
+
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Chỉ mục phòng theo tên, dùng để trả lời ROOM_QUERY mà không duyệt toàn bộ phòng.
+ *
+ * Khóa của chỉ mục là tên phòng viết thường, ký tự NUL, rồi ID phòng, nên các phòng
+ * trùng tên vẫn có thứ tự ổn định; tên phòng không đổi nên khóa của một phòng cố định. Truy vấn theo tiền tố là một khoảng liên tục của chỉ mục,
+ * và khóa của phòng cuối cùng đã duyệt được dùng làm con trỏ trang sau: phân trang không
+ * bị lệch khi phòng được tạo hoặc xóa giữa hai trang. Trạng thái và số chỗ trống thay đổi
+ * liên tục nên được lọc khi duyệt, với số phòng duyệt tối đa cho mỗi truy vấn.
+ */
+class RoomNameIndex {
+    /** Số phòng tối đa trong một trang */
+    static final int MAX_PAGE_SIZE = 100;
+
+    /** Số phòng tối đa được duyệt cho một truy vấn, kể cả phòng không khớp bộ lọc */
+    static final int MAX_SCANNED_PER_QUERY = 2000;
+
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final ConcurrentSkipListMap<String, GameRoom> byName;
+
+    RoomNameIndex() {
+        this.byName = new ConcurrentSkipListMap<>();
+    }
+
+    void add(GameRoom room) {
+        byName.put(key(room), room);
+    }
+
+    void remove(GameRoom room) {
+        byName.remove(key(room), room);
+    }
+
+    private static String key(GameRoom room) {
+        return normalize(room.getName()) + KEY_SEPARATOR + room.getId();
+    }
+
+    /**
+     * Trả lời một truy vấn danh sách phòng
+     *
+     * @param query Truy vấn của client
+     * @return Trang kết quả
+     */
+    RoomPage query(RoomQuery query) {
+        int limit = Math.max(1, Math.min(query.getLimit(), MAX_PAGE_SIZE));
+        List<Map<String, Object>> rooms = new ArrayList<>(limit);
+        int scanned = 0;
+        String lastKey = null;
+
+        for (Map.Entry<String, GameRoom> entry : range(query).entrySet()) {
+            if (rooms.size() == limit || scanned == MAX_SCANNED_PER_QUERY) {
+                // Còn phòng phía sau: tiếp tục từ phòng cuối cùng đã duyệt
+                return new RoomPage(query.getQueryId(), rooms, lastKey);
+            }
+            scanned++;
+            lastKey = entry.getKey();
+
+            Map<String, Object> room = entry.getValue().getDirectoryEntry();
+            if (matches(room, query)) {
+                rooms.add(room);
+            }
+        }
+        return new RoomPage(query.getQueryId(), rooms, null);
+    }
+
+    /**
+     * Khoảng của chỉ mục chứa các phòng có tên bắt đầu bằng tiền tố và nằm sau con trỏ
+     */
+    private NavigableMap<String, GameRoom> range(RoomQuery query) {
+        String prefix = normalize(query.getNamePrefix());
+        String cursor = query.getCursor();
+
+        String from = prefix;
+        boolean fromInclusive = true;
+        if (cursor != null && cursor.compareTo(prefix) >= 0) {
+            from = cursor;
+            fromInclusive = false;
+        }
+
+        if (prefix.isEmpty()) {
+            return byName.tailMap(from, fromInclusive);
+        }
+        String to = prefix + Character.MAX_VALUE;
+        if (from.compareTo(to) >= 0) {
+            return Collections.emptyNavigableMap();
+        }
+        return byName.subMap(from, fromInclusive, to, false);
+    }
+
+    private static boolean matches(Map<String, Object> room, RoomQuery query) {
+        boolean gameStarted = (Boolean) room.get("gameStarted");
+        int freeSeats = GameRoom.MAX_PLAYERS - (Integer) room.get("playerCount");
+
+        if (freeSeats < query.getMinFreeSeats()) {
+            return false;
+        }
+        RoomQuery.Status status = query.getStatus();
+        if (status == null) {
+            return true;
+        }
+        switch (status) {
+            case WAITING:
+                return !gameStarted;
+            case IN_GAME:
+                return gameStarted;
+            default:
+                return true;
+        }
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+}
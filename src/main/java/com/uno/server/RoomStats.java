@@ -0,0 +1,86 @@
+package com.uno.server;
+
+import com.uno.protocol.RoomSnapshot;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ảnh chụp bất biến tình trạng của một phòng cho trang quản trị: người chơi, lượt, bài còn lại
+ * và số hành động game. Phòng dựng ảnh chụp trong mailbox của mình sau mỗi lệnh làm phòng thay
+ * đổi và công bố qua biến volatile ({@link GameRoom#getStats()}), nên đọc ảnh chụp không lấy
+ * khóa phòng và không chờ lệnh nào của game.
+ */
+final class RoomStats {
+
+    /**
+     * Một người chơi của phòng
+     */
+    static final class PlayerStats {
+        final String id;
+        final String name;
+        final int handSize;
+        final boolean calledUno;
+        final boolean connected;
+
+        PlayerStats(String id, String name, int handSize, boolean calledUno, boolean connected) {
+            this.id = id;
+            this.name = name;
+            this.handSize = handSize;
+            this.calledUno = calledUno;
+            this.connected = connected;
+        }
+    }
+
+    final String id;
+    final String name;
+    final String hostName;
+    final RoomSnapshot.Status status;
+    final List<PlayerStats> players;
+    /** Người đang tới lượt, null nếu game chưa bắt đầu */
+    final String currentPlayerName;
+    final int deckRemaining;
+    /** Lá bài trên cùng của chồng bài đã đánh, null nếu game chưa bắt đầu */
+    final String topCard;
+    final boolean clockwise;
+    final int stateVersion;
+    /** Số hành động game hợp lệ từ đầu ván hiện tại */
+    final long actions;
+    /** Thời điểm bắt đầu ván hiện tại (epoch ms), 0 nếu chưa có ván nào */
+    final long gameStartedMillis;
+    /** Thời điểm hành động game gần nhất (epoch ms), 0 nếu chưa có */
+    final long lastActionMillis;
+
+    RoomStats(String id, String name, String hostName, RoomSnapshot.Status status, List<PlayerStats> players,
+              String currentPlayerName, int deckRemaining, String topCard, boolean clockwise, int stateVersion,
+              long actions, long gameStartedMillis, long lastActionMillis) {
+        this.id = id;
+        this.name = name;
+        this.hostName = hostName;
+        this.status = status;
+        this.players = Collections.unmodifiableList(players);
+        this.currentPlayerName = currentPlayerName;
+        this.deckRemaining = deckRemaining;
+        this.topCard = topCard;
+        this.clockwise = clockwise;
+        this.stateVersion = stateVersion;
+        this.actions = actions;
+        this.gameStartedMillis = gameStartedMillis;
+        this.lastActionMillis = lastActionMillis;
+    }
+
+    /**
+     * Tốc độ hành động trung bình của ván hiện tại; ván đã kết thúc tính đến hành động cuối
+     *
+     * @param nowMillis Thời điểm hiện tại (epoch ms)
+     * @return Số hành động mỗi phút, 0 nếu chưa có ván nào
+     */
+    double actionsPerMinute(long nowMillis) {
+        if (gameStartedMillis == 0) {
+            return 0;
+        }
+        long end = status == RoomSnapshot.Status.FINISHED ? lastActionMillis : nowMillis;
+        long elapsed = Math.max(1, end - gameStartedMillis);
+        return actions * 60_000.0 / elapsed;
+    }
+}
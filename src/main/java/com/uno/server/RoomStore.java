@@ -0,0 +1,588 @@
+package com.uno.server;
+
+import com.uno.model.Game;
+import com.uno.model.GameJournal;
+import com.uno.model.Player;
+import com.uno.utils.Log;
+import com.uno.utils.WriteAheadLog;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Lưu các phòng đang chơi để server khởi động lại không làm mất ván game.
+ *
+ * Mỗi phòng được mô tả bằng seed và nhật ký lệnh của game ({@link GameJournal}), nên chỉ cần
+ * ghi các lệnh đã được chấp nhận: khi phòng được tạo, một bản ghi chứa toàn bộ phòng; sau đó
+ * mỗi lệnh game một bản ghi nhỏ kèm số thứ tự của lệnh; khi phòng bị xóa, một bản ghi đóng
+ * phòng. Mỗi lần người chơi vào chỗ, một bản ghi lưu token phiên của chỗ đó để người chơi nhận
+ * lại chỗ bằng RESUME sau khi server khởi động lại. Các bản ghi đi vào {@link WriteAheadLog} dùng chung cho mọi phòng, và mailbox của
+ * phòng commit sau mỗi lệnh nên các phòng cùng hoạt động chia nhau một lần force.
+ *
+ * Snapshot định kỳ chuyển WAL sang segment mới, chụp mọi phòng trong mailbox của chúng, ghi
+ * vào một file (ghi file tạm, đổi tên rồi fsync thư mục để lần đổi tên bền vững) và chỉ sau đó
+ * mới xóa các segment cũ. Khi khôi phục, các phòng trong
+ * snapshot được đọc trước, sau đó đọc các segment từ segment lúc chụp; lệnh đã có trong snapshot
+ * được nhận ra nhờ số thứ tự và bỏ qua. Cuối cùng mỗi game được chạy lại từ seed và nhật ký.
+ *
+ * Mỗi phòng được khôi phục riêng: phòng thiếu lệnh, có lệnh không đọc được hoặc không chạy lại
+ * được bị cách ly thay vì làm hỏng cả lần khôi phục. Mọi thứ đã đọc được của phòng (cùng định
+ * dạng với ảnh chụp trong snapshot) và các bản ghi WAL của phòng từ chỗ hỏng trở đi được ghi vào
+ * một file trong thư mục {@value #QUARANTINE_DIRECTORY} trước khi snapshot xóa các segment.
+ */
+final class RoomStore implements Closeable {
+    private static final byte ROOM_CREATED = 1;
+    private static final byte ACTION = 2;
+    private static final byte ROOM_CLOSED = 3;
+    private static final byte SEAT_TOKEN = 4;
+
+    private static final String SNAPSHOT_FILE = "rooms.snapshot";
+    private static final int SNAPSHOT_MAGIC = 0x554E4F53;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final long SNAPSHOT_TIMEOUT_SECONDS = 10;
+
+    private static final String QUARANTINE_DIRECTORY = "quarantine";
+    private static final int QUARANTINE_MAGIC = 0x554E4F51;
+
+    private final Path directory;
+    private final WriteAheadLog wal;
+
+    private RoomStore(Path directory, WriteAheadLog wal) {
+        this.directory = directory;
+        this.wal = wal;
+    }
+
+    /**
+     * Mở nơi lưu trong một thư mục; WAL bắt đầu segment mới sau các segment đang có
+     *
+     * @param directory Thư mục dữ liệu
+     * @param segmentBytes Kích thước mỗi segment WAL
+     * @param fsync true để mỗi lệnh chờ dữ liệu được force xuống đĩa
+     * @return Nơi lưu đã mở
+     * @throws IOException Nếu không mở được WAL
+     */
+    static RoomStore open(Path directory, int segmentBytes, boolean fsync) throws IOException {
+        return new RoomStore(directory, WriteAheadLog.open(directory, segmentBytes, fsync));
+    }
+
+    /**
+     * Ghi bản ghi tạo phòng chứa toàn bộ phòng hiện tại. Chỉ gọi trong mailbox của phòng.
+     *
+     * @return Vị trí WAL cần commit
+     */
+    long roomCreated(GameRoom room) {
+        RecordBuffer record = new RecordBuffer();
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            out.writeByte(ROOM_CREATED);
+            writeRoom(room, out);
+        } catch (IOException e) {
+            return onWriteError(e);
+        }
+        return append(record);
+    }
+
+    /**
+     * Ghi một lệnh game của phòng. Chỉ gọi trong mailbox của phòng.
+     *
+     * @return Vị trí WAL cần commit
+     */
+    long actionRecorded(String roomId, GameJournal journal, int entry) {
+        RecordBuffer record = new RecordBuffer();
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            out.writeByte(ACTION);
+            out.writeUTF(roomId);
+            out.writeInt(entry);
+            journal.writeEntry(entry, out);
+        } catch (IOException e) {
+            return onWriteError(e);
+        }
+        return append(record);
+    }
+
+    /**
+     * Ghi token phiên của một chỗ ngồi. Chỉ gọi trong mailbox của phòng.
+     *
+     * @return Vị trí WAL cần commit
+     */
+    long seatTokenRecorded(String roomId, String playerId, String token) {
+        RecordBuffer record = new RecordBuffer();
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            out.writeByte(SEAT_TOKEN);
+            out.writeUTF(roomId);
+            out.writeUTF(playerId);
+            out.writeUTF(token);
+        } catch (IOException e) {
+            return onWriteError(e);
+        }
+        return append(record);
+    }
+
+    /**
+     * Ghi bản ghi đóng phòng
+     *
+     * @return Vị trí WAL
+     */
+    long roomClosed(String roomId) {
+        RecordBuffer record = new RecordBuffer();
+        try (DataOutputStream out = new DataOutputStream(record)) {
+            out.writeByte(ROOM_CLOSED);
+            out.writeUTF(roomId);
+        } catch (IOException e) {
+            return onWriteError(e);
+        }
+        return append(record);
+    }
+
+    /**
+     * Chờ các bản ghi đến vị trí cho trước được commit (group commit)
+     */
+    void commit(long position) {
+        try {
+            wal.commit(position);
+        } catch (IOException e) {
+            onWriteError(e);
+        }
+    }
+
+    private long append(RecordBuffer record) {
+        try {
+            return wal.append(record.array(), 0, record.size());
+        } catch (IOException e) {
+            return onWriteError(e);
+        }
+    }
+
+    private long onWriteError(IOException e) {
+        Log.GAME.error("ROOM_STORE", "WAL_WRITE", "Khong the ghi WAL: " + e.getMessage() + " - Durability lost");
+        return 0;
+    }
+
+    private static void writeRoom(GameRoom room, DataOutputStream out) throws IOException {
+        Game game = room.getGame();
+        GameJournal journal = game.getJournal();
+        out.writeUTF(room.getId());
+        out.writeUTF(room.getName());
+        out.writeUTF(room.getHost().getId());
+        out.writeLong(game.getSeed());
+        out.writeInt(journal.size());
+        for (int entry = 0; entry < journal.size(); entry++) {
+            journal.writeEntry(entry, out);
+        }
+    }
+
+    private static void writeSeatTokens(GameRoom room, DataOutputStream out) throws IOException {
+        Map<String, String> tokens = room.getSeatTokens();
+        out.writeInt(tokens.size());
+        for (Map.Entry<String, String> seat : tokens.entrySet()) {
+            out.writeUTF(seat.getKey());
+            out.writeUTF(seat.getValue());
+        }
+    }
+
+    private static void readSeatTokens(DataInput in, RecoveredRoom room) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String playerId = in.readUTF();
+            room.seatTokens.put(playerId, in.readUTF());
+        }
+    }
+
+    private static RecoveredRoom readRoom(DataInput in) throws IOException {
+        String id = in.readUTF();
+        String name = in.readUTF();
+        String hostId = in.readUTF();
+        long seed = in.readLong();
+        int entries = in.readInt();
+        GameJournal journal = new GameJournal();
+        for (int i = 0; i < entries; i++) {
+            journal.readEntry(in);
+        }
+        return new RecoveredRoom(id, name, hostId, seed, journal);
+    }
+
+    /**
+     * Chụp snapshot các phòng rồi xóa các segment WAL không còn cần. Mỗi phòng được chụp trong
+     * mailbox của nó nên không cần dừng server.
+     *
+     * @param rooms Các phòng hiện có
+     * @param live Kiểm tra trong mailbox rằng phòng vẫn còn (chưa bị xóa)
+     * @return true nếu snapshot đã được ghi
+     */
+    boolean snapshot(Collection<GameRoom> rooms, Predicate<GameRoom> live) {
+        long startNanos = System.nanoTime();
+        try {
+            // Mọi bản ghi sau thời điểm này nằm từ segment fromSegment trở đi; trạng thái chụp
+            // bên dưới chứa mọi bản ghi trước đó
+            long fromSegment = wal.roll();
+            List<CompletableFuture<byte[]>> images = new ArrayList<>();
+            for (GameRoom room : rooms) {
+                CompletableFuture<byte[]> image = new CompletableFuture<>();
+                room.execute(() -> {
+                    try {
+                        if (live.test(room)) {
+                            RecordBuffer buffer = new RecordBuffer();
+                            try (DataOutputStream out = new DataOutputStream(buffer)) {
+                                writeRoom(room, out);
+                                writeSeatTokens(room, out);
+                            }
+                            image.complete(buffer.toByteArray());
+                        } else {
+                            image.complete(null);
+                        }
+                    } catch (Throwable t) {
+                        image.completeExceptionally(t);
+                    }
+                });
+                images.add(image);
+            }
+            CompletableFuture.allOf(images.toArray(new CompletableFuture<?>[0]))
+                    .get(SNAPSHOT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+            int roomCount = 0;
+            Path snapshot = directory.resolve(SNAPSHOT_FILE);
+            Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                CheckedOutputStream checked = new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel)), new CRC32C());
+                DataOutputStream out = new DataOutputStream(checked);
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(fromSegment);
+                List<byte[]> written = new ArrayList<>();
+                for (CompletableFuture<byte[]> image : images) {
+                    if (image.get() != null) {
+                        written.add(image.get());
+                    }
+                }
+                out.writeInt(written.size());
+                for (byte[] image : written) {
+                    out.writeInt(image.length);
+                    out.write(image);
+                }
+                out.flush();
+                out.writeInt((int) checked.getChecksum().getValue());
+                out.flush();
+                channel.force(true);
+                roomCount = written.size();
+            }
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // Lần đổi tên phải xuống đĩa trước khi xóa segment, nếu không mất điện có thể để lại
+            // snapshot cũ cùng với WAL đã mất các segment nó cần
+            syncDirectory(directory);
+            int deleted = wal.deleteSegmentsBefore(fromSegment);
+
+            Log.GAME.info("ROOM_STORE", "SNAPSHOT", "Snapshot " + roomCount + " phong, xoa " + deleted
+                    + " segment WAL trong " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + "ms");
+            return true;
+        } catch (IOException | ExecutionException | TimeoutException e) {
+            Log.GAME.error("ROOM_STORE", "SNAPSHOT", "Khong the chup snapshot: " + e + " - WAL duoc giu nguyen");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Force mục của một thư mục (tên file) xuống đĩa. Windows không mở được thư mục như file
+     * và NTFS tự ghi nhật ký thao tác đổi tên, nên bỏ qua ở đó.
+     *
+     * @param directory Thư mục cần force
+     * @throws IOException Nếu force thất bại
+     */
+    private static void syncDirectory(Path directory) throws IOException {
+        if (System.getProperty("os.name", "").startsWith("Windows")) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Đọc snapshot và WAL, chạy lại game của các phòng còn mở
+     *
+     * @return Các phòng khôi phục được, theo thứ tự tạo
+     * @throws IOException Nếu không đọc được snapshot hoặc WAL
+     */
+    List<RecoveredRoom> recover() throws IOException {
+        Map<String, RecoveredRoom> rooms = new LinkedHashMap<>();
+        long fromSegment = readSnapshot(rooms);
+
+        long records = WriteAheadLog.replay(directory, fromSegment, (segment, payload) -> {
+            DataInputStream in = new DataInputStream(new ByteBufferInput(payload));
+            byte kind = in.readByte();
+            switch (kind) {
+                case ROOM_CREATED: {
+                    RecoveredRoom room = readRoom(in);
+                    GameRoom.reserveId(room.id);
+                    // Snapshot có thể đã chứa phòng với nhiều lệnh hơn
+                    rooms.putIfAbsent(room.id, room);
+                    break;
+                }
+                case ACTION: {
+                    String roomId = in.readUTF();
+                    int entry = in.readInt();
+                    RecoveredRoom room = rooms.get(roomId);
+                    if (room == null) {
+                        // Phòng đã đóng
+                        break;
+                    }
+                    if (room.failure != null) {
+                        room.quarantineRecord(payload);
+                    } else if (entry > room.journal.size()) {
+                        room.fail("thieu lenh " + room.journal.size() + " truoc lenh " + entry, payload);
+                    } else if (entry == room.journal.size()) {
+                        try {
+                            room.journal.readEntry(in);
+                        } catch (IOException e) {
+                            room.fail("lenh " + entry + " khong hop le: " + e.getMessage(), payload);
+                        }
+                    }
+                    // Lệnh nhỏ hơn đã nằm trong snapshot
+                    break;
+                }
+                case ROOM_CLOSED:
+                    rooms.remove(in.readUTF());
+                    break;
+                case SEAT_TOKEN: {
+                    RecoveredRoom room = rooms.get(in.readUTF());
+                    String playerId = in.readUTF();
+                    String token = in.readUTF();
+                    if (room != null && room.failure != null) {
+                        room.quarantineRecord(payload);
+                    } else if (room != null) {
+                        room.seatTokens.put(playerId, token);
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Loai ban ghi WAL khong hop le: " + kind);
+            }
+        });
+
+        List<RecoveredRoom> recovered = new ArrayList<>();
+        int quarantined = 0;
+        for (RecoveredRoom room : rooms.values()) {
+            // ID người chơi của phòng bị cách ly cũng được giữ để không cấp trùng
+            for (String playerId : room.journal.getPlayerIds()) {
+                Player.reserveId(playerId);
+            }
+            if (room.failure == null) {
+                try {
+                    room.game = Game.replay(room.seed, room.journal);
+                } catch (RuntimeException e) {
+                    room.failure = "khong the chay lai game: " + e;
+                }
+            }
+            if (room.failure != null) {
+                quarantine(room);
+                quarantined++;
+            } else {
+                recovered.add(room);
+            }
+        }
+        Log.GAME.info("ROOM_STORE", "RECOVER", "Doc " + records + " ban ghi WAL tu segment " + fromSegment
+                + ", khoi phuc " + recovered.size() + " phong, cach ly " + quarantined + " phong");
+        return recovered;
+    }
+
+    /**
+     * Ghi phòng không khôi phục được vào thư mục cách ly: lý do, ảnh chụp những gì đã đọc được
+     * (định dạng ảnh phòng của snapshot) và các bản ghi WAL của phòng từ chỗ hỏng trở đi
+     *
+     * @param room Phòng bị cách ly
+     * @throws IOException Nếu không ghi được; khi đó cả lần khôi phục thất bại để WAL được giữ nguyên
+     */
+    private void quarantine(RecoveredRoom room) throws IOException {
+        Path quarantineDirectory = Files.createDirectories(directory.resolve(QUARANTINE_DIRECTORY));
+        Path file = quarantineDirectory.resolve("room-" + room.id + "-" + System.currentTimeMillis() + ".bin");
+        RecordBuffer image = new RecordBuffer();
+        try (DataOutputStream out = new DataOutputStream(image)) {
+            writeRecoveredRoom(room, out);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(QUARANTINE_MAGIC);
+            out.writeUTF(room.failure);
+            out.writeInt(image.size());
+            out.write(image.array(), 0, image.size());
+            out.writeInt(room.quarantinedRecords.size());
+            for (byte[] record : room.quarantinedRecords) {
+                out.writeInt(record.length);
+                out.write(record);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        syncDirectory(quarantineDirectory);
+        syncDirectory(directory);
+        Log.GAME.error("ROOM_STORE", "QUARANTINE", "Phong " + room.id + " \"" + room.name + "\" khong khoi phuc duoc ("
+                + room.failure + "), da cach ly vao " + file + " - Room recovery failure");
+    }
+
+    private static void writeRecoveredRoom(RecoveredRoom room, DataOutputStream out) throws IOException {
+        out.writeUTF(room.id);
+        out.writeUTF(room.name);
+        out.writeUTF(room.hostId);
+        out.writeLong(room.seed);
+        out.writeInt(room.journal.size());
+        for (int entry = 0; entry < room.journal.size(); entry++) {
+            room.journal.writeEntry(entry, out);
+        }
+        out.writeInt(room.seatTokens.size());
+        for (Map.Entry<String, String> seat : room.seatTokens.entrySet()) {
+            out.writeUTF(seat.getKey());
+            out.writeUTF(seat.getValue());
+        }
+    }
+
+    private long readSnapshot(Map<String, RecoveredRoom> rooms) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        try (InputStream file = new BufferedInputStream(Files.newInputStream(snapshot))) {
+            CheckedInputStream checked = new CheckedInputStream(file, new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("File snapshot khong hop le: " + snapshot);
+            }
+            long fromSegment = in.readLong();
+            int count = in.readInt();
+            List<RecoveredRoom> read = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] image = new byte[in.readInt()];
+                in.readFully(image);
+                DataInputStream roomIn = new DataInputStream(new ByteBufferInput(ByteBuffer.wrap(image)));
+                RecoveredRoom room = readRoom(roomIn);
+                readSeatTokens(roomIn, room);
+                read.add(room);
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Checksum cua snapshot khong khop: " + snapshot);
+            }
+            for (RecoveredRoom room : read) {
+                GameRoom.reserveId(room.id);
+                rooms.put(room.id, room);
+            }
+            return fromSegment;
+        } catch (EOFException e) {
+            throw new IOException("File snapshot bi cat cut: " + snapshot, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        wal.close();
+    }
+
+    /**
+     * Phòng đọc được từ snapshot và WAL
+     */
+    static final class RecoveredRoom {
+        final String id;
+        final String name;
+        final String hostId;
+        final long seed;
+        final GameJournal journal;
+        /** Token phiên của các chỗ ngồi (ID người chơi -> token) */
+        final Map<String, String> seatTokens;
+        Game game;
+        /** Lý do phòng không khôi phục được, null nếu phòng còn tốt */
+        String failure;
+        /** Bản ghi WAL của phòng từ chỗ hỏng trở đi, giữ lại để cách ly */
+        final List<byte[]> quarantinedRecords;
+
+        RecoveredRoom(String id, String name, String hostId, long seed, GameJournal journal) {
+            this.id = id;
+            this.name = name;
+            this.hostId = hostId;
+            this.seed = seed;
+            this.journal = journal;
+            this.seatTokens = new HashMap<>();
+            this.quarantinedRecords = new ArrayList<>();
+        }
+
+        void fail(String reason, ByteBuffer record) {
+            failure = reason;
+            quarantineRecord(record);
+        }
+
+        void quarantineRecord(ByteBuffer record) {
+            byte[] copy = new byte[record.limit()];
+            record.get(0, copy);
+            quarantinedRecords.add(copy);
+        }
+    }
+
+    /**
+     * ByteArrayOutputStream cho phép đọc mảng bên trong mà không sao chép
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+        RecordBuffer() {
+            super(64);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    /**
+     * InputStream đọc từ một ByteBuffer (bản ghi WAL được map từ file)
+     */
+    private static final class ByteBufferInput extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
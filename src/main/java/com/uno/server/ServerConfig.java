@@ -0,0 +1,449 @@
+package com.uno.server;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Cấu hình của server, đọc từ system properties (-Duno.server.xxx=...)
+ */
+public class ServerConfig {
+
+    /**
+     * Mô hình xử lý kết nối của server
+     */
+    public enum Engine {
+        /** Mỗi client một platform thread blocking (mặc định) */
+        THREAD_PER_CLIENT,
+        /** Mỗi client một virtual thread blocking (JDK 21) */
+        VIRTUAL_THREADS,
+        /** Selector/SocketChannel non-blocking với số event loop cố định */
+        NIO
+    }
+
+    /**
+     * Cách xử lý khi hàng đợi gửi của một client đầy (client đọc chậm hơn tốc độ server gửi)
+     */
+    public enum OverflowPolicy {
+        /** Bỏ các cập nhật trạng thái đã lỗi thời; client tự resync khi thấy thiếu phiên bản (mặc định) */
+        DROP_SUPERSEDED,
+        /** Ngắt kết nối client chậm ngay */
+        DISCONNECT
+    }
+
+    /** Số tin nhắn tối đa chờ gửi cho một client */
+    public static final int DEFAULT_OUTBOUND_QUEUE_CAPACITY = 256;
+
+    /** Khoảng gom các thay đổi phòng trước khi công bố danh sách phòng (ms) */
+    public static final long DEFAULT_DIRECTORY_BATCH_MILLIS = 50;
+
+    /** Kích thước mỗi segment của WAL lưu phòng */
+    public static final int DEFAULT_WAL_SEGMENT_BYTES = 16 * 1024 * 1024;
+
+    /** Kích thước segment WAL nhỏ nhất và lớn nhất (segment được map vào bộ nhớ, tối đa 2GB - 1) */
+    public static final int MIN_WAL_SEGMENT_MB = 1;
+    public static final int MAX_WAL_SEGMENT_MB = Integer.MAX_VALUE >> 20;
+
+    /** Khoảng thời gian giữa hai lần chụp snapshot các phòng (giây) */
+    public static final long DEFAULT_SNAPSHOT_INTERVAL_SECONDS = 60;
+
+    /** Thời gian giữ chỗ cho người chơi rớt mạng trong phòng chờ kết nối lại (giây) */
+    public static final long DEFAULT_SESSION_GRACE_SECONDS = 60;
+
+    /** Thời gian kết nối im lặng trước khi server gửi PING (giây) */
+    public static final long DEFAULT_PING_INTERVAL_SECONDS = 15;
+
+    /** Thời gian kết nối im lặng (kể cả không trả lời PING) trước khi bị đóng (giây) */
+    public static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 45;
+
+    /** Số kết nối tối đa server nhận cùng lúc */
+    public static final int DEFAULT_MAX_CONNECTIONS = 20000;
+
+    /** Tốc độ nhận kết nối mới: 500 kết nối/giây, tối đa 1000 liền */
+    public static final RateLimits.Limit DEFAULT_ACCEPT_RATE = new RateLimits.Limit(500, 1000);
+
+    /** Địa chỉ mặc định của trang quản trị HTTP: chỉ nhận kết nối từ chính máy chạy server */
+    public static final String DEFAULT_ADMIN_ADDRESS = "127.0.0.1";
+
+    private final Engine engine;
+    private final int eventLoopThreads;
+    private final int outboundQueueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long directoryBatchMillis;
+    private final int roomWorkerThreads;
+    private final Path dataDirectory;
+    private final boolean walFsync;
+    private final int walSegmentBytes;
+    private final long snapshotIntervalSeconds;
+    private final long sessionGraceSeconds;
+    private final long pingIntervalSeconds;
+    private final long idleTimeoutSeconds;
+    private final RateLimits rateLimits;
+    private final int maxConnections;
+    private final RateLimits.Limit acceptRate;
+    private final String adminAddress;
+    private final int adminPort;
+
+    private ServerConfig(Builder builder) {
+        this.engine = builder.engine;
+        this.eventLoopThreads = Math.max(1, builder.eventLoopThreads);
+        this.outboundQueueCapacity = Math.max(1, builder.outboundQueueCapacity);
+        this.overflowPolicy = builder.overflowPolicy;
+        this.directoryBatchMillis = Math.max(0, builder.directoryBatchMillis);
+        this.roomWorkerThreads = Math.max(1, builder.roomWorkerThreads);
+        this.dataDirectory = builder.dataDirectory;
+        this.walFsync = builder.walFsync;
+        this.walSegmentBytes = Math.max(MIN_WAL_SEGMENT_MB << 20, builder.walSegmentBytes);
+        this.snapshotIntervalSeconds = Math.max(1, builder.snapshotIntervalSeconds);
+        this.sessionGraceSeconds = Math.max(0, builder.sessionGraceSeconds);
+        this.pingIntervalSeconds = Math.max(1, builder.pingIntervalSeconds);
+        this.idleTimeoutSeconds = Math.max(this.pingIntervalSeconds, builder.idleTimeoutSeconds);
+        this.rateLimits = builder.rateLimits != null ? builder.rateLimits : RateLimits.unlimited();
+        this.maxConnections = Math.max(0, builder.maxConnections);
+        this.acceptRate = builder.acceptRate;
+        this.adminAddress = builder.adminAddress != null ? builder.adminAddress : DEFAULT_ADMIN_ADDRESS;
+        this.adminPort = Math.max(0, builder.adminPort);
+    }
+
+    /**
+     * Bắt đầu một cấu hình từ các giá trị mặc định; chỉ cần đặt những tùy chọn khác mặc định
+     *
+     * @return Builder mới
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Cấu hình mặc định: một thread cho mỗi client
+     *
+     * @return Cấu hình mặc định
+     */
+    public static ServerConfig defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Đọc cấu hình từ system properties
+     * <ul>
+     *   <li>uno.server.engine: thread | virtual | nio</li>
+     *   <li>uno.server.eventLoops: số event loop cho engine nio (mặc định bằng số nhân CPU)</li>
+     *   <li>uno.server.outboundQueue: số tin nhắn tối đa chờ gửi cho một client (mặc định 256)</li>
+     *   <li>uno.server.overflowPolicy: drop | disconnect khi hàng đợi gửi đầy (mặc định drop)</li>
+     *   <li>uno.server.directoryBatchMs: khoảng gom thay đổi danh sách phòng (mặc định 50ms)</li>
+     *   <li>uno.server.roomWorkers: số thread chạy mailbox của các phòng (mặc định bằng số nhân CPU)</li>
+     *   <li>uno.server.dataDir: thư mục lưu các phòng để khôi phục khi khởi động lại (mặc định không lưu)</li>
+     *   <li>uno.server.wal.fsync: true | false, chờ WAL được force xuống đĩa sau mỗi lệnh (mặc định true)</li>
+     *   <li>uno.server.wal.segmentMb: kích thước mỗi segment WAL, từ 1 đến 2047 (mặc định 16MB)</li>
+     *   <li>uno.server.snapshotSec: khoảng chụp snapshot các phòng (mặc định 60 giây)</li>
+     *   <li>uno.server.sessionGraceSec: thời gian giữ chỗ cho người chơi rớt mạng (mặc định 60 giây)</li>
+     *   <li>uno.server.pingSec: thời gian kết nối im lặng trước khi server gửi PING (mặc định 15 giây)</li>
+     *   <li>uno.server.idleTimeoutSec: thời gian kết nối im lặng trước khi bị đóng (mặc định 45 giây)</li>
+     *   <li>uno.server.rate.messages, uno.server.rate.chat, uno.server.rate.room, uno.server.rate.game,
+     *       uno.server.rate.query: giới hạn tin nhắn của mỗi kết nối, dạng "tốc độ/sức chứa", 0 để không
+     *       giới hạn (xem {@link RateLimits#defaults()})</li>
+     *   <li>uno.server.maxConnections: số kết nối tối đa, 0 để không giới hạn (mặc định 20000)</li>
+     *   <li>uno.server.rate.accept: tốc độ nhận kết nối mới, dạng "tốc độ/sức chứa" (mặc định 500/1000)</li>
+     *   <li>uno.server.adminPort: port của trang quản trị HTTP trả về JSON (mặc định 0, không bật)</li>
+     *   <li>uno.server.adminAddress: địa chỉ lắng nghe của trang quản trị (mặc định 127.0.0.1)</li>
+     * </ul>
+     *
+     * @return Cấu hình đọc được
+     */
+    public static ServerConfig fromSystemProperties() {
+        String engineName = System.getProperty("uno.server.engine", "thread").trim().toLowerCase();
+        Engine engine;
+        switch (engineName) {
+            case "nio":
+                engine = Engine.NIO;
+                break;
+            case "virtual":
+                engine = Engine.VIRTUAL_THREADS;
+                break;
+            default:
+                engine = Engine.THREAD_PER_CLIENT;
+                break;
+        }
+        OverflowPolicy overflowPolicy =
+                "disconnect".equals(System.getProperty("uno.server.overflowPolicy", "drop").trim().toLowerCase())
+                        ? OverflowPolicy.DISCONNECT
+                        : OverflowPolicy.DROP_SUPERSEDED;
+        String dataDir = System.getProperty("uno.server.dataDir", "").trim();
+        int walSegmentMb = Integer.getInteger("uno.server.wal.segmentMb", DEFAULT_WAL_SEGMENT_BYTES >> 20);
+        // Tính bằng long rồi giới hạn: 2048MB trở lên tràn int thành kích thước âm hoặc 0
+        long walSegmentBytes = (long) Math.min(MAX_WAL_SEGMENT_MB, Math.max(MIN_WAL_SEGMENT_MB, walSegmentMb)) << 20;
+        return builder()
+                .engine(engine)
+                .eventLoopThreads(Integer.getInteger("uno.server.eventLoops", Runtime.getRuntime().availableProcessors()))
+                .outboundQueueCapacity(Integer.getInteger("uno.server.outboundQueue", DEFAULT_OUTBOUND_QUEUE_CAPACITY))
+                .overflowPolicy(overflowPolicy)
+                .directoryBatchMillis(Long.getLong("uno.server.directoryBatchMs", DEFAULT_DIRECTORY_BATCH_MILLIS))
+                .roomWorkerThreads(Integer.getInteger("uno.server.roomWorkers", Runtime.getRuntime().availableProcessors()))
+                .dataDirectory(dataDir.isEmpty() ? null : Paths.get(dataDir))
+                .walFsync(Boolean.parseBoolean(System.getProperty("uno.server.wal.fsync", "true").trim()))
+                .walSegmentBytes((int) walSegmentBytes)
+                .snapshotIntervalSeconds(Long.getLong("uno.server.snapshotSec", DEFAULT_SNAPSHOT_INTERVAL_SECONDS))
+                .sessionGraceSeconds(Long.getLong("uno.server.sessionGraceSec", DEFAULT_SESSION_GRACE_SECONDS))
+                .pingIntervalSeconds(Long.getLong("uno.server.pingSec", DEFAULT_PING_INTERVAL_SECONDS))
+                .idleTimeoutSeconds(Long.getLong("uno.server.idleTimeoutSec", DEFAULT_IDLE_TIMEOUT_SECONDS))
+                .rateLimits(RateLimits.fromSystemProperties())
+                .maxConnections(Integer.getInteger("uno.server.maxConnections", DEFAULT_MAX_CONNECTIONS))
+                .acceptRate(RateLimits.Limit.parse(System.getProperty("uno.server.rate.accept"), DEFAULT_ACCEPT_RATE))
+                .adminAddress(System.getProperty("uno.server.adminAddress", DEFAULT_ADMIN_ADDRESS).trim())
+                .adminPort(Integer.getInteger("uno.server.adminPort", 0))
+                .build();
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
+    public int getEventLoopThreads() {
+        return eventLoopThreads;
+    }
+
+    public int getOutboundQueueCapacity() {
+        return outboundQueueCapacity;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public long getDirectoryBatchMillis() {
+        return directoryBatchMillis;
+    }
+
+    public int getRoomWorkerThreads() {
+        return roomWorkerThreads;
+    }
+
+    /**
+     * @return Thư mục lưu các phòng, null nếu không bật lưu trữ
+     */
+    public Path getDataDirectory() {
+        return dataDirectory;
+    }
+
+    public boolean isWalFsync() {
+        return walFsync;
+    }
+
+    public int getWalSegmentBytes() {
+        return walSegmentBytes;
+    }
+
+    public long getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+
+    public long getSessionGraceSeconds() {
+        return sessionGraceSeconds;
+    }
+
+    public long getPingIntervalSeconds() {
+        return pingIntervalSeconds;
+    }
+
+    public long getIdleTimeoutSeconds() {
+        return idleTimeoutSeconds;
+    }
+
+    public RateLimits getRateLimits() {
+        return rateLimits;
+    }
+
+    /**
+     * @return Số kết nối tối đa, 0 nếu không giới hạn
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return Tốc độ nhận kết nối mới, null nếu không giới hạn
+     */
+    public RateLimits.Limit getAcceptRate() {
+        return acceptRate;
+    }
+
+    public String getAdminAddress() {
+        return adminAddress;
+    }
+
+    /**
+     * @return Port của trang quản trị HTTP, 0 nếu không bật
+     */
+    public int getAdminPort() {
+        return adminPort;
+    }
+
+    /**
+     * Dựng {@link ServerConfig} theo tên tùy chọn thay vì theo vị trí tham số. Mọi tùy chọn bắt đầu
+     * từ giá trị mặc định; giá trị ngoài khoảng hợp lệ được giới hạn khi {@link #build()}.
+     */
+    public static final class Builder {
+        private Engine engine = Engine.THREAD_PER_CLIENT;
+        private int eventLoopThreads = Runtime.getRuntime().availableProcessors();
+        private int outboundQueueCapacity = DEFAULT_OUTBOUND_QUEUE_CAPACITY;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_SUPERSEDED;
+        private long directoryBatchMillis = DEFAULT_DIRECTORY_BATCH_MILLIS;
+        private int roomWorkerThreads = Runtime.getRuntime().availableProcessors();
+        private Path dataDirectory;
+        private boolean walFsync = true;
+        private int walSegmentBytes = DEFAULT_WAL_SEGMENT_BYTES;
+        private long snapshotIntervalSeconds = DEFAULT_SNAPSHOT_INTERVAL_SECONDS;
+        private long sessionGraceSeconds = DEFAULT_SESSION_GRACE_SECONDS;
+        private long pingIntervalSeconds = DEFAULT_PING_INTERVAL_SECONDS;
+        private long idleTimeoutSeconds = DEFAULT_IDLE_TIMEOUT_SECONDS;
+        private RateLimits rateLimits = RateLimits.defaults();
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        private RateLimits.Limit acceptRate = DEFAULT_ACCEPT_RATE;
+        private String adminAddress = DEFAULT_ADMIN_ADDRESS;
+        private int adminPort;
+
+        private Builder() {
+        }
+
+        public Builder engine(Engine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * @param eventLoopThreads Số event loop cho engine NIO
+         */
+        public Builder eventLoopThreads(int eventLoopThreads) {
+            this.eventLoopThreads = eventLoopThreads;
+            return this;
+        }
+
+        /**
+         * @param outboundQueueCapacity Số tin nhắn tối đa chờ gửi cho một client
+         */
+        public Builder outboundQueueCapacity(int outboundQueueCapacity) {
+            this.outboundQueueCapacity = outboundQueueCapacity;
+            return this;
+        }
+
+        public Builder overflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * @param directoryBatchMillis Khoảng gom thay đổi danh sách phòng
+         */
+        public Builder directoryBatchMillis(long directoryBatchMillis) {
+            this.directoryBatchMillis = directoryBatchMillis;
+            return this;
+        }
+
+        /**
+         * @param roomWorkerThreads Số thread chạy mailbox của các phòng
+         */
+        public Builder roomWorkerThreads(int roomWorkerThreads) {
+            this.roomWorkerThreads = roomWorkerThreads;
+            return this;
+        }
+
+        /**
+         * @param dataDirectory Thư mục lưu các phòng (WAL và snapshot), null để không lưu
+         */
+        public Builder dataDirectory(Path dataDirectory) {
+            this.dataDirectory = dataDirectory;
+            return this;
+        }
+
+        /**
+         * @param walFsync true để mỗi lệnh chờ WAL được force xuống đĩa
+         */
+        public Builder walFsync(boolean walFsync) {
+            this.walFsync = walFsync;
+            return this;
+        }
+
+        /**
+         * @param walSegmentBytes Kích thước mỗi segment WAL, ít nhất {@link ServerConfig#MIN_WAL_SEGMENT_MB} MB
+         */
+        public Builder walSegmentBytes(int walSegmentBytes) {
+            this.walSegmentBytes = walSegmentBytes;
+            return this;
+        }
+
+        /**
+         * @param snapshotIntervalSeconds Khoảng chụp snapshot các phòng
+         */
+        public Builder snapshotIntervalSeconds(long snapshotIntervalSeconds) {
+            this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+            return this;
+        }
+
+        /**
+         * @param sessionGraceSeconds Thời gian giữ chỗ cho người chơi rớt mạng
+         */
+        public Builder sessionGraceSeconds(long sessionGraceSeconds) {
+            this.sessionGraceSeconds = sessionGraceSeconds;
+            return this;
+        }
+
+        /**
+         * @param pingIntervalSeconds Thời gian im lặng trước khi gửi PING
+         */
+        public Builder pingIntervalSeconds(long pingIntervalSeconds) {
+            this.pingIntervalSeconds = pingIntervalSeconds;
+            return this;
+        }
+
+        /**
+         * @param idleTimeoutSeconds Thời gian im lặng trước khi đóng kết nối (ít nhất bằng pingIntervalSeconds)
+         */
+        public Builder idleTimeoutSeconds(long idleTimeoutSeconds) {
+            this.idleTimeoutSeconds = idleTimeoutSeconds;
+            return this;
+        }
+
+        /**
+         * @param rateLimits Giới hạn tốc độ gửi tin nhắn của mỗi kết nối, null để không giới hạn
+         */
+        public Builder rateLimits(RateLimits rateLimits) {
+            this.rateLimits = rateLimits;
+            return this;
+        }
+
+        /**
+         * @param maxConnections Số kết nối tối đa, 0 để không giới hạn
+         */
+        public Builder maxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * @param acceptRate Tốc độ nhận kết nối mới, null để không giới hạn
+         */
+        public Builder acceptRate(RateLimits.Limit acceptRate) {
+            this.acceptRate = acceptRate;
+            return this;
+        }
+
+        /**
+         * @param adminAddress Địa chỉ lắng nghe của trang quản trị HTTP
+         */
+        public Builder adminAddress(String adminAddress) {
+            this.adminAddress = adminAddress;
+            return this;
+        }
+
+        /**
+         * @param adminPort Port của trang quản trị HTTP, 0 để tắt
+         */
+        public Builder adminPort(int adminPort) {
+            this.adminPort = adminPort;
+            return this;
+        }
+
+        public ServerConfig build() {
+            return new ServerConfig(this);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.uno.server;
+
+import com.uno.utils.MessageCodec;
+import com.uno.utils.MessageType;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Các chỉ số vận hành của server, dùng chung cho mọi kết nối.
+ * Bộ đếm dùng {@link LongAdder} để nhiều thread cập nhật cùng lúc mà không tranh chấp;
+ * histogram ({@link StripedHistogram}) cũng dựng từ LongAdder. Server công bố đối tượng này qua JMX.
+ */
+public class ServerMetrics implements ServerMetricsMXBean {
+    private static final MessageType[] TYPES = MessageType.values();
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final AtomicLong queuedMessages;
+    private final AtomicInteger maxQueueDepth;
+    private final LongAdder sentMessages;
+    private final LongAdder droppedMessages;
+    private final LongAdder slowConsumerDisconnects;
+    private final LongAdder sessionsResumed;
+    private final LongAdder sessionsExpired;
+    private final LongAdder idleDisconnects;
+    private final LongAdder rateLimitedMessages;
+    private final LongAdder rejectedConnections;
+    private final LongAdder roundTrips;
+    private final LongAdder roundTripNanos;
+    private final LongAdder[] receivedByType;
+    private final LongAdder[] sentByType;
+    private final LongAdder bytesReceived;
+    private final LongAdder bytesSent;
+    private final LongAdder roomsCreated;
+    private final LongAdder gamesStarted;
+    private final LongAdder activeHandlerThreads;
+    private final StripedHistogram dispatchNanos;
+    private final StripedHistogram gameUpdateNanos;
+    private final StripedHistogram broadcastFanOut;
+
+    public ServerMetrics() {
+        this.queuedMessages = new AtomicLong();
+        this.maxQueueDepth = new AtomicInteger();
+        this.sentMessages = new LongAdder();
+        this.droppedMessages = new LongAdder();
+        this.slowConsumerDisconnects = new LongAdder();
+        this.sessionsResumed = new LongAdder();
+        this.sessionsExpired = new LongAdder();
+        this.idleDisconnects = new LongAdder();
+        this.rateLimitedMessages = new LongAdder();
+        this.rejectedConnections = new LongAdder();
+        this.roundTrips = new LongAdder();
+        this.roundTripNanos = new LongAdder();
+        this.receivedByType = newAdders(TYPES.length);
+        this.sentByType = newAdders(TYPES.length);
+        this.bytesReceived = new LongAdder();
+        this.bytesSent = new LongAdder();
+        this.roomsCreated = new LongAdder();
+        this.gamesStarted = new LongAdder();
+        this.activeHandlerThreads = new LongAdder();
+        this.dispatchNanos = new StripedHistogram();
+        this.gameUpdateNanos = new StripedHistogram();
+        this.broadcastFanOut = new StripedHistogram();
+    }
+
+    private static LongAdder[] newAdders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Ghi nhận một tin nhắn vào hàng đợi gửi
+     *
+     * @param depth Độ sâu của hàng đợi sau khi thêm
+     */
+    void messageQueued(int depth) {
+        queuedMessages.incrementAndGet();
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * Ghi nhận một tin nhắn đã rời hàng đợi để ghi ra socket
+     *
+     * @param type Loại tin nhắn
+     * @param payloadBytes Độ dài payload, chưa kể header của frame
+     */
+    void messageDequeued(MessageType type, int payloadBytes) {
+        queuedMessages.decrementAndGet();
+        sentMessages.increment();
+        sentByType[type.ordinal()].increment();
+        bytesSent.add(MessageCodec.HEADER_SIZE + payloadBytes);
+    }
+
+    /**
+     * Ghi nhận một frame đã đọc trọn vẹn từ client
+     *
+     * @param frameBytes Độ dài frame, kể cả header
+     */
+    void frameReceived(int frameBytes) {
+        bytesReceived.add(frameBytes);
+    }
+
+    /**
+     * Ghi nhận một tin nhắn đã giải mã từ client
+     */
+    void messageReceived(MessageType type) {
+        receivedByType[type.ordinal()].increment();
+    }
+
+    /**
+     * Ghi nhận thời gian thread của client xử lý một tin nhắn
+     */
+    void messageDispatched(long nanos) {
+        dispatchNanos.record(nanos);
+    }
+
+    /**
+     * Ghi nhận một lần công bố thay đổi của game cho cả phòng
+     *
+     * @param nanos Thời gian dựng và xếp hàng GAME_DELTA cho mọi người chơi
+     */
+    void gameStateUpdated(long nanos) {
+        gameUpdateNanos.record(nanos);
+    }
+
+    /**
+     * Ghi nhận số người nhận của một lần phát tin nhắn
+     */
+    void broadcastSent(int recipients) {
+        broadcastFanOut.record(recipients);
+    }
+
+    void roomCreated() {
+        roomsCreated.increment();
+    }
+
+    void gameStarted() {
+        gamesStarted.increment();
+    }
+
+    /**
+     * Ghi nhận một thread bắt đầu hoặc kết thúc vòng đọc của một client
+     *
+     * @param delta 1 khi bắt đầu, -1 khi kết thúc
+     */
+    void handlerThreadChanged(int delta) {
+        activeHandlerThreads.add(delta);
+    }
+
+    /**
+     * Ghi nhận các tin nhắn bị bỏ khỏi hàng đợi (bị thay thế hoặc kết nối đã đóng)
+     *
+     * @param count Số tin nhắn bị bỏ
+     */
+    void messagesDropped(int count) {
+        if (count > 0) {
+            queuedMessages.addAndGet(-count);
+            droppedMessages.add(count);
+        }
+    }
+
+    /**
+     * Ghi nhận một client bị ngắt vì không đọc kịp dữ liệu
+     */
+    void slowConsumerDisconnected() {
+        slowConsumerDisconnects.increment();
+    }
+
+    /**
+     * Ghi nhận một người chơi đã kết nối lại vào phiên cũ
+     */
+    void sessionResumed() {
+        sessionsResumed.increment();
+    }
+
+    /**
+     * Ghi nhận một phiên hết thời gian ân hạn mà người chơi không kết nối lại
+     */
+    void sessionExpired() {
+        sessionsExpired.increment();
+    }
+
+    /**
+     * Ghi nhận một kết nối bị đóng vì im lặng quá thời gian cho phép
+     */
+    void idleDisconnected() {
+        idleDisconnects.increment();
+    }
+
+    /**
+     * Ghi nhận một tin nhắn bị bỏ vì kết nối gửi vượt giới hạn tốc độ
+     */
+    void messageRateLimited() {
+        rateLimitedMessages.increment();
+    }
+
+    /**
+     * Ghi nhận một kết nối bị từ chối vì server đã đủ kết nối hoặc nhận kết nối quá nhanh
+     */
+    void connectionRejected() {
+        rejectedConnections.increment();
+    }
+
+    /**
+     * Ghi nhận RTT đo được từ một cặp PING/PONG
+     *
+     * @param nanos Thời gian từ lúc gửi PING đến lúc nhận PONG
+     */
+    void roundTripMeasured(long nanos) {
+        roundTrips.increment();
+        roundTripNanos.add(nanos);
+    }
+
+    /**
+     * @return Tổng số tin nhắn đang chờ gửi trên mọi kết nối
+     */
+    @Override
+    public long getQueuedMessages() {
+        return queuedMessages.get();
+    }
+
+    /**
+     * @return Độ sâu lớn nhất từng ghi nhận của một hàng đợi gửi
+     */
+    @Override
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    @Override
+    public long getReceivedMessages() {
+        long total = 0;
+        for (LongAdder adder : receivedByType) {
+            total += adder.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getSentMessages() {
+        return sentMessages.sum();
+    }
+
+    @Override
+    public long getDroppedMessages() {
+        return droppedMessages.sum();
+    }
+
+    @Override
+    public long getSlowConsumerDisconnects() {
+        return slowConsumerDisconnects.sum();
+    }
+
+    @Override
+    public long getSessionsResumed() {
+        return sessionsResumed.sum();
+    }
+
+    @Override
+    public long getSessionsExpired() {
+        return sessionsExpired.sum();
+    }
+
+    @Override
+    public long getIdleDisconnects() {
+        return idleDisconnects.sum();
+    }
+
+    @Override
+    public long getRateLimitedMessages() {
+        return rateLimitedMessages.sum();
+    }
+
+    @Override
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    /**
+     * @return RTT trung bình (ms) của mọi cặp PING/PONG đã đo, 0 nếu chưa đo lần nào
+     */
+    @Override
+    public double getAverageRoundTripMillis() {
+        long count = roundTrips.sum();
+        return count == 0 ? 0.0 : roundTripNanos.sum() / 1e6 / count;
+    }
+
+    @Override
+    public Map<String, Long> getReceivedMessagesByType() {
+        return countsByType(receivedByType);
+    }
+
+    @Override
+    public Map<String, Long> getSentMessagesByType() {
+        return countsByType(sentByType);
+    }
+
+    private static Map<String, Long> countsByType(LongAdder[] adders) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (MessageType type : TYPES) {
+            long count = adders[type.ordinal()].sum();
+            if (count > 0) {
+                counts.put(type.name(), count);
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getRoomsCreated() {
+        return roomsCreated.sum();
+    }
+
+    @Override
+    public long getGamesStarted() {
+        return gamesStarted.sum();
+    }
+
+    @Override
+    public long getActiveHandlerThreads() {
+        return activeHandlerThreads.sum();
+    }
+
+    @Override
+    public HistogramSnapshot getDispatchLatencyMicros() {
+        return dispatchNanos.snapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getGameUpdateLatencyMicros() {
+        return gameUpdateNanos.snapshot(NANOS_PER_MICRO);
+    }
+
+    @Override
+    public HistogramSnapshot getBroadcastFanOut() {
+        return broadcastFanOut.snapshot(1);
+    }
+
+    @Override
+    public String toString() {
+        return "queued=" + getQueuedMessages() + ", maxQueueDepth=" + getMaxQueueDepth() +
+                ", received=" + getReceivedMessages() + ", sent=" + getSentMessages() +
+                ", bytesReceived=" + getBytesReceived() + ", bytesSent=" + getBytesSent() +
+                ", dropped=" + getDroppedMessages() +
+                ", slowConsumerDisconnects=" + getSlowConsumerDisconnects() +
+                ", sessionsResumed=" + getSessionsResumed() + ", sessionsExpired=" + getSessionsExpired() +
+                ", idleDisconnects=" + getIdleDisconnects() +
+                ", rateLimitedMessages=" + getRateLimitedMessages() +
+                ", rejectedConnections=" + getRejectedConnections() +
+                ", avgRttMs=" + String.format("%.2f", getAverageRoundTripMillis());
+    }
+}
@@ -0,0 +1,68 @@
+package com.uno.server;
+
+import java.util.Map;
+
+/**
+ * Các chỉ số của {@link ServerMetrics} được công bố qua JMX (ObjectName
+ * com.uno.server:type=ServerMetrics,port=&lt;port&gt;). Bộ đếm là tổng từ lúc server khởi động.
+ */
+public interface ServerMetricsMXBean {
+
+    /** @return Số tin nhắn đang chờ gửi trên mọi kết nối */
+    long getQueuedMessages();
+
+    /** @return Độ sâu lớn nhất từng ghi nhận của một hàng đợi gửi */
+    int getMaxQueueDepth();
+
+    /** @return Số tin nhắn đã nhận từ client */
+    long getReceivedMessages();
+
+    /** @return Số tin nhắn đã ghi ra socket */
+    long getSentMessages();
+
+    /** @return Số tin nhắn đã nhận theo loại (chỉ các loại đã xuất hiện) */
+    Map<String, Long> getReceivedMessagesByType();
+
+    /** @return Số tin nhắn đã ghi ra socket theo loại (chỉ các loại đã xuất hiện) */
+    Map<String, Long> getSentMessagesByType();
+
+    /** @return Số byte frame (kể cả header) đã nhận */
+    long getBytesReceived();
+
+    /** @return Số byte frame (kể cả header) đã ghi ra socket */
+    long getBytesSent();
+
+    long getDroppedMessages();
+
+    long getSlowConsumerDisconnects();
+
+    long getSessionsResumed();
+
+    long getSessionsExpired();
+
+    long getIdleDisconnects();
+
+    long getRateLimitedMessages();
+
+    long getRejectedConnections();
+
+    /** @return Số phòng đã được tạo */
+    long getRoomsCreated();
+
+    /** @return Số ván đã bắt đầu */
+    long getGamesStarted();
+
+    /** @return Số thread đang chạy vòng đọc của một client (engine thread và virtual) */
+    long getActiveHandlerThreads();
+
+    double getAverageRoundTripMillis();
+
+    /** @return Thời gian thread của client xử lý một tin nhắn (micro giây), không gồm phần chạy sau trong mailbox của phòng */
+    HistogramSnapshot getDispatchLatencyMicros();
+
+    /** @return Thời gian công bố thay đổi của game cho cả phòng trong GameRoom.updateGameState (micro giây) */
+    HistogramSnapshot getGameUpdateLatencyMicros();
+
+    /** @return Số người nhận của mỗi lần phát cho cả phòng hoặc cho các client ở sảnh */
+    HistogramSnapshot getBroadcastFanOut();
+}
@@ -0,0 +1,121 @@
+package com.uno.server;
+
+import com.uno.model.Player;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Phiên của một người chơi, nhận diện bằng token ngẫu nhiên gửi cho client sau CONNECT.
+ *
+ * Khi kết nối rớt trong lúc người chơi đang ở trong phòng, phiên được tách khỏi kết nối
+ * ({@link #detach(ClientHandler)}) và giữ chỗ trong một khoảng thời gian ân hạn; client kết
+ * nối lại bằng token sẽ gắn kết nối mới vào phiên ({@link #attach(ClientHandler, ClientHandler)}).
+ * Mỗi lần tách phiên tăng số epoch, nên lệnh hết hạn của một lần tách cũ không thể đóng phiên
+ * đã được gắn lại rồi tách lần nữa.
+ */
+final class Session {
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 16;
+
+    private final String token;
+    private final Player player;
+
+    // Được bảo vệ bởi khóa của this
+    private ClientHandler handler;
+    private long epoch;
+    private boolean closed;
+
+    /**
+     * @param player Người chơi của phiên
+     * @param handler Kết nối hiện tại, null với chỗ của phòng khôi phục sau khi server khởi động lại
+     */
+    Session(Player player, ClientHandler handler) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        this.token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        this.player = player;
+        this.handler = handler;
+    }
+
+    /**
+     * Phiên chưa có kết nối giữ chỗ của phòng khôi phục, với token đã lưu cùng chỗ ngồi
+     *
+     * @param token Token cấp cho người chơi trước khi server khởi động lại
+     * @param player Người chơi của phiên
+     */
+    Session(String token, Player player) {
+        this.token = token;
+        this.player = player;
+        this.handler = null;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    Player getPlayer() {
+        return player;
+    }
+
+    synchronized ClientHandler getHandler() {
+        return handler;
+    }
+
+    /**
+     * Gắn kết nối mới vào phiên nếu phiên vẫn đang mở và kết nối hiện tại đúng như mong đợi
+     *
+     * @param expected Kết nối hiện tại mà người gọi đã thấy (null nếu phiên đang tách)
+     * @param newHandler Kết nối mới
+     * @return true nếu đã gắn
+     */
+    synchronized boolean attach(ClientHandler expected, ClientHandler newHandler) {
+        if (closed || handler != expected) {
+            return false;
+        }
+        handler = newHandler;
+        epoch++;
+        return true;
+    }
+
+    /**
+     * Tách kết nối khỏi phiên để giữ chỗ cho người chơi
+     *
+     * @param current Kết nối vừa đóng
+     * @return Epoch của lần tách, -1 nếu kết nối không còn sở hữu phiên
+     */
+    synchronized long detach(ClientHandler current) {
+        if (closed || handler != current) {
+            return -1;
+        }
+        handler = null;
+        return ++epoch;
+    }
+
+    /**
+     * Đóng phiên nếu nó vẫn đang tách kể từ lần tách có epoch cho trước
+     *
+     * @return true nếu phiên đã hết hạn và bị đóng bởi lời gọi này
+     */
+    synchronized boolean expire(long detachEpoch) {
+        if (closed || handler != null || epoch != detachEpoch) {
+            return false;
+        }
+        closed = true;
+        return true;
+    }
+
+    /**
+     * Đóng phiên khi người chơi chủ động rời đi
+     *
+     * @param current Kết nối đang đóng
+     * @return true nếu kết nối sở hữu phiên và phiên đã bị đóng bởi lời gọi này
+     */
+    synchronized boolean close(ClientHandler current) {
+        if (closed || handler != current) {
+            return false;
+        }
+        closed = true;
+        return true;
+    }
+}
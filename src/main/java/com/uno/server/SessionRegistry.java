@@ -0,0 +1,294 @@
+package com.uno.server;
+
+import com.uno.model.Player;
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Sổ đăng ký dùng chung của server: các client đang kết nối, các phòng và hai chỉ mục
+ * playerId → phòng, playerId → handler. Mọi thao tác tra cứu là O(1), không phụ thuộc
+ * số phòng server đang chạy, và an toàn khi gọi đồng thời từ nhiều thread xử lý client.
+ *
+ * Chỉ mục playerId → phòng được ghi ngay trên thread xử lý client (giữ chỗ khi vào phòng,
+ * trả chỗ khi rời phòng) nên các yêu cầu kế tiếp của cùng người chơi thấy ngay phòng mới
+ * và được xếp vào đúng mailbox. Thay đổi danh sách người chơi của phòng và việc xóa phòng
+ * trống chạy trong mailbox của phòng, cùng thứ tự với các hành động game.
+ *
+ * Các phòng còn được giữ trong {@link RoomNameIndex} theo tên để trả lời truy vấn
+ * danh sách phòng theo trang; chỉ mục được cập nhật cùng lúc với map phòng.
+ *
+ * Mỗi người chơi có một {@link Session} tra theo token để kết nối lại sau khi rớt mạng.
+ * Nếu server bật lưu trữ, việc tạo và xóa phòng được ghi vào {@link RoomStore}. Phòng khôi phục
+ * sau khi server khởi động lại giữ chỗ cho người chơi cũ bằng các phiên chưa có kết nối, mang
+ * token đã lưu cùng phòng; người chơi chỉ nhận lại chỗ bằng RESUME với token đó.
+ */
+class SessionRegistry {
+    private final Set<ClientHandler> clients;
+    private final Map<String, GameRoom> rooms;
+    private final Map<String, GameRoom> roomByPlayer;
+    private final Map<String, ClientHandler> handlerByPlayer;
+    private final RoomNameIndex nameIndex;
+    private final Map<String, Session> sessions;
+    private final Executor roomExecutor;
+    private final RoomStore store;
+    private final ServerMetrics metrics;
+
+    /**
+     * @param roomExecutor Executor dùng chung chạy mailbox của các phòng
+     * @param store Nơi lưu các phòng, null nếu không bật lưu trữ
+     * @param metrics Chỉ số của server, truyền cho các phòng
+     */
+    SessionRegistry(Executor roomExecutor, RoomStore store, ServerMetrics metrics) {
+        this.clients = ConcurrentHashMap.newKeySet();
+        this.rooms = new ConcurrentHashMap<>();
+        this.roomByPlayer = new ConcurrentHashMap<>();
+        this.handlerByPlayer = new ConcurrentHashMap<>();
+        this.nameIndex = new RoomNameIndex();
+        this.sessions = new ConcurrentHashMap<>();
+        this.roomExecutor = roomExecutor;
+        this.store = store;
+        this.metrics = metrics;
+    }
+
+    void addClient(ClientHandler client) {
+        clients.add(client);
+    }
+
+    /**
+     * Xóa client và liên kết người chơi của nó. Client phải rời phòng trước khi gọi.
+     *
+     * @param client Client đã ngắt kết nối
+     */
+    void removeClient(ClientHandler client) {
+        clients.remove(client);
+        Player player = client.getPlayer();
+        if (player != null) {
+            handlerByPlayer.remove(player.getId(), client);
+        }
+    }
+
+    /**
+     * Ghi nhận người chơi của client sau khi client gửi CONNECT
+     *
+     * @param player Người chơi
+     * @param client Handler của người chơi
+     */
+    void bindPlayer(Player player, ClientHandler client) {
+        handlerByPlayer.put(player.getId(), client);
+    }
+
+    ClientHandler getHandler(String playerId) {
+        return handlerByPlayer.get(playerId);
+    }
+
+    /**
+     * Mở phiên mới cho người chơi vừa CONNECT
+     *
+     * @param player Người chơi
+     * @param client Kết nối của người chơi
+     * @return Phiên mới
+     */
+    Session openSession(Player player, ClientHandler client) {
+        Session session = new Session(player, client);
+        sessions.put(session.getToken(), session);
+        return session;
+    }
+
+    /**
+     * @param token Token client gửi kèm RESUME
+     * @return Phiên tương ứng, null nếu token không tồn tại hoặc phiên đã đóng
+     */
+    Session getSession(String token) {
+        return token != null ? sessions.get(token) : null;
+    }
+
+    void removeSession(Session session) {
+        sessions.remove(session.getToken(), session);
+    }
+
+    int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Tạo phòng mới với người chơi làm chủ phòng
+     *
+     * @param roomName Tên phòng
+     * @param host Chủ phòng
+     * @return Phòng được tạo, null nếu người chơi chưa kết nối hoặc đang ở trong phòng khác
+     */
+    GameRoom createRoom(String roomName, Player host) {
+        ClientHandler hostHandler = handlerByPlayer.get(host.getId());
+        if (hostHandler == null || roomByPlayer.containsKey(host.getId())) {
+            return null;
+        }
+
+        GameRoom room = new GameRoom(roomName, host, hostHandler, roomExecutor, metrics);
+        if (roomByPlayer.putIfAbsent(host.getId(), room) != null) {
+            return null;
+        }
+        if (store != null) {
+            room.execute(() -> room.attachStore(store, true));
+        }
+        rooms.put(room.getId(), room);
+        nameIndex.add(room);
+        metrics.roomCreated();
+        return room;
+    }
+
+    /**
+     * Giữ chỗ cho người chơi trong phòng trước khi mailbox của phòng xử lý việc vào phòng
+     *
+     * @param roomId ID của phòng
+     * @param playerId ID của người chơi
+     * @return Phòng đã giữ chỗ, null nếu phòng không tồn tại hoặc người chơi đang ở phòng khác
+     */
+    GameRoom reserveSeat(String roomId, String playerId) {
+        GameRoom room = rooms.get(roomId);
+        if (room == null || roomByPlayer.putIfAbsent(playerId, room) != null) {
+            return null;
+        }
+        return room;
+    }
+
+    /**
+     * Thêm người chơi đã giữ chỗ vào phòng; trả chỗ nếu không vào được.
+     * Chỉ gọi trong mailbox của phòng.
+     *
+     * @param room Phòng đã giữ chỗ
+     * @param player Người chơi
+     * @param handler Handler của người chơi
+     * @return true nếu người chơi đã vào phòng
+     */
+    boolean joinRoom(GameRoom room, Player player, ClientHandler handler) {
+        // Phòng có thể vừa bị xóa, hoặc người chơi đã rời phòng trước khi lệnh này chạy
+        if (rooms.get(room.getId()) == room && roomByPlayer.get(player.getId()) == room
+                && room.addPlayer(player, handler)) {
+            return true;
+        }
+        roomByPlayer.remove(player.getId(), room);
+        return false;
+    }
+
+    /**
+     * Trả chỗ của người chơi; việc xóa người chơi khỏi phòng được xếp sau đó vào mailbox
+     * của phòng bằng {@link #removePlayer(GameRoom, String)}
+     *
+     * @param playerId ID của người chơi
+     * @return Phòng người chơi vừa rời, null nếu người chơi không ở phòng nào
+     */
+    GameRoom leaveRoom(String playerId) {
+        return roomByPlayer.remove(playerId);
+    }
+
+    /**
+     * Xóa người chơi khỏi phòng, xóa phòng nếu không còn ai. Chỉ gọi trong mailbox của phòng.
+     *
+     * @param room Phòng người chơi đã rời
+     * @param playerId ID của người chơi
+     */
+    void removePlayer(GameRoom room, String playerId) {
+        room.removePlayer(playerId);
+        if (room.getPlayerCount() == 0 && rooms.remove(room.getId(), room)) {
+            nameIndex.remove(room);
+            if (store != null) {
+                store.roomClosed(room.getId());
+            }
+        }
+    }
+
+    /**
+     * Xóa phòng; liên kết người chơi → phòng được xóa trong mailbox của phòng
+     *
+     * @param roomId ID của phòng
+     * @return true nếu phòng tồn tại
+     */
+    boolean removeRoom(String roomId) {
+        GameRoom room = rooms.remove(roomId);
+        if (room == null) {
+            return false;
+        }
+        nameIndex.remove(room);
+        room.execute(() -> {
+            for (String playerId : room.getPlayerIds()) {
+                roomByPlayer.remove(playerId, room);
+            }
+            if (store != null) {
+                store.roomClosed(room.getId());
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Đưa phòng khôi phục sau khi server khởi động lại vào sổ đăng ký; mỗi người chơi của phòng
+     * có một phiên chưa có kết nối mang token đã lưu của chỗ đó, nhận lại bằng RESUME. Chỗ không có
+     * token đã lưu (bản ghi token chưa kịp ghi khi server dừng đột ngột) nhận token mới không ai
+     * biết nên chỉ chờ hết hạn.
+     *
+     * @param room Phòng đã khôi phục
+     * @return Các phiên giữ chỗ của phòng
+     */
+    List<Session> restoreRoom(GameRoom room) {
+        if (store != null) {
+            room.execute(() -> room.attachStore(store, false));
+        }
+        rooms.put(room.getId(), room);
+        nameIndex.add(room);
+        List<Session> seats = new ArrayList<>();
+        for (Player player : room.getGame().getPlayers()) {
+            roomByPlayer.put(player.getId(), room);
+            String token = room.getSeatToken(player.getId());
+            Session seat = token != null ? new Session(token, player) : new Session(player, null);
+            sessions.put(seat.getToken(), seat);
+            seats.add(seat);
+        }
+        return seats;
+    }
+
+    GameRoom getRoom(String roomId) {
+        return rooms.get(roomId);
+    }
+
+    GameRoom getRoomByPlayer(String playerId) {
+        return roomByPlayer.get(playerId);
+    }
+
+    /**
+     * Trả lời truy vấn danh sách phòng theo trang từ chỉ mục tên phòng
+     *
+     * @param query Truy vấn của client
+     * @return Trang kết quả
+     */
+    RoomPage queryRooms(RoomQuery query) {
+        return nameIndex.query(query);
+    }
+
+    Collection<GameRoom> getRooms() {
+        return rooms.values();
+    }
+
+    Collection<ClientHandler> getClients() {
+        return clients;
+    }
+
+    int getClientCount() {
+        return clients.size();
+    }
+
+    int getRoomCount() {
+        return rooms.size();
+    }
+
+    void clearClients() {
+        clients.clear();
+    }
+}
@@ -0,0 +1,147 @@
+package com.uno.server;
+
+import com.uno.utils.Log;
+import com.uno.utils.Message;
+import com.uno.utils.MessageCodec;
+import com.uno.utils.PayloadCodec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Kết nối blocking dựa trên {@link Socket}, dùng cho mô hình một thread cho mỗi client.
+ *
+ * Thread của client chỉ đọc. Việc ghi do một task writer đảm nhận: task được giao cho
+ * executor của server khi hàng đợi gửi có tin nhắn và kết thúc khi hàng đợi rỗng,
+ * nên client rảnh không giữ thêm thread nào và client chậm chỉ chặn writer của chính nó.
+ */
+class SocketConnection implements BlockingConnection {
+    private final Socket socket;
+    private final DataInputStream input;
+    private final DataOutputStream output;
+    private final Executor writerExecutor;
+    private final AtomicBoolean writerScheduled;
+    private final ServerMetrics metrics;
+    private OutboundQueue outbound;
+    private volatile PayloadCodec codec;
+    private volatile long bytesReceived;
+
+    SocketConnection(Socket socket, Executor writerExecutor, ServerMetrics metrics) throws IOException {
+        this.socket = socket;
+        this.socket.setTcpNoDelay(true);
+        this.socket.setKeepAlive(true);
+        this.input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        this.writerExecutor = writerExecutor;
+        this.writerScheduled = new AtomicBoolean(false);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Message receive() throws IOException, ClassNotFoundException {
+        if (codec == null) {
+            handshake();
+        }
+        int length = input.readInt();
+        MessageCodec.checkFrameLength(length);
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        metrics.frameReceived(MessageCodec.HEADER_SIZE + length);
+        bytesReceived += MessageCodec.HEADER_SIZE + length;
+        return codec.decode(payload, 0, length);
+    }
+
+    /**
+     * Đọc handshake của client và trả lời bằng phiên bản giao thức được chọn.
+     * Chạy trên thread của client thay vì thread accept để client chậm không chặn server.
+     */
+    private void handshake() throws IOException {
+        PayloadCodec negotiated = MessageCodec.negotiate(MessageCodec.readHandshake(input));
+        // Server chỉ gửi tin nhắn sau khi nhận tin nhắn đầu tiên, nên writer chưa thể chạy ở đây
+        MessageCodec.writeHandshake(output, negotiated.version());
+        codec = negotiated;
+        Log.NETWORK.info("SERVER", "HANDSHAKE",
+                "Thong nhat protocol version " + negotiated.version() + " voi " + getRemoteAddress());
+    }
+
+    @Override
+    public PayloadCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public void bindOutbound(OutboundQueue outbound) {
+        this.outbound = outbound;
+    }
+
+    @Override
+    public void requestFlush() {
+        if (!writerScheduled.compareAndSet(false, true)) {
+            // Writer đang chạy sẽ lấy luôn tin nhắn mới
+            return;
+        }
+        try {
+            writerExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // Server đang dừng, kết nối sẽ bị đóng
+            writerScheduled.set(false);
+        }
+    }
+
+    /**
+     * Ghi lần lượt các tin nhắn trong hàng đợi gửi cho đến khi hàng đợi rỗng.
+     * Chỉ flush socket khi hết tin nhắn để gom nhiều frame vào một lần ghi.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                byte[] payload = outbound.poll();
+                if (payload == null) {
+                    output.flush();
+                    writerScheduled.set(false);
+                    // Tin nhắn thêm vào sau lần poll cuối nhưng trước khi xóa cờ chưa có ai gửi
+                    if (outbound.isEmpty() || !writerScheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                output.writeInt(payload.length);
+                output.write(payload);
+            }
+        } catch (IOException e) {
+            Log.NETWORK.error("SERVER", "SEND_ERROR",
+                    "Loi ghi du lieu den " + getRemoteAddress() + ": " + e.getMessage() + " - TCP transmission failure");
+            // Đóng socket để thread đọc của client thoát và dọn dẹp handler
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Socket đã hỏng
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        if (outbound != null) {
+            outbound.clear();
+        }
+    }
+
+    @Override
+    public String getRemoteAddress() {
+        return socket.getInetAddress().getHostAddress() + ":" + socket.getPort();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+}
@@ -0,0 +1,104 @@
+package com.uno.server;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram cho chỉ số của server (độ trễ, số người nhận một lần phát), ghi từ nhiều thread
+ * cùng lúc mà không tranh chấp: mỗi ô là một {@link LongAdder}. Giá trị dưới 32 được đếm chính
+ * xác; từ đó trở lên mỗi khoảng [2^k, 2^(k+1)) được chia thành 16 ô bằng nhau nên phân vị có sai
+ * số tương đối không quá 1/16. Giá trị lớn hơn 2^40 (~18 phút tính bằng nano giây) được ghi vào ô cuối.
+ */
+final class StripedHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT / 2;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private final LongAdder[] counts;
+    private final LongAdder count;
+    private final LongAdder sum;
+    private final LongAccumulator max;
+
+    StripedHistogram() {
+        this.counts = new LongAdder[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+        this.count = new LongAdder();
+        this.sum = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    /**
+     * Ghi một giá trị, giá trị âm được coi là 0
+     */
+    void record(long value) {
+        long clamped = Math.max(0, Math.min(value, MAX_VALUE));
+        counts[indexOf(clamped)].increment();
+        count.increment();
+        sum.add(clamped);
+        max.accumulate(clamped);
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        int sub = (int) (value >>> shift);
+        return SUB_COUNT + (shift - 1) * HALF_COUNT + (sub - HALF_COUNT);
+    }
+
+    /**
+     * Giá trị lớn nhất thuộc một ô
+     */
+    private static long highestValueOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_COUNT) / HALF_COUNT + 1;
+        long sub = (index - SUB_COUNT) % HALF_COUNT + HALF_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Chụp số liệu hiện tại. Các ô được đọc lần lượt trong khi thread khác vẫn ghi nên ảnh chụp
+     * chỉ gần đúng tại một thời điểm, đủ cho việc theo dõi.
+     *
+     * @param unit Số đơn vị gốc trong một đơn vị báo cáo, ví dụ 1000 để đổi nano giây ra micro giây
+     * @return Ảnh chụp theo đơn vị báo cáo
+     */
+    HistogramSnapshot snapshot(double unit) {
+        long[] buckets = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts[i].sum();
+            total += buckets[i];
+        }
+        long largest = max.get();
+        double mean = total == 0 ? 0.0 : sum.sum() / (double) total / unit;
+        return new HistogramSnapshot(total, mean,
+                percentile(buckets, total, 50, largest) / unit,
+                percentile(buckets, total, 90, largest) / unit,
+                percentile(buckets, total, 99, largest) / unit,
+                percentile(buckets, total, 99.9, largest) / unit,
+                largest / unit);
+    }
+
+    private static long percentile(long[] buckets, long total, double percentile, long largest) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), largest);
+            }
+        }
+        return largest;
+    }
+}
@@ -0,0 +1,217 @@
+package com.uno.server;
+
+import com.uno.utils.Log;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Bộ hẹn giờ dạng hashed timing wheel cho số lượng lớn hẹn giờ có độ chính xác thấp
+ * (thời hạn của từng kết nối, thời gian giữ chỗ của phiên).
+ *
+ * Thời gian được chia thành các tick cố định; hẹn giờ có hạn ở tick t nằm trong ô t mod số ô,
+ * kèm số vòng quay còn lại. Mỗi tick chỉ duyệt một ô, nên đặt, hủy và hết hạn một hẹn giờ đều
+ * O(1) bất kể có bao nhiêu hẹn giờ đang chờ, khác với hàng đợi ưu tiên của
+ * {@link java.util.concurrent.ScheduledExecutorService} (O(log n) mỗi lần đặt/hủy).
+ *
+ * Wheel không có thread riêng: {@link #advance(long)} được gọi định kỳ từ một thread duy nhất
+ * (thread hẹn giờ của server) và chạy các tác vụ hết hạn trên thread đó, nên tác vụ phải ngắn.
+ * {@link #schedule(Runnable, long, TimeUnit)} và {@link Timeout#cancel()} gọi được từ mọi
+ * thread: hẹn giờ mới và hẹn giờ bị hủy được chuyển qua hàng đợi không khóa, chỉ thread gọi
+ * advance mới sửa các ô.
+ */
+final class TimingWheel {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    /**
+     * Một hẹn giờ đã đặt
+     */
+    static final class Timeout {
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state;
+
+        // Chỉ dùng trên thread gọi advance
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout previous;
+        private Timeout next;
+
+        private Timeout(TimingWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Hủy hẹn giờ nếu nó chưa chạy
+         *
+         * @return true nếu đã hủy; false nếu tác vụ đã chạy hoặc đã bị hủy trước đó
+         */
+        boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        boolean isCancelled() {
+            return state == CANCELLED;
+        }
+    }
+
+    /**
+     * Danh sách liên kết đôi các hẹn giờ của một ô, để gỡ một hẹn giờ bị hủy trong O(1)
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.previous = tail;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.previous == null) {
+                head = timeout.next;
+            } else {
+                timeout.previous.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.previous;
+            } else {
+                timeout.next.previous = timeout.previous;
+            }
+            timeout.bucket = null;
+            timeout.previous = null;
+            timeout.next = null;
+        }
+    }
+
+    private final long tickNanos;
+    private final int mask;
+    private final Bucket[] buckets;
+    private final long startTime;
+    private final Queue<Timeout> added;
+    private final Queue<Timeout> cancelled;
+
+    // Tick tiếp theo cần xử lý; chỉ dùng trên thread gọi advance
+    private long tick;
+
+    /**
+     * @param tickDuration Độ dài một tick, cũng là độ chính xác của hẹn giờ
+     * @param unit Đơn vị của tickDuration
+     * @param wheelSize Số ô, làm tròn lên lũy thừa của 2
+     * @param startTime Mốc thời gian (System.nanoTime()) của tick 0
+     */
+    TimingWheel(long tickDuration, TimeUnit unit, int wheelSize, long startTime) {
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(Math.max(2, wheelSize) * 2 - 1);
+        this.mask = size - 1;
+        this.buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.startTime = startTime;
+        this.added = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Đặt hẹn giờ. Tác vụ chạy ở tick đầu tiên sau thời hạn, trên thread gọi {@link #advance(long)}.
+     *
+     * @param task Tác vụ cần chạy
+     * @param delay Thời gian chờ
+     * @param unit Đơn vị của delay
+     * @return Hẹn giờ, dùng để hủy
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Xử lý mọi tick đến thời điểm cho trước: đưa hẹn giờ mới vào ô, gỡ hẹn giờ bị hủy và chạy
+     * các hẹn giờ đã hết hạn. Chỉ được gọi từ một thread.
+     *
+     * @param now Thời điểm hiện tại (System.nanoTime())
+     */
+    void advance(long now) {
+        long lastTick = (now - startTime) / tickNanos;
+        while (tick <= lastTick) {
+            transferAdded();
+            removeCancelled();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state != PENDING) {
+                continue;
+            }
+            // Tick đầu tiên mà thời hạn đã qua; hẹn giờ quá hạn chạy ngay ở tick đang xử lý
+            long deadlineTick = Math.max(tick, ceilDiv(timeout.deadline - startTime, tickNanos));
+            timeout.remainingRounds = (deadlineTick - tick) / buckets.length;
+            buckets[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            // Hẹn giờ bị hủy trước khi được đưa vào ô chưa có bucket
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        Timeout timeout = bucket.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                bucket.remove(timeout);
+                if (Timeout.STATE.compareAndSet(timeout, PENDING, EXPIRED)) {
+                    run(timeout.task);
+                }
+            }
+            timeout = next;
+        }
+    }
+
+    private static void run(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            Log.NETWORK.error("SERVER", "TIMER_TASK_ERROR",
+                    "Loi khi chay tac vu hen gio: " + e + " - Timer task failure");
+        }
+    }
+
+    private static long ceilDiv(long value, long divisor) {
+        return value <= 0 ? 0 : (value + divisor - 1) / divisor;
+    }
+}
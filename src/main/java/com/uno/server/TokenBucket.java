@@ -0,0 +1,45 @@
+package com.uno.server;
+
+/**
+ * Token bucket giới hạn tốc độ: mỗi lần được phép tốn một token, token được nạp lại đều đặn
+ * theo thời gian và tích lũy tối đa bằng sức chứa (cho phép một đợt ngắn vượt tốc độ trung bình).
+ *
+ * Không đồng bộ: bucket của một kết nối chỉ được dùng trên thread đọc của kết nối đó,
+ * người dùng chung một bucket từ nhiều thread phải tự khóa.
+ */
+final class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param limit Tốc độ và sức chứa
+     * @param now Thời điểm tạo (System.nanoTime()); bucket bắt đầu đầy
+     */
+    TokenBucket(RateLimits.Limit limit, long now) {
+        this.capacity = limit.getBurst();
+        this.tokensPerNano = limit.getPerSecond() / 1e9;
+        this.tokens = capacity;
+        this.lastRefill = now;
+    }
+
+    /**
+     * Lấy một token nếu còn
+     *
+     * @param now Thời điểm hiện tại (System.nanoTime())
+     * @return true nếu được phép
+     */
+    boolean tryAcquire(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefill = now;
+        }
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}
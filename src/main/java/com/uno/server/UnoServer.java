@@ -1,107 +1,280 @@
 package com.uno.server;
 
 import com.uno.model.Player;
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomQuery;
+import com.uno.protocol.RoomSnapshot;
+import com.uno.utils.Log;
 import com.uno.utils.Message;
 import com.uno.utils.MessageType;
-import com.uno.utils.StringUtils;
 
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
- * Main server class for Uno game handling client connections and game rooms
+ * Main server class for Uno game handling client connections and game rooms.
+ *
+ * Khi chạy, server công bố trạng thái ({@link UnoServerMXBean}) và các chỉ số
+ * ({@link ServerMetricsMXBean}) qua JMX để xem bằng jconsole/VisualVM hoặc JMX exporter.
  */
-public class UnoServer {
+public class UnoServer implements UnoServerMXBean {
     private static final int DEFAULT_PORT = 5000;
     
+    /** ID dùng làm người gửi cho tin nhắn của server; ID người chơi bắt đầu từ 1 */
+    private static final String SERVER_ID = "0";
+    
+    /** Độ dài một tick của timing wheel (ms), cũng là độ chính xác của hẹn giờ kết nối và phiên */
+    private static final long WHEEL_TICK_MILLIS = 100;
+    
+    /** Số ô của timing wheel: một vòng quay 51.2 giây, đủ cho thời hạn mặc định mà không cần nhiều vòng */
+    private static final int WHEEL_SIZE = 512;
+    /** Thời gian tối đa chờ lần snapshot định kỳ đang chạy khi đóng server */
+    private static final long SNAPSHOT_SHUTDOWN_SECONDS = 15;
+    
     private final String serverId;
     private final int port;
     private ServerSocket serverSocket;
     private final ExecutorService clientThreadPool;
-    private final List<ClientHandler> clients;
-    private final Map<String, GameRoom> rooms;
+    private final ExecutorService roomExecutor;
+    private final SessionRegistry registry;
+    private final RoomDirectoryPublisher directory;
+    private final ServerConfig config;
+    private final ServerMetrics metrics;
+    private final ScheduledExecutorService timer;
+    private final ScheduledExecutorService snapshotTimer;
+    private final TimingWheel wheel;
+    private final RoomStore store;
+    private final TokenBucket acceptBucket;
+    // Số kết nối đã được nhận và chưa đóng; tăng ngay trên thread accept nên không phụ thuộc vào lúc
+    // handler được đăng ký (event loop của NIO đăng ký sau), và không tính kết nối bị từ chối
+    private final AtomicInteger admittedConnections = new AtomicInteger();
+    private ScheduledFuture<?> snapshotTask;
+    private boolean storeClosed;
+    private NioServer nioServer;
+    private AdminServer adminServer;
     private volatile boolean running;
+    // Khóa riêng cho đăng ký JMX, để lần khởi tạo MBeanServer chậm không giữ khóa của server
+    private final Object mbeanLock = new Object();
+    private boolean mbeansRegistered;
     
     public UnoServer() {
         this(DEFAULT_PORT);
     }
     
     public UnoServer(int port) {
-        this.serverId = UUID.randomUUID().toString();
+        this(port, ServerConfig.defaults());
+    }
+    
+    public UnoServer(int port, ServerConfig config) {
+        this.serverId = SERVER_ID;
         this.port = port;
-        this.clientThreadPool = Executors.newCachedThreadPool();
-        this.clients = new ArrayList<>();
-        this.rooms = new HashMap<>();
+        this.config = config;
+        this.metrics = new ServerMetrics();
+        this.clientThreadPool = config.getEngine() == ServerConfig.Engine.VIRTUAL_THREADS
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool();
+        // Mailbox của mọi phòng dùng chung một pool nhỏ; logic game không chặn nên không cần nhiều thread
+        AtomicInteger roomWorkerCount = new AtomicInteger();
+        this.roomExecutor = Executors.newFixedThreadPool(config.getRoomWorkerThreads(), task -> {
+            Thread thread = new Thread(task, "room-worker-" + roomWorkerCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Timing wheel (hạn của từng kết nối, hết hạn phiên) chạy trên một thread hẹn giờ dùng chung
+        this.timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "server-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Snapshot chờ mailbox của mọi phòng và ghi đĩa nên có thread riêng, để không làm trễ
+        // các tick của timing wheel
+        this.snapshotTimer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "room-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.wheel = new TimingWheel(WHEEL_TICK_MILLIS, TimeUnit.MILLISECONDS, WHEEL_SIZE, System.nanoTime());
+        timer.scheduleAtFixedRate(() -> wheel.advance(System.nanoTime()), WHEEL_TICK_MILLIS, WHEEL_TICK_MILLIS,
+                TimeUnit.MILLISECONDS);
+        this.acceptBucket = config.getAcceptRate() != null
+                ? new TokenBucket(config.getAcceptRate(), System.nanoTime()) : null;
+        this.store = openStore(config);
+        this.registry = new SessionRegistry(roomExecutor, store, metrics);
+        this.directory = new RoomDirectoryPublisher(registry, serverId, config.getDirectoryBatchMillis(), metrics);
         this.running = false;
     }
     
+    /**
+     * Mở nơi lưu các phòng nếu cấu hình có thư mục dữ liệu; lỗi mở chỉ làm server chạy không lưu
+     */
+    private static RoomStore openStore(ServerConfig config) {
+        if (config.getDataDirectory() == null) {
+            return null;
+        }
+        try {
+            return RoomStore.open(config.getDataDirectory(), config.getWalSegmentBytes(), config.isWalFsync());
+        } catch (IOException e) {
+            Log.GAME.error("SERVER_MAIN", "ROOM_STORE", "Khong the mo thu muc du lieu " + config.getDataDirectory()
+                    + ": " + e.getMessage() + " - Chay khong luu tru");
+            return null;
+        }
+    }
+    
+    /**
+     * Khôi phục các phòng từ snapshot và WAL, chụp snapshot mới rồi lên lịch chụp định kỳ. Nếu
+     * khôi phục thất bại thì không chụp snapshot nào trong lần chạy này: snapshot sẽ không chứa
+     * các phòng chưa đọc được và xóa mất các segment WAL của chúng.
+     */
+    private void restoreRooms() {
+        if (store == null) {
+            return;
+        }
+        try {
+            for (RoomStore.RecoveredRoom recovered : store.recover()) {
+                GameRoom room = GameRoom.restore(recovered.id, recovered.name, recovered.hostId, recovered.game,
+                        recovered.seatTokens, roomExecutor, metrics);
+                if (room != null) {
+                    directory.roomChanged(room.getId());
+                    // Người chơi cũ có cùng thời gian ân hạn như khi rớt mạng để kết nối lại
+                    for (Session seat : registry.restoreRoom(room)) {
+                        scheduleExpiry(seat, 0);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            Log.GAME.error("SERVER_MAIN", "ROOM_STORE", "Khong the khoi phuc phong: " + e.getMessage()
+                    + " - Recovery failure, snapshot disabled and WAL segments kept");
+            return;
+        }
+        // Snapshot ngay sau khi khôi phục để lần khởi động sau không phải đọc lại các segment cũ
+        snapshotRooms();
+        long interval = config.getSnapshotIntervalSeconds();
+        synchronized (this) {
+            snapshotTask = snapshotTimer.scheduleWithFixedDelay(this::snapshotRooms, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+    
+    private void snapshotRooms() {
+        store.snapshot(registry.getRooms(), room -> registry.getRoom(room.getId()) == room);
+    }
+    
+    /**
+     * Chụp snapshot lần cuối và đóng nơi lưu; chỉ có tác dụng ở lần gọi đầu tiên
+     */
+    private synchronized void closeStore() {
+        if (store == null || storeClosed) {
+            return;
+        }
+        storeClosed = true;
+        if (snapshotTask != null) {
+            snapshotTask.cancel(false);
+            // Chờ lần chụp định kỳ đang chạy (nếu có) xong trước khi chụp lần cuối
+            snapshotTimer.shutdown();
+            try {
+                snapshotTimer.awaitTermination(SNAPSHOT_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            snapshotRooms();
+        }
+        try {
+            store.close();
+        } catch (IOException e) {
+            Log.GAME.error("SERVER_MAIN", "ROOM_STORE", "Loi dong WAL: " + e.getMessage());
+        }
+    }
+    
     /**
      * Starts the server and begins accepting client connections
      */
     public void start() {
         try {
-            System.out.println("[SERVER] Starting UNO Online Server...");
-            System.out.println("[TCP] Creating ServerSocket on port " + port);
-            
-            serverSocket = new ServerSocket(port);
             running = true;
+            // Lần đầu lấy MBeanServer của JVM mất vài trăm ms: đăng ký trên thread hẹn giờ để không
+            // làm chậm việc mở cổng
+            timer.execute(this::registerMBeans);
+            restoreRooms();
+            startAdmin();
             
-            System.out.println("[SERVER] ServerSocket created on port " + port);
-            System.out.println("[TCP] Binding to 0.0.0.0:" + port);
-            System.out.println("[TCP] Listening for incoming connections...");
-            System.out.println("[THREADING] Thread Pool initialized: 100 threads");
-            System.out.println("[THREADING] Thread Model: One-Thread-Per-Client");
-            
-            System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "STARTUP", 
-                    "Khoi tao TCP server socket tren port " + port + " - Server socket initialization"));
-            
-            // Wait for client connections
-            while (running) {
+            if (config.getEngine() == ServerConfig.Engine.NIO) {
+                nioServer = new NioServer(this, port, config.getEventLoopThreads());
+                Log.NETWORK.info("SERVER_MAIN", "STARTUP", 
+                        "Khoi tao NIO server channel tren port " + port + " - Selector event loop initialization");
+                nioServer.start();
+            } else {
+                acceptThreadPerClient();
+            }
+        } catch (IOException e) {
+            Log.NETWORK.error("SERVER_MAIN", "STARTUP_ERROR", 
+                    "Loi khoi tao server socket: " + e.getMessage() + " - Socket bind failure");
+        } finally {
+            stop();
+        }
+    }
+    
+    /**
+     * Vòng lặp accept blocking, giao mỗi client cho một thread trong thread pool
+     * (platform thread hoặc virtual thread tùy cấu hình)
+     * 
+     * @throws IOException Nếu không mở được server socket
+     */
+    private void acceptThreadPerClient() throws IOException {
+        serverSocket = new ServerSocket(port);
+        
+        Log.NETWORK.info("SERVER_MAIN", "STARTUP", 
+                "Khoi tao TCP server socket tren port " + port + " - Server socket initialization, thread model: " +
+                (config.getEngine() == ServerConfig.Engine.VIRTUAL_THREADS
+                        ? "One-Virtual-Thread-Per-Client" : "One-Thread-Per-Client"));
+        
+        // Wait for client connections
+        while (running) {
+            try {
+                Socket clientSocket = serverSocket.accept();
+                String clientAddress = clientSocket.getInetAddress().getHostAddress();
+                int clientPort = clientSocket.getPort();
+                
+                Log.NETWORK.info("SERVER_MAIN", "ACCEPT_CONNECTION", 
+                        "Ket noi TCP moi tu client: " + clientAddress + ":" + clientPort + 
+                        " - Connection accept event");
+                
+                // Create and start handler for client
+                String rejection = admitConnection();
+                SocketConnection connection;
                 try {
-                    Socket clientSocket = serverSocket.accept();
-                    String clientAddress = clientSocket.getInetAddress().getHostAddress();
-                    int clientPort = clientSocket.getPort();
-                    
-                    System.out.println("[TCP] TCP Handshake completed");
-                    System.out.println("[SERVER] Client connected from " + clientAddress + ":" + clientPort);
-                    System.out.println("[SOCKET] Remote Address: /" + clientAddress + ":" + clientPort);
-                    System.out.println("[SOCKET] Local Address: /" + serverSocket.getInetAddress().getHostAddress() + ":" + port);
-                    
-                    System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "ACCEPT_CONNECTION", 
-                            "Ket noi TCP moi tu client: " + clientAddress + ":" + clientPort + 
-                            " - Connection accept event"));
-                    
-                    // Create and start handler for client
-                    ClientHandler clientHandler = new ClientHandler(clientSocket, this);
-                    clients.add(clientHandler);
-                    
-                    System.out.println("[THREAD] New thread assigned to client_" + String.format("%03d", clients.size()));
-                    System.out.printf("[THREAD-POOL] Active: %d | Idle: %d | Queue: 0%n", 
-                                    clientThreadPool instanceof java.util.concurrent.ThreadPoolExecutor ? 
-                                    ((java.util.concurrent.ThreadPoolExecutor)clientThreadPool).getActiveCount() : clients.size(),
-                                    100 - clients.size());
-                    
-                    clientThreadPool.execute(clientHandler);
+                    connection = new SocketConnection(clientSocket, clientThreadPool, metrics);
                 } catch (IOException e) {
-                    if (running) {
-                        System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "ACCEPT_ERROR", 
-                                "Loi khi xu ly accept() operation: " + e.getMessage() + " - Socket accept failure"));
+                    if (rejection == null) {
+                        releaseConnection();
                     }
+                    throw e;
+                }
+                ClientHandler clientHandler = new ClientHandler(connection, this);
+                if (rejection != null) {
+                    clientHandler.rejectAdmission(rejection);
+                }
+                addClient(clientHandler);
+                
+                clientThreadPool.execute(() -> clientHandler.readLoop(connection));
+            } catch (IOException e) {
+                if (running) {
+                    Log.NETWORK.error("SERVER_MAIN", "ACCEPT_ERROR", 
+                            "Loi khi xu ly accept() operation: " + e.getMessage() + " - Socket accept failure");
                 }
             }
-        } catch (IOException e) {
-            System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "STARTUP_ERROR", 
-                    "Loi khoi tao server socket: " + e.getMessage() + " - Socket bind failure"));
-        } finally {
-            stop();
         }
     }
     
@@ -111,38 +284,192 @@ public class UnoServer {
     public void stop() {
         running = false;
         
-        System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "SHUTDOWN", 
-                "Bat dau qua trinh dong server - Server shutdown initiated"));
+        Log.NETWORK.info("SERVER_MAIN", "SHUTDOWN", 
+                "Bat dau qua trinh dong server - Server shutdown initiated");
+        
+        // Chụp snapshot và đóng nơi lưu trước khi ngắt client, để các phòng không bị ghi là đã đóng
+        closeStore();
         
         // Close all client connections
         int closedConnections = 0;
-        for (ClientHandler client : clients) {
+        for (ClientHandler client : registry.getClients()) {
             client.close();
             closedConnections++;
         }
-        System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "CONNECTION_CLEANUP", 
-                "Da dong " + closedConnections + " ket noi client - Client socket cleanup"));
-        clients.clear();
+        Log.NETWORK.info("SERVER_MAIN", "CONNECTION_CLEANUP", 
+                "Da dong " + closedConnections + " ket noi client - Client socket cleanup");
+        registry.clearClients();
+        
+        directory.stop();
+        
+        // Stop NIO event loops
+        if (nioServer != null) {
+            nioServer.stop();
+        }
+        
+        Log.NETWORK.info("SERVER_MAIN", "METRICS", 
+                "Chi so hang doi gui: " + metrics + " - Outbound queue statistics");
+        unregisterMBeans();
+        synchronized (this) {
+            if (adminServer != null) {
+                adminServer.stop();
+                adminServer = null;
+            }
+        }
         
         // Shut down thread pool
         clientThreadPool.shutdown();
-        System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "THREAD_CLEANUP", 
-                "Thread pool da shutdown - Resource cleanup"));
+        roomExecutor.shutdown();
+        timer.shutdownNow();
+        snapshotTimer.shutdownNow();
+        Log.NETWORK.info("SERVER_MAIN", "THREAD_CLEANUP", 
+                "Thread pool da shutdown - Resource cleanup");
         
         // Close server socket
         try {
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close();
-                System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "SOCKET_CLOSE", 
-                        "Server socket da dong - Main listening socket closed"));
+                Log.NETWORK.info("SERVER_MAIN", "SOCKET_CLOSE", 
+                        "Server socket da dong - Main listening socket closed");
             }
         } catch (IOException e) {
-            System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "SOCKET_CLOSE_ERROR", 
-                    "Loi dong server socket: " + e.getMessage() + " - Socket shutdown error"));
+            Log.NETWORK.error("SERVER_MAIN", "SOCKET_CLOSE_ERROR", 
+                    "Loi dong server socket: " + e.getMessage() + " - Socket shutdown error");
         }
         
-        System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "SHUTDOWN_COMPLETE", 
-                "Server da dung hoan toan - All resources released"));
+        Log.NETWORK.info("SERVER_MAIN", "SHUTDOWN_COMPLETE", 
+                "Server da dung hoan toan - All resources released");
+    }
+    
+    /**
+     * Đăng ký MBean của server và của chỉ số với MBeanServer của JVM. Tên có kèm port để nhiều
+     * server trong cùng tiến trình không trùng nhau; lỗi đăng ký chỉ được ghi log.
+     * Không làm gì nếu server đã dừng trước khi kịp đăng ký.
+     */
+    private void registerMBeans() {
+        synchronized (mbeanLock) {
+            if (!running || mbeansRegistered) {
+                return;
+            }
+            MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+            try {
+                mbeans.registerMBean(this, serverObjectName());
+                mbeans.registerMBean(metrics, metricsObjectName());
+                mbeansRegistered = true;
+                Log.NETWORK.info("SERVER_MAIN", "JMX", "Cong bo MBean " + serverObjectName() + ", " + metricsObjectName());
+            } catch (JMException e) {
+                Log.NETWORK.warn("SERVER_MAIN", "JMX", "Khong the dang ky MBean: " + e.getMessage());
+            }
+        }
+    }
+    
+    private void unregisterMBeans() {
+        synchronized (mbeanLock) {
+            if (!mbeansRegistered) {
+                return;
+            }
+            mbeansRegistered = false;
+            MBeanServer mbeans = ManagementFactory.getPlatformMBeanServer();
+            try {
+                for (ObjectName name : new ObjectName[] {serverObjectName(), metricsObjectName()}) {
+                    if (mbeans.isRegistered(name)) {
+                        mbeans.unregisterMBean(name);
+                    }
+                }
+            } catch (JMException e) {
+                Log.NETWORK.warn("SERVER_MAIN", "JMX", "Khong the huy dang ky MBean: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Mở trang quản trị HTTP nếu cấu hình có port; lỗi mở port chỉ được ghi log, server vẫn chạy
+     */
+    private void startAdmin() {
+        if (config.getAdminPort() == 0) {
+            return;
+        }
+        try {
+            AdminServer admin = new AdminServer(this, registry, roomExecutor);
+            synchronized (this) {
+                if (!running) {
+                    admin.stop();
+                    return;
+                }
+                adminServer = admin;
+            }
+            admin.start();
+        } catch (IOException e) {
+            Log.NETWORK.error("SERVER_MAIN", "ADMIN", "Khong the mo trang quan tri tren " + config.getAdminAddress()
+                    + ":" + config.getAdminPort() + ": " + e.getMessage());
+        }
+    }
+    
+    private ObjectName serverObjectName() throws JMException {
+        return new ObjectName("com.uno.server:type=UnoServer,port=" + port);
+    }
+    
+    private ObjectName metricsObjectName() throws JMException {
+        return new ObjectName("com.uno.server:type=ServerMetrics,port=" + port);
+    }
+    
+    /**
+     * Kiểm soát số kết nối: quyết định nhận hay từ chối một kết nối vừa accept. Kết nối bị từ
+     * chối vẫn được handshake để client nhận CONNECT_REJECT thay vì thấy socket bị đóng ngang.
+     * Gọi từ thread accept, trước {@link #addClient(ClientHandler)}. Kết nối được nhận giữ một
+     * chỗ cho đến khi handler của nó đóng ({@link #removeClient(ClientHandler)}), hoặc đến
+     * {@link #releaseConnection()} nếu không dựng được handler.
+     * 
+     * @return Lý do từ chối, null nếu kết nối được nhận
+     */
+    synchronized String admitConnection() {
+        String rejection = null;
+        int maxConnections = config.getMaxConnections();
+        if (!reserveConnection(maxConnections)) {
+            rejection = "Server da du " + maxConnections + " ket noi";
+        } else if (acceptBucket != null && !acceptBucket.tryAcquire(System.nanoTime())) {
+            releaseConnection();
+            rejection = "Server dang qua tai, vui long thu lai sau";
+        }
+        if (rejection != null) {
+            metrics.connectionRejected();
+            Log.NETWORK.debug("SERVER_MAIN", "ADMISSION_REJECT", rejection + " - Admission control");
+        }
+        return rejection;
+    }
+    
+    /**
+     * Giữ một chỗ trong số kết nối tối đa
+     * 
+     * @param maxConnections Số kết nối tối đa, 0 nếu không giới hạn
+     * @return true nếu còn chỗ
+     */
+    private boolean reserveConnection(int maxConnections) {
+        while (true) {
+            int admitted = admittedConnections.get();
+            if (maxConnections > 0 && admitted >= maxConnections) {
+                return false;
+            }
+            if (admittedConnections.compareAndSet(admitted, admitted + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Trả chỗ của một kết nối đã được nhận
+     */
+    void releaseConnection() {
+        admittedConnections.decrementAndGet();
+    }
+    
+    /**
+     * Thêm client vào danh sách
+     * 
+     * @param client Client mới kết nối
+     */
+    void addClient(ClientHandler client) {
+        registry.addClient(client);
     }
     
     /**
@@ -151,7 +478,135 @@ public class UnoServer {
      * @param client Client cần xóa
      */
     public void removeClient(ClientHandler client) {
-        clients.remove(client);
+        directory.unsubscribe(client);
+        registry.removeClient(client);
+        // Kết nối bị từ chối không giữ chỗ, kể cả khi còn chờ gửi xong CONNECT_REJECT
+        if (client.isAdmitted()) {
+            releaseConnection();
+        }
+    }
+    
+    /**
+     * Ghi nhận người chơi của client sau khi client gửi CONNECT
+     * 
+     * @param player Người chơi
+     * @param client Handler của người chơi
+     */
+    void bindPlayer(Player player, ClientHandler client) {
+        registry.bindPlayer(player, client);
+    }
+    
+    /**
+     * Mở phiên cho người chơi vừa CONNECT
+     * 
+     * @param player Người chơi mới
+     * @param client Kết nối của người chơi
+     * @return Phiên mới, token được gửi cho client
+     */
+    Session openSession(Player player, ClientHandler client) {
+        return registry.openSession(player, client);
+    }
+    
+    /**
+     * Gắn kết nối mới vào phiên theo token. Nếu kết nối cũ của phiên vẫn chưa bị phát hiện là
+     * đã chết (kết nối nửa mở), nó bị đóng mà không rời phòng.
+     * 
+     * @param token Token client gửi kèm RESUME
+     * @param client Kết nối mới
+     * @return Phiên đã gắn, null nếu token không hợp lệ hoặc phiên đã hết hạn
+     */
+    Session resumeSession(String token, ClientHandler client) {
+        Session session = registry.getSession(token);
+        if (session == null) {
+            return null;
+        }
+        ClientHandler previous = session.getHandler();
+        if (!session.attach(previous, client)) {
+            return null;
+        }
+        metrics.sessionResumed();
+        if (previous != null) {
+            previous.close();
+        }
+        return session;
+    }
+    
+    /**
+     * Giữ chỗ cho người chơi có kết nối vừa rớt trong thời gian ân hạn
+     * 
+     * @param session Phiên của người chơi
+     * @param client Kết nối vừa rớt
+     * @return true nếu đã giữ chỗ; false nếu phiên đã thuộc về kết nối khác
+     */
+    boolean holdSeat(Session session, ClientHandler client) {
+        long epoch = session.detach(client);
+        if (epoch < 0) {
+            return false;
+        }
+        scheduleExpiry(session, epoch);
+        return true;
+    }
+    
+    /**
+     * Đóng phiên khi người chơi chủ động rời đi hoặc rớt mạng khi không ở trong phòng nào
+     * 
+     * @param session Phiên của người chơi
+     * @param client Kết nối đang đóng
+     * @return true nếu kết nối sở hữu phiên; người gọi phải trả chỗ của người chơi
+     */
+    boolean endSession(Session session, ClientHandler client) {
+        if (!session.close(client)) {
+            return false;
+        }
+        registry.removeSession(session);
+        return true;
+    }
+    
+    private void scheduleExpiry(Session session, long epoch) {
+        wheel.schedule(() -> expireSession(session, epoch), config.getSessionGraceSeconds(), TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Đặt hẹn giờ trên timing wheel của server; tác vụ chạy trên thread hẹn giờ nên phải ngắn
+     * 
+     * @param task Tác vụ cần chạy
+     * @param delayNanos Thời gian chờ (ns)
+     * @return Hẹn giờ, dùng để hủy
+     */
+    TimingWheel.Timeout scheduleTimeout(Runnable task, long delayNanos) {
+        return wheel.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private void expireSession(Session session, long epoch) {
+        if (!session.expire(epoch)) {
+            return;
+        }
+        registry.removeSession(session);
+        metrics.sessionExpired();
+        Log.NETWORK.info("SERVER", "SESSION_EXPIRED", "Het thoi gian cho " + session.getPlayer().getName()
+                + " ket noi lai, tra cho trong phong - Session grace period elapsed");
+        vacateSeat(session.getPlayer().getId());
+    }
+    
+    /**
+     * Trả chỗ của người chơi và xóa người chơi khỏi phòng trong mailbox của phòng; những người
+     * còn lại nhận thông tin phòng mới
+     * 
+     * @param playerId ID của người chơi
+     * @return true nếu người chơi đã ở trong một phòng
+     */
+    boolean vacateSeat(String playerId) {
+        GameRoom room = registry.leaveRoom(playerId);
+        if (room == null) {
+            return false;
+        }
+        room.execute(() -> {
+            removePlayer(room, playerId);
+            if (room.getPlayerCount() > 0) {
+                room.broadcast(new Message(MessageType.ROOM_UPDATE, room.getSnapshot(), serverId));
+            }
+        });
+        return true;
     }
     
     /**
@@ -159,17 +614,64 @@ public class UnoServer {
      * 
      * @param roomName Tên phòng
      * @param host Người chơi chủ phòng
-     * @return Phòng được tạo
+     * @return Phòng được tạo, null nếu người chơi chưa kết nối hoặc đang ở trong phòng khác
      */
     public GameRoom createRoom(String roomName, Player host) {
-        for (ClientHandler client : clients) {
-            if (client.getPlayer() != null && client.getPlayer().getId().equals(host.getId())) {
-                GameRoom room = new GameRoom(roomName, host, client);
-                rooms.put(room.getId(), room);
-                return room;
-            }
+        GameRoom room = registry.createRoom(roomName, host);
+        if (room != null) {
+            directory.roomChanged(room.getId());
         }
-        return null;
+        return room;
+    }
+    
+    /**
+     * Giữ chỗ cho người chơi trong phòng; người chơi vào phòng khi mailbox của phòng chạy
+     * {@link #joinRoom(GameRoom, Player, ClientHandler)}
+     * 
+     * @param roomId ID của phòng
+     * @param playerId ID của người chơi
+     * @return Phòng đã giữ chỗ, null nếu không thể tham gia
+     */
+    GameRoom reserveSeat(String roomId, String playerId) {
+        return registry.reserveSeat(roomId, playerId);
+    }
+    
+    /**
+     * Thêm người chơi đã giữ chỗ vào phòng. Chỉ gọi trong mailbox của phòng.
+     * 
+     * @param room Phòng đã giữ chỗ
+     * @param player Người chơi
+     * @param handler Handler của người chơi
+     * @return true nếu người chơi đã vào phòng
+     */
+    boolean joinRoom(GameRoom room, Player player, ClientHandler handler) {
+        boolean joined = registry.joinRoom(room, player, handler);
+        if (joined) {
+            directory.roomChanged(room.getId());
+        }
+        return joined;
+    }
+    
+    /**
+     * Trả chỗ của người chơi trong phòng hiện tại; sau đó phải xếp
+     * {@link #removePlayer(GameRoom, String)} vào mailbox của phòng
+     * 
+     * @param playerId ID của người chơi
+     * @return Phòng người chơi vừa rời, null nếu người chơi không ở phòng nào
+     */
+    GameRoom leaveRoom(String playerId) {
+        return registry.leaveRoom(playerId);
+    }
+    
+    /**
+     * Xóa người chơi khỏi phòng; phòng trống bị xóa. Chỉ gọi trong mailbox của phòng.
+     * 
+     * @param room Phòng người chơi đã rời
+     * @param playerId ID của người chơi
+     */
+    void removePlayer(GameRoom room, String playerId) {
+        registry.removePlayer(room, playerId);
+        directory.roomChanged(room.getId());
     }
     
     /**
@@ -179,7 +681,20 @@ public class UnoServer {
      * @return true nếu xóa thành công, ngược lại false
      */
     public boolean removeRoom(String roomId) {
-        return rooms.remove(roomId) != null;
+        boolean removed = registry.removeRoom(roomId);
+        if (removed) {
+            directory.roomChanged(roomId);
+        }
+        return removed;
+    }
+    
+    /**
+     * Báo thông tin hiển thị của phòng đã thay đổi (ví dụ game bắt đầu) để cập nhật danh sách phòng
+     * 
+     * @param room Phòng đã thay đổi
+     */
+    void roomChanged(GameRoom room) {
+        directory.roomChanged(room.getId());
     }
     
     /**
@@ -189,57 +704,67 @@ public class UnoServer {
      * @return Phòng tương ứng nếu tồn tại, ngược lại null
      */
     public GameRoom getRoom(String roomId) {
-        return rooms.get(roomId);
+        return registry.getRoom(roomId);
     }
     
     /**
-     * Lấy phòng chứa người chơi
+     * Lấy phòng chứa người chơi (tra chỉ mục, O(1))
      * 
      * @param playerId ID của người chơi
      * @return Phòng chứa người chơi nếu tồn tại, ngược lại null
      */
     public GameRoom getRoomByPlayer(String playerId) {
-        for (GameRoom room : rooms.values()) {
-            for (Player player : room.getGame().getPlayers()) {
-                if (player.getId().equals(playerId)) {
-                    return room;
-                }
-            }
-        }
-        return null;
+        return registry.getRoomByPlayer(playerId);
     }
     
     /**
-     * Lấy danh sách phòng
+     * Lấy danh sách phòng đã công bố gần nhất (trễ tối đa một khoảng gom so với các phòng).
+     * Danh sách được dùng chung và không sửa được; lấy danh sách không tốn cấp phát.
      * 
      * @return Danh sách phòng
      */
     public List<Map<String, Object>> getRoomList() {
-        List<Map<String, Object>> roomList = new ArrayList<>();
-        
-        for (GameRoom room : rooms.values()) {
-            Map<String, Object> roomInfo = new HashMap<>();
-            roomInfo.put("id", room.getId());
-            roomInfo.put("name", room.getName());
-            roomInfo.put("hostName", room.getHost().getName());
-            roomInfo.put("playerCount", room.getPlayerCount());
-            roomInfo.put("gameStarted", room.getGame().isGameStarted());
-            
-            roomList.add(roomInfo);
-        }
-        
-        return roomList;
+        return directory.getRooms();
     }
     
     /**
-     * Gửi danh sách phòng đến tất cả client
+     * Đưa client vào sảnh: gửi danh sách phòng đầy đủ (hoặc xác nhận danh sách không đổi nếu
+     * client đã có đúng phiên bản hiện tại), sau đó là các thay đổi
+     * 
+     * @param client Client vừa kết nối hoặc vừa rời phòng
+     * @param knownVersion Phiên bản danh sách client đang có, -1 nếu không có
      */
-    public void broadcastRoomList() {
-        List<Map<String, Object>> roomList = getRoomList();
-        
-        for (ClientHandler client : clients) {
-            client.sendMessage(new Message(MessageType.ROOM_LIST, roomList, serverId));
-        }
+    void subscribeLobby(ClientHandler client, int knownVersion) {
+        directory.subscribe(client, knownVersion);
+    }
+    
+    /**
+     * Ngừng gửi danh sách phòng cho client khi client vào phòng
+     * 
+     * @param client Client vừa vào phòng
+     */
+    void unsubscribeLobby(ClientHandler client) {
+        directory.unsubscribe(client);
+    }
+    
+    /**
+     * Gửi lại danh sách phòng khi client yêu cầu (ví dụ khi phát hiện thiếu phiên bản)
+     * 
+     * @param client Client yêu cầu
+     * @param knownVersion Phiên bản danh sách client đang có, -1 nếu không có
+     */
+    void resendRoomDirectory(ClientHandler client, int knownVersion) {
+        directory.resend(client, knownVersion);
+    }
+    
+    /**
+     * Lấy một trang danh sách phòng theo bộ lọc của client
+     * 
+     * @param query Truy vấn của client
+     * @return Trang kết quả
+     */
+    public RoomPage queryRooms(RoomQuery query) {
+        return registry.queryRooms(query);
     }
     
     /**
@@ -251,13 +776,27 @@ public class UnoServer {
         return serverId;
     }
     
+    ServerConfig getConfig() {
+        return config;
+    }
+    
+    /**
+     * Lấy các chỉ số vận hành của server (độ sâu hàng đợi gửi, tin nhắn bị bỏ, client chậm bị ngắt)
+     * 
+     * @return Chỉ số của server
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+    
     /**
      * Lấy số lượng client đang kết nối
      * 
      * @return Số lượng client đang kết nối
      */
+    @Override
     public int getClientCount() {
-        return clients.size();
+        return registry.getClientCount();
     }
     
     /**
@@ -265,8 +804,49 @@ public class UnoServer {
      * 
      * @return Số lượng phòng chơi
      */
+    @Override
     public int getRoomCount() {
-        return rooms.size();
+        return registry.getRoomCount();
+    }
+    
+    @Override
+    public String getEngine() {
+        return config.getEngine().name();
+    }
+    
+    @Override
+    public int getPort() {
+        return port;
+    }
+    
+    /**
+     * Đếm các phòng đang chơi dở bằng tình trạng đã công bố của từng phòng, không lấy khóa phòng
+     * 
+     * @return Số phòng đang chơi dở một ván
+     */
+    @Override
+    public int getGamesInProgress() {
+        int count = 0;
+        for (GameRoom room : registry.getRooms()) {
+            RoomStats stats = room.getStats();
+            if (stats != null && stats.status == RoomSnapshot.Status.IN_GAME) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public int getHandlerThreads() {
+        if (config.getEngine() == ServerConfig.Engine.NIO) {
+            return config.getEventLoopThreads();
+        }
+        return (int) metrics.getActiveHandlerThreads();
+    }
+    
+    @Override
+    public int getRoomWorkerThreads() {
+        return config.getRoomWorkerThreads();
     }
     
     /**
@@ -282,13 +862,13 @@ public class UnoServer {
             try {
                 port = Integer.parseInt(args[0]);
             } catch (NumberFormatException e) {
-                System.out.println(StringUtils.formatNetworkLog("SERVER_MAIN", "CONFIG_ERROR", 
-                        "Cong khong hop le, su dung cong mac dinh: " + DEFAULT_PORT));
+                Log.NETWORK.error("SERVER_MAIN", "CONFIG_ERROR", 
+                        "Cong khong hop le, su dung cong mac dinh: " + DEFAULT_PORT);
             }
         }
         
         // Khởi tạo và chạy server
-        UnoServer server = new UnoServer(port);
+        UnoServer server = new UnoServer(port, ServerConfig.fromSystemProperties());
         server.start();
     }
 }
\ No newline at end of file
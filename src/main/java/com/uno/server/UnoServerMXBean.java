@@ -0,0 +1,28 @@
+package com.uno.server;
+
+/**
+ * Trạng thái hiện tại của {@link UnoServer} được công bố qua JMX (ObjectName
+ * com.uno.server:type=UnoServer,port=&lt;port&gt;); bộ đếm chi tiết nằm ở {@link ServerMetricsMXBean}.
+ */
+public interface UnoServerMXBean {
+
+    /** @return Engine xử lý kết nối: THREAD_PER_CLIENT, VIRTUAL_THREADS hoặc NIO */
+    String getEngine();
+
+    int getPort();
+
+    /** @return Số kết nối đang mở */
+    int getClientCount();
+
+    /** @return Số phòng đang tồn tại */
+    int getRoomCount();
+
+    /** @return Số phòng đang chơi dở một ván */
+    int getGamesInProgress();
+
+    /** @return Số thread xử lý kết nối: thread đọc của từng client, hoặc số event loop với engine NIO */
+    int getHandlerThreads();
+
+    /** @return Số thread chạy mailbox của các phòng */
+    int getRoomWorkerThreads();
+}
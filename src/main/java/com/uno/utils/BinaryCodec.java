@@ -0,0 +1,938 @@
+package com.uno.utils;
+
+import com.uno.model.Card;
+import com.uno.model.CardColor;
+import com.uno.model.CardType;
+import com.uno.protocol.GameDelta;
+import com.uno.protocol.GameState;
+import com.uno.protocol.PlayerInfo;
+import com.uno.protocol.RoomDirectoryUpdate;
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomQuery;
+import com.uno.protocol.RoomSnapshot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Giao thức phiên bản 2: mã hóa nhị phân gọn cho từng {@link MessageType}.
+ *
+ * Cấu trúc payload:
+ * <pre>
+ * [1 byte: ordinal của MessageType | cờ][ID người gửi][dữ liệu theo từng loại tin nhắn]
+ * </pre>
+ * <ul>
+ *   <li>Số nguyên không âm được ghi dạng varint (7 bit mỗi byte)</li>
+ *   <li>Chuỗi: varint (độ dài + 1, 0 nghĩa là null) rồi tới các byte UTF-8</li>
+ *   <li>ID người chơi/phòng là số nhỏ nên được ghi thành một varint; ID không phải số được ghi nguyên chuỗi</li>
+ *   <li>Lá bài là một byte: 4 bit cao là màu, 4 bit thấp là số (0-9) hoặc loại lá chức năng</li>
+ * </ul>
+ * Dữ liệu không có encoder riêng (hoặc không đúng dạng encoder mong đợi) vẫn được
+ * gửi bằng Java serialization bên trong frame, đánh dấu bằng cờ {@link #FLAG_SERIALIZED};
+ * phần này được giải mã qua cùng bộ lọc class với {@link SerializedCodec}.
+ */
+public final class BinaryCodec implements PayloadCodec {
+    public static final BinaryCodec INSTANCE = new BinaryCodec();
+
+    /** Cờ trong byte đầu: tin nhắn không có dữ liệu */
+    private static final int FLAG_NO_DATA = 0x40;
+
+    /** Cờ trong byte đầu: dữ liệu được serialize bằng ObjectOutputStream */
+    private static final int FLAG_SERIALIZED = 0x80;
+
+    private static final int TYPE_MASK = 0x3F;
+
+    /** Mã byte cho "không có lá bài" */
+    private static final int NO_CARD = 0xFF;
+
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+    private static final CardColor[] COLORS = CardColor.values();
+    private static final GameDelta.Kind[] DELTA_KINDS = GameDelta.Kind.values();
+    private static final RoomQuery.Status[] ROOM_STATUSES = RoomQuery.Status.values();
+    private static final RoomSnapshot.Status[] SNAPSHOT_STATUSES = RoomSnapshot.Status.values();
+
+    /**
+     * Bảng giải mã lá bài theo mã byte trên đường truyền, trỏ tới các Card dùng chung.
+     * Mã byte (4 bit màu, 4 bit loại/số) giữ nguyên để không đổi giao thức v2.
+     */
+    private static final Card[] CARDS_BY_CODE = new Card[256];
+
+    /** Mã byte trên đường truyền theo {@link Card#code()} */
+    private static final int[] WIRE_CODES = new int[Card.CODE_COUNT];
+
+    static {
+        for (int code = 0; code < Card.CODE_COUNT; code++) {
+            Card card = Card.fromCode(code);
+            int wireCode = cardCode(card.getColor(), card.getType(), card.getValue());
+            CARDS_BY_CODE[wireCode] = card;
+            WIRE_CODES[code] = wireCode;
+        }
+    }
+
+    private BinaryCodec() {
+    }
+
+    @Override
+    public int version() {
+        return VERSION_BINARY;
+    }
+
+    @Override
+    public byte[] encode(Message message) throws IOException {
+        Writer out = new Writer();
+        out.writeByte(0); // Byte đầu được điền sau khi biết dữ liệu có encoder riêng hay không
+        writeId(out, message.getSenderId());
+
+        int header = message.getType().ordinal();
+        Object data = message.getData();
+        if (data == null) {
+            header |= FLAG_NO_DATA;
+        } else {
+            int mark = out.position;
+            if (!writeData(out, message.getType(), data)) {
+                out.position = mark;
+                out.writeBytes(serialize(data));
+                header |= FLAG_SERIALIZED;
+            }
+        }
+        out.buffer[0] = (byte) header;
+        return out.toByteArray();
+    }
+
+    /**
+     * Mã hóa tin nhắn có phần riêng theo người nhận thành các đoạn để ghép payload cho từng người.
+     * Dữ liệu là bản đầy đủ: trạng thái chứa bài của mọi người chơi (START_GAME, GAME_UPDATE)
+     * hoặc delta chứa lá bài rút của mọi người chơi (GAME_DELTA).
+     *
+     * @param message Tin nhắn với dữ liệu đầy đủ
+     * @return Các đoạn đã mã hóa, null nếu loại tin nhắn không có phần riêng theo người nhận
+     * @throws IOException Nếu mã hóa thất bại
+     */
+    public SplitPayload encodeSplit(Message message) throws IOException {
+        Object data = message.getData();
+        SplitPayload.Builder split = new SplitPayload.Builder();
+        Writer out = new Writer();
+        out.writeByte(message.getType().ordinal());
+        writeId(out, message.getSenderId());
+        switch (message.getType()) {
+            case START_GAME:
+            case GAME_UPDATE:
+                if (!(data instanceof GameState)) {
+                    return null;
+                }
+                writeGameState(out, (GameState) data, split);
+                break;
+            case GAME_DELTA:
+                if (!(data instanceof GameDelta)) {
+                    return null;
+                }
+                writeGameDelta(out, (GameDelta) data, split);
+                break;
+            default:
+                return null;
+        }
+        split.cut(out);
+        return split.build();
+    }
+
+    @Override
+    public Message decode(byte[] payload, int offset, int length) throws IOException, ClassNotFoundException {
+        Reader in = new Reader(payload, offset, length);
+        int header = in.readUnsignedByte();
+        int ordinal = header & TYPE_MASK;
+        if (ordinal >= MESSAGE_TYPES.length) {
+            throw new IOException("Unknown message type: " + ordinal);
+        }
+        MessageType type = MESSAGE_TYPES[ordinal];
+        String senderId = readId(in);
+
+        Object data;
+        if ((header & FLAG_NO_DATA) != 0) {
+            data = null;
+        } else if ((header & FLAG_SERIALIZED) != 0) {
+            data = deserialize(in);
+        } else {
+            data = readData(in, type);
+        }
+        return new Message(type, data, senderId);
+    }
+
+    /**
+     * Ghi dữ liệu của tin nhắn theo encoder riêng của loại tin nhắn
+     *
+     * @return false nếu loại tin nhắn không có encoder riêng hoặc dữ liệu không đúng dạng mong đợi
+     */
+    private static boolean writeData(Writer out, MessageType type, Object data) throws IOException {
+        switch (type) {
+            case CONNECT:
+            case CONNECT_REJECT:
+            case CREATE_ROOM:
+            case CALL_UNO:
+            case GAME_OVER:
+            case CHAT_MESSAGE:
+            case ERROR:
+            case INFO:
+            case SESSION_TOKEN:
+                if (!(data instanceof String)) {
+                    return false;
+                }
+                out.writeString((String) data);
+                return true;
+            case CONNECT_ACCEPT:
+            case JOIN_ROOM:
+            case CHALLENGE:
+                if (!(data instanceof String)) {
+                    return false;
+                }
+                writeId(out, (String) data);
+                return true;
+            case PLAY_CARD:
+                return writePlayCard(out, data);
+            case ROOM_LIST:
+                return writeRoomList(out, data);
+            case ROOM_DIRECTORY:
+                if (!(data instanceof RoomDirectoryUpdate)) {
+                    return false;
+                }
+                return writeRoomDirectory(out, (RoomDirectoryUpdate) data);
+            case START_GAME:
+            case GAME_UPDATE:
+                if (!(data instanceof GameState)) {
+                    return false;
+                }
+                writeGameState(out, (GameState) data, null);
+                return true;
+            case GAME_DELTA:
+                if (!(data instanceof GameDelta)) {
+                    return false;
+                }
+                writeGameDelta(out, (GameDelta) data, null);
+                return true;
+            case RESYNC_REQUEST:
+            case PING:
+            case PONG:
+            case LEAVE_ROOM:
+            case ROOM_DIRECTORY_REQUEST:
+                if (!(data instanceof Integer) || (Integer) data < 0) {
+                    return false;
+                }
+                out.writeVarInt((Integer) data);
+                return true;
+            case ROOM_QUERY:
+                if (!(data instanceof RoomQuery)) {
+                    return false;
+                }
+                return writeRoomQuery(out, (RoomQuery) data);
+            case ROOM_PAGE:
+                if (!(data instanceof RoomPage)) {
+                    return false;
+                }
+                return writeRoomPage(out, (RoomPage) data);
+            case RESUME:
+                return writeResume(out, data);
+            case ROOM_UPDATE:
+                if (!(data instanceof RoomSnapshot)) {
+                    return false;
+                }
+                writeRoomSnapshot(out, (RoomSnapshot) data);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Object readData(Reader in, MessageType type) throws IOException {
+        switch (type) {
+            case CONNECT:
+            case CONNECT_REJECT:
+            case CREATE_ROOM:
+            case CALL_UNO:
+            case GAME_OVER:
+            case CHAT_MESSAGE:
+            case ERROR:
+            case INFO:
+            case SESSION_TOKEN:
+                return in.readString();
+            case CONNECT_ACCEPT:
+            case JOIN_ROOM:
+            case CHALLENGE:
+                return readId(in);
+            case PLAY_CARD:
+                return readPlayCard(in);
+            case ROOM_LIST:
+                return readRoomList(in);
+            case ROOM_DIRECTORY:
+                return readRoomDirectory(in);
+            case START_GAME:
+            case GAME_UPDATE:
+                return readGameState(in);
+            case GAME_DELTA:
+                return readGameDelta(in);
+            case RESYNC_REQUEST:
+            case PING:
+            case PONG:
+            case LEAVE_ROOM:
+            case ROOM_DIRECTORY_REQUEST:
+                return in.readVarInt();
+            case ROOM_QUERY:
+                return readRoomQuery(in);
+            case ROOM_PAGE:
+                return readRoomPage(in);
+            case RESUME:
+                return readResume(in);
+            case ROOM_UPDATE:
+                return readRoomSnapshot(in);
+            default:
+                throw new IOException("No binary decoder for " + type);
+        }
+    }
+
+    // PLAY_CARD: {Integer cardIndex, String colorName} -> [varint index][1 byte màu]
+    private static boolean writePlayCard(Writer out, Object data) {
+        if (!(data instanceof Object[])) {
+            return false;
+        }
+        Object[] values = (Object[]) data;
+        if (values.length != 2 || !(values[0] instanceof Integer) || !(values[1] instanceof String)) {
+            return false;
+        }
+        CardColor color;
+        try {
+            color = CardColor.valueOf((String) values[1]);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        out.writeVarInt((Integer) values[0]);
+        out.writeByte(color.ordinal());
+        return true;
+    }
+
+    private static Object[] readPlayCard(Reader in) throws IOException {
+        int cardIndex = in.readVarInt();
+        int color = in.readUnsignedByte();
+        if (color >= COLORS.length) {
+            throw new IOException("Invalid card color: " + color);
+        }
+        return new Object[] {cardIndex, COLORS[color].name()};
+    }
+
+    // RESUME: {String token, Integer lastVersion} -> [chuỗi token][varint (phiên bản + 1), 0 là chưa có trạng thái]
+    private static boolean writeResume(Writer out, Object data) {
+        if (!(data instanceof Object[])) {
+            return false;
+        }
+        Object[] values = (Object[]) data;
+        if (values.length != 2 || !(values[0] instanceof String) || !(values[1] instanceof Integer)
+                || (Integer) values[1] < -1) {
+            return false;
+        }
+        out.writeString((String) values[0]);
+        out.writeVarInt((Integer) values[1] + 1);
+        return true;
+    }
+
+    private static Object[] readResume(Reader in) throws IOException {
+        String token = in.readString();
+        return new Object[] {token, in.readVarInt() - 1};
+    }
+
+    // ROOM_UPDATE: [ID phòng][tên][ID chủ phòng][tên chủ phòng][varint số chỗ] rồi mỗi chỗ [ID][tên],
+    // sau cùng [1 byte trạng thái][varint phiên bản]
+    private static void writeRoomSnapshot(Writer out, RoomSnapshot snapshot) {
+        writeId(out, snapshot.getId());
+        out.writeString(snapshot.getName());
+        writeId(out, snapshot.getHostId());
+        out.writeString(snapshot.getHostName());
+        out.writeVarInt(snapshot.getSeats().size());
+        for (RoomSnapshot.Seat seat : snapshot.getSeats()) {
+            writeId(out, seat.getPlayerId());
+            out.writeString(seat.getPlayerName());
+        }
+        out.writeByte(snapshot.getStatus().ordinal());
+        out.writeVarInt(snapshot.getVersion());
+    }
+
+    private static RoomSnapshot readRoomSnapshot(Reader in) throws IOException {
+        String id = readId(in);
+        String name = in.readString();
+        String hostId = readId(in);
+        String hostName = in.readString();
+        int seatCount = in.readLength();
+        List<RoomSnapshot.Seat> seats = new ArrayList<>(seatCount);
+        for (int i = 0; i < seatCount; i++) {
+            String playerId = readId(in);
+            seats.add(new RoomSnapshot.Seat(playerId, in.readString()));
+        }
+        int status = in.readUnsignedByte();
+        if (status >= SNAPSHOT_STATUSES.length) {
+            throw new IOException("Invalid room status: " + status);
+        }
+        return new RoomSnapshot(id, name, hostId, hostName, seats, SNAPSHOT_STATUSES[status], in.readVarInt());
+    }
+
+    // ROOM_LIST: danh sách Map {id, name, hostName, playerCount, gameStarted}
+    private static boolean writeRoomList(Writer out, Object data) {
+        if (!(data instanceof List)) {
+            return false;
+        }
+        List<?> rooms = (List<?>) data;
+        out.writeVarInt(rooms.size());
+        for (Object entry : rooms) {
+            if (!writeRoomEntry(out, entry)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean writeRoomEntry(Writer out, Object entry) {
+        if (!(entry instanceof Map)) {
+            return false;
+        }
+        Map<?, ?> room = (Map<?, ?>) entry;
+        Object id = room.get("id");
+        Object name = room.get("name");
+        Object hostName = room.get("hostName");
+        Object playerCount = room.get("playerCount");
+        Object gameStarted = room.get("gameStarted");
+        if (room.size() != 5 || !(id instanceof String) || !(name instanceof String) || !(hostName instanceof String)
+                || !(playerCount instanceof Integer) || !(gameStarted instanceof Boolean)) {
+            return false;
+        }
+        writeId(out, (String) id);
+        out.writeString((String) name);
+        out.writeString((String) hostName);
+        out.writeVarInt((Integer) playerCount);
+        out.writeByte((Boolean) gameStarted ? 1 : 0);
+        return true;
+    }
+
+    private static List<Map<String, Object>> readRoomList(Reader in) throws IOException {
+        int count = in.readLength();
+        List<Map<String, Object>> rooms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rooms.add(readRoomEntry(in));
+        }
+        return rooms;
+    }
+
+    private static Map<String, Object> readRoomEntry(Reader in) throws IOException {
+        Map<String, Object> room = new HashMap<>();
+        room.put("id", readId(in));
+        room.put("name", in.readString());
+        room.put("hostName", in.readString());
+        room.put("playerCount", in.readVarInt());
+        room.put("gameStarted", in.readUnsignedByte() != 0);
+        return room;
+    }
+
+    // ROOM_DIRECTORY: [varint phiên bản][1 byte đầy đủ][danh sách phòng như ROOM_LIST][varint số ID bị xóa][ID...]
+    private static boolean writeRoomDirectory(Writer out, RoomDirectoryUpdate update) {
+        out.writeVarInt(update.getVersion());
+        out.writeByte(update.isFull() ? 1 : 0);
+        if (!writeRoomList(out, update.getRooms())) {
+            return false;
+        }
+        List<String> removed = update.getRemovedRoomIds();
+        out.writeVarInt(removed.size());
+        for (String roomId : removed) {
+            writeId(out, roomId);
+        }
+        return true;
+    }
+
+    private static RoomDirectoryUpdate readRoomDirectory(Reader in) throws IOException {
+        int version = in.readVarInt();
+        boolean full = in.readUnsignedByte() != 0;
+        List<Map<String, Object>> rooms = readRoomList(in);
+        int removedCount = in.readLength();
+        List<String> removed = new ArrayList<>(removedCount);
+        for (int i = 0; i < removedCount; i++) {
+            removed.add(readId(in));
+        }
+        return new RoomDirectoryUpdate(version, full, rooms, removed);
+    }
+
+    // ROOM_QUERY: [varint queryId][chuỗi tiền tố][1 byte trạng thái][varint số chỗ trống][chuỗi con trỏ][varint giới hạn]
+    private static boolean writeRoomQuery(Writer out, RoomQuery query) {
+        if (query.getStatus() == null || query.getMinFreeSeats() < 0 || query.getLimit() < 0) {
+            return false;
+        }
+        out.writeVarInt(query.getQueryId());
+        out.writeString(query.getNamePrefix());
+        out.writeByte(query.getStatus().ordinal());
+        out.writeVarInt(query.getMinFreeSeats());
+        out.writeString(query.getCursor());
+        out.writeVarInt(query.getLimit());
+        return true;
+    }
+
+    private static RoomQuery readRoomQuery(Reader in) throws IOException {
+        int queryId = in.readVarInt();
+        String namePrefix = in.readString();
+        int status = in.readUnsignedByte();
+        if (status >= ROOM_STATUSES.length) {
+            throw new IOException("Invalid room status: " + status);
+        }
+        int minFreeSeats = in.readVarInt();
+        String cursor = in.readString();
+        int limit = in.readVarInt();
+        return new RoomQuery(queryId, namePrefix, ROOM_STATUSES[status], minFreeSeats, cursor, limit);
+    }
+
+    // ROOM_PAGE: [varint queryId][danh sách phòng như ROOM_LIST][chuỗi con trỏ trang sau]
+    private static boolean writeRoomPage(Writer out, RoomPage page) {
+        out.writeVarInt(page.getQueryId());
+        if (!writeRoomList(out, page.getRooms())) {
+            return false;
+        }
+        out.writeString(page.getNextCursor());
+        return true;
+    }
+
+    private static RoomPage readRoomPage(Reader in) throws IOException {
+        int queryId = in.readVarInt();
+        List<Map<String, Object>> rooms = readRoomList(in);
+        return new RoomPage(queryId, rooms, in.readString());
+    }
+
+    // GAME_UPDATE / START_GAME: trạng thái game theo góc nhìn của một người chơi.
+    // Khi tách đoạn, bài trên tay của mỗi người là một đoạn riêng có bản ẩn (chỉ số lượng) cho người khác
+    private static void writeGameState(Writer out, GameState state, SplitPayload.Builder split) throws IOException {
+        Map<String, PlayerInfo> playerInfos = state.getPlayerInfos();
+        out.writeVarInt(playerInfos.size());
+        for (PlayerInfo info : playerInfos.values()) {
+            if (split != null && info.getHand() != null) {
+                split.cut(out);
+                Writer part = new Writer();
+                writePlayerInfo(part, info, false);
+                byte[] hidden = part.toByteArray();
+                part.position = 0;
+                writePlayerInfo(part, info, true);
+                split.addPrivate(info.getId(), hidden, part.toByteArray());
+            } else {
+                writePlayerInfo(out, info, true);
+            }
+        }
+        writeCard(out, state.getTopCard());
+        out.writeVarInt(state.getVersion());
+        writeId(out, state.getCurrentPlayerId());
+        out.writeByte((state.isClockwise() ? 1 : 0) | (state.isGameOver() ? 2 : 0));
+        writeId(out, state.getWinnerId());
+    }
+
+    private static void writePlayerInfo(Writer out, PlayerInfo info, boolean includeHand) throws IOException {
+        List<Card> hand = includeHand ? info.getHand() : null;
+        writeId(out, info.getId());
+        out.writeString(info.getName());
+        out.writeVarInt(info.getHandSize());
+        out.writeByte((info.hasCalledUno() ? 1 : 0) | (hand != null ? 2 : 0));
+        if (hand != null) {
+            out.writeVarInt(hand.size());
+            for (Card card : hand) {
+                writeCard(out, card);
+            }
+        }
+    }
+
+    private static GameState readGameState(Reader in) throws IOException {
+        int playerCount = in.readLength();
+        HashMap<String, PlayerInfo> playerInfos = new HashMap<>();
+        for (int i = 0; i < playerCount; i++) {
+            String id = readId(in);
+            String name = in.readString();
+            int handSize = in.readVarInt();
+            int flags = in.readUnsignedByte();
+            List<Card> hand = null;
+            if ((flags & 2) != 0) {
+                int cardCount = in.readLength();
+                hand = new ArrayList<>(cardCount);
+                for (int j = 0; j < cardCount; j++) {
+                    hand.add(readCard(in));
+                }
+            }
+            playerInfos.put(id, new PlayerInfo(id, name, handSize, hand, (flags & 1) != 0));
+        }
+        Card topCard = readCard(in);
+        int version = in.readVarInt();
+        String currentPlayerId = readId(in);
+        int flags = in.readUnsignedByte();
+        String winnerId = readId(in);
+        return new GameState(playerInfos, topCard, currentPlayerId, (flags & 1) != 0, (flags & 2) != 0, winnerId, version);
+    }
+
+    // GAME_DELTA: [varint phiên bản][varint số thay đổi] rồi mỗi thay đổi [1 byte loại][ID người chơi][dữ liệu theo loại]
+    // Khi tách đoạn, lá bài rút của mỗi người là một đoạn riêng có bản ẩn (chỉ số lượng) cho người khác
+    private static void writeGameDelta(Writer out, GameDelta delta, SplitPayload.Builder split) throws IOException {
+        List<GameDelta.Event> events = delta.getEvents();
+        out.writeVarInt(delta.getVersion());
+        out.writeVarInt(events.size());
+        for (GameDelta.Event event : events) {
+            if (split != null && event.getKind() == GameDelta.Kind.CARDS_DRAWN && event.getCards() != null) {
+                split.cut(out);
+                Writer part = new Writer();
+                writeEvent(part, event, false);
+                byte[] hidden = part.toByteArray();
+                part.position = 0;
+                writeEvent(part, event, true);
+                split.addPrivate(event.getPlayerId(), hidden, part.toByteArray());
+            } else {
+                writeEvent(out, event, true);
+            }
+        }
+    }
+
+    private static void writeEvent(Writer out, GameDelta.Event event, boolean includeCards) throws IOException {
+        out.writeByte(event.getKind().ordinal());
+        writeId(out, event.getPlayerId());
+        switch (event.getKind()) {
+            case CARD_PLAYED:
+                out.writeVarInt(event.getIndex());
+                writeCard(out, event.getCard());
+                break;
+            case CARDS_DRAWN:
+                List<Card> cards = includeCards ? event.getCards() : null;
+                out.writeVarInt(event.getCount());
+                out.writeByte(cards != null ? 1 : 0);
+                if (cards != null) {
+                    for (Card card : cards) {
+                        writeCard(out, card);
+                    }
+                }
+                break;
+            case DIRECTION_CHANGED:
+                out.writeByte(event.isClockwise() ? 1 : 0);
+                break;
+            default:
+                // TURN_CHANGED, UNO_CALLED, GAME_OVER chỉ cần ID người chơi
+                break;
+        }
+    }
+
+    private static GameDelta readGameDelta(Reader in) throws IOException {
+        int version = in.readVarInt();
+        int count = in.readLength();
+        List<GameDelta.Event> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int kind = in.readUnsignedByte();
+            if (kind >= DELTA_KINDS.length) {
+                throw new IOException("Invalid delta kind: " + kind);
+            }
+            String playerId = readId(in);
+            switch (DELTA_KINDS[kind]) {
+                case CARD_PLAYED:
+                    int handIndex = in.readVarInt();
+                    events.add(GameDelta.Event.cardPlayed(playerId, handIndex, readCard(in)));
+                    break;
+                case CARDS_DRAWN:
+                    int drawn = in.readLength();
+                    List<Card> cards = null;
+                    if (in.readUnsignedByte() != 0) {
+                        cards = new ArrayList<>(drawn);
+                        for (int j = 0; j < drawn; j++) {
+                            cards.add(readCard(in));
+                        }
+                    }
+                    events.add(GameDelta.Event.cardsDrawn(playerId, drawn, cards));
+                    break;
+                case TURN_CHANGED:
+                    events.add(GameDelta.Event.turnChanged(playerId));
+                    break;
+                case DIRECTION_CHANGED:
+                    events.add(GameDelta.Event.directionChanged(in.readUnsignedByte() != 0));
+                    break;
+                case UNO_CALLED:
+                    events.add(GameDelta.Event.unoCalled(playerId));
+                    break;
+                case GAME_OVER:
+                    events.add(GameDelta.Event.gameOver(playerId));
+                    break;
+                default:
+                    throw new IOException("Invalid delta kind: " + kind);
+            }
+        }
+        return new GameDelta(version, events);
+    }
+
+    private static int cardCode(CardColor color, CardType type, int value) {
+        int low = type == CardType.NUMBER ? value : 9 + type.ordinal();
+        return (color.ordinal() << 4) | low;
+    }
+
+    private static void writeCard(Writer out, Card card) throws IOException {
+        if (card == null) {
+            out.writeByte(NO_CARD);
+            return;
+        }
+        out.writeByte(WIRE_CODES[card.code()]);
+    }
+
+    private static Card readCard(Reader in) throws IOException {
+        int code = in.readUnsignedByte();
+        if (code == NO_CARD) {
+            return null;
+        }
+        Card card = CARDS_BY_CODE[code];
+        if (card == null) {
+            throw new IOException("Invalid card code: " + code);
+        }
+        return card;
+    }
+
+    /**
+     * Ghi ID: 0 là null, số chẵn là ID dạng số ((giá trị + 1) * 2), số lẻ là độ dài của ID dạng chuỗi theo sau
+     */
+    private static void writeId(Writer out, String id) {
+        if (id == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        int numeric = parseNumericId(id);
+        if (numeric >= 0) {
+            out.writeVarInt((numeric + 1) << 1);
+        } else {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            out.writeVarInt((bytes.length << 1) | 1);
+            out.writeBytes(bytes);
+        }
+    }
+
+    private static String readId(Reader in) throws IOException {
+        int tag = in.readVarInt();
+        if (tag == 0) {
+            return null;
+        }
+        if ((tag & 1) != 0) {
+            return in.readUtf8(tag >>> 1);
+        }
+        return Integer.toString((tag >>> 1) - 1);
+    }
+
+    /**
+     * @return Giá trị của ID nếu ID là số thập phân chuẩn (tối đa 9 chữ số, không có số 0 ở đầu), ngược lại -1
+     */
+    private static int parseNumericId(String id) {
+        int length = id.length();
+        if (length == 0 || length > 9 || (length > 1 && id.charAt(0) == '0')) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static byte[] serialize(Object data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+            output.writeObject(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static Object deserialize(Reader in) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = SerializedCodec.openInput(in.buffer, in.position, in.limit - in.position)) {
+            return input.readObject();
+        }
+    }
+
+    /**
+     * Payload của một tin nhắn có phần riêng theo người nhận, đã mã hóa thành các đoạn: đoạn chung
+     * giống nhau với mọi người nhận, mỗi đoạn riêng thuộc về một người chơi và có hai bản (bản
+     * đầy đủ cho chủ của nó, bản ẩn bài cho người khác). Payload ghép cho một người nhận giống
+     * hệt payload mã hóa trực tiếp dữ liệu theo góc nhìn của người đó. Không được sửa sau khi tạo.
+     */
+    public static final class SplitPayload {
+        private final byte[][] shared;
+        private final byte[][] owned;
+        private final String[] owners;
+
+        private SplitPayload(byte[][] shared, byte[][] owned, String[] owners) {
+            this.shared = shared;
+            this.owned = owned;
+            this.owners = owners;
+        }
+
+        /**
+         * Ghép payload cho một người nhận
+         *
+         * @param viewerId ID của người nhận
+         * @return Payload dành cho người nhận
+         */
+        public byte[] forViewer(String viewerId) {
+            int length = 0;
+            for (int i = 0; i < shared.length; i++) {
+                length += part(i, viewerId).length;
+            }
+            byte[] payload = new byte[length];
+            int position = 0;
+            for (int i = 0; i < shared.length; i++) {
+                byte[] part = part(i, viewerId);
+                System.arraycopy(part, 0, payload, position, part.length);
+                position += part.length;
+            }
+            return payload;
+        }
+
+        private byte[] part(int index, String viewerId) {
+            return owners[index] != null && owners[index].equals(viewerId) ? owned[index] : shared[index];
+        }
+
+        /**
+         * Gom các đoạn trong lúc mã hóa
+         */
+        private static final class Builder {
+            private final List<byte[]> shared = new ArrayList<>();
+            private final List<byte[]> owned = new ArrayList<>();
+            private final List<String> owners = new ArrayList<>();
+
+            /**
+             * Chuyển những gì đã ghi vào out thành một đoạn chung và làm rỗng out
+             */
+            void cut(Writer out) {
+                if (out.position > 0) {
+                    add(null, out.toByteArray(), null);
+                    out.position = 0;
+                }
+            }
+
+            void addPrivate(String owner, byte[] hidden, byte[] visible) {
+                add(owner, hidden, visible);
+            }
+
+            private void add(String owner, byte[] hidden, byte[] visible) {
+                shared.add(hidden);
+                owned.add(visible);
+                owners.add(owner);
+            }
+
+            SplitPayload build() {
+                return new SplitPayload(shared.toArray(new byte[0][]), owned.toArray(new byte[0][]),
+                        owners.toArray(new String[0]));
+            }
+        }
+    }
+
+    /**
+     * Buffer ghi tự mở rộng, tránh chi phí đồng bộ của ByteArrayOutputStream
+     */
+    private static final class Writer {
+        private byte[] buffer = new byte[64];
+        private int position;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            writeBytes(bytes);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    /**
+     * Con trỏ đọc trên payload, kiểm tra biên để payload hỏng gây IOException thay vì lỗi runtime
+     */
+    private static final class Reader {
+        private final byte[] buffer;
+        private final int limit;
+        private int position;
+
+        Reader(byte[] buffer, int offset, int length) {
+            this.buffer = buffer;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        int readUnsignedByte() throws IOException {
+            if (position >= limit) {
+                throw new IOException("Truncated payload");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+
+        /**
+         * Đọc số lượng phần tử; mỗi phần tử chiếm ít nhất một byte nên số lượng không thể vượt quá số byte còn lại
+         */
+        int readLength() throws IOException {
+            int length = readVarInt();
+            if (length < 0 || length > limit - position) {
+                throw new IOException("Invalid length: " + length);
+            }
+            return length;
+        }
+
+        String readString() throws IOException {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            return readUtf8(length - 1);
+        }
+
+        String readUtf8(int length) throws IOException {
+            if (length < 0 || length > limit - position) {
+                throw new IOException("Invalid string length: " + length);
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
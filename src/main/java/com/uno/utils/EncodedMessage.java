@@ -0,0 +1,46 @@
+package com.uno.utils;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tin nhắn gửi cho nhiều client, được mã hóa tối đa một lần cho mỗi phiên bản giao thức
+ * thay vì một lần cho mỗi người nhận. Payload được dùng chung nên không được sửa sau khi tạo.
+ */
+public final class EncodedMessage {
+    private final Message message;
+    private final AtomicReferenceArray<byte[]> payloads;
+
+    public EncodedMessage(Message message) {
+        this.message = message;
+        this.payloads = new AtomicReferenceArray<>(PayloadCodec.LATEST_VERSION + 1);
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public MessageType getType() {
+        return message.getType();
+    }
+
+    /**
+     * Lấy payload theo codec của người nhận, mã hóa ở lần đầu tiên codec đó được dùng
+     *
+     * @param codec Codec đã thống nhất với người nhận
+     * @return Payload đã mã hóa
+     * @throws IOException Nếu mã hóa thất bại
+     */
+    public byte[] payload(PayloadCodec codec) throws IOException {
+        int version = codec.version();
+        byte[] payload = payloads.get(version);
+        if (payload == null) {
+            payload = codec.encode(message);
+            // Hai thread có thể cùng mã hóa lần đầu; giữ bản được ghi trước để mọi người nhận dùng chung
+            if (!payloads.compareAndSet(version, null, payload)) {
+                payload = payloads.get(version);
+            }
+        }
+        return payload;
+    }
+}
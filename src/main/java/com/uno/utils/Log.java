@@ -0,0 +1,191 @@
+package com.uno.utils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hệ thống log bất đồng bộ theo mức độ và nhóm (NETWORK, GAME, RENDER).
+ *
+ * Thread gọi log chỉ kiểm tra mức độ, ghi tham chiếu của bản ghi vào một ring buffer không khóa
+ * rồi trả về; thread nền "log-writer" định dạng và ghi ra file xoay vòng hoặc System.out.
+ * Nhờ vậy các thread xử lý client không còn tranh nhau khóa của System.out. Khi buffer đầy,
+ * bản ghi bị bỏ và số bản ghi bị bỏ được ghi lại sau đó. Với nhóm/mức độ bị tắt, lời gọi log
+ * chỉ tốn một phép so sánh; dùng dạng {@link Supplier} hoặc {@link #isEnabled(Level)} khi chuỗi
+ * log tốn công tạo.
+ *
+ * Cấu hình bằng system properties:
+ * <ul>
+ *   <li>uno.log.level: TRACE | DEBUG | INFO | WARN | ERROR | OFF (mặc định INFO)</li>
+ *   <li>uno.log.level.network, uno.log.level.game, uno.log.level.render: mức độ riêng cho từng nhóm</li>
+ *   <li>uno.trace=true: tương đương uno.log.level=TRACE</li>
+ *   <li>uno.log.file: file log; nếu không đặt, log được ghi ra System.out</li>
+ *   <li>uno.log.maxFileBytes: kích thước tối đa của một file trước khi xoay vòng (mặc định 10MB)</li>
+ *   <li>uno.log.maxFiles: số file giữ lại, kể cả file đang ghi (mặc định 5)</li>
+ *   <li>uno.log.bufferSize: số bản ghi tối đa chờ ghi (mặc định 8192)</li>
+ * </ul>
+ *
+ * <pre>
+ * Log.NETWORK.info("SERVER", "HANDSHAKE", "Thong nhat protocol version 2");
+ * Log.GAME.trace("ROOM", "PLAY_CARD", () -> "Nguoi choi " + playerId + " danh " + card);
+ * </pre>
+ */
+public final class Log {
+
+    /**
+     * Mức độ của bản ghi, từ chi tiết nhất đến nghiêm trọng nhất
+     */
+    public enum Level {
+        TRACE,  // Chi tiết từng tin nhắn/lượt chơi/lần vẽ
+        DEBUG,  // Thông tin gỡ lỗi
+        INFO,   // Sự kiện bình thường: kết nối, tạo phòng, khởi động
+        WARN,   // Bất thường nhưng vẫn xử lý được
+        ERROR,  // Lỗi
+        OFF     // Chỉ dùng làm ngưỡng: tắt hẳn một nhóm
+    }
+
+    /**
+     * Nhóm log, có thể bật/tắt riêng
+     */
+    public enum Category {
+        NETWORK,    // Kết nối, giao thức, gửi/nhận tin nhắn
+        GAME,       // Phòng chơi và luật chơi
+        RENDER      // Giao diện Swing của client
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long DEFAULT_MAX_FILE_BYTES = 10L * 1024 * 1024;
+    private static final int DEFAULT_MAX_FILES = 5;
+
+    private static final LogRingBuffer BUFFER;
+    private static final AtomicLong DROPPED;
+
+    static {
+        BUFFER = new LogRingBuffer(Integer.getInteger("uno.log.bufferSize", DEFAULT_BUFFER_SIZE));
+        DROPPED = new AtomicLong();
+        String file = System.getProperty("uno.log.file");
+        Path path = file == null || file.isBlank() ? null : Paths.get(file);
+        LogWriter writer = new LogWriter(BUFFER, DROPPED, path,
+                Long.getLong("uno.log.maxFileBytes", DEFAULT_MAX_FILE_BYTES),
+                Integer.getInteger("uno.log.maxFiles", DEFAULT_MAX_FILES));
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(writer::shutdown, "log-shutdown"));
+    }
+
+    public static final Log NETWORK = new Log(Category.NETWORK);
+    public static final Log GAME = new Log(Category.GAME);
+    public static final Log RENDER = new Log(Category.RENDER);
+
+    private final Category category;
+    private final int threshold;
+
+    private Log(Category category) {
+        this.category = category;
+        this.threshold = configuredLevel(category).ordinal();
+    }
+
+    private static Level configuredLevel(Category category) {
+        Level fallback = Boolean.getBoolean("uno.trace") ? Level.TRACE : Level.INFO;
+        Level level = parseLevel(System.getProperty("uno.log.level"), fallback);
+        return parseLevel(System.getProperty("uno.log.level." + category.name().toLowerCase(Locale.ROOT)), level);
+    }
+
+    private static Level parseLevel(String value, Level fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * @return true nếu bản ghi ở mức độ này của nhóm sẽ được ghi
+     */
+    public boolean isEnabled(Level level) {
+        return level.ordinal() >= threshold;
+    }
+
+    public boolean isTraceEnabled() {
+        return Level.TRACE.ordinal() >= threshold;
+    }
+
+    public boolean isDebugEnabled() {
+        return Level.DEBUG.ordinal() >= threshold;
+    }
+
+    /**
+     * Ghi một bản ghi nếu mức độ đang bật
+     *
+     * @param level Mức độ
+     * @param component Thành phần ghi log (SERVER, CLIENT, ROOM...)
+     * @param operation Thao tác (CONNECT, SEND, PLAY_CARD...)
+     * @param message Nội dung: tiếng Việt không dấu kèm thuật ngữ tiếng Anh
+     */
+    public void log(Level level, String component, String operation, String message) {
+        if (level.ordinal() >= threshold) {
+            enqueue(level, component, operation, message);
+        }
+    }
+
+    /**
+     * Như {@link #log(Level, String, String, String)} nhưng chỉ tạo nội dung khi mức độ đang bật.
+     * Nội dung được tạo ngay trên thread gọi, nên có thể đọc trạng thái đang bị khóa bởi thread đó.
+     */
+    public void log(Level level, String component, String operation, Supplier<String> message) {
+        if (level.ordinal() >= threshold) {
+            enqueue(level, component, operation, message.get());
+        }
+    }
+
+    public void trace(String component, String operation, String message) {
+        log(Level.TRACE, component, operation, message);
+    }
+
+    public void trace(String component, String operation, Supplier<String> message) {
+        log(Level.TRACE, component, operation, message);
+    }
+
+    public void debug(String component, String operation, String message) {
+        log(Level.DEBUG, component, operation, message);
+    }
+
+    public void debug(String component, String operation, Supplier<String> message) {
+        log(Level.DEBUG, component, operation, message);
+    }
+
+    public void info(String component, String operation, String message) {
+        log(Level.INFO, component, operation, message);
+    }
+
+    public void info(String component, String operation, Supplier<String> message) {
+        log(Level.INFO, component, operation, message);
+    }
+
+    public void warn(String component, String operation, String message) {
+        log(Level.WARN, component, operation, message);
+    }
+
+    public void warn(String component, String operation, Supplier<String> message) {
+        log(Level.WARN, component, operation, message);
+    }
+
+    public void error(String component, String operation, String message) {
+        log(Level.ERROR, component, operation, message);
+    }
+
+    public void error(String component, String operation, Supplier<String> message) {
+        log(Level.ERROR, component, operation, message);
+    }
+
+    private void enqueue(Level level, String component, String operation, String message) {
+        if (!BUFFER.offer(System.currentTimeMillis(), level, category, component, operation, message,
+                Thread.currentThread().getName())) {
+            DROPPED.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.uno.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ring buffer không khóa, nhiều thread ghi và một thread đọc, chứa các bản ghi log chưa định dạng.
+ *
+ * Mỗi ô có một số thứ tự: thread ghi giành ô bằng CAS trên con trỏ ghi, điền dữ liệu rồi
+ * công bố ô bằng cách tăng số thứ tự; thread đọc chỉ đọc ô đã được công bố và trả ô lại cho
+ * vòng tiếp theo. Khi đầy, {@link #offer} trả về false ngay thay vì chờ, để log không bao giờ
+ * chặn thread xử lý game hoặc mạng. Các ô được cấp phát sẵn nên việc ghi log không tạo object mới.
+ */
+final class LogRingBuffer {
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] timestamps;
+    private final Log.Level[] levels;
+    private final Log.Category[] categories;
+    private final String[] components;
+    private final String[] operations;
+    private final String[] messages;
+    private final String[] threads;
+    private final AtomicLong tail;
+    // Chỉ thread đọc dùng
+    private long head;
+
+    /**
+     * @param capacity Số bản ghi tối đa, làm tròn lên lũy thừa của 2
+     */
+    LogRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.timestamps = new long[size];
+        this.levels = new Log.Level[size];
+        this.categories = new Log.Category[size];
+        this.components = new String[size];
+        this.operations = new String[size];
+        this.messages = new String[size];
+        this.threads = new String[size];
+        this.tail = new AtomicLong();
+    }
+
+    /**
+     * Ghi một bản ghi vào buffer. Gọi được từ nhiều thread.
+     *
+     * @return false nếu buffer đầy và bản ghi bị bỏ
+     */
+    boolean offer(long timestamp, Log.Level level, Log.Category category, String component,
+                  String operation, String message, String thread) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // Ô này chưa được thread đọc trả lại: buffer đầy
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+        timestamps[index] = timestamp;
+        levels[index] = level;
+        categories[index] = category;
+        components[index] = component;
+        operations[index] = operation;
+        messages[index] = message;
+        threads[index] = thread;
+        sequences.setRelease(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Chuyển tối đa {@code limit} bản ghi đã công bố cho {@code consumer}. Chỉ thread đọc được gọi.
+     *
+     * @return Số bản ghi đã chuyển
+     */
+    int drain(Consumer consumer, int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (head & mask);
+            if (sequences.getAcquire(index) != head + 1) {
+                break;
+            }
+            consumer.accept(timestamps[index], levels[index], categories[index], components[index],
+                    operations[index], messages[index], threads[index]);
+            // Bỏ tham chiếu để chuỗi log cũ được thu hồi sớm
+            components[index] = null;
+            operations[index] = null;
+            messages[index] = null;
+            threads[index] = null;
+            sequences.setRelease(index, head + mask + 1);
+            head++;
+            drained++;
+        }
+        return drained;
+    }
+
+    /**
+     * Nhận các bản ghi được lấy ra khỏi buffer
+     */
+    interface Consumer {
+        void accept(long timestamp, Log.Level level, Log.Category category, String component,
+                    String operation, String message, String thread);
+    }
+}
@@ -0,0 +1,219 @@
+package com.uno.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Thread nền lấy bản ghi khỏi {@link LogRingBuffer}, định dạng và ghi ra file xoay vòng
+ * (hoặc System.out nếu không cấu hình file).
+ *
+ * Việc định dạng thời gian và chuỗi chỉ diễn ra ở đây nên thread ghi log không tốn chi phí
+ * đó. Khi file vượt quá kích thước tối đa, file hiện tại được đổi tên thành .1, .1 thành .2,
+ * ... và file cũ nhất bị xóa.
+ */
+final class LogWriter implements Runnable, LogRingBuffer.Consumer {
+    private static final int BATCH_SIZE = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final DateTimeFormatter SECOND_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final LogRingBuffer buffer;
+    private final AtomicLong dropped;
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final StringBuilder line;
+    private final Thread thread;
+
+    private volatile boolean running;
+    private OutputStream fileOutput;
+    private long fileBytes;
+    private long cachedSecond;
+    private String cachedSecondText;
+
+    /**
+     * @param file File log, null để ghi ra System.out
+     * @param maxFileBytes Kích thước tối đa của một file trước khi xoay vòng
+     * @param maxFiles Số file giữ lại, kể cả file đang ghi
+     */
+    LogWriter(LogRingBuffer buffer, AtomicLong dropped, Path file, long maxFileBytes, int maxFiles) {
+        this.buffer = buffer;
+        this.dropped = dropped;
+        this.file = file;
+        this.maxFileBytes = Math.max(1024, maxFileBytes);
+        this.maxFiles = Math.max(1, maxFiles);
+        this.line = new StringBuilder(256);
+        this.cachedSecond = Long.MIN_VALUE;
+        this.thread = new Thread(this, "log-writer");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Dừng thread nền sau khi ghi hết các bản ghi còn trong buffer
+     */
+    void shutdown() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (drainBatch() == 0) {
+                flush();
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+        while (drainBatch() > 0) {
+            // Ghi nốt các bản ghi còn lại trước khi dừng
+        }
+        flush();
+        closeFile();
+    }
+
+    private int drainBatch() {
+        int drained = buffer.drain(this, BATCH_SIZE);
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            accept(System.currentTimeMillis(), Log.Level.WARN, Log.Category.NETWORK, "LOG", "DROPPED",
+                    "Bo " + lost + " ban ghi log vi buffer day - Log buffer overflow", thread.getName());
+        }
+        return drained;
+    }
+
+    @Override
+    public void accept(long timestamp, Log.Level level, Log.Category category, String component,
+                       String operation, String message, String threadName) {
+        line.setLength(0);
+        line.append('[');
+        appendTimestamp(timestamp);
+        line.append("][").append(level.name())
+                .append("][").append(category.name())
+                .append("][").append(threadName)
+                .append("] ").append(component)
+                .append(" | ").append(operation)
+                .append(" | ").append(message)
+                .append(System.lineSeparator());
+        write(line);
+    }
+
+    private void appendTimestamp(long timestamp) {
+        long second = Math.floorDiv(timestamp, 1000L);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondText = SECOND_FORMAT.format(Instant.ofEpochSecond(second));
+        }
+        int millis = (int) Math.floorMod(timestamp, 1000L);
+        line.append(cachedSecondText).append('.');
+        if (millis < 100) {
+            line.append('0');
+        }
+        if (millis < 10) {
+            line.append('0');
+        }
+        line.append(millis);
+    }
+
+    private void write(CharSequence text) {
+        if (file == null) {
+            // Lấy System.out mỗi lần để benchmark vẫn có thể chuyển hướng nó
+            PrintStream console = System.out;
+            console.append(text);
+            return;
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (fileOutput == null || (fileBytes > 0 && fileBytes + bytes.length > maxFileBytes)) {
+                rotate();
+            }
+            fileOutput.write(bytes);
+            fileBytes += bytes.length;
+        } catch (IOException e) {
+            closeFile();
+            System.err.println(StringUtils.formatLogMessage("LOG",
+                    "Khong the ghi file log " + file + ": " + e.getMessage() + " - Log file write failure"));
+        }
+    }
+
+    private void rotate() throws IOException {
+        if (fileOutput != null) {
+            closeFile();
+            shiftFiles();
+        } else if (Files.exists(file) && Files.size(file) >= maxFileBytes) {
+            // File của lần chạy trước đã đầy
+            shiftFiles();
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        fileOutput = new BufferedOutputStream(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        fileBytes = Files.size(file);
+    }
+
+    private void shiftFiles() throws IOException {
+        if (maxFiles == 1) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.deleteIfExists(rotated(maxFiles - 1));
+        for (int i = maxFiles - 2; i >= 1; i--) {
+            Path source = rotated(i);
+            if (Files.exists(source)) {
+                Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void flush() {
+        try {
+            if (file == null) {
+                System.out.flush();
+            } else if (fileOutput != null) {
+                fileOutput.flush();
+            }
+        } catch (IOException e) {
+            closeFile();
+        }
+    }
+
+    private void closeFile() {
+        if (fileOutput != null) {
+            try {
+                fileOutput.close();
+            } catch (IOException e) {
+                // Bỏ qua: file sẽ được mở lại ở lần ghi sau
+            }
+            fileOutput = null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.uno.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Đóng khung (framing) tin nhắn trên kết nối TCP.
+ *
+ * Ngay sau khi mở kết nối, client gửi handshake gồm 4 byte {@link #HANDSHAKE_MAGIC}
+ * và 1 byte phiên bản giao thức cao nhất mà nó hỗ trợ; server trả lời bằng magic và
+ * phiên bản được chọn (xem {@link #negotiate(int)}).
+ *
+ * Sau handshake, mỗi frame gồm 4 byte độ dài (big-endian) và payload là một {@link Message}
+ * được mã hóa độc lập bằng {@link PayloadCodec} của phiên bản đã chọn, nhờ đó server
+ * có thể đọc từng frame một cách non-blocking.
+ */
+public final class MessageCodec {
+    /** Kích thước phần header chứa độ dài payload */
+    public static final int HEADER_SIZE = 4;
+
+    /** Kích thước payload tối đa cho một frame */
+    public static final int MAX_FRAME_SIZE = 1 << 20;
+
+    /** "UNO!" - lớn hơn {@link #MAX_FRAME_SIZE} nên không thể nhầm với header của một frame */
+    public static final int HANDSHAKE_MAGIC = 0x554E4F21;
+
+    /** Kích thước handshake: magic + 1 byte phiên bản */
+    public static final int HANDSHAKE_SIZE = 5;
+
+    private MessageCodec() {
+    }
+
+    /**
+     * Ghi một frame hoàn chỉnh (header + payload) ra stream
+     *
+     * @param output Stream đích
+     * @param payload Payload đã serialize
+     * @throws IOException Nếu ghi thất bại
+     */
+    public static void writeFrame(DataOutputStream output, byte[] payload) throws IOException {
+        output.writeInt(payload.length);
+        output.write(payload);
+        output.flush();
+    }
+
+    /**
+     * Đọc một frame từ stream (blocking) và giải mã thành tin nhắn
+     *
+     * @param input Stream nguồn
+     * @param codec Codec của phiên bản giao thức đã thống nhất
+     * @return Tin nhắn đã đọc
+     * @throws IOException Nếu đọc thất bại hoặc frame vượt quá kích thước cho phép
+     * @throws ClassNotFoundException Nếu không tìm thấy class của object
+     */
+    public static Message readFrame(DataInputStream input, PayloadCodec codec) throws IOException, ClassNotFoundException {
+        int length = input.readInt();
+        checkFrameLength(length);
+        byte[] payload = new byte[length];
+        input.readFully(payload);
+        return codec.decode(payload, 0, length);
+    }
+
+    /**
+     * Kiểm tra độ dài frame đọc được từ header
+     *
+     * @param length Độ dài payload
+     * @throws IOException Nếu độ dài không hợp lệ
+     */
+    public static void checkFrameLength(int length) throws IOException {
+        if (length < 0 || length > MAX_FRAME_SIZE) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+    }
+
+    /**
+     * Ghi handshake (magic + phiên bản) ra stream
+     *
+     * @param output Stream đích
+     * @param version Phiên bản giao thức đề nghị (client) hoặc được chọn (server)
+     * @throws IOException Nếu ghi thất bại
+     */
+    public static void writeHandshake(DataOutputStream output, int version) throws IOException {
+        output.writeInt(HANDSHAKE_MAGIC);
+        output.writeByte(version);
+        output.flush();
+    }
+
+    /**
+     * Đọc handshake từ stream (blocking)
+     *
+     * @param input Stream nguồn
+     * @return Phiên bản giao thức trong handshake
+     * @throws IOException Nếu đọc thất bại hoặc dữ liệu không phải handshake hợp lệ
+     */
+    public static int readHandshake(DataInputStream input) throws IOException {
+        checkHandshakeMagic(input.readInt());
+        return input.readUnsignedByte();
+    }
+
+    /**
+     * Kiểm tra 4 byte đầu tiên của handshake
+     *
+     * @param magic Giá trị đọc được
+     * @throws IOException Nếu không phải {@link #HANDSHAKE_MAGIC}
+     */
+    public static void checkHandshakeMagic(int magic) throws IOException {
+        if (magic != HANDSHAKE_MAGIC) {
+            throw new IOException("Invalid handshake: 0x" + Integer.toHexString(magic));
+        }
+    }
+
+    /**
+     * Chọn phiên bản giao thức cho kết nối: phiên bản cao nhất mà cả hai bên cùng hỗ trợ
+     *
+     * @param requestedVersion Phiên bản cao nhất client hỗ trợ
+     * @return Codec của phiên bản được chọn
+     * @throws IOException Nếu không có phiên bản chung
+     */
+    public static PayloadCodec negotiate(int requestedVersion) throws IOException {
+        return PayloadCodec.forVersion(Math.min(requestedVersion, PayloadCodec.LATEST_VERSION));
+    }
+}
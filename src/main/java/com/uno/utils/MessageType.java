@@ -13,7 +13,7 @@ public enum MessageType {
     // Tin nhắn liên quan đến phòng chơi
     CREATE_ROOM,    // Client yêu cầu tạo phòng
     JOIN_ROOM,      // Client yêu cầu tham gia phòng
-    LEAVE_ROOM,     // Client rời khỏi phòng
+    LEAVE_ROOM,     // Client rời khỏi phòng (kèm phiên bản danh sách phòng đang có, nếu có)
     ROOM_LIST,      // Danh sách phòng chơi
     ROOM_UPDATE,    // Cập nhật thông tin phòng
     
@@ -32,5 +32,17 @@ public enum MessageType {
     
     // Tin nhắn lỗi và thông báo khác
     ERROR,          // Thông báo lỗi
-    INFO            // Thông tin khác
+    INFO,           // Thông tin khác
+    
+    // Các loại mới luôn được thêm vào cuối: giao thức nhị phân dùng ordinal làm mã tin nhắn
+    GAME_DELTA,     // Thay đổi trạng thái game kể từ phiên bản trước
+    RESYNC_REQUEST, // Client yêu cầu gửi lại toàn bộ trạng thái game
+    ROOM_DIRECTORY, // Danh sách phòng có phiên bản: toàn bộ hoặc chỉ các phòng thay đổi
+    ROOM_DIRECTORY_REQUEST, // Client yêu cầu gửi lại danh sách phòng (kèm phiên bản đang có, nếu có)
+    ROOM_QUERY,     // Client yêu cầu một trang danh sách phòng theo bộ lọc
+    ROOM_PAGE,      // Một trang danh sách phòng trả lời ROOM_QUERY
+    SESSION_TOKEN,  // Token của phiên, gửi sau CONNECT_ACCEPT để kết nối lại khi rớt mạng
+    RESUME,         // Client kết nối lại bằng token: {token, phiên bản trạng thái game đang có}
+    PING,           // Kiểm tra kết nối còn sống, kèm số thứ tự; bên nhận trả lời PONG với cùng số
+    PONG            // Trả lời PING, server dùng để đo RTT
 }
\ No newline at end of file
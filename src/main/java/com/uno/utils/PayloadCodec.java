@@ -0,0 +1,65 @@
+package com.uno.utils;
+
+import java.io.IOException;
+
+/**
+ * Định dạng payload của một frame. Mỗi phiên bản giao thức có một codec riêng,
+ * được hai bên thống nhất trong handshake khi mở kết nối (xem {@link MessageCodec}).
+ */
+public interface PayloadCodec {
+
+    /** Phiên bản 1: {@link Message} được serialize bằng ObjectOutputStream */
+    int VERSION_SERIALIZED = 1;
+
+    /** Phiên bản 2: mã hóa nhị phân gọn theo từng {@link MessageType} */
+    int VERSION_BINARY = 2;
+
+    /** Phiên bản mới nhất mà server và client hiện tại hỗ trợ */
+    int LATEST_VERSION = VERSION_BINARY;
+
+    /**
+     * Phiên bản giao thức mà codec này cài đặt
+     *
+     * @return Số phiên bản
+     */
+    int version();
+
+    /**
+     * Mã hóa tin nhắn thành payload của một frame
+     *
+     * @param message Tin nhắn cần mã hóa
+     * @return Payload đã mã hóa
+     * @throws IOException Nếu mã hóa thất bại
+     */
+    byte[] encode(Message message) throws IOException;
+
+    /**
+     * Giải mã payload của một frame thành tin nhắn
+     *
+     * @param payload Mảng chứa payload
+     * @param offset Vị trí bắt đầu của payload
+     * @param length Độ dài payload
+     * @return Tin nhắn đã giải mã
+     * @throws IOException Nếu payload không hợp lệ
+     * @throws ClassNotFoundException Nếu payload chứa object Java không tìm thấy class
+     */
+    Message decode(byte[] payload, int offset, int length) throws IOException, ClassNotFoundException;
+
+    /**
+     * Lấy codec cho phiên bản giao thức
+     *
+     * @param version Phiên bản đã thống nhất
+     * @return Codec tương ứng
+     * @throws IOException Nếu phiên bản không được hỗ trợ
+     */
+    static PayloadCodec forVersion(int version) throws IOException {
+        switch (version) {
+            case VERSION_SERIALIZED:
+                return SerializedCodec.INSTANCE;
+            case VERSION_BINARY:
+                return BinaryCodec.INSTANCE;
+            default:
+                throw new IOException("Unsupported protocol version: " + version);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.uno.utils;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mailbox chạy các tác vụ lần lượt, từng tác vụ một, trên một executor dùng chung.
+ *
+ * Thread gọi {@link #execute(Runnable)} chỉ xếp tác vụ vào hàng đợi rồi trả về ngay. Tại mỗi
+ * thời điểm có tối đa một thread của executor xử lý mailbox, nên các tác vụ của cùng một
+ * mailbox không bao giờ chạy song song và thấy được mọi thay đổi của tác vụ trước đó.
+ * Nhiều mailbox dùng chung một executor nhỏ; sau mỗi lượt tối đa {@link #MAX_BATCH} tác vụ,
+ * mailbox nhường thread cho mailbox khác để một phòng bận không làm các phòng khác chờ lâu.
+ */
+public final class SerialExecutor implements Executor {
+    /** Số tác vụ tối đa xử lý trong một lượt trước khi nhường thread */
+    static final int MAX_BATCH = 64;
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks;
+    private final AtomicBoolean scheduled;
+
+    public SerialExecutor(Executor executor) {
+        this.executor = executor;
+        this.tasks = new ConcurrentLinkedQueue<>();
+        this.scheduled = new AtomicBoolean(false);
+    }
+
+    /**
+     * Xếp tác vụ vào mailbox. Không chặn thread gọi.
+     *
+     * @param task Tác vụ cần chạy sau các tác vụ đã xếp trước đó
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.offer(task);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Executor đã dừng: không còn thread nào chạy các tác vụ đang chờ
+                tasks.clear();
+                scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < MAX_BATCH; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Log.NETWORK.error("SERVER", "MAILBOX_ERROR",
+                            "Loi khi xu ly tac vu trong mailbox: " + e + " - Task failure");
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // Tác vụ được xếp sau lần poll cuối nhưng trước khi cờ được xóa phải được lên lịch lại ở đây
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.uno.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Giao thức phiên bản 1: mỗi payload là một {@link Message} được serialize độc lập
+ * bằng ObjectOutputStream. Giữ lại cho client cũ và để so sánh với {@link BinaryCodec}.
+ *
+ * Payload đến từ mạng nên mọi ObjectInputStream của giao thức đều dùng {@link #WIRE_FILTER}:
+ * chỉ các class của model, dữ liệu giao thức và vài kiểu cơ bản của java.lang/java.util được
+ * dựng lại, mọi class khác bị từ chối trước khi readObject chạy code của nó.
+ */
+public final class SerializedCodec implements PayloadCodec {
+    public static final SerializedCodec INSTANCE = new SerializedCodec();
+
+    /** Danh sách class được phép giải mã từ mạng, kèm giới hạn độ sâu và kích thước đồ thị object */
+    static final ObjectInputFilter WIRE_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=16;maxrefs=100000;maxarray=" + MessageCodec.MAX_FRAME_SIZE
+                    + ";maxbytes=" + MessageCodec.MAX_FRAME_SIZE
+                    + ";com.uno.utils.Message;com.uno.utils.MessageType"
+                    + ";com.uno.model.*;com.uno.protocol.*;java.lang.*;java.util.*;!*");
+
+    private SerializedCodec() {
+    }
+
+    @Override
+    public int version() {
+        return VERSION_SERIALIZED;
+    }
+
+    @Override
+    public byte[] encode(Message message) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream output = new ObjectOutputStream(buffer)) {
+            output.writeObject(message);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Override
+    public Message decode(byte[] payload, int offset, int length) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream input = openInput(payload, offset, length)) {
+            Object message = input.readObject();
+            if (!(message instanceof Message)) {
+                throw new IOException("Payload is not a Message: " + message);
+            }
+            return (Message) message;
+        }
+    }
+
+    /**
+     * Mở ObjectInputStream trên một đoạn payload nhận từ mạng, đã gắn {@link #WIRE_FILTER}
+     *
+     * @param payload Mảng chứa payload
+     * @param offset Vị trí bắt đầu
+     * @param length Số byte
+     * @return Stream chỉ dựng lại các class được phép
+     * @throws IOException Nếu header của stream không hợp lệ
+     */
+    static ObjectInputStream openInput(byte[] payload, int offset, int length) throws IOException {
+        ObjectInputStream input = new ObjectInputStream(new ByteArrayInputStream(payload, offset, length));
+        input.setObjectInputFilter(WIRE_FILTER);
+        return input;
+    }
+}
@@ -1,13 +1,14 @@
 package com.uno.utils;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
 /**
- * Utility class for string operations and network logging
+ * Utility class for string operations. Log của ứng dụng đi qua {@link Log}.
  */
 public class StringUtils {
-    private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+    // DateTimeFormatter không có trạng thái nên dùng chung giữa các thread được
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
     
     /**
      * Safely compares two strings, handles null and trims both strings
@@ -31,23 +32,8 @@ public class StringUtils {
      */
     public static String formatLogMessage(String logType, String message) {
         return String.format("[%s][%s] %s", 
-                DATE_FORMAT.format(new Date()), 
+                DATE_FORMAT.format(LocalDateTime.now()), 
                 logType, 
                 message);
     }
-    
-    /**
-     * Formats network-related log messages in Vietnamese without accents
-     * Focuses on highlighting networking concepts
-     * 
-     * @param component Component name (CLIENT, SERVER, SOCKET, etc)
-     * @param operation Network operation (CONNECT, SEND, RECEIVE, etc)
-     * @param message Detailed message about the operation
-     * @return Formatted log message for network operations
-     */
-    public static String formatNetworkLog(String component, String operation, String message) {
-        // Simplified log format focusing on network operations
-        return formatLogMessage("NETWORK", 
-                String.format("%s | %s | %s", component, operation, message));
-    }
-}
\ No newline at end of file
+}
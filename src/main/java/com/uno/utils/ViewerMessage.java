@@ -0,0 +1,65 @@
+package com.uno.utils;
+
+
+import com.uno.protocol.GameDelta;
+import com.uno.protocol.GameState;
+
+import java.io.IOException;
+
+/**
+ * Tin nhắn gửi cho mọi người chơi trong phòng nhưng mỗi người chỉ được thấy bài của mình:
+ * trạng thái game ({@link GameState}) hoặc delta có lá bài vừa rút ({@link GameDelta}).
+ * Dữ liệu của tin nhắn là bản đầy đủ chứa bài của mọi người và không bao giờ được gửi nguyên.
+ *
+ * Với giao thức nhị phân, phần công khai được mã hóa một lần cho cả phòng và phần riêng của
+ * mỗi người chơi được mã hóa một lần; payload của từng người nhận chỉ là phép ghép các đoạn
+ * đã mã hóa ({@link BinaryCodec.SplitPayload}). Người nhận dùng giao thức khác nhận dữ liệu
+ * được lọc theo góc nhìn của mình rồi mã hóa riêng.
+ */
+public final class ViewerMessage {
+    private final Message message;
+    private volatile BinaryCodec.SplitPayload split;
+
+    /**
+     * @param message Tin nhắn với dữ liệu đầy đủ, là {@link GameState} hoặc {@link GameDelta}
+     */
+    public ViewerMessage(Message message) {
+        if (!(message.getData() instanceof GameState) && !(message.getData() instanceof GameDelta)) {
+            throw new IllegalArgumentException("Unsupported per-viewer data: " + message.getData());
+        }
+        this.message = message;
+    }
+
+    public MessageType getType() {
+        return message.getType();
+    }
+
+    /**
+     * Lấy payload cho một người nhận theo codec của người đó
+     *
+     * @param codec Codec đã thống nhất với người nhận
+     * @param viewerId ID của người nhận
+     * @return Payload dành cho người nhận
+     * @throws IOException Nếu mã hóa thất bại
+     */
+    public byte[] payload(PayloadCodec codec, String viewerId) throws IOException {
+        if (codec instanceof BinaryCodec) {
+            BinaryCodec.SplitPayload payload = split;
+            if (payload == null) {
+                // Hai thread có thể cùng mã hóa lần đầu; các bản giống hệt nhau nên giữ bản nào cũng được
+                payload = ((BinaryCodec) codec).encodeSplit(message);
+                split = payload;
+            }
+            return payload.forViewer(viewerId);
+        }
+        return codec.encode(new Message(message.getType(), dataFor(viewerId), message.getSenderId()));
+    }
+
+    private Object dataFor(String viewerId) {
+        Object data = message.getData();
+        if (data instanceof GameDelta) {
+            return ((GameDelta) data).forViewer(viewerId);
+        }
+        return ((GameState) data).forViewer(viewerId);
+    }
+}
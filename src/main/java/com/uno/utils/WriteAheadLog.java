@@ -0,0 +1,306 @@
+package com.uno.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Write-ahead log chỉ ghi thêm, lưu trên các segment file có kích thước cố định được map vào
+ * bộ nhớ (mmap).
+ *
+ * Mỗi bản ghi gồm độ dài (4 byte), CRC32C của nội dung (4 byte) và nội dung; độ dài được ghi
+ * sau cùng nên bản ghi chỉ "xuất hiện" khi đã ghi xong. Segment mới toàn số 0, độ dài 0 đánh
+ * dấu hết dữ liệu. Khi đọc lại, bản ghi sai CRC (ghi dở lúc máy sập) kết thúc segment đó.
+ *
+ * Ghi vào vùng mmap chỉ là chép bộ nhớ: dữ liệu đã thuộc về page cache của hệ điều hành nên
+ * vẫn còn nếu tiến trình chết. Để chống mất điện/hệ điều hành sập, {@link #commit(long)} force
+ * (msync) theo kiểu group commit: thread đầu tiên cần commit force mọi thứ đã ghi đến lúc đó,
+ * các thread đến sau xếp hàng và thường thấy bản ghi của mình đã nằm trong lần force đó, nên
+ * một loạt bản ghi từ nhiều thread chỉ tốn một lần force.
+ *
+ * Segment đặt tên wal-&lt;số thứ tự&gt;.log. Mỗi lần mở log bắt đầu một segment mới sau segment lớn
+ * nhất đang có; {@link #roll()} chuyển sang segment mới để các segment cũ có thể bị xóa bằng
+ * {@link #deleteSegmentsBefore(long)} sau khi đã chụp snapshot.
+ */
+public final class WriteAheadLog implements Closeable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    /**
+     * Nhận các bản ghi khi đọc lại log
+     */
+    public interface RecordHandler {
+        /**
+         * @param segment Số thứ tự segment chứa bản ghi
+         * @param payload Nội dung bản ghi (chỉ hợp lệ trong lời gọi này)
+         */
+        void record(long segment, ByteBuffer payload) throws IOException;
+    }
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final CRC32C crc;
+    private final Object commitLock;
+
+    // Được bảo vệ bởi khóa của this
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segment;
+    private long segmentStart;
+    private long appended;
+    private boolean closed;
+
+    // Được bảo vệ bởi commitLock
+    private long durable;
+    private long syncCount;
+
+    private WriteAheadLog(Path directory, int segmentBytes, boolean fsync) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.crc = new CRC32C();
+        this.commitLock = new Object();
+    }
+
+    /**
+     * Mở log trong một thư mục và bắt đầu một segment mới
+     *
+     * @param directory Thư mục chứa các segment (được tạo nếu chưa có)
+     * @param segmentBytes Kích thước mỗi segment
+     * @param fsync true để {@link #commit(long)} chờ dữ liệu được force xuống đĩa
+     * @return Log đã mở
+     * @throws IOException Nếu không tạo được segment
+     */
+    public static WriteAheadLog open(Path directory, int segmentBytes, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        WriteAheadLog log = new WriteAheadLog(directory, Math.max(4096, segmentBytes), fsync);
+        List<Long> segments = listSegments(directory);
+        synchronized (log) {
+            log.openSegment(segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1);
+        }
+        return log;
+    }
+
+    /**
+     * Ghi thêm một bản ghi. Bản ghi còn nguyên nếu tiến trình chết ngay sau khi hàm trả về;
+     * gọi {@link #commit(long)} với vị trí trả về nếu cần chống cả mất điện.
+     *
+     * @param payload Nội dung
+     * @param offset Vị trí bắt đầu trong mảng
+     * @param length Số byte
+     * @return Vị trí logic ngay sau bản ghi, hoặc 0 nếu log đã đóng
+     * @throws IOException Nếu không tạo được segment mới
+     */
+    public synchronized long append(byte[] payload, int offset, int length) throws IOException {
+        if (closed) {
+            return 0;
+        }
+        if (HEADER_BYTES + length + 4 > segmentBytes) {
+            throw new IllegalArgumentException("Ban ghi " + length + " byte lon hon segment " + segmentBytes + " byte");
+        }
+        if (buffer.position() + HEADER_BYTES + length + 4 > segmentBytes) {
+            // Luôn để lại ít nhất 4 byte 0 ở cuối segment làm dấu kết thúc
+            rollLocked();
+        }
+        int position = buffer.position();
+        crc.reset();
+        crc.update(payload, offset, length);
+        buffer.put(position + HEADER_BYTES, payload, offset, length);
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.putInt(position, length);
+        buffer.position(position + HEADER_BYTES + length);
+        appended = segmentStart + buffer.position();
+        return appended;
+    }
+
+    /**
+     * Chờ đến khi mọi bản ghi đến vị trí cho trước đã được force xuống đĩa (group commit).
+     * Không làm gì nếu log mở với fsync = false.
+     *
+     * @param position Vị trí trả về bởi {@link #append(byte[], int, int)}
+     * @throws IOException Nếu force thất bại
+     */
+    public void commit(long position) throws IOException {
+        if (!fsync || position <= 0) {
+            return;
+        }
+        synchronized (commitLock) {
+            if (durable >= position) {
+                // Đã nằm trong lần force của thread trước
+                return;
+            }
+            long target;
+            MappedByteBuffer toForce;
+            int from;
+            int to;
+            synchronized (this) {
+                target = appended;
+                toForce = buffer;
+                from = (int) Math.max(0, durable - segmentStart);
+                to = buffer.position();
+            }
+            // Force ngoài khóa ghi: các thread khác vẫn ghi thêm được trong lúc chờ đĩa.
+            // Segment trước đó (nếu vừa chuyển segment) đã được force trọn khi chuyển.
+            if (to > from) {
+                toForce.force(from, to - from);
+            }
+            durable = target;
+            syncCount++;
+        }
+    }
+
+    /**
+     * Chuyển sang segment mới. Mọi bản ghi ghi sau lời gọi này nằm ở segment trả về hoặc sau đó.
+     *
+     * @return Số thứ tự segment mới
+     * @throws IOException Nếu không tạo được segment
+     */
+    public synchronized long roll() throws IOException {
+        if (!closed) {
+            rollLocked();
+        }
+        return segment;
+    }
+
+    private void rollLocked() throws IOException {
+        if (fsync) {
+            buffer.force();
+        }
+        channel.close();
+        openSegment(segment + 1);
+    }
+
+    private void openSegment(long number) throws IOException {
+        Path file = segmentFile(directory, number);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        segmentStart = appended;
+        segment = number;
+    }
+
+    /**
+     * Xóa các segment cũ hơn một segment
+     *
+     * @param firstKept Số thứ tự segment nhỏ nhất cần giữ
+     * @return Số segment đã xóa
+     * @throws IOException Nếu không xóa được
+     */
+    public int deleteSegmentsBefore(long firstKept) throws IOException {
+        int deleted = 0;
+        for (long number : listSegments(directory)) {
+            if (number < firstKept && Files.deleteIfExists(segmentFile(directory, number))) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Đọc lại các bản ghi hợp lệ của những segment từ một số thứ tự trở đi, theo thứ tự ghi
+     *
+     * @param directory Thư mục chứa các segment
+     * @param fromSegment Số thứ tự segment đầu tiên cần đọc
+     * @param handler Nhận từng bản ghi
+     * @return Số bản ghi đã đọc
+     * @throws IOException Nếu không đọc được segment hoặc handler báo lỗi
+     */
+    public static long replay(Path directory, long fromSegment, RecordHandler handler) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        CRC32C checksum = new CRC32C();
+        long records = 0;
+        for (long number : listSegments(directory)) {
+            if (number < fromSegment) {
+                continue;
+            }
+            try (FileChannel file = FileChannel.open(segmentFile(directory, number), StandardOpenOption.READ)) {
+                ByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+                int position = 0;
+                while (position + HEADER_BYTES <= data.limit()) {
+                    int length = data.getInt(position);
+                    if (length <= 0 || position + HEADER_BYTES + length > data.limit()) {
+                        break;
+                    }
+                    ByteBuffer payload = data.slice(position + HEADER_BYTES, length);
+                    checksum.reset();
+                    checksum.update(payload.duplicate());
+                    if ((int) checksum.getValue() != data.getInt(position + 4)) {
+                        Log.GAME.warn("WAL", "REPLAY", "Ban ghi hong o segment " + number + " vi tri " + position
+                                + ", bo qua phan con lai cua segment - Torn write");
+                        break;
+                    }
+                    handler.record(number, payload);
+                    records++;
+                    position += HEADER_BYTES + length;
+                }
+            }
+        }
+        return records;
+    }
+
+    private static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Không phải segment của log
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    private static Path segmentFile(Path directory, long number) {
+        return directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * @return Tổng số byte đã ghi từ khi mở log
+     */
+    public synchronized long getAppendedBytes() {
+        return appended;
+    }
+
+    /**
+     * @return Số lần force đã thực hiện bởi {@link #commit(long)}
+     */
+    public long getSyncCount() {
+        synchronized (commitLock) {
+            return syncCount;
+        }
+    }
+
+    /**
+     * Force phần còn lại (nếu bật fsync) và đóng segment hiện tại; các lần ghi sau đó bị bỏ qua
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (fsync) {
+            buffer.force();
+        }
+        channel.close();
+    }
+}
@@ -0,0 +1,136 @@
+package com.uno.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra {@link Game#replay(long, GameJournal)}: seed cùng nhật ký phải dựng lại đúng ván game gốc.
+ */
+class GameReplayTest {
+    private static final long SEED = 20241018L;
+
+    @Test
+    void replayRebuildsTheSameGame() {
+        Game original = playGame(SEED, 120);
+
+        Game replayed = Game.replay(SEED, original.getJournal());
+
+        assertSameState(original, replayed);
+        assertEquals(original.getJournal().size(), replayed.getJournal().size());
+    }
+
+    @Test
+    void replayRebuildsAFinishedGame() {
+        Game original = playGame(SEED, 5000);
+        assertTrue(original.isGameOver(), "Van game mau phai ket thuc trong gioi han buoc");
+
+        assertSameState(original, Game.replay(SEED, original.getJournal()));
+    }
+
+    @Test
+    void replayAcceptsAJournalReadBackFromItsBinaryForm() throws IOException {
+        Game original = playGame(SEED, 80);
+
+        GameJournal copy = copyJournal(original.getJournal(), -1);
+
+        assertSameState(original, Game.replay(SEED, copy));
+    }
+
+    @Test
+    void replayRejectsAJournalThatDoesNotMatchTheGame() throws IOException {
+        Game original = playGame(SEED, 40);
+        GameJournal journal = original.getJournal();
+        int start = -1;
+        for (int entry = 0; entry < journal.size(); entry++) {
+            if (journal.action(entry) == GameJournal.Action.START_GAME) {
+                start = entry;
+            }
+        }
+        assertTrue(start >= 0);
+
+        // Bỏ lệnh bắt đầu game: lệnh đánh/rút bài đầu tiên sau đó không còn hợp lệ
+        GameJournal withoutStart = copyJournal(journal, start);
+
+        assertThrows(IllegalStateException.class, () -> Game.replay(SEED, withoutStart));
+    }
+
+    /**
+     * Chơi một ván 3 người theo chiến lược cố định: đánh lá hợp lệ đầu tiên (Wild chọn màu đỏ),
+     * hô Uno khi còn một lá, không có lá hợp lệ thì rút một lá rồi kết thúc lượt
+     */
+    private static Game playGame(long seed, int maxSteps) {
+        Game game = new Game(seed);
+        game.addPlayer(new Player("1", "an"));
+        game.addPlayer(new Player("2", "binh"));
+        game.addPlayer(new Player("3", "chi"));
+        assertTrue(game.startGame());
+
+        for (int step = 0; step < maxSteps && !game.isGameOver(); step++) {
+            Player current = game.getCurrentPlayer();
+            List<Integer> playable = current.getPlayableCardIndices(game.getTopCard());
+            if (playable.isEmpty()) {
+                game.drawCard(current.getId());
+                game.endTurn(current.getId());
+            } else {
+                assertTrue(game.playCard(current.getId(), playable.get(0), CardColor.RED));
+                game.callUno(current.getId());
+            }
+        }
+        return game;
+    }
+
+    /**
+     * Chép nhật ký qua dạng nhị phân như khi ghi vào WAL, có thể bỏ một lệnh
+     */
+    private static GameJournal copyJournal(GameJournal journal, int skippedEntry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        int written = 0;
+        for (int entry = 0; entry < journal.size(); entry++) {
+            if (entry != skippedEntry) {
+                journal.writeEntry(entry, out);
+                written++;
+            }
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        GameJournal copy = new GameJournal();
+        for (int entry = 0; entry < written; entry++) {
+            copy.readEntry(in);
+        }
+        return copy;
+    }
+
+    private static void assertSameState(Game expected, Game actual) {
+        assertEquals(expected.isGameStarted(), actual.isGameStarted());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+        assertEquals(expected.isClockwise(), actual.isClockwise());
+        assertEquals(expected.getRemainingCards(), actual.getRemainingCards());
+        assertEquals(expected.getTopCard(), actual.getTopCard());
+        assertEquals(idOf(expected.getCurrentPlayer()), idOf(actual.getCurrentPlayer()));
+        assertEquals(idOf(expected.getWinner()), idOf(actual.getWinner()));
+        assertEquals(describePlayers(expected), describePlayers(actual));
+    }
+
+    private static List<String> describePlayers(Game game) {
+        List<String> players = new ArrayList<>();
+        for (Player player : game.getPlayers()) {
+            players.add(player.getId() + " " + player.getName() + " " + player.getHand() + " uno=" + player.hasCalledUno());
+        }
+        return players;
+    }
+
+    private static String idOf(Player player) {
+        return player != null ? player.getId() : null;
+    }
+}
@@ -0,0 +1,112 @@
+package com.uno.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra {@link TimingWheel}: hẹn giờ hết hạn đúng tick kể cả khi phải quay nhiều vòng, và hẹn
+ * giờ bị hủy không bao giờ chạy.
+ *
+ * Wheel 4 ô, mỗi tick 100ms: một vòng quay là 400ms. Thời gian được đưa vào bằng
+ * {@link TimingWheel#advance(long)} tính từ mốc của wheel, không chờ đồng hồ thật.
+ */
+class TimingWheelTest {
+    private static final long TICK_MILLIS = 100;
+
+    private long start;
+    private TimingWheel wheel;
+    private List<String> fired;
+
+    @BeforeEach
+    void setUp() {
+        start = System.nanoTime();
+        wheel = new TimingWheel(TICK_MILLIS, TimeUnit.MILLISECONDS, 4, start);
+        fired = new ArrayList<>();
+    }
+
+    @Test
+    void timeoutFiresOnlyAfterItsDeadline() {
+        wheel.schedule(() -> fired.add("a"), 250, TimeUnit.MILLISECONDS);
+
+        advanceTo(150);
+        assertTrue(fired.isEmpty());
+
+        advanceTo(400);
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void timeoutSeveralRoundsAwayWaitsForItsRound() {
+        // Cùng ô với hẹn giờ 300ms nhưng xa hơn hai vòng quay
+        wheel.schedule(() -> fired.add("near"), 300, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> fired.add("far"), 1100, TimeUnit.MILLISECONDS);
+
+        advanceTo(500);
+        assertEquals(List.of("near"), fired);
+
+        advanceTo(900);
+        assertEquals(List.of("near"), fired);
+
+        advanceTo(1300);
+        assertEquals(List.of("near", "far"), fired);
+    }
+
+    @Test
+    void cancelledBeforeReachingABucketNeverFires() {
+        TimingWheel.Timeout timeout = wheel.schedule(() -> fired.add("cancelled"), 200, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+
+        advanceTo(1000);
+        assertTrue(fired.isEmpty());
+    }
+
+    @Test
+    void cancelledAfterOneRoundNeverFires() {
+        TimingWheel.Timeout cancelled = wheel.schedule(() -> fired.add("cancelled"), 1000, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> fired.add("kept"), 1000, TimeUnit.MILLISECONDS);
+
+        // Hẹn giờ đã nằm trong ô và đã qua một vòng quay khi bị hủy
+        advanceTo(500);
+        assertTrue(cancelled.cancel());
+
+        advanceTo(1500);
+        assertEquals(List.of("kept"), fired);
+    }
+
+    @Test
+    void cancelAfterExpiryHasNoEffect() {
+        TimingWheel.Timeout timeout = wheel.schedule(() -> fired.add("a"), 100, TimeUnit.MILLISECONDS);
+
+        advanceTo(300);
+
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isCancelled());
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void failingTaskDoesNotStopOtherTimeouts() {
+        wheel.schedule(() -> {
+            throw new IllegalStateException("loi thu");
+        }, 100, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> fired.add("b"), 100, TimeUnit.MILLISECONDS);
+
+        advanceTo(300);
+
+        assertEquals(List.of("b"), fired);
+    }
+
+    private void advanceTo(long millis) {
+        wheel.advance(start + TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
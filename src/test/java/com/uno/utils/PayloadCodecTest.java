@@ -0,0 +1,300 @@
+package com.uno.utils;
+
+import com.uno.model.Card;
+import com.uno.model.CardColor;
+import com.uno.model.CardType;
+import com.uno.model.Game;
+import com.uno.model.Player;
+import com.uno.protocol.GameDelta;
+import com.uno.protocol.GameState;
+import com.uno.protocol.PlayerInfo;
+import com.uno.protocol.RoomDirectoryUpdate;
+import com.uno.protocol.RoomPage;
+import com.uno.protocol.RoomQuery;
+import com.uno.protocol.RoomSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.InvalidClassException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra mã hóa rồi giải mã mọi {@link MessageType} qua cả hai phiên bản giao thức.
+ *
+ * Mỗi loại tin nhắn có một mẫu dữ liệu đúng dạng mà server và client gửi thật; loại mới chưa
+ * có mẫu làm test thất bại để encoder của nó không bị bỏ sót.
+ */
+class PayloadCodecTest {
+    private static final PayloadCodec[] CODECS = {SerializedCodec.INSTANCE, BinaryCodec.INSTANCE};
+
+    @Test
+    void everyMessageTypeRoundTrips() throws Exception {
+        for (PayloadCodec codec : CODECS) {
+            for (MessageType type : MessageType.values()) {
+                Message message = new Message(type, sample(type), "17");
+
+                Message decoded = roundTrip(codec, message);
+
+                String context = type + " v" + codec.version();
+                assertEquals(type, decoded.getType(), context);
+                assertEquals("17", decoded.getSenderId(), context);
+                assertEquals(normalize(message.getData()), normalize(decoded.getData()), context);
+            }
+        }
+    }
+
+    @Test
+    void nonNumericSenderIdRoundTrips() throws Exception {
+        for (PayloadCodec codec : CODECS) {
+            Message decoded = roundTrip(codec, new Message(MessageType.INFO, "xin chao", "server"));
+
+            assertEquals("server", decoded.getSenderId());
+            assertEquals("xin chao", decoded.getData());
+        }
+    }
+
+    @Test
+    void binaryCodecFallsBackToSerializationForUnexpectedData() throws Exception {
+        List<Object> data = new ArrayList<>(Arrays.asList(1, "hai", true));
+
+        Message decoded = roundTrip(BinaryCodec.INSTANCE, new Message(MessageType.CHAT_MESSAGE, data, "1"));
+
+        assertEquals(data, decoded.getData());
+    }
+
+    @Test
+    void classesOutsideTheAllowListAreRejected() throws Exception {
+        Message message = new Message(MessageType.INFO, new ConcurrentHashMap<>(Map.of("k", "v")), "1");
+
+        for (PayloadCodec codec : CODECS) {
+            byte[] payload = codec.encode(message);
+            assertThrows(InvalidClassException.class, () -> codec.decode(payload, 0, payload.length),
+                    "v" + codec.version());
+        }
+    }
+
+    @Test
+    void decodeHonoursOffsetAndLength() throws Exception {
+        for (PayloadCodec codec : CODECS) {
+            byte[] payload = codec.encode(new Message(MessageType.PING, 42, "3"));
+            byte[] framed = new byte[payload.length + 10];
+            System.arraycopy(payload, 0, framed, 5, payload.length);
+
+            Message decoded = codec.decode(framed, 5, payload.length);
+
+            assertEquals(MessageType.PING, decoded.getType());
+            assertEquals(42, decoded.getData());
+        }
+    }
+
+    private static Message roundTrip(PayloadCodec codec, Message message) throws Exception {
+        byte[] payload = codec.encode(message);
+        return codec.decode(payload, 0, payload.length);
+    }
+
+    /**
+     * Dữ liệu mẫu của từng loại tin nhắn, cùng dạng mà server và client gửi
+     */
+    private static Object sample(MessageType type) {
+        switch (type) {
+            case CONNECT:
+                return "alice";
+            case CONNECT_ACCEPT:
+                return "17";
+            case CONNECT_REJECT:
+                return "Server da day";
+            case DISCONNECT:
+            case DRAW_CARD:
+            case END_TURN:
+                return null;
+            case CREATE_ROOM:
+                return "Phong cua alice";
+            case JOIN_ROOM:
+                return "3";
+            case LEAVE_ROOM:
+                return 5;
+            case ROOM_LIST:
+                return rooms();
+            case ROOM_UPDATE:
+                return new RoomSnapshot("3", "Phong 3", "1", "alice",
+                        List.of(new RoomSnapshot.Seat("1", "alice"), new RoomSnapshot.Seat("guest-x", "bob")),
+                        RoomSnapshot.Status.IN_GAME, 9);
+            case START_GAME:
+                return gameState().forViewer("1");
+            case GAME_UPDATE:
+                return gameState();
+            case PLAY_CARD:
+                return new Object[] {2, CardColor.GREEN.name()};
+            case CALL_UNO:
+                return "1";
+            case CHALLENGE:
+                return "2";
+            case GAME_OVER:
+                return "alice";
+            case CHAT_MESSAGE:
+                return "alice: xin chào";
+            case ERROR:
+                return "Khong phai luot cua ban";
+            case INFO:
+                return "";
+            case GAME_DELTA:
+                return new GameDelta(12, List.of(
+                        GameDelta.Event.cardPlayed("1", 3, Card.of(CardColor.RED, CardType.WILD_DRAW_FOUR, -1)),
+                        GameDelta.Event.cardsDrawn("2", 2, List.of(Card.of(CardColor.BLUE, CardType.NUMBER, 7),
+                                Card.of(CardColor.WILD, CardType.WILD, -1))),
+                        GameDelta.Event.cardsDrawn("3", 1, null),
+                        GameDelta.Event.directionChanged(false),
+                        GameDelta.Event.turnChanged("3"),
+                        GameDelta.Event.unoCalled("1"),
+                        GameDelta.Event.gameOver("1")));
+            case RESYNC_REQUEST:
+                return 11;
+            case ROOM_DIRECTORY:
+                return new RoomDirectoryUpdate(4, false, rooms(), List.of("8", "room-x"));
+            case ROOM_DIRECTORY_REQUEST:
+                return 7;
+            case ROOM_QUERY:
+                return new RoomQuery(6, "Pho", RoomQuery.Status.WAITING, 1, "Phong 2\u00003", 20);
+            case ROOM_PAGE:
+                return new RoomPage(6, rooms(), "Phong 9\u00009");
+            case SESSION_TOKEN:
+                return "r9iGTNW00VU7F-LshADS9A";
+            case RESUME:
+                return new Object[] {"r9iGTNW00VU7F-LshADS9A", -1};
+            case PING:
+                return 0;
+            case PONG:
+                return 300;
+            default:
+                throw new AssertionError("Chua co du lieu mau cho " + type);
+        }
+    }
+
+    private static List<Map<String, Object>> rooms() {
+        List<Map<String, Object>> rooms = new ArrayList<>();
+        rooms.add(room("1", "Phong 1", "alice", 2, false));
+        rooms.add(room("12", "Phòng có dấu", "bob", 4, true));
+        return rooms;
+    }
+
+    private static Map<String, Object> room(String id, String name, String hostName, int playerCount, boolean started) {
+        Map<String, Object> room = new HashMap<>();
+        room.put("id", id);
+        room.put("name", name);
+        room.put("hostName", hostName);
+        room.put("playerCount", playerCount);
+        room.put("gameStarted", started);
+        return room;
+    }
+
+    private static GameState gameState() {
+        Game game = new Game(7L);
+        Player alice = new Player("alice");
+        Player bob = new Player("bob");
+        game.addPlayer(alice);
+        game.addPlayer(bob);
+        assertTrue(game.startGame());
+        return GameState.withAllHands(game, 5);
+    }
+
+    /**
+     * Đưa dữ liệu tin nhắn về dạng so sánh được bằng equals: các DTO không cài equals nên được
+     * chuyển thành danh sách các trường
+     */
+    private static Object normalize(Object data) {
+        if (data == null || data instanceof String || data instanceof Number || data instanceof Boolean
+                || data instanceof Enum) {
+            return data;
+        }
+        if (data instanceof Card) {
+            return "card:" + ((Card) data).code();
+        }
+        if (data instanceof Object[]) {
+            return normalize(Arrays.asList((Object[]) data));
+        }
+        if (data instanceof List) {
+            List<Object> values = new ArrayList<>();
+            for (Object value : (List<?>) data) {
+                values.add(normalize(value));
+            }
+            return values;
+        }
+        if (data instanceof Map) {
+            Map<Object, Object> values = new TreeMap<>();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) data).entrySet()) {
+                values.put(entry.getKey(), normalize(entry.getValue()));
+            }
+            return values;
+        }
+        if (data instanceof RoomSnapshot) {
+            RoomSnapshot snapshot = (RoomSnapshot) data;
+            return fields(snapshot.getId(), snapshot.getName(), snapshot.getHostId(), snapshot.getHostName(),
+                    snapshot.getSeats(), snapshot.getStatus(), snapshot.getVersion());
+        }
+        if (data instanceof RoomSnapshot.Seat) {
+            RoomSnapshot.Seat seat = (RoomSnapshot.Seat) data;
+            return fields(seat.getPlayerId(), seat.getPlayerName());
+        }
+        if (data instanceof GameState) {
+            GameState state = (GameState) data;
+            return fields(state.getPlayerInfos(), state.getTopCard(), state.getCurrentPlayerId(), state.isClockwise(),
+                    state.isGameOver(), state.getWinnerId(), state.getVersion());
+        }
+        if (data instanceof PlayerInfo) {
+            PlayerInfo info = (PlayerInfo) data;
+            return fields(info.getId(), info.getName(), info.getHandSize(), info.getHand(), info.hasCalledUno());
+        }
+        if (data instanceof GameDelta) {
+            GameDelta delta = (GameDelta) data;
+            return fields(delta.getVersion(), delta.getEvents());
+        }
+        if (data instanceof GameDelta.Event) {
+            GameDelta.Event event = (GameDelta.Event) data;
+            switch (event.getKind()) {
+                case CARD_PLAYED:
+                    return fields(event.getKind(), event.getPlayerId(), event.getIndex(), event.getCard());
+                case CARDS_DRAWN:
+                    return fields(event.getKind(), event.getPlayerId(), event.getCount(), event.getCards());
+                case DIRECTION_CHANGED:
+                    return fields(event.getKind(), event.isClockwise());
+                default:
+                    return fields(event.getKind(), event.getPlayerId());
+            }
+        }
+        if (data instanceof RoomDirectoryUpdate) {
+            RoomDirectoryUpdate update = (RoomDirectoryUpdate) data;
+            return fields(update.getVersion(), update.isFull(), update.getRooms(), update.getRemovedRoomIds());
+        }
+        if (data instanceof RoomQuery) {
+            RoomQuery query = (RoomQuery) data;
+            return fields(query.getQueryId(), query.getNamePrefix(), query.getStatus(), query.getMinFreeSeats(),
+                    query.getCursor(), query.getLimit());
+        }
+        if (data instanceof RoomPage) {
+            RoomPage page = (RoomPage) data;
+            return fields(page.getQueryId(), page.getRooms(), page.getNextCursor());
+        }
+        throw new AssertionError("Khong so sanh duoc " + data.getClass());
+    }
+
+    private static List<Object> fields(Object... values) {
+        return Arrays.asList(data(values));
+    }
+
+    private static Object[] data(Object[] values) {
+        Object[] normalized = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            normalized[i] = normalize(values[i]);
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,171 @@
+package com.uno.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Kiểm tra ghi và đọc lại {@link WriteAheadLog}, kể cả khi segment có bản ghi bị cắt cụt hoặc hỏng.
+ */
+class WriteAheadLogTest {
+    private static final int SEGMENT_BYTES = 4096;
+    private static final int HEADER_BYTES = 8;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayReturnsRecordsInOrderAcrossSegments() throws IOException {
+        List<String> written = new ArrayList<>();
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_BYTES, false)) {
+            for (int i = 0; i < 300; i++) {
+                String record = "record-" + i;
+                log.append(bytes(record), 0, record.length());
+                written.add(record);
+            }
+        }
+        assertTrue(segments().size() > 1, "300 ban ghi phai tran sang nhieu segment");
+
+        assertEquals(written, replay());
+    }
+
+    @Test
+    void reopeningStartsANewSegmentAfterTheExistingOnes() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_BYTES, false)) {
+            append(log, "first");
+        }
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_BYTES, false)) {
+            append(log, "second");
+        }
+
+        assertEquals(2, segments().size());
+        assertEquals(List.of("first", "second"), replay());
+    }
+
+    @Test
+    void corruptRecordEndsOnlyItsOwnSegment() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_BYTES, false)) {
+            append(log, "a-1");
+            append(log, "a-2");
+            append(log, "a-3");
+            log.roll();
+            append(log, "b-1");
+            append(log, "b-2");
+        }
+
+        // Đổi một byte trong nội dung bản ghi thứ hai: CRC không còn khớp
+        Path first = segments().get(0);
+        int secondPayload = HEADER_BYTES + "a-1".length() + HEADER_BYTES;
+        try (FileChannel file = FileChannel.open(first, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[] {'X'}), secondPayload);
+        }
+
+        assertEquals(List.of("a-1", "b-1", "b-2"), replay());
+    }
+
+    @Test
+    void truncatedRecordIsDropped() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_BYTES, false)) {
+            append(log, "kept-1");
+            append(log, "kept-2");
+            append(log, "torn-record");
+        }
+
+        // Cắt segment giữa nội dung bản ghi cuối, như khi máy sập lúc đang ghi
+        Path segment = segments().get(0);
+        long cut = 2L * HEADER_BYTES + "kept-1".length() + "kept-2".length() + HEADER_BYTES + 4;
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.truncate(cut);
+        }
+
+        assertEquals(List.of("kept-1", "kept-2"), replay());
+    }
+
+    @Test
+    void tornHeaderWithoutPayloadIsDropped() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_BYTES, false)) {
+            append(log, "kept");
+        }
+
+        // Độ dài đã ghi nhưng CRC và nội dung chưa kịp ghi
+        Path segment = segments().get(0);
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.allocate(4).putInt(0, 16), HEADER_BYTES + "kept".length());
+        }
+
+        assertEquals(List.of("kept"), replay());
+    }
+
+    @Test
+    void logKeepsWorkingAfterRecoveringFromACorruptSegment() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_BYTES, false)) {
+            append(log, "before");
+            append(log, "lost");
+        }
+        try (FileChannel file = FileChannel.open(segments().get(0), StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 0}), HEADER_BYTES + "before".length() + 4);
+        }
+        assertEquals(List.of("before"), replay());
+
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_BYTES, false)) {
+            append(log, "after");
+        }
+
+        assertEquals(List.of("before", "after"), replay());
+    }
+
+    @Test
+    void commitForcesOnceForRecordsAlreadyDurable() throws IOException {
+        try (WriteAheadLog log = WriteAheadLog.open(directory, SEGMENT_BYTES, true)) {
+            long first = append(log, "one");
+            long second = append(log, "two");
+
+            log.commit(second);
+            log.commit(first);
+            log.commit(second);
+
+            assertEquals(1, log.getSyncCount());
+        }
+    }
+
+    private static long append(WriteAheadLog log, String record) throws IOException {
+        byte[] payload = bytes(record);
+        return log.append(payload, 0, payload.length);
+    }
+
+    private List<String> replay() throws IOException {
+        List<String> records = new ArrayList<>();
+        WriteAheadLog.replay(directory, 0, (segment, payload) -> {
+            byte[] copy = new byte[payload.remaining()];
+            payload.get(copy);
+            records.add(new String(copy, StandardCharsets.UTF_8));
+        });
+        return records;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("wal-"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}